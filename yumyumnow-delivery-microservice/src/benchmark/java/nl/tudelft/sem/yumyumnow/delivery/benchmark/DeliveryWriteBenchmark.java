@@ -0,0 +1,64 @@
+package nl.tudelft.sem.yumyumnow.delivery.benchmark;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.builders.DeliveryBuilder;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the throughput of inserting deliveries one row at a time with the batched insert path.
+ * Lives in its own source set, so it only runs with {@code ./gradlew benchmark} and never as part of {@code test}.
+ */
+@SpringBootTest
+public class DeliveryWriteBenchmark {
+    private static final int ROWS = 5000;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    private List<Delivery> newDeliveries() {
+        List<Delivery> deliveries = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            deliveries.add(new DeliveryBuilder()
+                    .setId(UUID.randomUUID())
+                    .setOrderId(UUID.randomUUID())
+                    .setVendorId(UUID.randomUUID())
+                    .setStatus(Delivery.StatusEnum.PENDING)
+                    .create());
+        }
+        return deliveries;
+    }
+
+    private double rowsPerSecond(long nanos) {
+        return ROWS / (nanos / 1_000_000_000.0);
+    }
+
+    @Test
+    void perRowVersusBatchedInserts() {
+        long before = deliveryRepository.count();
+
+        List<Delivery> perRow = newDeliveries();
+        long start = System.nanoTime();
+        for (Delivery delivery : perRow) {
+            deliveryRepository.save(delivery);
+        }
+        long perRowNanos = System.nanoTime() - start;
+
+        List<Delivery> batched = newDeliveries();
+        start = System.nanoTime();
+        deliveryRepository.persistAll(batched);
+        long batchedNanos = System.nanoTime() - start;
+
+        System.out.printf("Per-row save: %.0f rows/sec%n", rowsPerSecond(perRowNanos));
+        System.out.printf("Batched persistAll: %.0f rows/sec%n", rowsPerSecond(batchedNanos));
+
+        assertThat(deliveryRepository.count()).isEqualTo(before + 2L * ROWS);
+    }
+}
@@ -4,87 +4,92 @@ import nl.tudelft.sem.yumyumnow.delivery.application.validators.UserIsAdminValid
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.AccessForbiddenException;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.BadArgumentException;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.ServiceUnavailableException;
-import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryGroup;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryTotals;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DurationHistogram;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeMetric;
+import nl.tudelft.sem.yumyumnow.delivery.model.AdminAnalyticsSummaryGet200Response;
 import nl.tudelft.sem.yumyumnow.delivery.model.AdminMaxZoneGet200Response;
-import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import nl.tudelft.sem.yumyumnow.delivery.model.CourierEfficiency;
+import nl.tudelft.sem.yumyumnow.delivery.model.CourierEfficiencyPage;
+import nl.tudelft.sem.yumyumnow.delivery.model.IssueType;
+import nl.tudelft.sem.yumyumnow.delivery.model.TimePercentiles;
+import nl.tudelft.sem.yumyumnow.delivery.model.VendorPreparationTime;
+import nl.tudelft.sem.yumyumnow.delivery.model.VendorPreparationTimePage;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import java.math.BigDecimal;
-import java.time.Duration;
-import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class AdminService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String PAGE_ERROR = "Page cannot be negative and its size has to be between 1 and 100.";
 
-    private final OrderService orderService;
-    private final DeliveryRepository deliveryRepository;
+    private final DeliveryRollupService deliveryRollupService;
     private final VendorService vendorService;
+    private final IssueService issueService;
 
     private final String userServiceUrl;
     private final RestTemplate restTemplate;
-    private Random random;
     private final String userAccessError = "User has no right to get analytics.";
     private final String dateError = "Start date cannot be greater than end date.";
 
     /**
      * Constructor for admin service.
      *
-     * @param orderService        the service for order
-     * @param deliveryRepository  the repository for delivery
-     * @param vendorService       the service for the vendor
-     * @param restTemplateBuilder the rest template builder
+     * @param deliveryRollupService the service for the delivery rollups
+     * @param vendorService         the service for the vendor
+     * @param issueService          the service for the reported issues
+     * @param restTemplateBuilder   the rest template builder
      */
     @Autowired
-    public AdminService(OrderService orderService,
-                        DeliveryRepository deliveryRepository,
+    public AdminService(DeliveryRollupService deliveryRollupService,
                         VendorService vendorService,
+                        IssueService issueService,
                         RestTemplateBuilder restTemplateBuilder,
                         @Value("${user.microservice.url}") String userServiceUrl) {
-        this.orderService = orderService;
-        this.deliveryRepository = deliveryRepository;
+        this.deliveryRollupService = deliveryRollupService;
         this.vendorService = vendorService;
+        this.issueService = issueService;
         this.userServiceUrl = userServiceUrl;
         this.restTemplate = restTemplateBuilder.build();
-        this.random = new Random();
     }
 
     /**
      * Constructor for admin service.
      *
-     * @param orderService       the service for order
-     * @param deliveryRepository the repository for delivery
-     * @param vendorService      the service for the vendor
-     * @param restTemplate       the rest template
+     * @param deliveryRollupService the service for the delivery rollups
+     * @param vendorService         the service for the vendor
+     * @param issueService          the service for the reported issues
+     * @param restTemplate          the rest template
      */
-    public AdminService(OrderService orderService,
-                        DeliveryRepository deliveryRepository,
+    public AdminService(DeliveryRollupService deliveryRollupService,
                         VendorService vendorService,
+                        IssueService issueService,
                         RestTemplate restTemplate,
                         @Value("${user.microservice.url}") String userServiceUrl) {
-        this.orderService = orderService;
-        this.deliveryRepository = deliveryRepository;
+        this.deliveryRollupService = deliveryRollupService;
         this.vendorService = vendorService;
+        this.issueService = issueService;
         this.userServiceUrl = userServiceUrl;
         this.restTemplate = restTemplate;
     }
 
     /**
-     * Get a list of encountered issues.
+     * Check that a user may get the analytics of a period.
      *
-     * @param adminId   the admin id
-     * @param startDate the start date
-     * @param endDate   the end date
-     * @return a list of encountered issues
+     * @param adminId   the id of the admin
+     * @param startDate the start date of the period
+     * @param endDate   the end date of the period
      * @throws AccessForbiddenException if user has no right to get analytics
      * @throws BadArgumentException     if start date is greater than end date
      */
-    public List<String> getEncounteredIssues(UUID adminId, OffsetDateTime startDate, OffsetDateTime endDate)
+    public void checkAnalyticsAccess(UUID adminId, OffsetDateTime startDate, OffsetDateTime endDate)
             throws AccessForbiddenException, BadArgumentException {
         if (!new UserIsAdminValidator(null, getAdminUser(adminId, userServiceUrl)).process(null)) {
             throw new AccessForbiddenException(userAccessError);
@@ -92,36 +97,22 @@ public class AdminService {
         if (startDate.isAfter(endDate)) {
             throw new BadArgumentException(dateError);
         }
+    }
 
-        List<String> possibleIssues = List.of(
-                "Open bridge encountered",
-                "Traffic jam encountered",
-                "Road works encountered",
-                "Closed road encountered",
-                "Could not find address",
-                "Could not contact customer",
-                "Could not contact vendor",
-                "Vehicle broke down",
-                "Internet connection lost"
-        );
-
-        List<String> encounteredIssues = new ArrayList<>();
-
-        int daysBetweenDates = (int) Duration.between(startDate, endDate).toDays();
-
-        // Randomly generate a number of issues with random deliveries
-        if (random == null) {
-            random = new Random();
-            random.setSeed(0); // Set seed to 0 for reproducibility in tests
-        }
-
-        int numberOfIssues = random.nextInt(possibleIssues.size() * daysBetweenDates);
-        for (int i = 0; i < numberOfIssues; i++) {
-            int randomIndex = random.nextInt(possibleIssues.size());
-            encounteredIssues.add(possibleIssues.get(randomIndex));
-        }
-
-        return encounteredIssues;
+    /**
+     * Count the issues of every type that couriers reported between two given dates.
+     *
+     * @param adminId   the admin id
+     * @param startDate the start date
+     * @param endDate   the end date
+     * @return the number of reported issues of every type
+     * @throws AccessForbiddenException if user has no right to get analytics
+     * @throws BadArgumentException     if start date is greater than end date
+     */
+    public Map<IssueType, Long> getIssueCounts(UUID adminId, OffsetDateTime startDate, OffsetDateTime endDate)
+            throws AccessForbiddenException, BadArgumentException {
+        checkAnalyticsAccess(adminId, startDate, endDate);
+        return issueService.countsInPeriod(startDate, endDate);
     }
 
     /**
@@ -135,22 +126,8 @@ public class AdminService {
 
     public int getTotalDeliveriesAnalytic(UUID adminId, OffsetDateTime startDate, OffsetDateTime endDate)
             throws BadArgumentException, AccessForbiddenException, ServiceUnavailableException {
-        if (!new UserIsAdminValidator(null, getAdminUser(adminId, userServiceUrl)).process(null)) {
-            throw new AccessForbiddenException(userAccessError);
-        }
-        if (startDate.isAfter(endDate)) {
-            throw new BadArgumentException(dateError);
-        }
-        List<Delivery> deliveries = deliveryRepository.findAll();
-        if (deliveries.isEmpty()) {
-            return 0;
-        }
-        List<Delivery> filteredDeliveries = deliveries.stream()
-                .filter(x -> x.getEstimatedDeliveryTime() != null)
-                .filter(x -> x.getEstimatedDeliveryTime().isAfter(startDate)
-                        && x.getEstimatedDeliveryTime().isBefore(endDate))
-                .collect(Collectors.toList());
-        return filteredDeliveries.size();
+        checkAnalyticsAccess(adminId, startDate, endDate);
+        return (int) deliveryRollupService.countInPeriod(startDate, endDate);
     }
 
     /**
@@ -164,20 +141,8 @@ public class AdminService {
      */
     public int getSuccessfulDeliveriesAnalytic(UUID adminId, OffsetDateTime startDate, OffsetDateTime endDate)
             throws BadArgumentException, AccessForbiddenException, ServiceUnavailableException {
-        if (!new UserIsAdminValidator(null, getAdminUser(adminId, userServiceUrl)).process(null)) {
-            throw new AccessForbiddenException(userAccessError);
-        }
-        if (startDate.isAfter(endDate)) {
-            throw new BadArgumentException(dateError);
-        }
-
-        List<Delivery> deliveries = deliveryRepository.findAll();
-        List<Delivery> filteredDeliveries = deliveries.stream()
-                .filter(x -> x.getStatus() == Delivery.StatusEnum.DELIVERED
-                        && x.getEstimatedDeliveryTime().isAfter(startDate)
-                        && x.getEstimatedDeliveryTime().isBefore(endDate))
-                .collect(Collectors.toList());
-        return filteredDeliveries.size();
+        checkAnalyticsAccess(adminId, startDate, endDate);
+        return (int) deliveryRollupService.countDeliveredInPeriod(startDate, endDate);
     }
 
     /**
@@ -193,39 +158,8 @@ public class AdminService {
      */
     public long getPreparationTimeAnalytic(UUID adminId, OffsetDateTime startDate, OffsetDateTime endDate)
             throws AccessForbiddenException, BadArgumentException, ServiceUnavailableException {
-        if (!new UserIsAdminValidator(null, getAdminUser(adminId, userServiceUrl)).process(null)) {
-            throw new AccessForbiddenException(userAccessError);
-        }
-        if (startDate.isAfter(endDate)) {
-            throw new BadArgumentException(dateError);
-        }
-        List<Delivery> deliveries = deliveryRepository.findAll();
-        long totalSum = 0;
-        long numberOfDeliveries = 0;
-
-        List<Delivery> filteredDeliveries = deliveries.stream()
-                .filter(x -> x.getStatus() == Delivery.StatusEnum.DELIVERED
-                        && x.getEstimatedDeliveryTime().isAfter(startDate)
-                        && x.getEstimatedDeliveryTime().isBefore(endDate))
-                .collect(Collectors.toList());
-
-        for (Delivery delivery : filteredDeliveries) {
-            BigDecimal timePlacement = orderService.getTimeOfPlacement(delivery.getOrderId());
-            if (timePlacement == null) {
-                continue;
-            }
-            OffsetDateTime preparationFinishTime = delivery.getEstimatedPreparationFinishTime();
-            // Convert both times to Instant.
-            Instant startInstant = Instant.ofEpochMilli(timePlacement.longValue());
-            Instant endInstant = preparationFinishTime.toInstant();
-
-            totalSum += Duration.between(startInstant, endInstant).toMinutes();
-            numberOfDeliveries++;
-        }
-        if (numberOfDeliveries != 0) {
-            return totalSum / numberOfDeliveries;
-        }
-        return 0;
+        checkAnalyticsAccess(adminId, startDate, endDate);
+        return deliveryRollupService.preparationMinutesInPeriod(startDate, endDate).average();
     }
 
     /**
@@ -241,32 +175,8 @@ public class AdminService {
      */
     public long getDeliveryTimeAnalytic(UUID adminId, OffsetDateTime startDate, OffsetDateTime endDate)
             throws AccessForbiddenException, BadArgumentException, ServiceUnavailableException {
-        if (!new UserIsAdminValidator(null, getAdminUser(adminId, userServiceUrl)).process(null)) {
-            throw new AccessForbiddenException(userAccessError);
-        }
-        if (startDate.isAfter(endDate)) {
-            throw new BadArgumentException(dateError);
-        }
-        List<Delivery> relevantDeliveries = deliveryRepository.findAll()
-                .stream()
-                .filter(x -> x.getStatus() == Delivery.StatusEnum.DELIVERED
-                        && x.getEstimatedDeliveryTime().isAfter(startDate)
-                        && x.getEstimatedDeliveryTime().isBefore(endDate))
-                .collect(Collectors.toList());
-        long totalTime = 0;
-        long numberOfDeliveries = 0;
-        for (Delivery delivery : relevantDeliveries) {
-            OffsetDateTime preparationFinishTime = delivery.getEstimatedPreparationFinishTime();
-            OffsetDateTime deliveryTime = delivery.getEstimatedDeliveryTime();
-            Duration difference = Duration.between(preparationFinishTime, deliveryTime);
-
-            totalTime += difference.toMinutes();
-            numberOfDeliveries++;
-        }
-        if (numberOfDeliveries != 0) {
-            return totalTime / numberOfDeliveries;
-        }
-        return 0;
+        checkAnalyticsAccess(adminId, startDate, endDate);
+        return deliveryRollupService.deliveryMinutesInPeriod(startDate, endDate).average();
     }
 
     /**
@@ -332,21 +242,192 @@ public class AdminService {
      */
     public long getDriverEfficiencyAnalytic(UUID adminId, OffsetDateTime startDate, OffsetDateTime endDate)
             throws AccessForbiddenException, BadArgumentException {
-        if (!new UserIsAdminValidator(null, getAdminUser(adminId, userServiceUrl)).process(null)) {
-            throw new AccessForbiddenException(userAccessError);
+        checkAnalyticsAccess(adminId, startDate, endDate);
+        long numberOfDeliveries = deliveryRollupService.countInPeriod(startDate, endDate);
+        long numberOfSuccessfulDeliveries = deliveryRollupService.countDeliveredInPeriod(startDate, endDate);
+        return driverEfficiency(numberOfDeliveries, numberOfSuccessfulDeliveries);
+    }
+
+    /**
+     * Get all delivery analytics between two given dates at once. The admin is checked once,
+     * and all metrics are computed together from a single pass over the period.
+     *
+     * @param adminId   the id of the admin
+     * @param startDate the start date of the period
+     * @param endDate   the end date of the period
+     * @return the total and successful deliveries, the average preparation and delivery time
+     *         and the driver efficiency of the period
+     * @throws AccessForbiddenException    when the user has no right to access the analytics
+     * @throws BadArgumentException        when the provided arguments are wrong
+     * @throws ServiceUnavailableException when the service does not respond
+     */
+    public AdminAnalyticsSummaryGet200Response getAnalyticsSummary(UUID adminId, OffsetDateTime startDate,
+                                                                   OffsetDateTime endDate)
+            throws AccessForbiddenException, BadArgumentException, ServiceUnavailableException {
+        checkAnalyticsAccess(adminId, startDate, endDate);
+        return summaryOf(deliveryRollupService.totalsInPeriod(startDate, endDate), startDate, endDate);
+    }
+
+    /**
+     * Build the summary of all delivery analytics of a period from its totals.
+     *
+     * @param totals    the totals of the period
+     * @param startDate the start date of the period
+     * @param endDate   the end date of the period
+     * @return the total and successful deliveries, the average preparation and delivery time
+     *         and the driver efficiency of the period
+     */
+    static AdminAnalyticsSummaryGet200Response summaryOf(DeliveryTotals totals, OffsetDateTime startDate,
+                                                         OffsetDateTime endDate) {
+        AdminAnalyticsSummaryGet200Response response = new AdminAnalyticsSummaryGet200Response();
+        response.setStartDate(startDate);
+        response.setEndDate(endDate);
+        response.setTotalDeliveries(BigDecimal.valueOf(totals.getDeliveries()));
+        response.setSuccessfulDeliveries(BigDecimal.valueOf(totals.getDelivered()));
+        response.setPreparationTime(BigDecimal.valueOf(totals.getPreparationMinutes().average()));
+        response.setDeliveryTime(BigDecimal.valueOf(totals.getDeliveryMinutes().average()));
+        response.setDriverEfficiency(BigDecimal.valueOf(
+                driverEfficiency(totals.getDeliveries(), totals.getDelivered())));
+        return response;
+    }
+
+    /**
+     * Get the percentiles of a duration of the delivered deliveries between two given dates.
+     *
+     * @param adminId   the id of the admin
+     * @param metric    the duration to get the percentiles of
+     * @param startDate the start date of the period
+     * @param endDate   the end date of the period
+     * @return the number of durations and their median, 90th and 99th percentile and maximum in minutes
+     * @throws AccessForbiddenException    when the user has no right to access the analytics
+     * @throws BadArgumentException        when the provided arguments are wrong
+     * @throws ServiceUnavailableException when the service does not respond
+     */
+    public TimePercentiles getTimePercentiles(UUID adminId, TimeMetric metric,
+                                              OffsetDateTime startDate, OffsetDateTime endDate)
+            throws AccessForbiddenException, BadArgumentException, ServiceUnavailableException {
+        checkAnalyticsAccess(adminId, startDate, endDate);
+        return percentilesOf(deliveryRollupService.histogramInPeriod(metric, startDate, endDate), startDate, endDate);
+    }
+
+    /**
+     * Build the percentiles of a duration in a period from its histogram.
+     *
+     * @param histogram the histogram of the duration in the period
+     * @param startDate the start date of the period
+     * @param endDate   the end date of the period
+     * @return the number of durations and their median, 90th and 99th percentile and maximum in minutes
+     */
+    static TimePercentiles percentilesOf(DurationHistogram histogram, OffsetDateTime startDate,
+                                         OffsetDateTime endDate) {
+        TimePercentiles response = new TimePercentiles();
+        response.setStartDate(startDate);
+        response.setEndDate(endDate);
+        response.setCount(BigDecimal.valueOf(histogram.count()));
+        response.setP50(BigDecimal.valueOf(histogram.percentile(50)));
+        response.setP90(BigDecimal.valueOf(histogram.percentile(90)));
+        response.setP99(BigDecimal.valueOf(histogram.percentile(99)));
+        response.setMax(BigDecimal.valueOf(histogram.max()));
+        return response;
+    }
+
+    /**
+     * Get the efficiency of every courier between two given dates, the most efficient couriers first.
+     * The deliveries of all couriers are counted in a single pass over the period, and only the requested
+     * page of couriers is returned, so the first page holds the top couriers.
+     *
+     * @param adminId   the id of the admin
+     * @param startDate the start date of the period
+     * @param endDate   the end date of the period
+     * @param page      the page of couriers, starting at 0
+     * @param size      the number of couriers per page
+     * @return the requested page of couriers with their deliveries and driver efficiency
+     * @throws AccessForbiddenException if user has no right to get analytics
+     * @throws BadArgumentException     if start date is greater than end date, or the page is out of range
+     */
+    public CourierEfficiencyPage getDriverEfficiencyPerCourier(UUID adminId, OffsetDateTime startDate,
+                                                               OffsetDateTime endDate, int page, int size)
+            throws AccessForbiddenException, BadArgumentException {
+        checkAnalyticsAccess(adminId, startDate, endDate);
+        checkPage(page, size);
+        Map<UUID, DeliveryTotals> totals =
+                deliveryRollupService.totalsPerGroupInPeriod(DeliveryGroup.COURIER, startDate, endDate);
+
+        List<CourierEfficiency> couriers = new ArrayList<>(totals.size());
+        totals.forEach((courierId, courierTotals) -> couriers.add(new CourierEfficiency()
+                .courierId(courierId)
+                .deliveries(BigDecimal.valueOf(courierTotals.getDeliveries()))
+                .successfulDeliveries(BigDecimal.valueOf(courierTotals.getDelivered()))
+                .driverEfficiency(BigDecimal.valueOf(
+                        driverEfficiency(courierTotals.getDeliveries(), courierTotals.getDelivered())))));
+        couriers.sort(Comparator.comparing(CourierEfficiency::getDriverEfficiency).reversed()
+                .thenComparing(Comparator.comparing(CourierEfficiency::getDeliveries).reversed())
+                .thenComparing(CourierEfficiency::getCourierId));
+
+        return new CourierEfficiencyPage()
+                .startDate(startDate)
+                .endDate(endDate)
+                .page(page)
+                .size(size)
+                .totalGroups(couriers.size())
+                .couriers(pageOf(couriers, page, size));
+    }
+
+    /**
+     * Get the average time of order preparation of every vendor between two given dates, the slowest vendors
+     * first. The deliveries of all vendors are counted in a single pass over the period, and only the requested
+     * page of vendors is returned, so the first page holds the top vendors.
+     *
+     * @param adminId   the id of the admin
+     * @param startDate the start date of the period
+     * @param endDate   the end date of the period
+     * @param page      the page of vendors, starting at 0
+     * @param size      the number of vendors per page
+     * @return the requested page of vendors with their average preparation time in minutes
+     * @throws AccessForbiddenException if user has no right to get analytics
+     * @throws BadArgumentException     if start date is greater than end date, or the page is out of range
+     */
+    public VendorPreparationTimePage getPreparationTimePerVendor(UUID adminId, OffsetDateTime startDate,
+                                                                 OffsetDateTime endDate, int page, int size)
+            throws AccessForbiddenException, BadArgumentException {
+        checkAnalyticsAccess(adminId, startDate, endDate);
+        checkPage(page, size);
+        Map<UUID, DeliveryTotals> totals =
+                deliveryRollupService.totalsPerGroupInPeriod(DeliveryGroup.VENDOR, startDate, endDate);
+
+        List<VendorPreparationTime> vendors = new ArrayList<>(totals.size());
+        totals.forEach((vendorId, vendorTotals) -> vendors.add(new VendorPreparationTime()
+                .vendorId(vendorId)
+                .deliveries(BigDecimal.valueOf(vendorTotals.getPreparationMinutes().getDeliveries()))
+                .preparationTime(BigDecimal.valueOf(vendorTotals.getPreparationMinutes().average()))));
+        vendors.sort(Comparator.comparing(VendorPreparationTime::getPreparationTime).reversed()
+                .thenComparing(Comparator.comparing(VendorPreparationTime::getDeliveries).reversed())
+                .thenComparing(VendorPreparationTime::getVendorId));
+
+        return new VendorPreparationTimePage()
+                .startDate(startDate)
+                .endDate(endDate)
+                .page(page)
+                .size(size)
+                .totalGroups(vendors.size())
+                .vendors(pageOf(vendors, page, size));
+    }
+
+    private static void checkPage(int page, int size) throws BadArgumentException {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadArgumentException(PAGE_ERROR);
         }
-        if (startDate.isAfter(endDate)) {
-            throw new BadArgumentException(dateError);
+    }
+
+    private static <T> List<T> pageOf(List<T> groups, int page, int size) {
+        long from = (long) page * size;
+        if (from >= groups.size()) {
+            return new ArrayList<>();
         }
-        List<Delivery> deliveries = deliveryRepository.findAll();
-        long numberOfDeliveries = deliveries.size();
-
-        List<Delivery> filteredDeliveries = deliveries.stream()
-                .filter(x -> x.getStatus() == Delivery.StatusEnum.DELIVERED
-                        && x.getEstimatedDeliveryTime().isAfter(startDate)
-                        && x.getEstimatedDeliveryTime().isBefore(endDate))
-                .collect(Collectors.toList());
-        long numberOfSuccessfulDeliveries = filteredDeliveries.size();
+        return new ArrayList<>(groups.subList((int) from, (int) Math.min(groups.size(), from + size)));
+    }
+
+    private static long driverEfficiency(long numberOfDeliveries, long numberOfSuccessfulDeliveries) {
         if (numberOfDeliveries != 0) {
             return numberOfSuccessfulDeliveries * 100 / numberOfDeliveries;
         }
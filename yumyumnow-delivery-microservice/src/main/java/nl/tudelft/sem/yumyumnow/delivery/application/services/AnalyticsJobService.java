@@ -0,0 +1,293 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.AccessForbiddenException;
+import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.BadArgumentException;
+import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.ServiceUnavailableException;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeMetric;
+import nl.tudelft.sem.yumyumnow.delivery.model.AnalyticsJob;
+import nl.tudelft.sem.yumyumnow.delivery.model.AnalyticsJobStatus;
+import nl.tudelft.sem.yumyumnow.delivery.model.AnalyticsJobType;
+import nl.tudelft.sem.yumyumnow.delivery.model.TimePercentiles;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes analytics over long periods in the background, so a request does not hold a web server thread
+ * for as long as the analytic takes. A submitted job is queued on a pool of its own with a bounded queue;
+ * when the queue is full, new jobs are refused instead of piling up. A job that is not finished within
+ * its timeout, counted from its submission, is cancelled. Finished jobs are kept for a limited time
+ * for their result to be fetched. The access of the admin is checked when a job is submitted, so the jobs
+ * compute their analytic from the rollups without calling the user microservice again.
+ */
+@Service
+public class AnalyticsJobService implements DisposableBean {
+    private final AdminService adminService;
+    private final DeliveryRollupService deliveryRollupService;
+    private final Clock clock;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService scheduler;
+    private final Duration timeout;
+    private final Duration resultTtl;
+    private final Map<UUID, Job> jobs = new ConcurrentHashMap<>();
+
+    private final Counter submitted;
+    private final Counter rejected;
+    private final Counter timedOut;
+
+    /**
+     * Create a new AnalyticsJobService.
+     *
+     * @param adminService          the service checking the access of the admin
+     * @param deliveryRollupService the service computing the analytics
+     * @param clock                 the clock giving the submission and finishing time of the jobs
+     * @param threads               the number of jobs that run at the same time
+     * @param queueCapacity         the number of jobs that can wait for a thread
+     * @param timeoutSeconds        the time a job may take from its submission until it is finished
+     * @param resultTtlMinutes      the time a finished job is kept
+     * @param meterRegistry         registry for the job metrics
+     */
+    @Autowired
+    public AnalyticsJobService(AdminService adminService, DeliveryRollupService deliveryRollupService, Clock clock,
+                               @Value("${analytics.jobs.threads:2}") int threads,
+                               @Value("${analytics.jobs.queueCapacity:20}") int queueCapacity,
+                               @Value("${analytics.jobs.timeoutSeconds:300}") long timeoutSeconds,
+                               @Value("${analytics.jobs.resultTtlMinutes:15}") long resultTtlMinutes,
+                               MeterRegistry meterRegistry) {
+        if (threads <= 0 || queueCapacity <= 0 || timeoutSeconds <= 0 || resultTtlMinutes <= 0) {
+            throw new IllegalArgumentException("Threads, queue capacity, timeout and result TTL have to be positive.");
+        }
+        this.adminService = adminService;
+        this.deliveryRollupService = deliveryRollupService;
+        this.clock = clock;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("analytics-job-"));
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, daemonThreads("analytics-job-timer-"));
+        // The timeouts of finished jobs are cancelled, so they do not wait in the queue until they are due
+        timer.setRemoveOnCancelPolicy(true);
+        this.scheduler = timer;
+        this.timeout = Duration.ofSeconds(timeoutSeconds);
+        this.resultTtl = Duration.ofMinutes(resultTtlMinutes);
+
+        this.submitted = meterRegistry.counter("analytics.jobs.submitted");
+        this.rejected = meterRegistry.counter("analytics.jobs.rejected");
+        this.timedOut = meterRegistry.counter("analytics.jobs.timedout");
+        meterRegistry.gauge("analytics.jobs.queued", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("analytics.jobs.running", executor, ThreadPoolExecutor::getActiveCount);
+
+        long purgeSeconds = Math.max(1, resultTtl.getSeconds() / 4);
+        scheduler.scheduleWithFixedDelay(this::purgeExpired, purgeSeconds, purgeSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queue an analytic to be computed in the background.
+     * The access of the admin is checked at once, so a job is only queued when it can succeed.
+     *
+     * @param adminId   the id of the admin
+     * @param type      the analytic to compute
+     * @param startDate the start date of the period
+     * @param endDate   the end date of the period
+     * @return the queued job
+     * @throws AccessForbiddenException    if user has no right to get analytics
+     * @throws BadArgumentException        if the type is missing or start date is greater than end date
+     * @throws ServiceUnavailableException if too many jobs are queued already
+     */
+    public AnalyticsJob submit(UUID adminId, AnalyticsJobType type, OffsetDateTime startDate, OffsetDateTime endDate)
+            throws AccessForbiddenException, BadArgumentException, ServiceUnavailableException {
+        if (type == null) {
+            throw new BadArgumentException("Analytics job type is missing.");
+        }
+        adminService.checkAnalyticsAccess(adminId, startDate, endDate);
+
+        Job job = new Job(UUID.randomUUID(), adminId, type, startDate, endDate, OffsetDateTime.now(clock));
+        Callable<Object> computation = computationOf(job);
+        jobs.put(job.id, job);
+        try {
+            job.future = executor.submit(() -> run(job, computation));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            rejected.increment();
+            throw new ServiceUnavailableException("Too many analytics jobs are queued.");
+        }
+        submitted.increment();
+        job.timeoutTask = scheduler.schedule(() -> timeOut(job), timeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (job.finishedAt != null) {
+            // Finished before its timeout was scheduled
+            job.timeoutTask.cancel(false);
+        }
+        return job.toAnalyticsJob();
+    }
+
+    /**
+     * Get a job that is running or that finished recently.
+     *
+     * @param adminId the id of the admin that submitted the job
+     * @param jobId   the id of the job
+     * @return the job, or empty if it does not exist, expired or was submitted by another admin
+     */
+    public Optional<AnalyticsJob> getJob(UUID adminId, UUID jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null || !job.adminId.equals(adminId) || isExpired(job)) {
+            return Optional.empty();
+        }
+        return Optional.of(job.toAnalyticsJob());
+    }
+
+    /**
+     * Drop the finished jobs whose results were kept for longer than their TTL.
+     */
+    public void purgeExpired() {
+        jobs.values().removeIf(this::isExpired);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private Callable<Object> computationOf(Job job) {
+        switch (job.type) {
+            case SUMMARY:
+                return () -> AdminService.summaryOf(
+                        deliveryRollupService.totalsInPeriod(job.startDate, job.endDate), job.startDate, job.endDate);
+            case PREPARATION_TIME_PERCENTILES:
+                return () -> percentilesOf(job, TimeMetric.PREPARATION);
+            case DELIVERY_TIME_PERCENTILES:
+                return () -> percentilesOf(job, TimeMetric.DELIVERY);
+            default:
+                throw new IllegalStateException("Unknown analytics job type " + job.type);
+        }
+    }
+
+    private TimePercentiles percentilesOf(Job job, TimeMetric metric) {
+        return AdminService.percentilesOf(
+                deliveryRollupService.histogramInPeriod(metric, job.startDate, job.endDate), job.startDate, job.endDate);
+    }
+
+    private void run(Job job, Callable<Object> computation) {
+        if (!job.start()) {
+            // Timed out while it was queued
+            return;
+        }
+        try {
+            Object result = computation.call();
+            job.finish(AnalyticsJobStatus.SUCCEEDED, result, null, OffsetDateTime.now(clock));
+        } catch (Exception e) {
+            job.finish(AnalyticsJobStatus.FAILED, null, "Analytic could not be computed.",
+                    OffsetDateTime.now(clock));
+        } finally {
+            Future<?> timeoutTask = job.timeoutTask;
+            if (timeoutTask != null) {
+                timeoutTask.cancel(false);
+            }
+        }
+    }
+
+    private void timeOut(Job job) {
+        if (job.finish(AnalyticsJobStatus.TIMED_OUT, null, "Analytic took too long to compute.",
+                OffsetDateTime.now(clock))) {
+            timedOut.increment();
+            job.future.cancel(true);
+            // Free the place in the queue of a job that did not start yet
+            executor.purge();
+        }
+    }
+
+    private boolean isExpired(Job job) {
+        OffsetDateTime finishedAt = job.finishedAt;
+        return finishedAt != null && !finishedAt.plus(resultTtl).isAfter(OffsetDateTime.now(clock));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger number = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + number.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A submitted job. Its status only moves forward, from queued to running to one of the finished states,
+     * so a job that timed out is not marked succeeded by its computation finishing afterwards.
+     */
+    private static class Job {
+        private final UUID id;
+        private final UUID adminId;
+        private final AnalyticsJobType type;
+        private final OffsetDateTime startDate;
+        private final OffsetDateTime endDate;
+        private final OffsetDateTime submittedAt;
+
+        private volatile Future<?> future;
+        private volatile Future<?> timeoutTask;
+        private volatile AnalyticsJobStatus status = AnalyticsJobStatus.QUEUED;
+        private volatile OffsetDateTime finishedAt;
+        private volatile Object result;
+        private volatile String error;
+
+        Job(UUID id, UUID adminId, AnalyticsJobType type, OffsetDateTime startDate, OffsetDateTime endDate,
+            OffsetDateTime submittedAt) {
+            this.id = id;
+            this.adminId = adminId;
+            this.type = type;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.submittedAt = submittedAt;
+        }
+
+        synchronized boolean start() {
+            if (status != AnalyticsJobStatus.QUEUED) {
+                return false;
+            }
+            status = AnalyticsJobStatus.RUNNING;
+            return true;
+        }
+
+        synchronized boolean finish(AnalyticsJobStatus finalStatus, Object result, String error,
+                                    OffsetDateTime finishedAt) {
+            if (this.finishedAt != null) {
+                return false;
+            }
+            this.result = result;
+            this.error = error;
+            this.finishedAt = finishedAt;
+            this.status = finalStatus;
+            return true;
+        }
+
+        synchronized AnalyticsJob toAnalyticsJob() {
+            return new AnalyticsJob()
+                    .id(id)
+                    .type(type)
+                    .status(status)
+                    .startDate(startDate)
+                    .endDate(endDate)
+                    .submittedAt(submittedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .result(result);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of analytics results, keyed by the metric and the period they were computed for.
+ * A result only changes when a delivery in its period changes, so results are kept until a write
+ * touches an hour of their period: results of periods in the past stay valid, while results of periods
+ * overlapping the current time are dropped as deliveries are updated. When the cache is full,
+ * the least recently used result is evicted.
+ * The cached periods are indexed by their end, so a change only looks at the periods that end after it.
+ * Changes are mostly made around the current time, so the results of past periods are not looked at.
+ */
+@Service
+public class AnalyticsResultCache {
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    private final int maxEntries;
+    private final Map<Key, Object> entries;
+    private final NavigableMap<Instant, Set<Key>> keysByEnd;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter invalidations;
+
+    /**
+     * Incremented on every write, so a result computed while a write happened is not stored.
+     */
+    private long version;
+
+    /**
+     * Create a new AnalyticsResultCache.
+     *
+     * @param maxEntries    the maximum number of results to keep, or 0 to not cache at all
+     * @param meterRegistry registry for the hit, miss, eviction and invalidation metrics
+     */
+    @Autowired
+    public AnalyticsResultCache(@Value("${analytics.cache.maxEntries:1000}") int maxEntries,
+                                MeterRegistry meterRegistry) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Maximum number of cached results cannot be negative.");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.keysByEnd = new TreeMap<>();
+        this.hits = meterRegistry.counter("analytics.cache.hits");
+        this.misses = meterRegistry.counter("analytics.cache.misses");
+        this.evictions = meterRegistry.counter("analytics.cache.evictions");
+        this.invalidations = meterRegistry.counter("analytics.cache.invalidations");
+        meterRegistry.gauge("analytics.cache.size", this, AnalyticsResultCache::size);
+        meterRegistry.gauge("analytics.cache.hit.ratio", this, AnalyticsResultCache::hitRatio);
+    }
+
+    /**
+     * Get the result of a metric over a period, computing and caching it when it is not cached.
+     * Cached results are shared between callers, so they must not be modified.
+     *
+     * @param metric    the name of the metric
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @param compute   computes the result when it is not cached
+     * @param <T>       the type of the result
+     * @return the result of the metric over the period
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String metric, OffsetDateTime startDate, OffsetDateTime endDate, Supplier<T> compute) {
+        if (maxEntries == 0) {
+            return compute.get();
+        }
+        Key key = new Key(metric, startDate.toInstant(), endDate.toInstant());
+        long versionBefore;
+        synchronized (this) {
+            Object cached = entries.get(key);
+            if (cached != null) {
+                hits.increment();
+                return (T) cached;
+            }
+            versionBefore = version;
+        }
+        misses.increment();
+
+        // Computed outside the lock, so a slow period does not hold up the other ones
+        T result = compute.get();
+        synchronized (this) {
+            if (result != null && version == versionBefore) {
+                if (entries.put(key, result) == null) {
+                    keysByEnd.computeIfAbsent(key.endDate, end -> new HashSet<>()).add(key);
+                }
+                evictEldest();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drop the results of all periods that overlap an hour in which a delivery changed.
+     *
+     * @param epochHour the hour of the change, in hours since the epoch
+     */
+    public synchronized void invalidateHour(long epochHour) {
+        version++;
+        Instant hourStart = Instant.ofEpochSecond(epochHour * SECONDS_PER_HOUR);
+        Instant hourEnd = hourStart.plusSeconds(SECONDS_PER_HOUR);
+        Iterator<Set<Key>> endingAfter = keysByEnd.tailMap(hourStart, false).values().iterator();
+        while (endingAfter.hasNext()) {
+            Set<Key> keys = endingAfter.next();
+            keys.removeIf(key -> {
+                if (!key.startDate.isBefore(hourEnd)) {
+                    return false;
+                }
+                entries.remove(key);
+                invalidations.increment();
+                return true;
+            });
+            if (keys.isEmpty()) {
+                endingAfter.remove();
+            }
+        }
+    }
+
+    /**
+     * Drop the results of all periods, after the rollups they were computed from were rebuilt.
+     */
+    public synchronized void invalidateAll() {
+        version++;
+        invalidations.increment(entries.size());
+        entries.clear();
+        keysByEnd.clear();
+    }
+
+    /**
+     * Get the number of cached results.
+     *
+     * @return the number of cached results
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the fraction of lookups that were answered from the cache.
+     *
+     * @return the hit ratio between 0 and 1, or 0 if nothing was looked up yet
+     */
+    public double hitRatio() {
+        double lookups = hits.count() + misses.count();
+        return lookups == 0 ? 0 : hits.count() / lookups;
+    }
+
+    private void evictEldest() {
+        Iterator<Key> keys = entries.keySet().iterator();
+        while (entries.size() > maxEntries) {
+            Key eldest = keys.next();
+            keys.remove();
+            Set<Key> endingTogether = keysByEnd.get(eldest.endDate);
+            endingTogether.remove(eldest);
+            if (endingTogether.isEmpty()) {
+                keysByEnd.remove(eldest.endDate);
+            }
+            evictions.increment();
+        }
+    }
+
+    @EqualsAndHashCode
+    private static class Key {
+        private final String metric;
+        private final Instant startDate;
+        private final Instant endDate;
+
+        Key(String metric, Instant startDate, Instant endDate) {
+            this.metric = metric;
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+    }
+}
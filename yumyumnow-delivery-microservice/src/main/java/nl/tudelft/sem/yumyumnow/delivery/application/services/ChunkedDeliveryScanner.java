@@ -0,0 +1,166 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Walks the deliveries of a period in chunks of time. Periods longer than one chunk are split in halves
+ * until every part fits in a chunk, the parts are evaluated in parallel and their accumulators merged.
+ * The work runs on a fork/join pool of its own with a fixed number of threads, so a long scan neither
+ * occupies more cores than configured nor the request threads of the web server.
+ * Every chunk holds a database connection while it is fetched, so at most half of the connection pool
+ * is fetched from at once, leaving the other half to the requests.
+ */
+@Service
+public class ChunkedDeliveryScanner implements DisposableBean {
+    private final ForkJoinPool pool;
+    private final Duration chunkSize;
+    private final int maxConcurrentFetches;
+    private final Semaphore connections;
+
+    /**
+     * Create a new ChunkedDeliveryScanner.
+     *
+     * @param parallelism        the number of threads of the pool, or 0 to use one per available core,
+     *                           but no more than the chunks that may be fetched at once
+     * @param chunkHours         the number of hours of deliveries that are walked by a single task
+     * @param connectionPoolSize the maximum number of connections of the database connection pool
+     */
+    @Autowired
+    public ChunkedDeliveryScanner(@Value("${analytics.scan.parallelism:0}") int parallelism,
+                                  @Value("${analytics.scan.chunkHours:24}") long chunkHours,
+                                  @Value("${jdbc.pool.maxSize:10}") int connectionPoolSize) {
+        if (parallelism < 0 || chunkHours <= 0 || connectionPoolSize <= 0) {
+            throw new IllegalArgumentException("Parallelism cannot be negative, "
+                    + "chunk size and connection pool size have to be positive.");
+        }
+        int fetches = Math.max(1, connectionPoolSize / 2);
+        int threads = parallelism == 0 ? Math.min(Runtime.getRuntime().availableProcessors(), fetches) : parallelism;
+        this.pool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("analytics-scan-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.chunkSize = Duration.ofHours(chunkHours);
+        // Also bounds the threads the pool adds while others wait for their subtasks
+        this.maxConcurrentFetches = fetches;
+        this.connections = new Semaphore(fetches);
+    }
+
+    /**
+     * Accumulate the deliveries of a period.
+     *
+     * @param startDate      the (exclusive) start of the period
+     * @param endDate        the (exclusive) end of the period
+     * @param fetch          finds the deliveries of an (exclusive) part of the period
+     * @param newAccumulator creates an empty accumulator
+     * @param add            adds a delivery to an accumulator
+     * @param merge          merges two accumulators, possibly by modifying and returning the first one
+     * @param <A>            the type of the accumulator
+     * @return the accumulator holding all deliveries of the period
+     */
+    public <A> A scan(OffsetDateTime startDate, OffsetDateTime endDate,
+                      BiFunction<OffsetDateTime, OffsetDateTime, List<Delivery>> fetch,
+                      Supplier<A> newAccumulator, BiConsumer<A, Delivery> add, BinaryOperator<A> merge) {
+        ChunkTask<A> task = new ChunkTask<>(startDate, false, endDate, fetch, newAccumulator, add, merge);
+        if (!task.isLarge()) {
+            // Not worth handing over to the pool
+            return task.compute();
+        }
+        return pool.invoke(task);
+    }
+
+    /**
+     * Get the number of threads of the pool.
+     *
+     * @return the parallelism of the pool
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Get the number of chunks that may be fetched at once.
+     *
+     * @return the number of connections the scan may use at most
+     */
+    public int getMaxConcurrentFetches() {
+        return maxConcurrentFetches;
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    private class ChunkTask<A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+
+        private final OffsetDateTime startDate;
+        private final boolean includesStart;
+        private final OffsetDateTime endDate;
+        private final transient BiFunction<OffsetDateTime, OffsetDateTime, List<Delivery>> fetch;
+        private final transient Supplier<A> newAccumulator;
+        private final transient BiConsumer<A, Delivery> add;
+        private final transient BinaryOperator<A> merge;
+
+        ChunkTask(OffsetDateTime startDate, boolean includesStart, OffsetDateTime endDate,
+                  BiFunction<OffsetDateTime, OffsetDateTime, List<Delivery>> fetch,
+                  Supplier<A> newAccumulator, BiConsumer<A, Delivery> add, BinaryOperator<A> merge) {
+            this.startDate = startDate;
+            this.includesStart = includesStart;
+            this.endDate = endDate;
+            this.fetch = fetch;
+            this.newAccumulator = newAccumulator;
+            this.add = add;
+            this.merge = merge;
+        }
+
+        boolean isLarge() {
+            return Duration.between(startDate, endDate).compareTo(chunkSize) > 0;
+        }
+
+        @Override
+        protected A compute() {
+            if (!isLarge()) {
+                A accumulator = newAccumulator.get();
+                // The fetched periods exclude their start, step back to include a delivery exactly on a split
+                OffsetDateTime after = includesStart ? startDate.minusNanos(1) : startDate;
+                for (Delivery delivery : fetchWithConnection(after)) {
+                    add.accept(accumulator, delivery);
+                }
+                return accumulator;
+            }
+            OffsetDateTime middle = startDate.plus(Duration.between(startDate, endDate).dividedBy(2));
+            ChunkTask<A> left = new ChunkTask<>(startDate, includesStart, middle, fetch, newAccumulator, add, merge);
+            ChunkTask<A> right = new ChunkTask<>(middle, true, endDate, fetch, newAccumulator, add, merge);
+            left.fork();
+            A rightResult = right.compute();
+            return merge.apply(left.join(), rightResult);
+        }
+
+        private List<Delivery> fetchWithConnection(OffsetDateTime after) {
+            connections.acquireUninterruptibly();
+            try {
+                return fetch.apply(after, endDate);
+            } finally {
+                connections.release();
+            }
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package nl.tudelft.sem.yumyumnow.delivery.application.services;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import nl.tudelft.sem.yumyumnow.delivery.domain.builders.CourierBuilder;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Courier;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -10,42 +14,72 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Gets and updates the couriers kept by the user microservice.
+ * Couriers are looked up through a bounded cache with a time to live, which keeps only their id and the id
+ * of their vendor. The vendor itself is resolved through the {@link VendorService} when it is first asked for,
+ * so a courier lookup with both caches warm needs no request, and a lookup that does not need the vendor
+ * never fetches it. Concurrent lookups of a courier that is not cached share a single request through
+ * the {@link SingleFlight}. A courier is dropped from the cache as soon as it is updated through this service.
+ */
 @Service
-public class CourierService {
+public class CourierService implements DisposableBean {
     private final RestTemplate restTemplate;
     private final String courierServiceUrl;
     private final VendorService vendorService;
+    private final ExpiringCache<String, CourierProfile> courierCache;
+    private final SingleFlight singleFlight;
 
     /**
      * Constructor for courier service with RestTemplateBuilder.
      *
-     * @param restTemplate restTemplate to interact with other api
-     * @param userServiceUrl url for user microservice
-     * @param vendorService the vender service
+     * @param restTemplate       restTemplate to interact with other api
+     * @param userServiceUrl     url for user microservice
+     * @param vendorService      the vender service
+     * @param maxEntries         the maximum number of cached couriers, or 0 to not cache them
+     * @param ttlSeconds         the time a courier is used without getting it again
+     * @param staleSeconds       the time after that in which a courier is still used while it is fetched again
+     * @param negativeTtlSeconds the time a courier that does not exist is remembered
+     * @param clock              the clock the age of cached couriers is measured with
+     * @param meterRegistry      registry for the cache metrics
+     * @param singleFlight       shares a request between concurrent lookups of the same courier
      */
     @Autowired
     public CourierService(RestTemplateBuilder restTemplate, @Value("${user.microservice.url}") String userServiceUrl,
-                          VendorService vendorService) {
-        this.restTemplate = restTemplate.build();
-        this.courierServiceUrl = userServiceUrl + "/courier/";
-        this.vendorService = vendorService;
+                          VendorService vendorService,
+                          @Value("${courier.cache.maxEntries:1000}") int maxEntries,
+                          @Value("${courier.cache.ttlSeconds:60}") long ttlSeconds,
+                          @Value("${courier.cache.staleSeconds:60}") long staleSeconds,
+                          @Value("${courier.cache.negativeTtlSeconds:10}") long negativeTtlSeconds,
+                          Clock clock, MeterRegistry meterRegistry, SingleFlight singleFlight) {
+        this(restTemplate.build(), userServiceUrl, vendorService, new ExpiringCache<>("courier", maxEntries,
+                Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(staleSeconds),
+                Duration.ofSeconds(negativeTtlSeconds), clock, meterRegistry), singleFlight);
     }
 
     /**
-     * Constructor for courier service RestTemplate.
+     * Constructor for courier service with RestTemplate and a cache of couriers.
      *
-     * @param restTemplate restTemplate to interact with other api
+     * @param restTemplate   restTemplate to interact with other api
      * @param userServiceUrl url for user microservice
-     * @param vendorService the vender service
+     * @param vendorService  the vender service
+     * @param courierCache   the cache of the couriers, by their id
+     * @param singleFlight   shares a request between concurrent lookups of the same courier
      */
-    public CourierService(RestTemplate restTemplate, String userServiceUrl, VendorService vendorService) {
+    public CourierService(RestTemplate restTemplate, String userServiceUrl, VendorService vendorService,
+                          ExpiringCache<String, CourierProfile> courierCache, SingleFlight singleFlight) {
         this.restTemplate = restTemplate;
         this.courierServiceUrl = userServiceUrl + "/courier/";
         this.vendorService = vendorService;
+        this.courierCache = courierCache;
+        this.singleFlight = singleFlight;
     }
 
     private Map<String, Object> getCourierRaw(String courierId) {
@@ -60,18 +94,43 @@ public class CourierService {
      * @return the vendor as a map of response JSON
      */
     public Courier getCourier(String courierId) {
-        Map<String, Object> response = getCourierRaw(courierId);
+        CourierProfile profile = courierCache.get(courierId, this::loadCourierProfile);
 
-        if (response == null) {
+        if (profile == null) {
             return null;
         }
 
+        String vendorId = profile.getVendorId();
         return new CourierBuilder()
-                .setId(UUID.fromString((String) response.get("userID")))
-                .setVendor(vendorService.getVendor((String) response.get("vendor")))
+                .setId(profile.getId())
+                .setVendorResolver(() -> vendorId == null ? null : vendorService.getVendor(vendorId))
                 .create();
     }
 
+    /**
+     * Get the id and vendor id of a courier, for the cache.
+     * A courier the user microservice does not know is loaded as null, so it is remembered as missing.
+     * Concurrent loads of the same courier share one request.
+     *
+     * @param courierId The id of the courier.
+     * @return the profile of the courier, or null if it does not exist
+     */
+    private CourierProfile loadCourierProfile(String courierId) {
+        return singleFlight.call("courier", courierId, () -> {
+            Map<String, Object> response;
+            try {
+                response = getCourierRaw(courierId);
+            } catch (HttpClientErrorException.NotFound e) {
+                return null;
+            }
+            if (response == null) {
+                return null;
+            }
+            return new CourierProfile(UUID.fromString((String) response.get("userID")),
+                    (String) response.get("vendor"));
+        });
+    }
+
     /**
      * Update a vendor.
      *
@@ -91,6 +150,26 @@ public class CourierService {
         HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(courierMap, headers);
         ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.PUT, requestEntity, String.class);
 
-        return response.getStatusCode().is2xxSuccessful();
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return false;
+        }
+        courierCache.invalidate(courier.getId().toString());
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+        courierCache.close();
+    }
+
+    /**
+     * The part of a courier that is cached: its id and the id of its vendor, but not the vendor itself,
+     * which is cached by the {@link VendorService} on its own.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CourierProfile {
+        private final UUID id;
+        private final String vendorId;
     }
 }
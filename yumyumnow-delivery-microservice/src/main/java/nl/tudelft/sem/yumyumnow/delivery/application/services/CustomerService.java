@@ -18,17 +18,19 @@ import java.util.UUID;
 public class CustomerService {
     private final RestTemplate restTemplate;
     private final String customerServiceUrl;
+    private final SingleFlight singleFlight;
 
     /**
      * Creates a new User Service with RestTemplateBuilder.
      *
      * @param restTemplate the RestTemplate object used for making HTTP requests to the Order microservice.
      * @param userServiceUrl the url of the User Microservice.
+     * @param singleFlight shares a request between concurrent lookups of the same customer
      */
     @Autowired
-    public CustomerService(RestTemplateBuilder restTemplate, @Value("${user.microservice.url}") String userServiceUrl) {
-        this.restTemplate = restTemplate.build();
-        this.customerServiceUrl = userServiceUrl + "/customer/";
+    public CustomerService(RestTemplateBuilder restTemplate, @Value("${user.microservice.url}") String userServiceUrl,
+                           SingleFlight singleFlight) {
+        this(restTemplate.build(), userServiceUrl, singleFlight);
     }
 
     /**
@@ -36,21 +38,23 @@ public class CustomerService {
      *
      * @param restTemplate the RestTemplate object used for making HTTP requests to the Order microservice.
      * @param userServiceUrl the url of the User Microservice.
+     * @param singleFlight shares a request between concurrent lookups of the same customer
      */
-    public CustomerService(RestTemplate restTemplate, String userServiceUrl) {
+    public CustomerService(RestTemplate restTemplate, String userServiceUrl, SingleFlight singleFlight) {
         this.restTemplate = restTemplate;
         this.customerServiceUrl = userServiceUrl + "/customer/";
+        this.singleFlight = singleFlight;
     }
 
     /**
-     * Get a customer by userid.
+     * Get a customer by userid. Concurrent lookups of the same customer share one request.
      *
      * @param userId the id of customer
      * @return the customer as a json map
      */
     private Map<String, Object> getCustomerRaw(String userId) {
         String url = customerServiceUrl + userId;
-        return restTemplate.getForObject(url, Map.class);
+        return singleFlight.call("customer", userId, () -> restTemplate.getForObject(url, Map.class));
     }
 
     /**
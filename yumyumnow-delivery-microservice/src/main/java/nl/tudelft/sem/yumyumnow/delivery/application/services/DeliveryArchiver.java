@@ -0,0 +1,70 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+/**
+ * Batch job that moves delivered and rejected deliveries out of the delivery table once they are old
+ * enough, so the table (and its indexes) only holds the deliveries that can still change.
+ * The analytics in {@link AdminService} read both the delivery and the archive table.
+ */
+@Service
+public class DeliveryArchiver {
+    private final DeliveryRepository deliveryRepository;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Duration maxAge;
+    private final int batchSize;
+
+    /**
+     * Create a new DeliveryArchiver.
+     *
+     * @param deliveryRepository the repository for delivery
+     * @param meterRegistry      registry for the archival metrics
+     * @param clock              the clock the age of the deliveries is measured with
+     * @param maxAgeDays         age in days after which a terminal delivery is archived
+     * @param batchSize          the number of deliveries moved per transaction
+     */
+    @Autowired
+    public DeliveryArchiver(DeliveryRepository deliveryRepository,
+                            MeterRegistry meterRegistry,
+                            Clock clock,
+                            @Value("${delivery.archive.maxAgeDays:30}") long maxAgeDays,
+                            @Value("${delivery.archive.batchSize:500}") int batchSize) {
+        if (maxAgeDays < 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Archive age cannot be negative and batch size has to be positive.");
+        }
+        this.deliveryRepository = deliveryRepository;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.maxAge = Duration.ofDays(maxAgeDays);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Archive all terminal deliveries older than the configured age, one batch at a time.
+     *
+     * @return the number of deliveries that were archived
+     */
+    @Scheduled(initialDelayString = "${delivery.archive.intervalMs:3600000}",
+            fixedDelayString = "${delivery.archive.intervalMs:3600000}")
+    public int archive() {
+        OffsetDateTime cutoff = OffsetDateTime.now(clock).minus(maxAge);
+        int archived = 0;
+        int moved;
+        do {
+            moved = deliveryRepository.archiveTerminalBefore(cutoff, batchSize);
+            archived += moved;
+        } while (moved == batchSize);
+
+        meterRegistry.counter("delivery.archived").increment(archived);
+        return archived;
+    }
+}
@@ -0,0 +1,164 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.ArchivedDelivery;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryRollup;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeHistogramBin;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeMetric;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.ArchivedDeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRollupRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.TimeHistogramRepository;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Batch job that rebuilds the hourly rollups and duration histograms from the deliveries, current and archived.
+ * It backfills the hours of the deliveries that were made before the rollups were kept, and repairs rollups that
+ * no longer match their deliveries, for example after deliveries were changed in the database directly.
+ * The rollups are replaced in one transaction, so the analytics see either the old or the new rollups.
+ * A delivery that changes while the rollups are rebuilt may be counted with its old state, so with
+ * analytics.rollups.rebuildOnStartup set the rollups are rebuilt before the service accepts requests.
+ */
+@Service
+public class DeliveryRollupRebuilder {
+    private final DeliveryRepository deliveryRepository;
+    private final ArchivedDeliveryRepository archivedDeliveryRepository;
+    private final DeliveryRollupRepository deliveryRollupRepository;
+    private final TimeHistogramRepository timeHistogramRepository;
+    private final DeliveryRollupService deliveryRollupService;
+    private final AnalyticsResultCache analyticsResultCache;
+    private final TransactionOperations transactionOperations;
+    private final boolean rebuildOnStartup;
+    private final int pageSize;
+
+    /**
+     * Create a new DeliveryRollupRebuilder.
+     *
+     * @param deliveryRepository         the repository for delivery
+     * @param archivedDeliveryRepository the repository for archived deliveries
+     * @param deliveryRollupRepository   the repository for the rollups
+     * @param timeHistogramRepository    the repository for the duration histograms
+     * @param deliveryRollupService      the service that knows what a delivery adds to the rollups
+     * @param analyticsResultCache       the cache of the results computed from the old rollups
+     * @param transactionOperations      runs the replacement of the rollups in one transaction
+     * @param rebuildOnStartup           whether to rebuild the rollups when the service starts
+     * @param pageSize                   the number of deliveries read per page
+     */
+    @Autowired
+    public DeliveryRollupRebuilder(DeliveryRepository deliveryRepository,
+                                   ArchivedDeliveryRepository archivedDeliveryRepository,
+                                   DeliveryRollupRepository deliveryRollupRepository,
+                                   TimeHistogramRepository timeHistogramRepository,
+                                   DeliveryRollupService deliveryRollupService,
+                                   AnalyticsResultCache analyticsResultCache,
+                                   TransactionOperations transactionOperations,
+                                   @Value("${analytics.rollups.rebuildOnStartup:false}") boolean rebuildOnStartup,
+                                   @Value("${analytics.rollups.rebuildPageSize:1000}") int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size has to be positive.");
+        }
+        this.deliveryRepository = deliveryRepository;
+        this.archivedDeliveryRepository = archivedDeliveryRepository;
+        this.deliveryRollupRepository = deliveryRollupRepository;
+        this.timeHistogramRepository = timeHistogramRepository;
+        this.deliveryRollupService = deliveryRollupService;
+        this.analyticsResultCache = analyticsResultCache;
+        this.transactionOperations = transactionOperations;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Rebuild the rollups once the application context is started, if enabled,
+     * which is before the web server accepts requests.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Replace the rollups and histograms with the ones of all deliveries, current and archived.
+     *
+     * @return the number of deliveries the rollups were rebuilt from
+     */
+    public long rebuild() {
+        Long deliveries = transactionOperations.execute(status -> {
+            Rollups rollups = new Rollups();
+            // Current before archived, so a delivery archived in the meantime is read from at least one table.
+            // It may be read from both, so the archived deliveries that were read as current ones are skipped.
+            Set<UUID> currentIds = new HashSet<>();
+            try (Stream<Delivery> current = deliveryRepository.streamAll(pageSize)) {
+                current.forEach(delivery -> {
+                    currentIds.add(delivery.getId());
+                    rollups.add(delivery);
+                });
+            }
+            Pageable page = PageRequest.of(0, pageSize, Sort.by("id"));
+            Page<ArchivedDelivery> archived;
+            do {
+                archived = archivedDeliveryRepository.findAll(page);
+                for (ArchivedDelivery delivery : archived) {
+                    if (!currentIds.contains(delivery.getId())) {
+                        rollups.add(delivery.toDelivery());
+                    }
+                }
+                page = archived.nextPageable();
+            } while (archived.hasNext());
+
+            deliveryRollupRepository.deleteAllInBatch();
+            timeHistogramRepository.deleteAllInBatch();
+            deliveryRollupRepository.saveAll(rollups.buckets.values());
+            timeHistogramRepository.saveAll(rollups.bins.values());
+            return rollups.deliveries;
+        });
+        analyticsResultCache.invalidateAll();
+        return deliveries == null ? 0 : deliveries;
+    }
+
+    /**
+     * The buckets and histogram bins of the deliveries read so far.
+     */
+    private class Rollups {
+        private final Map<DeliveryRollup.Key, DeliveryRollup> buckets = new HashMap<>();
+        private final Map<TimeHistogramBin.Key, TimeHistogramBin> bins = new HashMap<>();
+        private long deliveries;
+
+        void add(Delivery delivery) {
+            deliveries++;
+            DeliveryRollup contribution = deliveryRollupService.contributionOf(delivery);
+            if (contribution == null) {
+                return;
+            }
+            buckets.merge(new DeliveryRollup.Key(contribution.getEpochHour(), contribution.getStatus()),
+                    contribution, DeliveryRollup::plus);
+            for (TimeMetric metric : TimeMetric.values()) {
+                TimeHistogramBin bin = DeliveryRollupService.histogramBinOf(metric, contribution);
+                if (bin != null) {
+                    bins.merge(new TimeHistogramBin.Key(bin.getEpochHour(), bin.getMetric(), bin.getBin()), bin,
+                            (stored, added) -> {
+                                stored.setDurations(stored.getDurations() + added.getDurations());
+                                return stored;
+                            });
+                }
+            }
+        }
+    }
+}
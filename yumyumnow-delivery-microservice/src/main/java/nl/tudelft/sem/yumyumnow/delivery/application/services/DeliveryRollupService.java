@@ -0,0 +1,581 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.ArchivedDelivery;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryGroup;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryRollup;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryTotals;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DurationHistogram;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.MinutesSum;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeHistogramBin;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeMetric;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.ArchivedDeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRollupRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DurationAggregate;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.HistogramBinCount;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.RollupAggregate;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.RollupSummary;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.TimeHistogramRepository;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+
+/**
+ * Keeps the hourly delivery rollups up to date and answers the analytics from them.
+ * A period is answered by adding up the whole hours that lie inside it, and querying
+ * the deliveries (current and archived) only for the partial hours at both edges.
+ * Next to the totals, every hour keeps a fixed-size histogram of the preparation and delivery times
+ * of its delivered deliveries, from which the percentiles of a period are estimated.
+ * Walks over the deliveries themselves go through the {@link ChunkedDeliveryScanner}, so long periods
+ * are evaluated in parallel. With the rollups disabled, every period is evaluated from the deliveries,
+ * which also covers deliveries that were made before the rollups were kept.
+ * Results are kept in the {@link AnalyticsResultCache} until a recorded change touches their period.
+ * When the {@link DeliverySnapshot} is enabled, the totals and histograms of the deliveries are
+ * evaluated from it, instead of from the deliveries read from the database.
+ */
+@Service
+public class DeliveryRollupService {
+    private static final long SECONDS_PER_HOUR = Duration.ofHours(1).toSeconds();
+    private static final short DELIVERED = (short) Delivery.StatusEnum.DELIVERED.ordinal();
+
+    private final DeliveryRollupRepository deliveryRollupRepository;
+    private final TimeHistogramRepository timeHistogramRepository;
+    private final DeliveryRepository deliveryRepository;
+    private final ArchivedDeliveryRepository archivedDeliveryRepository;
+    private final ChunkedDeliveryScanner chunkedDeliveryScanner;
+    private final AnalyticsResultCache analyticsResultCache;
+    private final DeliverySnapshot deliverySnapshot;
+    private final boolean useRollups;
+
+    /**
+     * Create a new DeliveryRollupService.
+     *
+     * @param deliveryRollupRepository   the repository for the rollups
+     * @param timeHistogramRepository    the repository for the duration histograms
+     * @param deliveryRepository         the repository for delivery
+     * @param archivedDeliveryRepository the repository for archived deliveries
+     * @param chunkedDeliveryScanner     the scanner that walks the deliveries of long periods in parallel
+     * @param analyticsResultCache       the cache of the results per period
+     * @param deliverySnapshot           the in-memory snapshot of the deliveries, used instead of
+     *                                   reading the deliveries when it is enabled
+     * @param useRollups                 whether to answer the whole hours of a period from the rollups
+     */
+    @Autowired
+    public DeliveryRollupService(DeliveryRollupRepository deliveryRollupRepository,
+                                 TimeHistogramRepository timeHistogramRepository,
+                                 DeliveryRepository deliveryRepository,
+                                 ArchivedDeliveryRepository archivedDeliveryRepository,
+                                 ChunkedDeliveryScanner chunkedDeliveryScanner,
+                                 AnalyticsResultCache analyticsResultCache,
+                                 DeliverySnapshot deliverySnapshot,
+                                 @Value("${analytics.rollups.enabled:true}") boolean useRollups) {
+        this.deliveryRollupRepository = deliveryRollupRepository;
+        this.timeHistogramRepository = timeHistogramRepository;
+        this.deliveryRepository = deliveryRepository;
+        this.archivedDeliveryRepository = archivedDeliveryRepository;
+        this.chunkedDeliveryScanner = chunkedDeliveryScanner;
+        this.analyticsResultCache = analyticsResultCache;
+        this.deliverySnapshot = deliverySnapshot;
+        this.useRollups = useRollups;
+    }
+
+    /**
+     * Get what a delivery adds to the rollups in its current state.
+     * Take the contribution before changing a delivery and again after saving it, and pass both to
+     * {@link #record} to move the delivery to its new bucket.
+     *
+     * @param delivery the delivery
+     * @return the contribution of the delivery, or null if it has no estimated delivery time or status yet
+     */
+    public DeliveryRollup contributionOf(Delivery delivery) {
+        OffsetDateTime deliveryTime = delivery.getEstimatedDeliveryTime();
+        if (deliveryTime == null || delivery.getStatus() == null) {
+            return null;
+        }
+        DeliveryRollup contribution = new DeliveryRollup(epochHour(deliveryTime),
+                (short) delivery.getStatus().ordinal(), 1, 0, 0, 0, 0);
+
+        OffsetDateTime preparationFinishTime = delivery.getEstimatedPreparationFinishTime();
+        if (contribution.getStatus() != DELIVERED || preparationFinishTime == null) {
+            return contribution;
+        }
+        contribution.setDeliveryMinutes(Duration.between(preparationFinishTime, deliveryTime).toMinutes());
+        contribution.setDeliveryDeliveries(1);
+
+        Long preparationMinutes = preparationMinutesOf(delivery);
+        if (preparationMinutes != null) {
+            contribution.setPrepMinutes(preparationMinutes);
+            contribution.setPrepDeliveries(1);
+        }
+        return contribution;
+    }
+
+    /**
+     * Move a delivery from the bucket of its old contribution to the bucket of its new one,
+     * and from the histogram bins of its old durations to those of its new ones.
+     * The cached results of the hours of both contributions are invalidated, even when the contribution
+     * did not change, since the results per courier or vendor also depend on the other fields of the delivery.
+     *
+     * @param before the contribution of the delivery before the change, or null if it had none
+     * @param after  the contribution of the delivery after the change, or null if it has none
+     */
+    public void record(DeliveryRollup before, DeliveryRollup after) {
+        for (TimeMetric metric : TimeMetric.values()) {
+            recordDuration(histogramBinOf(metric, before), histogramBinOf(metric, after));
+        }
+
+        if (before != null && after != null
+                && before.getEpochHour() == after.getEpochHour() && before.getStatus() == after.getStatus()) {
+            addToBucket(after.minus(before));
+        } else {
+            if (before != null) {
+                addToBucket(before.negate());
+            }
+            if (after != null) {
+                addToBucket(after);
+            }
+        }
+
+        // Only after the rollups are committed, so no stale result is cached in between
+        afterCommit(() -> {
+            if (before != null) {
+                analyticsResultCache.invalidateHour(before.getEpochHour());
+            }
+            if (after != null && (before == null || after.getEpochHour() != before.getEpochHour())) {
+                analyticsResultCache.invalidateHour(after.getEpochHour());
+            }
+        });
+    }
+
+    /**
+     * Run an action once the current transaction commits, or right away when there is none.
+     * Actions registered in the same transaction run in the order they were registered.
+     *
+     * @param action the action
+     */
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Count the deliveries in a period, both the current and the archived ones.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the number of deliveries in the period
+     */
+    public long countInPeriod(OffsetDateTime startDate, OffsetDateTime endDate) {
+        return inPeriod("count", startDate, endDate,
+                deliveryRollupRepository::sumDeliveries,
+                (start, end) -> deliveryRepository.countInPeriod(start, end)
+                        + archivedDeliveryRepository.countInPeriod(start, end),
+                Long::sum);
+    }
+
+    /**
+     * Count the delivered deliveries in a period, both the current and the archived ones.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the number of delivered deliveries in the period
+     */
+    public long countDeliveredInPeriod(OffsetDateTime startDate, OffsetDateTime endDate) {
+        return inPeriod("delivered", startDate, endDate,
+                (fromHour, toHour) -> deliveryRollupRepository.sumDeliveriesByStatus(DELIVERED, fromHour, toHour),
+                (start, end) -> deliveryRepository.countByStatusInPeriod(Delivery.StatusEnum.DELIVERED, start, end)
+                        + archivedDeliveryRepository.countByStatusInPeriod(Delivery.StatusEnum.DELIVERED, start, end),
+                Long::sum);
+    }
+
+    /**
+     * Sum the minutes between placing the order and the end of its preparation
+     * over the delivered deliveries in a period.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the summed preparation minutes
+     */
+    public MinutesSum preparationMinutesInPeriod(OffsetDateTime startDate, OffsetDateTime endDate) {
+        return inPeriod("preparation-minutes", startDate, endDate,
+                (fromHour, toHour) -> {
+                    RollupAggregate totals = deliveryRollupRepository.sumMinutesByStatus(DELIVERED, fromHour, toHour);
+                    return totals == null ? MinutesSum.ZERO
+                            : new MinutesSum(orZero(totals.getPrepMinutes()), orZero(totals.getPrepDeliveries()));
+                },
+                (start, end) -> minutesOf(
+                        deliveryRepository.sumPreparationMinutesByStatusInPeriod(DELIVERED, start, end))
+                        .plus(minutesOf(archivedDeliveryRepository.sumPreparationMinutesByStatusInPeriod(
+                                DELIVERED, start, end))),
+                MinutesSum::plus);
+    }
+
+    /**
+     * Sum the minutes between the end of preparation and the estimated delivery time
+     * over the delivered deliveries in a period.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the summed delivery minutes
+     */
+    public MinutesSum deliveryMinutesInPeriod(OffsetDateTime startDate, OffsetDateTime endDate) {
+        return inPeriod("delivery-minutes", startDate, endDate,
+                (fromHour, toHour) -> {
+                    RollupAggregate totals = deliveryRollupRepository.sumMinutesByStatus(DELIVERED, fromHour, toHour);
+                    return totals == null ? MinutesSum.ZERO
+                            : new MinutesSum(orZero(totals.getDeliveryMinutes()),
+                                    orZero(totals.getDeliveryDeliveries()));
+                },
+                (start, end) -> minutesOf(deliveryRepository.sumDeliveryMinutesByStatusInPeriod(DELIVERED, start, end))
+                        .plus(minutesOf(archivedDeliveryRepository.sumDeliveryMinutesByStatusInPeriod(
+                                DELIVERED, start, end))),
+                MinutesSum::plus);
+    }
+
+    /**
+     * Estimate the distribution of a duration over the delivered deliveries in a period,
+     * by merging the histograms of the whole hours and adding the deliveries of the partial hours.
+     *
+     * @param metric    the duration to get the distribution of
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the histogram of the duration in the period
+     */
+    public DurationHistogram histogramInPeriod(TimeMetric metric, OffsetDateTime startDate, OffsetDateTime endDate) {
+        // Copied, as the cached histogram is shared
+        return new DurationHistogram().merge(inPeriod("histogram-" + metric.name(), startDate, endDate,
+                (fromHour, toHour) -> {
+                    DurationHistogram histogram = new DurationHistogram();
+                    for (HistogramBinCount binCount : timeHistogramRepository.sumBins(
+                            (short) metric.ordinal(), fromHour, toHour)) {
+                        histogram.addToBin(binCount.getBin(), orZero(binCount.getDurations()));
+                    }
+                    return histogram;
+                },
+                (start, end) -> deliverySnapshot.isEnabled()
+                        ? deliverySnapshot.histogramInPeriod(metric, start, end)
+                        : chunkedDeliveryScanner.scan(start, end, this::deliveredInPeriod,
+                                DurationHistogram::new,
+                                (histogram, delivery) -> {
+                                    Long minutes = metric == TimeMetric.PREPARATION
+                                            ? preparationMinutesOf(delivery) : deliveryMinutesOf(delivery);
+                                    if (minutes != null) {
+                                        histogram.add(minutes);
+                                    }
+                                },
+                                DurationHistogram::merge),
+                DurationHistogram::merge));
+    }
+
+    /**
+     * Gather all analytics totals of a period together. The whole hours are read in a single rollup query,
+     * and the deliveries in the partial hours are read once and counted in a single pass.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the totals of the period
+     */
+    public DeliveryTotals totalsInPeriod(OffsetDateTime startDate, OffsetDateTime endDate) {
+        return inPeriod("totals", startDate, endDate,
+                (fromHour, toHour) -> {
+                    RollupSummary totals = deliveryRollupRepository.sumAll(DELIVERED, fromHour, toHour);
+                    if (totals == null) {
+                        return DeliveryTotals.ZERO;
+                    }
+                    return new DeliveryTotals(orZero(totals.getDeliveries()), orZero(totals.getDelivered()),
+                            new MinutesSum(orZero(totals.getPrepMinutes()), orZero(totals.getPrepDeliveries())),
+                            new MinutesSum(orZero(totals.getDeliveryMinutes()),
+                                    orZero(totals.getDeliveryDeliveries())));
+                },
+                deliverySnapshot.isEnabled() ? deliverySnapshot::totalsInPeriod : this::totalsOfDeliveries,
+                DeliveryTotals::plus);
+    }
+
+    /**
+     * Gather the analytics totals of every vendor or courier in a period together. The rollups are not kept
+     * per vendor or courier, so the deliveries of the whole period are read once and all groups are counted
+     * in that single pass, or the snapshot is walked once when it is enabled.
+     *
+     * @param group     the party to break the totals down by
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the totals per id of the vendor or courier, only for those with deliveries in the period
+     */
+    public Map<UUID, DeliveryTotals> totalsPerGroupInPeriod(DeliveryGroup group, OffsetDateTime startDate,
+                                                            OffsetDateTime endDate) {
+        // Unmodifiable, as the cached map is shared
+        return analyticsResultCache.get("totals-per-" + group.name(), startDate, endDate,
+                () -> Collections.unmodifiableMap(deliverySnapshot.isEnabled()
+                        ? deliverySnapshot.totalsPerGroupInPeriod(group, startDate, endDate)
+                        : totalsPerGroupOfDeliveries(group, startDate, endDate)));
+    }
+
+    /**
+     * Answer a period from the buckets of the whole hours inside it and the deliveries in the partial hours,
+     * or from the result cache if the period was answered before.
+     *
+     * @param metric         the name of the result in the cache
+     * @param startDate      the (exclusive) start of the period
+     * @param endDate        the (exclusive) end of the period
+     * @param fromBuckets    computes the result of a range of whole hours from the rollups
+     * @param fromDeliveries computes the result of an (exclusive) period from the deliveries
+     * @param sum            combines two results
+     * @param <T>            the type of the result
+     * @return the result for the whole period
+     */
+    private <T> T inPeriod(String metric, OffsetDateTime startDate, OffsetDateTime endDate,
+                           BiFunction<Long, Long, T> fromBuckets,
+                           BiFunction<OffsetDateTime, OffsetDateTime, T> fromDeliveries,
+                           BinaryOperator<T> sum) {
+        return analyticsResultCache.get(metric, startDate, endDate, () -> {
+            // The first hour that starts after the start, and the hour after the last one that ends before the end
+            long fromHour = Math.floorDiv(startDate.toEpochSecond(), SECONDS_PER_HOUR) + 1;
+            long toHour = Math.floorDiv(endDate.toEpochSecond(), SECONDS_PER_HOUR);
+            if (!useRollups || fromHour >= toHour) {
+                return fromDeliveries.apply(startDate, endDate);
+            }
+
+            OffsetDateTime fromHourStart = hourStart(fromHour);
+            OffsetDateTime toHourStart = hourStart(toHour);
+            T result = sum.apply(fromDeliveries.apply(startDate, fromHourStart), fromBuckets.apply(fromHour, toHour));
+            if (toHourStart.isBefore(endDate)) {
+                // The delivery queries exclude their start, step back so a delivery exactly on the hour is counted
+                result = sum.apply(result, fromDeliveries.apply(toHourStart.minusNanos(1), endDate));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Find the delivered deliveries in a period, both the current and the archived ones.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the delivered deliveries
+     */
+    private List<Delivery> deliveredInPeriod(OffsetDateTime startDate, OffsetDateTime endDate) {
+        List<Delivery> deliveries = new ArrayList<>(deliveryRepository.findAllByStatusInPeriod(
+                Delivery.StatusEnum.DELIVERED, startDate, endDate));
+        for (ArchivedDelivery archived : archivedDeliveryRepository.findAllByStatusInPeriod(
+                Delivery.StatusEnum.DELIVERED, startDate, endDate)) {
+            deliveries.add(archived.toDelivery());
+        }
+        return deliveries;
+    }
+
+    /**
+     * Get the minutes between placing the order of a delivery and the end of its preparation.
+     *
+     * @param delivery the delivery
+     * @return the preparation minutes, or null if either time is not known
+     */
+    private static Long preparationMinutesOf(Delivery delivery) {
+        if (delivery.getOrderPlacementTime() == null || delivery.getEstimatedPreparationFinishTime() == null) {
+            return null;
+        }
+        return Duration.between(delivery.getOrderPlacementTime(), delivery.getEstimatedPreparationFinishTime())
+                .toMinutes();
+    }
+
+    /**
+     * Get the minutes between the end of preparation of a delivery and its estimated delivery time.
+     *
+     * @param delivery the delivery
+     * @return the delivery minutes, or null if either time is not known
+     */
+    private static Long deliveryMinutesOf(Delivery delivery) {
+        if (delivery.getEstimatedPreparationFinishTime() == null || delivery.getEstimatedDeliveryTime() == null) {
+            return null;
+        }
+        return Duration.between(delivery.getEstimatedPreparationFinishTime(),
+                delivery.getEstimatedDeliveryTime()).toMinutes();
+    }
+
+    /**
+     * Get the histogram bin a contribution adds to for a metric.
+     *
+     * @param metric       the metric of the histogram
+     * @param contribution the contribution of a single delivery, or null
+     * @return the bin with a count of one, or null if the contribution has no duration for the metric
+     */
+    static TimeHistogramBin histogramBinOf(TimeMetric metric, DeliveryRollup contribution) {
+        if (contribution == null || contribution.getStatus() != DELIVERED) {
+            return null;
+        }
+        boolean preparation = metric == TimeMetric.PREPARATION;
+        if ((preparation ? contribution.getPrepDeliveries() : contribution.getDeliveryDeliveries()) == 0) {
+            return null;
+        }
+        long minutes = preparation ? contribution.getPrepMinutes() : contribution.getDeliveryMinutes();
+        return new TimeHistogramBin(contribution.getEpochHour(), (short) metric.ordinal(),
+                (short) DurationHistogram.binOf(minutes), 1);
+    }
+
+    /**
+     * Move a duration from its old histogram bin to its new one.
+     *
+     * @param before the bin of the duration before the change, or null if it had none
+     * @param after  the bin of the duration after the change, or null if it has none
+     */
+    private void recordDuration(TimeHistogramBin before, TimeHistogramBin after) {
+        if (before != null && after != null
+                && before.getEpochHour() == after.getEpochHour() && before.getBin() == after.getBin()) {
+            return;
+        }
+        if (before != null) {
+            before.setDurations(-1);
+            timeHistogramRepository.addToBin(before);
+        }
+        if (after != null) {
+            timeHistogramRepository.addToBin(after);
+        }
+    }
+
+    /**
+     * Gather the totals of the deliveries in a period by reading them once, current and archived.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the totals of the deliveries
+     */
+    private DeliveryTotals totalsOfDeliveries(OffsetDateTime startDate, OffsetDateTime endDate) {
+        return chunkedDeliveryScanner.scan(startDate, endDate, this::allInPeriod, TotalsAccumulator::new,
+                (totals, delivery) -> totals.add(contributionOf(delivery)),
+                TotalsAccumulator::merge).toTotals();
+    }
+
+    /**
+     * Gather the totals of every vendor or courier over the deliveries in a period by reading them once,
+     * current and archived. Deliveries without a vendor or courier are left out.
+     *
+     * @param group     the party to break the totals down by
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the totals per id of the vendor or courier
+     */
+    private Map<UUID, DeliveryTotals> totalsPerGroupOfDeliveries(DeliveryGroup group, OffsetDateTime startDate,
+                                                                 OffsetDateTime endDate) {
+        Map<UUID, TotalsAccumulator> accumulators = chunkedDeliveryScanner.scan(startDate, endDate,
+                this::allInPeriod, HashMap::new,
+                (groups, delivery) -> {
+                    UUID id = group == DeliveryGroup.VENDOR ? delivery.getVendorId() : delivery.getCourierId();
+                    if (id != null) {
+                        groups.computeIfAbsent(id, key -> new TotalsAccumulator()).add(contributionOf(delivery));
+                    }
+                },
+                (groups, other) -> {
+                    other.forEach((id, totals) -> groups.merge(id, totals, TotalsAccumulator::merge));
+                    return groups;
+                });
+        Map<UUID, DeliveryTotals> totals = new HashMap<>();
+        accumulators.forEach((id, accumulator) -> totals.put(id, accumulator.toTotals()));
+        return totals;
+    }
+
+    /**
+     * Find all deliveries in a period, both the current and the archived ones.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the deliveries
+     */
+    private List<Delivery> allInPeriod(OffsetDateTime startDate, OffsetDateTime endDate) {
+        List<Delivery> deliveries = new ArrayList<>(deliveryRepository.findAllInPeriod(startDate, endDate));
+        for (ArchivedDelivery archived : archivedDeliveryRepository.findAllInPeriod(startDate, endDate)) {
+            deliveries.add(archived.toDelivery());
+        }
+        return deliveries;
+    }
+
+    /**
+     * Add a change to its bucket, unless it changes nothing.
+     *
+     * @param delta the change of the bucket
+     */
+    private void addToBucket(DeliveryRollup delta) {
+        if (!delta.isEmpty()) {
+            deliveryRollupRepository.addToBucket(delta);
+        }
+    }
+
+    private static MinutesSum minutesOf(DurationAggregate aggregate) {
+        if (aggregate == null) {
+            return MinutesSum.ZERO;
+        }
+        return new MinutesSum(orZero(aggregate.getTotalMinutes()), orZero(aggregate.getDeliveries()));
+    }
+
+    private static long orZero(Long value) {
+        return value == null ? 0 : value;
+    }
+
+    private static long epochHour(OffsetDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(), SECONDS_PER_HOUR);
+    }
+
+    private static OffsetDateTime hourStart(long epochHour) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochHour * SECONDS_PER_HOUR), ZoneOffset.UTC);
+    }
+
+    /**
+     * Mutable totals of a part of a period, kept in primitives while the deliveries are walked.
+     */
+    private static class TotalsAccumulator {
+        private long deliveries;
+        private long delivered;
+        private long prepMinutes;
+        private long prepDeliveries;
+        private long deliveryMinutes;
+        private long deliveryDeliveries;
+
+        void add(DeliveryRollup contribution) {
+            deliveries++;
+            if (contribution == null || contribution.getStatus() != DELIVERED) {
+                return;
+            }
+            delivered++;
+            prepMinutes += contribution.getPrepMinutes();
+            prepDeliveries += contribution.getPrepDeliveries();
+            deliveryMinutes += contribution.getDeliveryMinutes();
+            deliveryDeliveries += contribution.getDeliveryDeliveries();
+        }
+
+        TotalsAccumulator merge(TotalsAccumulator other) {
+            deliveries += other.deliveries;
+            delivered += other.delivered;
+            prepMinutes += other.prepMinutes;
+            prepDeliveries += other.prepDeliveries;
+            deliveryMinutes += other.deliveryMinutes;
+            deliveryDeliveries += other.deliveryDeliveries;
+            return this;
+        }
+
+        DeliveryTotals toTotals() {
+            return new DeliveryTotals(deliveries, delivered, new MinutesSum(prepMinutes, prepDeliveries),
+                    new MinutesSum(deliveryMinutes, deliveryDeliveries));
+        }
+    }
+}
@@ -3,6 +3,8 @@ package nl.tudelft.sem.yumyumnow.delivery.application.services;
 import nl.tudelft.sem.yumyumnow.delivery.domain.builders.DeliveryBuilder;
 import nl.tudelft.sem.yumyumnow.delivery.application.validators.*;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.ServiceUnavailableException;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryRollup;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.AvailableDelivery;
 import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
 import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
 import nl.tudelft.sem.yumyumnow.delivery.model.DeliveryIdStatusPutRequest;
@@ -16,14 +18,23 @@ import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.BadArgumentException;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.NoDeliveryFoundException;
 import nl.tudelft.sem.yumyumnow.delivery.model.*;
 import java.math.BigDecimal;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 import javax.validation.Valid;
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -34,28 +45,48 @@ public class DeliveryService {
     private final CourierService courierService;
     private final OrderService orderService;
     private final EmailService emailService;
+    private final DeliveryRollupService deliveryRollupService;
+    private final DeliverySnapshot deliverySnapshot;
+    private final TransactionOperations transactionOperations;
+    private final MeterRegistry meterRegistry;
+    private final int maxUpdateAttempts;
     private final String deliveryError = "No delivery found by id.";
 
     /**
      * Create a new DeliveryService.
      *
-     * @param deliveryRepository The repository to use for delivery
-     * @param vendorService      service of the vendor
-     * @param courierService     service of the courier
-     * @param orderService       service of the order
-     * @param emailService       service of emails
+     * @param deliveryRepository    The repository to use for delivery
+     * @param vendorService         service of the vendor
+     * @param courierService        service of the courier
+     * @param orderService          service of the order
+     * @param emailService          service of emails
+     * @param deliveryRollupService service keeping the analytics rollups up to date
+     * @param deliverySnapshot      in-memory snapshot of the deliveries for the analytics
+     * @param transactionOperations runs the save of a delivery and the update of its rollups in one transaction
+     * @param meterRegistry         registry for the update conflict metrics
+     * @param maxUpdateAttempts     how often an update is tried when it conflicts with a concurrent update
      */
     @Autowired
     public DeliveryService(DeliveryRepository deliveryRepository,
                            VendorService vendorService,
                            CourierService courierService,
                            OrderService orderService,
-                           EmailService emailService) {
+                           EmailService emailService,
+                           DeliveryRollupService deliveryRollupService,
+                           DeliverySnapshot deliverySnapshot,
+                           TransactionOperations transactionOperations,
+                           MeterRegistry meterRegistry,
+                           @Value("${delivery.update.maxAttempts:3}") int maxUpdateAttempts) {
         this.deliveryRepository = deliveryRepository;
         this.vendorService = vendorService;
         this.courierService = courierService;
         this.orderService = orderService;
         this.emailService = emailService;
+        this.deliveryRollupService = deliveryRollupService;
+        this.deliverySnapshot = deliverySnapshot;
+        this.transactionOperations = transactionOperations;
+        this.meterRegistry = meterRegistry;
+        this.maxUpdateAttempts = maxUpdateAttempts;
 
         // Initialize a default delivery for TA purposes
         Delivery d = new DeliveryBuilder()
@@ -64,7 +95,7 @@ public class DeliveryService {
                 .setVendorId(UUID.fromString("aec02858-71ae-40d6-a252-7d8b45338d91"))
                 .setStatus(Delivery.StatusEnum.PENDING)
                 .create();
-        deliveryRepository.save(d);
+        deliverySnapshot.update(deliveryRepository.save(d));
         System.out.println("Created a default delivery with id: " + d.getId());
     }
 
@@ -82,20 +113,62 @@ public class DeliveryService {
         if (vendorService.getVendor(vendorId.toString()) == null) {
             throw new BadArgumentException("Vendor does not exist");
         }
-        if (orderService.findOrderById(orderId) == null) {
+        Order order = orderService.findOrderById(orderId);
+        if (order == null) {
             throw new BadArgumentException("Order does not exist");
         }
+        // Kept with the delivery, so the preparation time analytics need no call to the order microservice
         Delivery delivery = new DeliveryBuilder()
                 .setId(UUID.randomUUID())
                 .setOrderId(orderId)
                 .setVendorId(vendorId)
                 .setStatus(Delivery.StatusEnum.PENDING)
+                .setOrderPlacementTime(order.getPlacementTime())
                 .create();
 
-        deliveryRepository.save(delivery);
+        deliverySnapshot.update(deliveryRepository.save(delivery));
         return delivery;
     }
 
+    /**
+     * Create deliveries for a batch of orders at once.
+     * Every vendor is only looked up once, and the deliveries are inserted in JDBC batches
+     * instead of one round trip per delivery.
+     *
+     * @param orders the orders, each containing the order ID and the vendor ID of a delivery
+     * @return the created deliveries, in the same order as the given orders
+     * @throws BadArgumentException if a vendor or an order does not exist
+     */
+    public List<Delivery> createDeliveries(List<DeliveryPostRequest> orders) throws BadArgumentException {
+        Set<UUID> existingVendors = new HashSet<>();
+        List<Delivery> deliveries = new ArrayList<>(orders.size());
+
+        for (DeliveryPostRequest order : orders) {
+            UUID vendorId = order.getVendorId();
+            if (!existingVendors.contains(vendorId)) {
+                if (vendorService.getVendor(vendorId.toString()) == null) {
+                    throw new BadArgumentException("Vendor does not exist");
+                }
+                existingVendors.add(vendorId);
+            }
+            Order foundOrder = orderService.findOrderById(order.getOrderId());
+            if (foundOrder == null) {
+                throw new BadArgumentException("Order does not exist");
+            }
+            deliveries.add(new DeliveryBuilder()
+                    .setId(UUID.randomUUID())
+                    .setOrderId(order.getOrderId())
+                    .setVendorId(vendorId)
+                    .setStatus(Delivery.StatusEnum.PENDING)
+                    .setOrderPlacementTime(foundOrder.getPlacementTime())
+                    .create());
+        }
+
+        deliveryRepository.persistAll(deliveries);
+        deliverySnapshot.updateAll(deliveries);
+        return deliveries;
+    }
+
     /**
      * Update the estimatedPrepTime of a delivery.
      *
@@ -105,6 +178,14 @@ public class DeliveryService {
      */
     public Delivery changePrepTime(UUID deliveryId, UUID vendorId, OffsetDateTime estimatedPrepTime)
             throws NoDeliveryFoundException, BadArgumentException {
+        return withRetry("change-prep-time", () -> changePrepTimeOnce(deliveryId, vendorId, estimatedPrepTime));
+    }
+
+    /**
+     * Single attempt of {@link #changePrepTime}, which re-reads the delivery when retried after a conflict.
+     */
+    private Delivery changePrepTimeOnce(UUID deliveryId, UUID vendorId, OffsetDateTime estimatedPrepTime)
+            throws NoDeliveryFoundException, BadArgumentException {
 
 
         Optional<Delivery> optionalDelivery = deliveryRepository.findById(deliveryId);
@@ -123,9 +204,10 @@ public class DeliveryService {
             throw new BadArgumentException("Illegal arguments");
         }
 
+        DeliveryRollup contributionBefore = deliveryRollupService.contributionOf(delivery);
         delivery.setEstimatedPreparationFinishTime(estimatedPrepTime);
 
-        deliveryRepository.save(delivery);
+        saveAndRecord(delivery, contributionBefore);
 
         return delivery;
     }
@@ -143,6 +225,15 @@ public class DeliveryService {
      */
     public Delivery updateStatus(UUID id, UUID userId, DeliveryIdStatusPutRequest.StatusEnum status)
             throws NoDeliveryFoundException, AccessForbiddenException, BadArgumentException {
+        return this.<AccessForbiddenException, BadArgumentException>withRetry(
+                "update-status", () -> updateStatusOnce(id, userId, status));
+    }
+
+    /**
+     * Single attempt of {@link #updateStatus}, which re-reads the delivery when retried after a conflict.
+     */
+    private Delivery updateStatusOnce(UUID id, UUID userId, DeliveryIdStatusPutRequest.StatusEnum status)
+            throws NoDeliveryFoundException, AccessForbiddenException, BadArgumentException {
         if (status == DeliveryIdStatusPutRequest.StatusEnum.PENDING) {
             throw new BadArgumentException("Status cannot be PENDING.");
         }
@@ -174,6 +265,7 @@ public class DeliveryService {
         if (!statusPermissionValidator.process(delivery)) {
             throw new AccessForbiddenException("User has no right to update delivery status.");
         }
+        DeliveryRollup contributionBefore = deliveryRollupService.contributionOf(delivery);
         switch (status) {
             case ACCEPTED -> delivery.setStatus(Delivery.StatusEnum.ACCEPTED);
             case REJECTED -> delivery.setStatus(Delivery.StatusEnum.REJECTED);
@@ -189,12 +281,32 @@ public class DeliveryService {
                             + "PREPARING, IN_TRANSIT, GIVEN_TO_COURIER");
         }
 
-        deliveryRepository.save(delivery);
+        saveAndRecord(delivery, contributionBefore);
 
         return delivery;
     }
 
 
+    /**
+     * Save a changed delivery and move it from its old rollup bucket and histogram bins to its new ones,
+     * in one transaction, so the analytics never count a change that was not saved or miss one that was.
+     * Every change of a delivery the analytics count goes through here, which also invalidates the cached
+     * results of the hours of the delivery, whether or not its bucket changed.
+     * The snapshot is updated after the commit, before those results are invalidated, so a result computed
+     * from the snapshot without the change is never cached as one that includes it.
+     *
+     * @param delivery           the changed delivery
+     * @param contributionBefore the contribution of the delivery before the change
+     */
+    private void saveAndRecord(Delivery delivery, DeliveryRollup contributionBefore) {
+        transactionOperations.executeWithoutResult(status -> {
+            Delivery saved = deliveryRepository.save(delivery);
+            // Registered before the invalidation by record, so it also runs before it
+            DeliveryRollupService.afterCommit(() -> deliverySnapshot.update(saved));
+            deliveryRollupService.record(contributionBefore, deliveryRollupService.contributionOf(delivery));
+        });
+    }
+
     /**
      * Update the maximum delivery zone of a vendor.
      *
@@ -255,11 +367,23 @@ public class DeliveryService {
      * @return the distance as double
      */
     public Double distanceBetween(Location location1, DeliveryCurrentLocation location2) {
+        return distanceBetween(location1, location2.getLatitude(), location2.getLongitude());
+    }
+
+    /**
+     * Helper method to calculate the distance between a location and a pair of coordinates.
+     *
+     * @param location  the given location
+     * @param latitude  latitude of the other location
+     * @param longitude longitude of the other location
+     * @return the distance in kilometers
+     */
+    private double distanceBetween(Location location, BigDecimal latitude, BigDecimal longitude) {
         // Convert the latitudes and longitudes from degrees to radians.
-        double lat1 = location1.getLatitude().doubleValue();
-        double lat2 = location2.getLatitude().doubleValue();
-        double long1 = location1.getLongitude().doubleValue();
-        double long2 = location2.getLongitude().doubleValue();
+        double lat1 = location.getLatitude().doubleValue();
+        double lat2 = latitude.doubleValue();
+        double long1 = location.getLongitude().doubleValue();
+        double long2 = longitude.doubleValue();
         double latDistance = Math.toRadians(lat1 - lat2);
         double lonDistance = Math.toRadians(long1 - long2);
 
@@ -302,6 +426,14 @@ public class DeliveryService {
      */
     public Delivery addDeliveryTime(UUID deliveryId, OrderService orderService, CustomerService userService)
             throws NoDeliveryFoundException, BadArgumentException {
+        return withRetry("add-delivery-time", () -> addDeliveryTimeOnce(deliveryId, orderService, userService));
+    }
+
+    /**
+     * Single attempt of {@link #addDeliveryTime}, which re-reads the delivery when retried after a conflict.
+     */
+    private Delivery addDeliveryTimeOnce(UUID deliveryId, OrderService orderService, CustomerService userService)
+            throws NoDeliveryFoundException, BadArgumentException {
         Optional<Delivery> optionalDelivery = deliveryRepository.findById(deliveryId);
         if (optionalDelivery.isEmpty()) {
             throw new NoDeliveryFoundException("You cannot update the time of a non-existing delivery.");
@@ -335,9 +467,10 @@ public class DeliveryService {
         Duration deliveryTime = getDeliveryTimeHelper(customerLocation, vendorLocation);
 
         OffsetDateTime totalTime = preparationTime.plus(deliveryTime);
+        DeliveryRollup contributionBefore = deliveryRollupService.contributionOf(delivery);
         delivery.setEstimatedDeliveryTime(totalTime);
 
-        deliveryRepository.save(delivery);
+        saveAndRecord(delivery, contributionBefore);
         return delivery;
     }
 
@@ -352,6 +485,15 @@ public class DeliveryService {
      */
     public Delivery assignCourier(UUID id, UUID courierId)
             throws NoDeliveryFoundException, AccessForbiddenException, BadArgumentException {
+        return this.<AccessForbiddenException, BadArgumentException>withRetry(
+                "assign-courier", () -> assignCourierOnce(id, courierId));
+    }
+
+    /**
+     * Single attempt of {@link #assignCourier}, which re-reads the delivery when retried after a conflict.
+     */
+    private Delivery assignCourierOnce(UUID id, UUID courierId)
+            throws NoDeliveryFoundException, AccessForbiddenException, BadArgumentException {
         Optional<Delivery> optionalDelivery = deliveryRepository.findById(id);
 
         // Check if delivery is present.
@@ -390,8 +532,10 @@ public class DeliveryService {
             throw new AccessForbiddenException("Another courier is assigned to the delivery");
         }
 
+        // Recorded although the rollups stay the same, so the cached totals per courier are invalidated
+        DeliveryRollup contributionBefore = deliveryRollupService.contributionOf(delivery);
         delivery.setCourierId(courierId);
-        deliveryRepository.save(delivery);
+        saveAndRecord(delivery, contributionBefore);
 
         return delivery;
     }
@@ -460,25 +604,36 @@ public class DeliveryService {
             //without necessarily having their location turned on
         }
 
-        List<Delivery> deliveries = deliveryRepository.findAll();
+        CourierBelongsToVendorValidator validator = new CourierBelongsToVendorValidator(
+                null, courierId, courierService, vendorService);
+        Map<UUID, Boolean> eligibleVendors = new HashMap<>();
+        Map<UUID, Double> distances = new HashMap<>();
 
-        List<Delivery> checkedDeliveries = deliveries
-                .stream()
-                .filter(d -> d.getCourierId() == null) //Only unassigned orders
-                .filter(d -> new CourierBelongsToVendorValidator(
-                            null, courierId, courierService, vendorService
-                    ).process(d)) //Check if the courier is eligible to see this order
-                .filter(d -> radius.compareTo(BigDecimal.valueOf(distanceBetween(location, d.getCurrentLocation()))) >= 0)
-                .collect(Collectors.toList());
+        // Scan only the columns needed to filter the unassigned deliveries, which all have a location
+        for (AvailableDelivery candidate : deliveryRepository.findAllUnassigned()) {
+            double distance = distanceBetween(location, candidate.getLatitude(), candidate.getLongitude());
+            if (radius.compareTo(BigDecimal.valueOf(distance)) < 0) {
+                continue;
+            }
 
-        checkedDeliveries.sort((x, y) -> {
-            Double distX = distanceBetween(location, x.getCurrentLocation());
-            Double distY = distanceBetween(location, y.getCurrentLocation());
+            //Check if the courier is eligible to see the orders of this vendor
+            boolean eligible = eligibleVendors.computeIfAbsent(candidate.getVendorId(), vendorId ->
+                    validator.process(new DeliveryBuilder().setVendorId(vendorId).create()));
+            if (eligible) {
+                distances.put(candidate.getId(), distance);
+            }
+        }
 
-            return distX.compareTo(distY);
-        });
+        if (distances.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        return checkedDeliveries;
+        // Load the full deliveries only for the result
+        return deliveryRepository.findAllById(distances.keySet())
+                .stream()
+                .filter(d -> d.getCourierId() == null) //Might have been assigned in the meantime
+                .sorted(Comparator.comparingDouble(d -> distances.get(d.getId())))
+                .collect(Collectors.toList());
     }
 
     /**
@@ -490,6 +645,13 @@ public class DeliveryService {
      * @throws NoDeliveryFoundException if no delivery found by id
      */
     public Delivery updateLocation(UUID id, Location location) throws NoDeliveryFoundException {
+        return withRetry("update-location", () -> updateLocationOnce(id, location));
+    }
+
+    /**
+     * Single attempt of {@link #updateLocation}, which re-reads the delivery when retried after a conflict.
+     */
+    private Delivery updateLocationOnce(UUID id, Location location) throws NoDeliveryFoundException {
         Optional<Delivery> optionalDelivery = deliveryRepository.findById(id);
 
         if (optionalDelivery.isEmpty()) {
@@ -502,8 +664,63 @@ public class DeliveryService {
                 .latitude(location.getLatitude())
                 .longitude(location.getLongitude());
         delivery.setCurrentLocation(currentLocation);
+        // The location is not kept in the delivery snapshot, so the frequent location updates skip it
         deliveryRepository.save(delivery);
         return delivery;
     }
-}
 
+    /**
+     * A single attempt of an update of a delivery.
+     * Its exceptions besides {@link NoDeliveryFoundException} are type parameters, so every update keeps its
+     * own throws clause.
+     */
+    @FunctionalInterface
+    private interface ThrowingSupplier<T, E extends Exception, F extends Exception> {
+        T get() throws NoDeliveryFoundException, E, F;
+    }
+
+    /**
+     * Run an update of a delivery, and try it again when it conflicts with a concurrent update of the same
+     * delivery, up to the maximum number of attempts.
+     *
+     * @param operation the name of the update in the metrics
+     * @param update    a single attempt of the update, which re-reads the delivery
+     * @return the updated delivery
+     */
+    private <E extends Exception, F extends Exception> Delivery withRetry(
+            String operation, ThrowingSupplier<Delivery, E, F> update) throws NoDeliveryFoundException, E, F {
+        countUpdate(operation);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return update.get();
+            } catch (OptimisticLockingFailureException e) {
+                onConflict(operation, attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Count an attempted update of a delivery, used as the base of the conflict rate.
+     *
+     * @param operation the name of the update
+     */
+    private void countUpdate(String operation) {
+        meterRegistry.counter("delivery.updates", "operation", operation).increment();
+    }
+
+    /**
+     * Record that an update lost the race against a concurrent update of the same delivery.
+     * Rethrows the conflict once the update has used up all of its attempts.
+     *
+     * @param operation the name of the update
+     * @param attempt   the number of the attempt that failed, starting at 1
+     * @param conflict  the optimistic locking failure of that attempt
+     */
+    private void onConflict(String operation, int attempt, OptimisticLockingFailureException conflict) {
+        meterRegistry.counter("delivery.update.conflicts", "operation", operation).increment();
+        if (attempt >= maxUpdateAttempts) {
+            meterRegistry.counter("delivery.update.conflicts.exhausted", "operation", operation).increment();
+            throw conflict;
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.ArchivedDelivery;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryGroup;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryTotals;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DurationHistogram;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.MinutesSum;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeMetric;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.ArchivedDeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory copy of the facts of all deliveries, current and archived, that the analytics need.
+ * The facts are kept in columns of primitives, one row per delivery: the times in nanoseconds since
+ * the epoch, the status as its ordinal, and the vendor and courier as codes into a dictionary of ids.
+ * A period is evaluated by a single loop over the columns, without loading or creating any entity;
+ * breaking it down per vendor or courier takes the same single loop, accumulating into an array per code.
+ * The columns are filled from the database once the application is ready (or on first use), and afterwards
+ * every saved delivery replaces its own row. The filling runs without the lock, so saves are not held up
+ * while both tables are read: deliveries saved in the meantime are kept aside and applied once it is done.
+ * Archiving a delivery does not change its facts, so it keeps its row.
+ * Only the writes of this instance are seen, so the snapshot is meant for a single instance of the service.
+ */
+@Service
+public class DeliverySnapshot {
+    private static final long NONE = Long.MIN_VALUE;
+    private static final byte NO_STATUS = -1;
+    private static final int NO_CODE = -1;
+    private static final byte DELIVERED = (byte) Delivery.StatusEnum.DELIVERED.ordinal();
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MINUTE = 60 * NANOS_PER_SECOND;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final DeliveryRepository deliveryRepository;
+    private final ArchivedDeliveryRepository archivedDeliveryRepository;
+    private final boolean enabled;
+    private final int loadPageSize;
+    private final boolean loadOnStartup;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object loadLock = new Object();
+
+    private final Map<UUID, Integer> rows = new HashMap<>();
+    private final IdDictionary vendors = new IdDictionary();
+    private final IdDictionary couriers = new IdDictionary();
+    private volatile boolean loaded;
+    /**
+     * The deliveries saved while the snapshot is being filled, or null when it is not. Guarded by the write lock.
+     */
+    private List<Delivery> savedWhileLoading;
+    private int size;
+    private long[] versions = new long[0];
+    private long[] deliveryTimes = new long[0];
+    private long[] preparationFinishTimes = new long[0];
+    private long[] placementTimes = new long[0];
+    private byte[] statuses = new byte[0];
+    private int[] vendorCodes = new int[0];
+    private int[] courierCodes = new int[0];
+
+    /**
+     * Create a new DeliverySnapshot.
+     *
+     * @param deliveryRepository         the repository for delivery
+     * @param archivedDeliveryRepository the repository for archived deliveries
+     * @param enabled                    whether to keep the snapshot at all
+     * @param loadPageSize               the number of deliveries read per query when the snapshot is filled
+     * @param loadOnStartup              whether to fill the snapshot once the application is ready,
+     *                                   instead of on first use
+     */
+    @Autowired
+    public DeliverySnapshot(DeliveryRepository deliveryRepository,
+                            ArchivedDeliveryRepository archivedDeliveryRepository,
+                            @Value("${analytics.snapshot.enabled:true}") boolean enabled,
+                            @Value("${analytics.snapshot.loadPageSize:1000}") int loadPageSize,
+                            @Value("${analytics.snapshot.loadOnStartup:true}") boolean loadOnStartup) {
+        if (loadPageSize <= 0) {
+            throw new IllegalArgumentException("Page size has to be positive.");
+        }
+        this.deliveryRepository = deliveryRepository;
+        this.archivedDeliveryRepository = archivedDeliveryRepository;
+        this.enabled = enabled;
+        this.loadPageSize = loadPageSize;
+        this.loadOnStartup = loadOnStartup;
+    }
+
+    /**
+     * Fill the snapshot once the application is ready, so the first analytics request does not wait for it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (enabled && loadOnStartup) {
+            load();
+        }
+    }
+
+    /**
+     * Whether the snapshot is kept, and can be used to evaluate periods.
+     *
+     * @return true if the snapshot is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Replace the row of a saved delivery. A delivery older than its row, by its version,
+     * is ignored, so concurrent saves cannot leave an outdated row behind.
+     *
+     * @param delivery the delivery as it was saved, or null if nothing was saved
+     */
+    public void update(Delivery delivery) {
+        if (!enabled || delivery == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // Before the snapshot is filled, the saved delivery is read from the database with the rest.
+            // Checked under the lock, so a save during the filling is applied after it instead of lost.
+            if (loaded) {
+                put(delivery);
+            } else if (savedWhileLoading != null) {
+                savedWhileLoading.add(delivery);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the rows of saved deliveries.
+     *
+     * @param deliveries the deliveries as they were saved
+     */
+    public void updateAll(Collection<Delivery> deliveries) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                deliveries.forEach(this::put);
+            } else if (savedWhileLoading != null) {
+                savedWhileLoading.addAll(deliveries);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gather all analytics totals of the deliveries whose estimated delivery time lies in a period.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the totals of the period
+     */
+    public DeliveryTotals totalsInPeriod(OffsetDateTime startDate, OffsetDateTime endDate) {
+        long from = epochNanos(startDate);
+        long to = epochNanos(endDate);
+        long deliveries = 0;
+        long delivered = 0;
+        long prepMinutes = 0;
+        long prepDeliveries = 0;
+        long deliveryMinutes = 0;
+        long deliveryDeliveries = 0;
+
+        readLocked();
+        try {
+            for (int row = 0; row < size; row++) {
+                long deliveryTime = deliveryTimes[row];
+                if (deliveryTime <= from || deliveryTime >= to) {
+                    continue;
+                }
+                deliveries++;
+                if (statuses[row] != DELIVERED) {
+                    continue;
+                }
+                delivered++;
+                long preparationFinishTime = preparationFinishTimes[row];
+                if (preparationFinishTime == NONE) {
+                    continue;
+                }
+                deliveryMinutes += (deliveryTime - preparationFinishTime) / NANOS_PER_MINUTE;
+                deliveryDeliveries++;
+                long placementTime = placementTimes[row];
+                if (placementTime != NONE) {
+                    prepMinutes += (preparationFinishTime - placementTime) / NANOS_PER_MINUTE;
+                    prepDeliveries++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new DeliveryTotals(deliveries, delivered, new MinutesSum(prepMinutes, prepDeliveries),
+                new MinutesSum(deliveryMinutes, deliveryDeliveries));
+    }
+
+    /**
+     * Get the distribution of a duration over the delivered deliveries whose estimated delivery time
+     * lies in a period.
+     *
+     * @param metric    the duration to get the distribution of
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the histogram of the duration in the period
+     */
+    public DurationHistogram histogramInPeriod(TimeMetric metric, OffsetDateTime startDate, OffsetDateTime endDate) {
+        long from = epochNanos(startDate);
+        long to = epochNanos(endDate);
+        DurationHistogram histogram = new DurationHistogram();
+
+        readLocked();
+        try {
+            // The preparation runs from placing the order to the end of preparation, the delivery from there on
+            long[] durationStarts = metric == TimeMetric.PREPARATION ? placementTimes : preparationFinishTimes;
+            long[] durationEnds = metric == TimeMetric.PREPARATION ? preparationFinishTimes : deliveryTimes;
+            for (int row = 0; row < size; row++) {
+                long deliveryTime = deliveryTimes[row];
+                if (deliveryTime <= from || deliveryTime >= to || statuses[row] != DELIVERED) {
+                    continue;
+                }
+                long durationStart = durationStarts[row];
+                long durationEnd = durationEnds[row];
+                if (durationStart != NONE && durationEnd != NONE) {
+                    histogram.add((durationEnd - durationStart) / NANOS_PER_MINUTE);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return histogram;
+    }
+
+    /**
+     * Gather the analytics totals of every vendor or courier over the deliveries whose estimated delivery time
+     * lies in a period, in a single loop over the columns. Deliveries without a vendor or courier are left out.
+     *
+     * @param group     the party to break the totals down by
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the totals per id of the vendor or courier, only for those with deliveries in the period
+     */
+    public Map<UUID, DeliveryTotals> totalsPerGroupInPeriod(DeliveryGroup group, OffsetDateTime startDate,
+                                                            OffsetDateTime endDate) {
+        long from = epochNanos(startDate);
+        long to = epochNanos(endDate);
+        Map<UUID, DeliveryTotals> totals = new HashMap<>();
+
+        readLocked();
+        try {
+            IdDictionary dictionary = group == DeliveryGroup.VENDOR ? vendors : couriers;
+            int[] groupCodes = group == DeliveryGroup.VENDOR ? vendorCodes : courierCodes;
+            int groups = dictionary.ids.size();
+            long[] deliveries = new long[groups];
+            long[] delivered = new long[groups];
+            long[] prepMinutes = new long[groups];
+            long[] prepDeliveries = new long[groups];
+            long[] deliveryMinutes = new long[groups];
+            long[] deliveryDeliveries = new long[groups];
+
+            for (int row = 0; row < size; row++) {
+                long deliveryTime = deliveryTimes[row];
+                int code = groupCodes[row];
+                if (deliveryTime <= from || deliveryTime >= to || code == NO_CODE) {
+                    continue;
+                }
+                deliveries[code]++;
+                if (statuses[row] != DELIVERED) {
+                    continue;
+                }
+                delivered[code]++;
+                long preparationFinishTime = preparationFinishTimes[row];
+                if (preparationFinishTime == NONE) {
+                    continue;
+                }
+                deliveryMinutes[code] += (deliveryTime - preparationFinishTime) / NANOS_PER_MINUTE;
+                deliveryDeliveries[code]++;
+                long placementTime = placementTimes[row];
+                if (placementTime != NONE) {
+                    prepMinutes[code] += (preparationFinishTime - placementTime) / NANOS_PER_MINUTE;
+                    prepDeliveries[code]++;
+                }
+            }
+
+            for (int code = 0; code < groups; code++) {
+                if (deliveries[code] > 0) {
+                    totals.put(dictionary.ids.get(code), new DeliveryTotals(deliveries[code], delivered[code],
+                            new MinutesSum(prepMinutes[code], prepDeliveries[code]),
+                            new MinutesSum(deliveryMinutes[code], deliveryDeliveries[code])));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return totals;
+    }
+
+    /**
+     * Get the number of deliveries in the snapshot.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        readLocked();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Take the read lock, filling the snapshot first if that did not happen yet.
+     */
+    private void readLocked() {
+        if (!enabled) {
+            throw new IllegalStateException("The delivery snapshot is disabled.");
+        }
+        if (!loaded) {
+            load();
+        }
+        lock.readLock().lock();
+    }
+
+    /**
+     * Fill the snapshot from the database. The current deliveries are read before the archived ones,
+     * so a delivery that is archived in the meantime is read from at least one of both tables.
+     * The tables are read without the lock, which is only taken to apply the deliveries saved in the meantime:
+     * nothing reads the columns before the snapshot is loaded, and saves only add to the saved deliveries.
+     */
+    private void load() {
+        synchronized (loadLock) {
+            if (loaded) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                savedWhileLoading = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            boolean filled = false;
+            try {
+                try (Stream<Delivery> deliveries = deliveryRepository.streamAll(loadPageSize)) {
+                    deliveries.forEach(this::put);
+                }
+                Pageable page = PageRequest.of(0, loadPageSize, Sort.by("id"));
+                Page<ArchivedDelivery> archived;
+                do {
+                    archived = archivedDeliveryRepository.findAll(page);
+                    for (ArchivedDelivery delivery : archived) {
+                        put(delivery.toDelivery());
+                    }
+                    page = archived.nextPageable();
+                } while (archived.hasNext());
+                filled = true;
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (filled) {
+                        // Newer than the rows read from the database, or ignored by their version if not
+                        savedWhileLoading.forEach(this::put);
+                        loaded = true;
+                    } else {
+                        clear();
+                    }
+                    savedWhileLoading = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove all rows, after the snapshot could not be filled, so it is filled from scratch on next use.
+     * Requires the write lock.
+     */
+    private void clear() {
+        rows.clear();
+        vendors.codes.clear();
+        vendors.ids.clear();
+        couriers.codes.clear();
+        couriers.ids.clear();
+        size = 0;
+    }
+
+    /**
+     * Write the facts of a delivery to its row, adding a row if it has none yet. Requires the write lock,
+     * or the load lock while the snapshot is filled.
+     *
+     * @param delivery the delivery
+     */
+    private void put(Delivery delivery) {
+        long version = delivery.getVersion() == null ? -1 : delivery.getVersion();
+        Integer row = rows.get(delivery.getId());
+        if (row == null) {
+            ensureCapacity(size + 1);
+            row = size++;
+            rows.put(delivery.getId(), row);
+        } else if (version < versions[row]) {
+            return;
+        }
+        versions[row] = version;
+        deliveryTimes[row] = epochNanos(delivery.getEstimatedDeliveryTime());
+        preparationFinishTimes[row] = epochNanos(delivery.getEstimatedPreparationFinishTime());
+        placementTimes[row] = epochNanos(delivery.getOrderPlacementTime());
+        statuses[row] = delivery.getStatus() == null ? NO_STATUS : (byte) delivery.getStatus().ordinal();
+        vendorCodes[row] = vendors.codeOf(delivery.getVendorId());
+        courierCodes[row] = couriers.codeOf(delivery.getCourierId());
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= versions.length) {
+            return;
+        }
+        int newCapacity = Math.max(INITIAL_CAPACITY, Math.max(capacity, versions.length * 2));
+        versions = Arrays.copyOf(versions, newCapacity);
+        deliveryTimes = Arrays.copyOf(deliveryTimes, newCapacity);
+        preparationFinishTimes = Arrays.copyOf(preparationFinishTimes, newCapacity);
+        placementTimes = Arrays.copyOf(placementTimes, newCapacity);
+        statuses = Arrays.copyOf(statuses, newCapacity);
+        vendorCodes = Arrays.copyOf(vendorCodes, newCapacity);
+        courierCodes = Arrays.copyOf(courierCodes, newCapacity);
+    }
+
+    /**
+     * Get a time in nanoseconds since the epoch, which is exact between the years 1677 and 2262.
+     * Times outside of that range are clamped to it.
+     *
+     * @param time the time, or null
+     * @return the nanoseconds since the epoch, or {@link #NONE} if there is no time
+     */
+    private static long epochNanos(OffsetDateTime time) {
+        if (time == null) {
+            return NONE;
+        }
+        Instant instant = time.toInstant();
+        try {
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano());
+        } catch (ArithmeticException e) {
+            return instant.getEpochSecond() < 0 ? NONE + 1 : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Assigns every distinct id a small code, so the rows hold an int instead of a reference to a UUID.
+     */
+    private static class IdDictionary {
+        private final Map<UUID, Integer> codes = new HashMap<>();
+        private final List<UUID> ids = new ArrayList<>();
+
+        int codeOf(UUID id) {
+            if (id == null) {
+                return NO_CODE;
+            }
+            return codes.computeIfAbsent(id, key -> {
+                ids.add(key);
+                return ids.size() - 1;
+            });
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.ServiceUnavailableException;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Protects the delivery microservice against a single other microservice that is slow or down.
+ * Every request to it passes, in order:
+ * <ul>
+ *     <li>a circuit breaker, which opens when too many of the recent requests failed, and then rejects
+ *     requests right away for a while, until a few trial requests show the microservice is back;</li>
+ *     <li>a bulkhead, which limits the number of requests in flight, so a slow microservice cannot tie up
+ *     all request threads;</li>
+ *     <li>a time limiter, which stops waiting for the response after a fixed time.</li>
+ * </ul>
+ * A request that is rejected, or not answered in time, fails with a {@link ServiceUnavailableException}.
+ * Connection failures and server errors count as failures of the microservice; client errors do not.
+ */
+public class DownstreamGuard implements ClientHttpRequestInterceptor {
+    private static final Object TIMED_OUT = new Object();
+
+    private final String name;
+    private final Semaphore bulkhead;
+    private final int maxConcurrentCalls;
+    private final long maxWaitMillis;
+    private final long timeoutMillis;
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openMillis;
+    private final int halfOpenCalls;
+    private final Clock clock;
+    private final ExecutorService executor;
+
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadFullRejections;
+    private final Counter timeouts;
+    private final Counter failures;
+
+    private State state = State.CLOSED;
+    private int windowIndex;
+    private int windowCalls;
+    private int windowFailures;
+    private long openedAt;
+    private int halfOpenStarted;
+    private int halfOpenSucceeded;
+
+    /**
+     * Create a new DownstreamGuard.
+     *
+     * @param name                 the name of the microservice in the metrics and errors
+     * @param maxConcurrentCalls   the maximum number of requests in flight
+     * @param maxWait              the time to wait for a request in flight to finish, when there are too many
+     * @param timeout              the time to wait for a response
+     * @param slidingWindowSize    the number of recent requests the failure rate is computed over
+     * @param minimumCalls         the number of requests needed before the failure rate is considered
+     * @param failureRateThreshold the percentage of failed requests at which the circuit opens
+     * @param openDuration         the time the circuit stays open before trial requests are let through
+     * @param halfOpenCalls        the number of trial requests that must succeed to close the circuit again
+     * @param clock                the clock the time the circuit is open is measured with
+     * @param meterRegistry        registry for the state, rejection, timeout and failure metrics
+     */
+    public DownstreamGuard(String name, int maxConcurrentCalls, Duration maxWait, Duration timeout,
+                           int slidingWindowSize, int minimumCalls, int failureRateThreshold,
+                           Duration openDuration, int halfOpenCalls, Clock clock, MeterRegistry meterRegistry) {
+        if (maxConcurrentCalls < 1 || slidingWindowSize < 1 || minimumCalls < 1 || halfOpenCalls < 1
+                || failureRateThreshold < 1 || failureRateThreshold > 100) {
+            throw new IllegalArgumentException("Limits must be positive and the failure rate a percentage.");
+        }
+        if (maxWait.isNegative() || timeout.isNegative() || timeout.isZero() || openDuration.isNegative()) {
+            throw new IllegalArgumentException("Times cannot be negative.");
+        }
+        this.name = name;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMillis = maxWait.toMillis();
+        this.timeoutMillis = timeout.toMillis();
+        this.window = new boolean[slidingWindowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openDuration.toMillis();
+        this.halfOpenCalls = halfOpenCalls;
+        this.clock = clock;
+        this.executor = requestThreads(name);
+
+        this.circuitOpenRejections = meterRegistry.counter("downstream.rejections",
+                "dependency", name, "reason", "circuit-open");
+        this.bulkheadFullRejections = meterRegistry.counter("downstream.rejections",
+                "dependency", name, "reason", "bulkhead-full");
+        this.timeouts = meterRegistry.counter("downstream.timeouts", "dependency", name);
+        this.failures = meterRegistry.counter("downstream.failures", "dependency", name);
+        meterRegistry.gauge("downstream.circuit.state", Tags.of("dependency", name), this,
+                guard -> guard.getState().ordinal());
+        meterRegistry.gauge("downstream.bulkhead.active", Tags.of("dependency", name), this,
+                DownstreamGuard::activeCalls);
+    }
+
+    /**
+     * Send a request through the circuit breaker, bulkhead and time limiter.
+     *
+     * @param request   the request
+     * @param body      the body of the request
+     * @param execution sends the request
+     * @return the response
+     * @throws IOException when the request could not be sent or its response not read
+     * @throws ServiceUnavailableException when the request was rejected or not answered in time
+     */
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        acquirePermission();
+        try {
+            if (!bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                releasePermission();
+                bulkheadFullRejections.increment();
+                throw new ServiceUnavailableException("Too many requests to the " + name
+                        + " microservice are in flight.");
+            }
+        } catch (InterruptedException e) {
+            releasePermission();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the " + name + " microservice.");
+        }
+
+        // The response is handed over once; a response that arrives after the caller gave up is closed,
+        // so its connection goes back to the pool
+        AtomicReference<Object> handoff = new AtomicReference<>();
+        Future<ClientHttpResponse> response;
+        try {
+            response = executor.submit(() -> {
+                try {
+                    ClientHttpResponse arrived = execution.execute(request, body);
+                    if (!handoff.compareAndSet(null, arrived)) {
+                        arrived.close();
+                    }
+                    return arrived;
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            releasePermission();
+            throw new ServiceUnavailableException("The " + name + " microservice cannot be reached.");
+        }
+        return await(response, handoff);
+    }
+
+    /**
+     * Get the state of the circuit breaker.
+     *
+     * @return the state
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.millis() - openedAt >= openMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Get the number of requests in flight.
+     *
+     * @return the number of requests holding a place in the bulkhead
+     */
+    public int activeCalls() {
+        return maxConcurrentCalls - bulkhead.availablePermits();
+    }
+
+    /**
+     * Stop the threads the requests are sent on.
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private ClientHttpResponse await(Future<ClientHttpResponse> response, AtomicReference<Object> handoff)
+            throws IOException {
+        try {
+            ClientHttpResponse arrived = response.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            record(arrived.getRawStatusCode() >= 500);
+            return arrived;
+        } catch (TimeoutException e) {
+            if (!handoff.compareAndSet(null, TIMED_OUT)) {
+                // The response arrived just now, and is used after all
+                ClientHttpResponse arrived = (ClientHttpResponse) handoff.get();
+                record(arrived.getRawStatusCode() >= 500);
+                return arrived;
+            }
+            response.cancel(true);
+            timeouts.increment();
+            record(true);
+            throw new ServiceUnavailableException("The " + name + " microservice did not respond in time.");
+        } catch (ExecutionException e) {
+            record(true);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        } catch (InterruptedException e) {
+            if (!handoff.compareAndSet(null, TIMED_OUT)) {
+                ((ClientHttpResponse) handoff.get()).close();
+            }
+            response.cancel(true);
+            releasePermission();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the " + name + " microservice.");
+        }
+    }
+
+    /**
+     * Check the circuit breaker lets a request through, and take a trial request if it is half open.
+     */
+    private synchronized void acquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.millis() - openedAt < openMillis) {
+                circuitOpenRejections.increment();
+                throw new ServiceUnavailableException("The " + name + " microservice is unavailable.");
+            }
+            state = State.HALF_OPEN;
+            halfOpenStarted = 0;
+            halfOpenSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenStarted >= halfOpenCalls) {
+                circuitOpenRejections.increment();
+                throw new ServiceUnavailableException("The " + name + " microservice is unavailable.");
+            }
+            halfOpenStarted++;
+        }
+    }
+
+    /**
+     * Give back a trial request that was not sent after all.
+     */
+    private synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenStarted > 0) {
+            halfOpenStarted--;
+        }
+    }
+
+    private synchronized void record(boolean failed) {
+        if (failed) {
+            failures.increment();
+        }
+        if (state == State.HALF_OPEN) {
+            if (failed) {
+                open();
+            } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                state = State.CLOSED;
+                resetWindow();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // A request that was sent before the circuit opened
+            return;
+        }
+
+        if (windowCalls == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCalls++;
+        }
+        window[windowIndex] = failed;
+        if (failed) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+        if (windowCalls >= minimumCalls && windowFailures * 100 >= failureRateThreshold * windowCalls) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.millis();
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        windowCalls = 0;
+        windowFailures = 0;
+    }
+
+    private static ExecutorService requestThreads(String name) {
+        // Unbounded, as the bulkhead already limits the number of requests in flight
+        AtomicInteger number = new AtomicInteger();
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name + "-request-" + number.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * The state of a circuit breaker.
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
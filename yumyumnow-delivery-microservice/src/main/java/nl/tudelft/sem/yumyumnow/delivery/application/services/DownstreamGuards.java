@@ -0,0 +1,99 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sends every request to the user or the order microservice through the {@link DownstreamGuard} of that
+ * microservice, so each of them has a circuit breaker, bulkhead and time limiter of its own, and a slow
+ * order microservice does not hold up the lookups of vendors and couriers. The guard of a request is found
+ * by the url of the microservice it starts with; other requests are sent as they are.
+ * The limits of each guard are set through the downstream.user.* and downstream.order.* properties.
+ */
+@Service
+public class DownstreamGuards implements ClientHttpRequestInterceptor, DisposableBean {
+    private final Map<String, DownstreamGuard> guards = new LinkedHashMap<>();
+
+    /**
+     * Create the guards of the user and order microservices.
+     *
+     * @param userServiceUrl  the url of the user microservice
+     * @param orderServiceUrl the url of the order microservice
+     * @param environment     the environment the limits of the guards are read from
+     * @param clock           the clock the time a circuit is open is measured with
+     * @param meterRegistry   registry for the metrics of the guards
+     */
+    @Autowired
+    public DownstreamGuards(@Value("${user.microservice.url}") String userServiceUrl,
+                            @Value("${order.microservice.url}") String orderServiceUrl,
+                            Environment environment, Clock clock, MeterRegistry meterRegistry) {
+        guards.put(userServiceUrl, guard("user", environment, clock, meterRegistry));
+        guards.put(orderServiceUrl, guard("order", environment, clock, meterRegistry));
+    }
+
+    /**
+     * Create guards for the given microservices.
+     *
+     * @param guards the guards, by the url of their microservice
+     */
+    public DownstreamGuards(Map<String, DownstreamGuard> guards) {
+        this.guards.putAll(guards);
+    }
+
+    /**
+     * Send a request through the guard of its microservice.
+     *
+     * @param request   the request
+     * @param body      the body of the request
+     * @param execution sends the request
+     * @return the response
+     * @throws IOException when the request could not be sent or its response not read
+     */
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String url = request.getURI().toString();
+        for (Map.Entry<String, DownstreamGuard> guard : guards.entrySet()) {
+            if (url.startsWith(guard.getKey())) {
+                return guard.getValue().intercept(request, body, execution);
+            }
+        }
+        return execution.execute(request, body);
+    }
+
+    /**
+     * Stop the threads of the guards.
+     */
+    @Override
+    public void destroy() {
+        guards.values().forEach(DownstreamGuard::close);
+    }
+
+    private static DownstreamGuard guard(String name, Environment environment, Clock clock,
+                                         MeterRegistry meterRegistry) {
+        String prefix = "downstream." + name + ".";
+        return new DownstreamGuard(name,
+                environment.getProperty(prefix + "maxConcurrentCalls", Integer.class, 20),
+                Duration.ofMillis(environment.getProperty(prefix + "maxWaitMillis", Long.class, 100L)),
+                Duration.ofMillis(environment.getProperty(prefix + "timeoutMillis", Long.class, 5000L)),
+                environment.getProperty(prefix + "slidingWindowSize", Integer.class, 20),
+                environment.getProperty(prefix + "minimumCalls", Integer.class, 10),
+                environment.getProperty(prefix + "failureRateThreshold", Integer.class, 50),
+                Duration.ofSeconds(environment.getProperty(prefix + "openSeconds", Long.class, 30L)),
+                environment.getProperty(prefix + "halfOpenCalls", Integer.class, 3),
+                clock, meterRegistry);
+    }
+}
@@ -0,0 +1,244 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of values fetched from another microservice, each kept for a fixed time to live.
+ * After its time to live, a value is still returned for a while as stale, while a fresh copy is fetched
+ * in the background; only after that grace period a lookup waits for the other microservice again.
+ * Values that do not exist, loaded as null, are cached as well, for a shorter time, so repeated lookups
+ * of a missing id do not each cost a request. Failed loads are not cached. When the cache is full,
+ * the least recently used value is evicted. Cached values are shared between callers,
+ * so they must not be modified.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class ExpiringCache<K, V> {
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long staleMillis;
+    private final long negativeTtlMillis;
+    private final Clock clock;
+    private final Executor refresher;
+    private final ExecutorService ownRefresher;
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter refreshFailures;
+    private final Timer loads;
+
+    /**
+     * Incremented on every invalidation, so a value loaded while it was invalidated is not stored.
+     */
+    private long version;
+
+    /**
+     * Create a new ExpiringCache.
+     *
+     * @param name          the name of the cache in its metrics
+     * @param maxEntries    the maximum number of values to keep, or 0 to not cache at all
+     * @param ttl           the time a value is returned without fetching it again
+     * @param stale         the time after the time to live in which a value is still returned,
+     *                      while it is fetched again in the background
+     * @param negativeTtl   the time a missing value is remembered
+     * @param clock         the clock the age of the values is measured with
+     * @param refresher     runs the background fetches of stale values
+     * @param meterRegistry registry for the hit, miss, eviction and load time metrics
+     */
+    public ExpiringCache(String name, int maxEntries, Duration ttl, Duration stale, Duration negativeTtl,
+                         Clock clock, Executor refresher, MeterRegistry meterRegistry) {
+        this(name, maxEntries, ttl, stale, negativeTtl, clock, refresher, null, meterRegistry);
+    }
+
+    /**
+     * Create a new ExpiringCache that fetches stale values again on a background thread of its own.
+     *
+     * @param name          the name of the cache in its metrics
+     * @param maxEntries    the maximum number of values to keep, or 0 to not cache at all
+     * @param ttl           the time a value is returned without fetching it again
+     * @param stale         the time after the time to live in which a value is still returned,
+     *                      while it is fetched again in the background
+     * @param negativeTtl   the time a missing value is remembered
+     * @param clock         the clock the age of the values is measured with
+     * @param meterRegistry registry for the hit, miss, eviction and load time metrics
+     */
+    public ExpiringCache(String name, int maxEntries, Duration ttl, Duration stale, Duration negativeTtl,
+                         Clock clock, MeterRegistry meterRegistry) {
+        this(name, maxEntries, ttl, stale, negativeTtl, clock, null, refreshThread(name), meterRegistry);
+    }
+
+    private ExpiringCache(String name, int maxEntries, Duration ttl, Duration stale, Duration negativeTtl,
+                          Clock clock, Executor refresher, ExecutorService ownRefresher,
+                          MeterRegistry meterRegistry) {
+        if (maxEntries < 0 || ttl.isNegative() || stale.isNegative() || negativeTtl.isNegative()) {
+            throw new IllegalArgumentException("Maximum number of entries and times cannot be negative.");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.staleMillis = stale.toMillis();
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.clock = clock;
+        this.ownRefresher = ownRefresher;
+        this.refresher = ownRefresher != null ? ownRefresher : refresher;
+
+        this.hits = meterRegistry.counter("cache.gets", "cache", name, "result", "hit");
+        this.staleHits = meterRegistry.counter("cache.gets", "cache", name, "result", "stale");
+        this.misses = meterRegistry.counter("cache.gets", "cache", name, "result", "miss");
+        this.evictions = meterRegistry.counter("cache.evictions", "cache", name);
+        this.refreshFailures = meterRegistry.counter("cache.refresh.failures", "cache", name);
+        this.loads = meterRegistry.timer("cache.loads", "cache", name);
+        meterRegistry.gauge("cache.size", Tags.of("cache", name), this, ExpiringCache::size);
+    }
+
+    /**
+     * Get the value of a key, loading and caching it when it is not cached or expired.
+     * A stale value is returned as is, and loaded again in the background.
+     *
+     * @param key  the key
+     * @param load loads the value of a key, or returns null if it does not exist
+     * @return the value, or null if it does not exist
+     */
+    public V get(K key, Function<K, V> load) {
+        if (maxEntries == 0) {
+            return load.apply(key);
+        }
+        long versionBefore;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                long age = clock.millis() - entry.loadedAt;
+                if (age < (entry.value == null ? negativeTtlMillis : ttlMillis)) {
+                    hits.increment();
+                    return entry.value;
+                }
+                if (entry.value != null && age < ttlMillis + staleMillis) {
+                    staleHits.increment();
+                    if (!entry.refreshing) {
+                        entry.refreshing = true;
+                        refresh(key, load, entry, version);
+                    }
+                    return entry.value;
+                }
+            }
+            versionBefore = version;
+        }
+        misses.increment();
+
+        // Loaded outside the lock, so a slow request does not hold up the lookups of other keys
+        V value = timedLoad(key, load);
+        store(key, value, versionBefore);
+        return value;
+    }
+
+    /**
+     * Drop the value of a key, so the next lookup loads it again.
+     *
+     * @param key the key
+     */
+    public synchronized void invalidate(K key) {
+        version++;
+        entries.remove(key);
+    }
+
+    /**
+     * Get the number of cached values, including the missing and expired ones that were not evicted yet.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Stop the background thread of the cache, if it has one of its own.
+     */
+    public void close() {
+        if (ownRefresher != null) {
+            ownRefresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Load a stale value again in the background. Requires the lock of the cache.
+     */
+    private void refresh(K key, Function<K, V> load, Entry<V> stale, long versionBefore) {
+        Runnable task = () -> {
+            try {
+                store(key, timedLoad(key, load), versionBefore);
+            } catch (RuntimeException e) {
+                // The stale value is returned until its grace period ends, or a later refresh succeeds
+                refreshFailures.increment();
+            } finally {
+                synchronized (this) {
+                    stale.refreshing = false;
+                }
+            }
+        };
+        try {
+            refresher.execute(task);
+        } catch (RejectedExecutionException e) {
+            stale.refreshing = false;
+        }
+    }
+
+    private V timedLoad(K key, Function<K, V> load) {
+        long start = System.nanoTime();
+        try {
+            return load.apply(key);
+        } finally {
+            loads.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void store(K key, V value, long versionBefore) {
+        if (version != versionBefore) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, clock.millis()));
+        Iterator<K> keys = entries.keySet().iterator();
+        while (entries.size() > maxEntries) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+        }
+    }
+
+    private static ExecutorService refreshThread(String name) {
+        // A single thread with a small queue; refreshes that do not fit are skipped and tried on a later lookup
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(100), runnable -> {
+            Thread thread = new Thread(runnable, name + "-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+        private boolean refreshing;
+
+        Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
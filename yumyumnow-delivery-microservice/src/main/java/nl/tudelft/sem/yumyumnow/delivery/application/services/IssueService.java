@@ -0,0 +1,144 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.AccessForbiddenException;
+import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.BadArgumentException;
+import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.NoDeliveryFoundException;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryIssue;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.IssueCounter;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryIssueRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.IssueCounterRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.IssueTypeCount;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import nl.tudelft.sem.yumyumnow.delivery.model.IssueType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Stores the issues that couriers report and counts them per type.
+ * Every report is appended to the issue store and added to the counter of its hour and type.
+ * The counts of a period are read from the counters of the whole hours inside it, and from the
+ * (time-indexed) issue store only for the partial hours at both edges.
+ */
+@Service
+public class IssueService {
+    private static final long SECONDS_PER_HOUR = Duration.ofHours(1).toSeconds();
+    private static final int MAX_DESCRIPTION_LENGTH = 500;
+
+    private final DeliveryIssueRepository deliveryIssueRepository;
+    private final IssueCounterRepository issueCounterRepository;
+    private final DeliveryRepository deliveryRepository;
+    private final Clock clock;
+
+    /**
+     * Create a new IssueService.
+     *
+     * @param deliveryIssueRepository the store of the reported issues
+     * @param issueCounterRepository  the repository for the hourly counters
+     * @param deliveryRepository      the repository for delivery
+     * @param clock                   the clock giving the time an issue is reported at
+     */
+    @Autowired
+    public IssueService(DeliveryIssueRepository deliveryIssueRepository,
+                        IssueCounterRepository issueCounterRepository,
+                        DeliveryRepository deliveryRepository,
+                        Clock clock) {
+        this.deliveryIssueRepository = deliveryIssueRepository;
+        this.issueCounterRepository = issueCounterRepository;
+        this.deliveryRepository = deliveryRepository;
+        this.clock = clock;
+    }
+
+    /**
+     * Report an issue encountered by the courier of a delivery.
+     * The issue is stored and counted in one transaction, so the counters always match the store.
+     *
+     * @param deliveryId  the id of the delivery
+     * @param courierId   the id of the courier reporting the issue
+     * @param type        the type of the issue
+     * @param description an optional description of the issue
+     * @return the reported issue
+     * @throws NoDeliveryFoundException when the delivery does not exist
+     * @throws AccessForbiddenException when the courier is not assigned to the delivery
+     * @throws BadArgumentException     when the type is missing or the description is too long
+     */
+    @Transactional
+    public DeliveryIssue reportIssue(UUID deliveryId, UUID courierId, IssueType type, String description)
+            throws NoDeliveryFoundException, AccessForbiddenException, BadArgumentException {
+        if (type == null || (description != null && description.length() > MAX_DESCRIPTION_LENGTH)) {
+            throw new BadArgumentException("Issue type is missing or description is too long.");
+        }
+        Optional<Delivery> optionalDelivery = deliveryRepository.findById(deliveryId);
+        if (optionalDelivery.isEmpty()) {
+            throw new NoDeliveryFoundException("Delivery couldn't be found.");
+        }
+        if (courierId == null || !courierId.equals(optionalDelivery.get().getCourierId())) {
+            throw new AccessForbiddenException("Courier is not assigned to the delivery.");
+        }
+
+        OffsetDateTime reportedAt = OffsetDateTime.now(clock);
+        DeliveryIssue issue = new DeliveryIssue(UUID.randomUUID(), deliveryId, courierId,
+                (short) type.ordinal(), description, reportedAt);
+        deliveryIssueRepository.save(issue);
+        issueCounterRepository.addToCounter(new IssueCounter(epochHour(reportedAt), (short) type.ordinal(), 1));
+        return issue;
+    }
+
+    /**
+     * Count the issues of every type that were reported in a period.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the number of issues of every type, including the types without issues
+     */
+    public Map<IssueType, Long> countsInPeriod(OffsetDateTime startDate, OffsetDateTime endDate) {
+        Map<IssueType, Long> counts = new EnumMap<>(IssueType.class);
+        for (IssueType type : IssueType.values()) {
+            counts.put(type, 0L);
+        }
+
+        // The first hour that starts after the start, and the hour after the last one that ends before the end
+        long fromHour = Math.floorDiv(startDate.toEpochSecond(), SECONDS_PER_HOUR) + 1;
+        long toHour = Math.floorDiv(endDate.toEpochSecond(), SECONDS_PER_HOUR);
+        if (fromHour >= toHour) {
+            addCounts(counts, deliveryIssueRepository.countByTypeInPeriod(startDate, endDate));
+            return counts;
+        }
+
+        OffsetDateTime toHourStart = hourStart(toHour);
+        addCounts(counts, deliveryIssueRepository.countByTypeInPeriod(startDate, hourStart(fromHour)));
+        addCounts(counts, issueCounterRepository.sumByType(fromHour, toHour));
+        if (toHourStart.isBefore(endDate)) {
+            // The issue query excludes its start, step back so an issue exactly on the hour is counted
+            addCounts(counts, deliveryIssueRepository.countByTypeInPeriod(toHourStart.minusNanos(1), endDate));
+        }
+        return counts;
+    }
+
+    private static void addCounts(Map<IssueType, Long> counts, List<IssueTypeCount> typeCounts) {
+        for (IssueTypeCount typeCount : typeCounts) {
+            if (typeCount.getIssues() != null) {
+                counts.merge(IssueType.values()[typeCount.getType()], typeCount.getIssues(), Long::sum);
+            }
+        }
+    }
+
+    private static long epochHour(OffsetDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(), SECONDS_PER_HOUR);
+    }
+
+    private static OffsetDateTime hourStart(long epochHour) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(epochHour * SECONDS_PER_HOUR), ZoneOffset.UTC);
+    }
+}
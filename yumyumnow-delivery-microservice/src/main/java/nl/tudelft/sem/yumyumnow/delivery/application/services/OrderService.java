@@ -11,6 +11,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.Map;
 import java.util.UUID;
 
@@ -20,6 +23,7 @@ public class OrderService {
     private final String orderServiceUrl;
     private final CustomerService customerService;
     private final VendorService vendorService;
+    private final SingleFlight singleFlight;
 
     /**
      * Creates a new Order Service with RestTemplateBuilder.
@@ -28,34 +32,47 @@ public class OrderService {
      * @param orderServiceUrl the url of the Order Microservice.
          * @param customerService the customer service
      * @param vendorService the vendor service
+     * @param singleFlight shares a request between concurrent lookups of the same order
      */
     @Autowired
     public OrderService(RestTemplateBuilder restTemplate,
                         @Value("${order.microservice.url}") String orderServiceUrl,
                         CustomerService customerService,
-                        VendorService vendorService) {
-        this.restTemplate = restTemplate.build();
-        this.orderServiceUrl = orderServiceUrl;
-        this.customerService = customerService;
-        this.vendorService = vendorService;
+                        VendorService vendorService,
+                        SingleFlight singleFlight) {
+        this(restTemplate.build(), orderServiceUrl, customerService, vendorService, singleFlight);
     }
 
     /**
-     * Creates a new Order Service with RestTemplate for testing.
+     * Creates a new Order Service with RestTemplate.
      *
      * @param restTemplate    the RestTemplate object used for making HTTP requests to the Order microservice.
      * @param orderServiceUrl the url of the Order Microservice.
      * @param customerService the customer service
      * @param vendorService the vendor service
+     * @param singleFlight shares a request between concurrent lookups of the same order
      */
     public OrderService(RestTemplate restTemplate,
                         String orderServiceUrl,
                         CustomerService customerService,
-                        VendorService vendorService) {
+                        VendorService vendorService,
+                        SingleFlight singleFlight) {
         this.restTemplate = restTemplate;
         this.orderServiceUrl = orderServiceUrl;
         this.customerService = customerService;
         this.vendorService = vendorService;
+        this.singleFlight = singleFlight;
+    }
+
+    /**
+     * Get an order as json map by its id. Concurrent lookups of the same order share one request.
+     *
+     * @param orderId the order id.
+     * @return the json map of the order, or null if the response was empty
+     */
+    private Map<String, Object> getOrderRaw(UUID orderId) {
+        String url = orderServiceUrl + "/order/" + orderId.toString();
+        return singleFlight.call("order", orderId, () -> restTemplate.getForObject(url, Map.class));
     }
 
     /**
@@ -65,8 +82,7 @@ public class OrderService {
      * @return an Order object or null if the order could not be retrieved.
      */
     public Order findOrderById(UUID orderId) {
-        String url = orderServiceUrl + "/order/" + orderId.toString();
-        Map<String, Object> response = restTemplate.getForObject(url, Map.class);
+        Map<String, Object> response = getOrderRaw(orderId);
 
         if (response == null) {
             return null;
@@ -76,9 +92,23 @@ public class OrderService {
                 .setOrderId(orderId)
                 .setOrderCustomer(customerService.getCustomer((String) response.get("customerID")))
                 .setOrderVendor(vendorService.getVendor((String) response.get("vendorID")))
+                .setOrderPlacementTime(placementTimeOf(response.get("date")))
                 .create();
     }
 
+    /**
+     * Convert the placement time of an order, given in milliseconds since the epoch.
+     *
+     * @param date the placement time as returned by the order microservice
+     * @return the placement time, or null if it was not given
+     */
+    private static OffsetDateTime placementTimeOf(Object date) {
+        if (!(date instanceof Number)) {
+            return null;
+        }
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(((Number) date).longValue()), ZoneOffset.UTC);
+    }
+
     /**
      * Checks if an order is paid.
      *
@@ -88,7 +118,8 @@ public class OrderService {
      */
     public boolean isPaid(UUID orderId) throws HttpClientErrorException {
         String url = orderServiceUrl + "/order/" + orderId.toString() + "/isPaid";
-        ResponseEntity<Boolean> response = restTemplate.getForEntity(url, Boolean.class);
+        ResponseEntity<Boolean> response = singleFlight.call("order-paid", orderId,
+                () -> restTemplate.getForEntity(url, Boolean.class));
         return Boolean.TRUE.equals(response.getBody());
     }
 
@@ -114,7 +145,8 @@ public class OrderService {
      */
     public String getStatus(UUID orderId) throws HttpClientErrorException {
         String url = orderServiceUrl + "/order/" + orderId.toString() + "/status";
-        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+        ResponseEntity<String> response = singleFlight.call("order-status", orderId,
+                () -> restTemplate.getForEntity(url, String.class));
         return response.getBody();
     }
 
@@ -137,8 +169,7 @@ public class OrderService {
      * @return a BigDecimal representing the time of the placement.
      */
     public BigDecimal getTimeOfPlacement(UUID orderId) {
-        String url = orderServiceUrl + "/order/" + orderId.toString();
-        Map<String, Object> response = restTemplate.getForObject(url, Map.class);
+        Map<String, Object> response = getOrderRaw(orderId);
 
         if (response == null) {
             return null;
@@ -0,0 +1,89 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent lookups of the same thing in another microservice share a single request.
+ * The first caller of a key makes the call; callers of the same key that arrive while it is in flight
+ * wait for it and get the same result, or the same exception, instead of making a call of their own.
+ * Nothing is kept after the call finished, so a later lookup always makes a new call.
+ * Results are shared between the callers of a call, so they must not be modified.
+ */
+@Service
+public class SingleFlight {
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Create a new SingleFlight.
+     *
+     * @param meterRegistry registry for the number of calls made and coalesced per kind of lookup
+     */
+    @Autowired
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Make a call, or wait for the call of the same key that is in flight already.
+     *
+     * @param name the kind of lookup, which keeps the keys of different lookups apart
+     * @param key  the key of the lookup, such as the id that is looked up
+     * @param call makes the call
+     * @param <T>  the type of the result
+     * @return the result of the call
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T call(String name, Object key, Supplier<T> call) {
+        String flightKey = name + ":" + key;
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, own);
+        if (existing != null) {
+            meterRegistry.counter("downstream.calls.coalesced", "call", name).increment();
+            return (T) await(existing);
+        }
+
+        meterRegistry.counter("downstream.calls", "call", name).increment();
+        try {
+            T result = call.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, own);
+        }
+    }
+
+    /**
+     * Get the number of calls that are in flight.
+     *
+     * @return the number of keys with a call in flight
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private static Object await(CompletableFuture<Object> call) {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            // Only unchecked exceptions complete a call, so they are thrown again as they are
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a call in flight.", e);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package nl.tudelft.sem.yumyumnow.delivery.application.services;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import nl.tudelft.sem.yumyumnow.delivery.domain.builders.VendorBuilder;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Vendor;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.BadArgumentException;
 import nl.tudelft.sem.yumyumnow.delivery.model.DeliveryVendorIdCustomCouriersPutRequest;
 import nl.tudelft.sem.yumyumnow.delivery.model.Location;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -13,39 +15,69 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Gets and updates the vendors kept by the user microservice.
+ * Vendors are looked up through a bounded cache with a time to live, so the many lookups of the same vendor
+ * within a request, and across requests, do not each cost a request to the user microservice.
+ * Concurrent lookups of a vendor that is not cached share a single request through the {@link SingleFlight}.
+ * A vendor is dropped from the cache as soon as it is updated through this service.
+ */
 @Service
-public class VendorService {
+public class VendorService implements DisposableBean {
     private final RestTemplate restTemplate;
     private final String vendorServiceUrl;
+    private final ExpiringCache<String, Map<String, Object>> vendorCache;
+    private final SingleFlight singleFlight;
     private BigDecimal defaultMaxDeliveryZone;
 
     /**
      * Constructor for vendor service with RestTemplateBuilder.
      *
-     * @param restTemplate restTemplate to interact with other api
-     * @param userServiceUrl url for user microservice
+     * @param restTemplate       restTemplate to interact with other api
+     * @param userServiceUrl     url for user microservice
+     * @param maxEntries         the maximum number of cached vendors, or 0 to not cache them
+     * @param ttlSeconds         the time a vendor is used without getting it again
+     * @param staleSeconds       the time after that in which a vendor is still used while it is fetched again
+     * @param negativeTtlSeconds the time a vendor that does not exist is remembered
+     * @param clock              the clock the age of cached vendors is measured with
+     * @param meterRegistry      registry for the cache metrics
+     * @param singleFlight       shares a request between concurrent lookups of the same vendor
      */
     @Autowired
-    public VendorService(RestTemplateBuilder restTemplate, @Value("${user.microservice.url}") String userServiceUrl) {
-        this.restTemplate = restTemplate.build();
-        this.vendorServiceUrl = userServiceUrl + "/vendor/";
+    public VendorService(RestTemplateBuilder restTemplate, @Value("${user.microservice.url}") String userServiceUrl,
+                         @Value("${vendor.cache.maxEntries:1000}") int maxEntries,
+                         @Value("${vendor.cache.ttlSeconds:60}") long ttlSeconds,
+                         @Value("${vendor.cache.staleSeconds:60}") long staleSeconds,
+                         @Value("${vendor.cache.negativeTtlSeconds:10}") long negativeTtlSeconds,
+                         Clock clock, MeterRegistry meterRegistry, SingleFlight singleFlight) {
+        this(restTemplate.build(), userServiceUrl, new ExpiringCache<>("vendor", maxEntries,
+                Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(staleSeconds),
+                Duration.ofSeconds(negativeTtlSeconds), clock, meterRegistry), singleFlight);
     }
 
     /**
-     * Constructor for vendor service with RestTemplate.
+     * Constructor for vendor service with RestTemplate and a cache of vendors.
      *
-     * @param restTemplate restTemplate to interact with other api
+     * @param restTemplate   restTemplate to interact with other api
      * @param userServiceUrl url for user microservice
+     * @param vendorCache    the cache of the vendors as json maps, by their user id
+     * @param singleFlight   shares a request between concurrent lookups of the same vendor
      */
-    public VendorService(RestTemplate restTemplate, String userServiceUrl) {
+    public VendorService(RestTemplate restTemplate, String userServiceUrl,
+                         ExpiringCache<String, Map<String, Object>> vendorCache, SingleFlight singleFlight) {
         this.restTemplate = restTemplate;
         this.vendorServiceUrl = userServiceUrl + "/vendor/";
+        this.vendorCache = vendorCache;
+        this.singleFlight = singleFlight;
     }
 
     /**
@@ -60,6 +92,24 @@ public class VendorService {
         return restTemplate.getForObject(url, Map.class);
     }
 
+    /**
+     * Get a vendor as json map by its user id, for the cache.
+     * A vendor the user microservice does not know is loaded as null, so it is remembered as missing.
+     * Concurrent loads of the same vendor share one request.
+     *
+     * @param vendorId vendorId
+     * @return the json map of that vendor, or null if it does not exist
+     */
+    private Map<String, Object> loadVendorRaw(String vendorId) {
+        return singleFlight.call("vendor", vendorId, () -> {
+            try {
+                return getVendorRaw(vendorId);
+            } catch (HttpClientErrorException.NotFound e) {
+                return null;
+            }
+        });
+    }
+
     /**
      * Get a vendor by its user id.
      *
@@ -67,7 +117,7 @@ public class VendorService {
      * @return the vendor as a map of response JSON
      */
     public Vendor getVendor(String vendorId) {
-        Map<String, Object> response = getVendorRaw(vendorId);
+        Map<String, Object> response = vendorCache.get(vendorId, this::loadVendorRaw);
 
         if (response == null) {
             return null;
@@ -124,7 +174,11 @@ public class VendorService {
         HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(vendorMap, headers);
         ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.PUT, requestEntity, String.class);
 
-        return response.getStatusCode().is2xxSuccessful();
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return false;
+        }
+        vendorCache.invalidate(vendor.getId().toString());
+        return true;
     }
 
     /**
@@ -166,4 +220,9 @@ public class VendorService {
         response.setAllowsOnlyOwnCouriers(allowsOnlyOwnCouriers);
         return response;
     }
+
+    @Override
+    public void destroy() {
+        vendorCache.close();
+    }
 }
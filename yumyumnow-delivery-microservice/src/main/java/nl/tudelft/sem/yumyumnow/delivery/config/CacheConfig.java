@@ -0,0 +1,63 @@
+package nl.tudelft.sem.yumyumnow.delivery.config;
+
+import java.time.Duration;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * The second-level cache config.
+ * Deliveries are cached by id in the "delivery" region, bounded in size and time to live.
+ */
+@Configuration
+public class CacheConfig {
+    public static final String DELIVERY_REGION = "delivery";
+
+    private final Environment environment;
+
+    public CacheConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Set up the cache manager that backs the Hibernate second-level cache.
+     *
+     * @return The cache manager.
+     */
+    @Bean
+    public CacheManager hibernateCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager();
+
+        long maxEntries = environment.getProperty("delivery.cache.maxEntries", Long.class, 10000L);
+        long ttlSeconds = environment.getProperty("delivery.cache.ttlSeconds", Long.class, 300L);
+        if (cacheManager.getCache(DELIVERY_REGION) == null) {
+            cacheManager.createCache(DELIVERY_REGION, Eh107Configuration.fromEhcacheCacheConfiguration(
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                    ResourcePoolsBuilder.heap(maxEntries))
+                            .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ttlSeconds)))));
+        }
+        return cacheManager;
+    }
+
+    /**
+     * Hand the cache manager to Hibernate, so the regions configured here are used instead of defaults.
+     *
+     * @param hibernateCacheManager the cache manager for the second-level cache
+     * @return The customizer of the Hibernate properties.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
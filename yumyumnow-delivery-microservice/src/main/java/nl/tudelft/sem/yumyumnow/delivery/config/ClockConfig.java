@@ -1,12 +1,15 @@
-package nl.tudelft.sem.yumyumnow.delivery;
+package nl.tudelft.sem.yumyumnow.delivery.config;
 
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import java.time.Clock;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import java.time.Clock;
 
+/**
+ * The clock config.
+ * Services that measure time take the clock as a bean, so their tests can use a fixed one.
+ */
 @Configuration
-public class Config {
+public class ClockConfig {
 
     /**
      * Gets the clock.
@@ -17,9 +20,4 @@ public class Config {
     public Clock getClock() {
         return Clock.systemDefaultZone();
     }
-
-    @Bean
-    public RestTemplateBuilder restTemplateBuilder() {
-        return new RestTemplateBuilder();
-    }
 }
@@ -1,7 +1,11 @@
 package nl.tudelft.sem.yumyumnow.delivery.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
 import javax.sql.DataSource;
 import lombok.Getter;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
@@ -9,7 +13,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 
@@ -32,17 +35,33 @@ public class H2Config {
     }
 
     /**
-     * Set up the connection to the database.
+     * Set up the pooled connection to the database.
+     * The pool publishes its active, idle and pending connection gauges
+     * to the meter registry when one is available.
      *
+     * @param meterRegistry the registry to publish pool metrics to
      * @return The data source.
      */
     @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName(environment.getProperty("jdbc.driverClassName"));
-        dataSource.setUrl(environment.getProperty("jdbc.url"));
-        dataSource.setUsername(environment.getProperty("jdbc.user"));
-        dataSource.setPassword(environment.getProperty("jdbc.pass"));
-        return dataSource;
+    public DataSource dataSource(ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("delivery-pool");
+        config.setDriverClassName(environment.getProperty("jdbc.driverClassName"));
+        config.setJdbcUrl(environment.getProperty("jdbc.url"));
+        config.setUsername(environment.getProperty("jdbc.user"));
+        config.setPassword(environment.getProperty("jdbc.pass"));
+
+        config.setMinimumIdle(environment.getProperty("jdbc.pool.minIdle", Integer.class, 2));
+        config.setMaximumPoolSize(environment.getProperty("jdbc.pool.maxSize", Integer.class, 10));
+        config.setConnectionTimeout(environment.getProperty("jdbc.pool.connectionTimeoutMs", Long.class, 30000L));
+        config.setLeakDetectionThreshold(
+                environment.getProperty("jdbc.pool.leakDetectionThresholdMs", Long.class, 0L));
+
+        // H2 caches parsed statements per connection, so pooled connections keep their cache between borrows.
+        config.addDataSourceProperty("QUERY_CACHE_SIZE",
+                environment.getProperty("jdbc.pool.statementCacheSize", "64"));
+
+        meterRegistry.ifAvailable(config::setMetricRegistry);
+        return new HikariDataSource(config);
     }
 }
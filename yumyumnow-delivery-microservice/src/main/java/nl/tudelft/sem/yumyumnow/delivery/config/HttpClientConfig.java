@@ -0,0 +1,98 @@
+package nl.tudelft.sem.yumyumnow.delivery.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import nl.tudelft.sem.yumyumnow.delivery.application.services.DownstreamGuards;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The http client config.
+ * All rest templates send their requests to the other microservices through one pooled http client,
+ * which keeps its connections alive between requests, and through the {@link DownstreamGuards}.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    /**
+     * Gets the pool of connections to the other microservices, shared by all rest templates.
+     * Its size and the number of connections in use are exported as the httpcomponents.httpclient.pool metrics.
+     *
+     * @param maxTotal      the maximum number of connections
+     * @param maxPerRoute   the maximum number of connections to a single microservice
+     * @param meterRegistry registry for the pool metrics
+     * @return the connection pool
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(
+            @Value("${http.client.pool.maxTotal:50}") int maxTotal,
+            @Value("${http.client.pool.maxPerRoute:20}") int maxPerRoute,
+            MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        // A connection that was idle for a while may have been closed by the server in the meantime
+        connectionManager.setValidateAfterInactivity(2000);
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "downstream").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    /**
+     * Gets the http client that keeps its connections alive in the pool.
+     *
+     * @param connectionManager              the connection pool
+     * @param connectTimeoutMillis           the time to wait for a connection to be made
+     * @param readTimeoutMillis              the time to wait for data of a response
+     * @param connectionRequestTimeoutMillis the time to wait for a free connection in the pool
+     * @param keepAliveSeconds               the time an idle connection is kept, if the server does not say
+     * @return the http client
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(
+            PoolingHttpClientConnectionManager connectionManager,
+            @Value("${http.client.connectTimeoutMillis:2000}") int connectTimeoutMillis,
+            @Value("${http.client.readTimeoutMillis:5000}") int readTimeoutMillis,
+            @Value("${http.client.connectionRequestTimeoutMillis:1000}") int connectionRequestTimeoutMillis,
+            @Value("${http.client.keepAliveSeconds:30}") long keepAliveSeconds) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMillis)
+                .setSocketTimeout(readTimeoutMillis)
+                .setConnectionRequestTimeout(connectionRequestTimeoutMillis)
+                .build();
+        long keepAliveMillis = TimeUnit.SECONDS.toMillis(keepAliveSeconds);
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return keepAlive > 0 ? Math.min(keepAlive, keepAliveMillis) : keepAliveMillis;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Gets the builder of the rest templates, which all send their requests through the pooled http client,
+     * guarded per microservice by a circuit breaker, bulkhead and time limiter.
+     *
+     * @param httpClient       the http client
+     * @param downstreamGuards the guards of the user and order microservices
+     * @return the rest template builder
+     */
+    @Bean
+    public RestTemplateBuilder restTemplateBuilder(CloseableHttpClient httpClient, DownstreamGuards downstreamGuards) {
+        return new RestTemplateBuilder()
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .additionalInterceptors(downstreamGuards);
+    }
+}
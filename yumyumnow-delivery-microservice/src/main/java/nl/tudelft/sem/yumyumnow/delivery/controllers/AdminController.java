@@ -6,6 +6,7 @@ import nl.tudelft.sem.yumyumnow.delivery.application.services.*;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.AccessForbiddenException;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.BadArgumentException;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.ServiceUnavailableException;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeMetric;
 import nl.tudelft.sem.yumyumnow.delivery.model.*;
 import nl.tudelft.sem.yumyumnow.delivery.model.Error;
 import org.springframework.core.NestedRuntimeException;
@@ -19,27 +20,33 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
 import org.springframework.web.server.ResponseStatusException;
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
-import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
 public class AdminController implements AdminApi {
     private final DeliveryService deliveryService;
     private final AdminService adminService;
+    private final AnalyticsJobService analyticsJobService;
 
     /**
      * Constructor for admin controller.
      *
-     * @param deliveryService delivery service for the logic
-     * @param adminService    admin service from User microservice
+     * @param deliveryService     delivery service for the logic
+     * @param adminService        admin service from User microservice
+     * @param analyticsJobService service computing analytics in the background
      */
     public AdminController(DeliveryService deliveryService,
-                           AdminService adminService) {
+                           AdminService adminService,
+                           AnalyticsJobService analyticsJobService) {
         this.deliveryService = deliveryService;
         this.adminService = adminService;
+        this.analyticsJobService = analyticsJobService;
     }
 
     /**
@@ -305,18 +312,25 @@ public class AdminController implements AdminApi {
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDate
     ) {
         try {
-            List<String> encounteredIssues = adminService.getEncounteredIssues(adminId, startDate, endDate);
-            return ResponseEntity.ok(new AdminAnalyticsIssuesGet200Response()
+            Map<IssueType, Long> issueCounts = adminService.getIssueCounts(adminId, startDate, endDate);
+            AdminAnalyticsIssuesGet200Response response = new AdminAnalyticsIssuesGet200Response()
                     .startDate(startDate)
-                    .endDate(endDate)
-                    .encounteredIssues(encounteredIssues));
+                    .endDate(endDate);
+            long totalIssues = 0;
+            for (Map.Entry<IssueType, Long> issueCount : issueCounts.entrySet()) {
+                response.addIssueCountsItem(new IssueCount()
+                        .type(issueCount.getKey())
+                        .count(BigDecimal.valueOf(issueCount.getValue())));
+                totalIssues += issueCount.getValue();
+            }
+            return ResponseEntity.ok(response.totalIssues(BigDecimal.valueOf(totalIssues)));
         } catch (BadArgumentException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "Start date cannot be greater than end date.");
         } catch (AccessForbiddenException e) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN,
                     "User has no right to get analytics.");
-        } catch (RestClientException e) {
+        } catch (ServiceUnavailableException | RestClientException e) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "Server could not respond.");
         } catch (Exception e) {
@@ -356,10 +370,257 @@ public class AdminController implements AdminApi {
         } catch (AccessForbiddenException e) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN,
                     "User has no right to get analytics.");
-        }  catch (Exception e) {
+        } catch (ServiceUnavailableException | RestClientException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Server could not respond.");
+        } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Internal server error.");
         }
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Get the driver efficiency of every courier, the most efficient couriers first.
+     *
+     * @param adminId   The admin ID.
+     * @param startDate Start date of the analytic.
+     * @param endDate   End date of the analytic.
+     * @param page      The page of groups, starting at 0.
+     * @param size      The number of groups per page.
+     * @return a CourierEfficiencyPage response with the requested page of groups
+     */
+    @Override
+    public ResponseEntity<CourierEfficiencyPage> adminAnalyticsDriverEfficiencyCouriersGet(
+            @NotNull @Parameter(name = "adminId", description = "The admin ID", required = true)
+            @Valid @RequestParam(value = "adminId", required = true) UUID adminId,
+            @NotNull @Parameter(name = "startDate", description = "Start date of the analytic.", required = true)
+            @Valid @RequestParam(value = "startDate", required = true)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDate,
+            @NotNull @Parameter(name = "endDate", description = "End date of the analytic.", required = true)
+            @Valid @RequestParam(value = "endDate", required = true)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDate,
+            @Min(0) @Parameter(name = "page", description = "The page of groups, starting at 0.")
+            @Valid @RequestParam(value = "page", required = false, defaultValue = "0") Integer page,
+            @Min(1) @Max(100) @Parameter(name = "size", description = "The number of groups per page.")
+            @Valid @RequestParam(value = "size", required = false, defaultValue = "20") Integer size
+    ) {
+        try {
+            return ResponseEntity.ok(adminService.getDriverEfficiencyPerCourier(adminId, startDate, endDate, page, size));
+        } catch (BadArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (AccessForbiddenException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "User has no right to get analytics.");
+        } catch (ServiceUnavailableException | RestClientException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Server could not respond.");
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Internal server error.");
+        }
+    }
+
+    /**
+     * Get the average preparation time of every vendor, the slowest vendors first.
+     *
+     * @param adminId   The admin ID.
+     * @param startDate Start date of the analytic.
+     * @param endDate   End date of the analytic.
+     * @param page      The page of groups, starting at 0.
+     * @param size      The number of groups per page.
+     * @return a VendorPreparationTimePage response with the requested page of groups
+     */
+    @Override
+    public ResponseEntity<VendorPreparationTimePage> adminAnalyticsPreparationTimeVendorsGet(
+            @NotNull @Parameter(name = "adminId", description = "The admin ID", required = true)
+            @Valid @RequestParam(value = "adminId", required = true) UUID adminId,
+            @NotNull @Parameter(name = "startDate", description = "Start date of the analytic.", required = true)
+            @Valid @RequestParam(value = "startDate", required = true)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDate,
+            @NotNull @Parameter(name = "endDate", description = "End date of the analytic.", required = true)
+            @Valid @RequestParam(value = "endDate", required = true)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDate,
+            @Min(0) @Parameter(name = "page", description = "The page of groups, starting at 0.")
+            @Valid @RequestParam(value = "page", required = false, defaultValue = "0") Integer page,
+            @Min(1) @Max(100) @Parameter(name = "size", description = "The number of groups per page.")
+            @Valid @RequestParam(value = "size", required = false, defaultValue = "20") Integer size
+    ) {
+        try {
+            return ResponseEntity.ok(adminService.getPreparationTimePerVendor(adminId, startDate, endDate, page, size));
+        } catch (BadArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (AccessForbiddenException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "User has no right to get analytics.");
+        } catch (ServiceUnavailableException | RestClientException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Server could not respond.");
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Internal server error.");
+        }
+    }
+
+    /**
+     * Get all delivery analytics at once, checking the admin only once.
+     *
+     * @param adminId   The admin ID.
+     * @param startDate Start date of the analytic.
+     * @param endDate   End date of the analytic.
+     * @return a AdminAnalyticsSummaryGet200Response response with all delivery analytics of the period
+     */
+    @Override
+    public ResponseEntity<AdminAnalyticsSummaryGet200Response> adminAnalyticsSummaryGet(
+            @NotNull @Parameter(name = "adminId", description = "The admin ID", required = true)
+            @Valid @RequestParam(value = "adminId", required = true) UUID adminId,
+            @NotNull @Parameter(name = "startDate", description = "Start date of the analytic.", required = true)
+            @Valid @RequestParam(value = "startDate", required = true)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDate,
+            @NotNull @Parameter(name = "endDate", description = "End date of the analytic.", required = true)
+            @Valid @RequestParam(value = "endDate", required = true)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDate
+    ) {
+        try {
+            return ResponseEntity.ok(adminService.getAnalyticsSummary(adminId, startDate, endDate));
+        } catch (BadArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Start date cannot be greater than end date.");
+        } catch (AccessForbiddenException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "User has no right to get analytics.");
+        } catch (ServiceUnavailableException | RestClientException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Server could not respond.");
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Internal server error.");
+        }
+    }
+
+    /**
+     * Get the percentiles of the preparation time of an order.
+     *
+     * @param adminId   The admin ID.
+     * @param startDate Start date of the analytic.
+     * @param endDate   End date of the analytic.
+     * @return a TimePercentiles response with the median, 90th and 99th percentile and maximum preparation time
+     */
+    @Override
+    public ResponseEntity<TimePercentiles> adminAnalyticsPreparationTimePercentilesGet(
+            @NotNull @Parameter(name = "adminId", description = "The admin ID", required = true)
+            @Valid @RequestParam(value = "adminId", required = true) UUID adminId,
+            @NotNull @Parameter(name = "startDate", description = "Start date of the analytic.", required = true)
+            @Valid @RequestParam(value = "startDate", required = true)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDate,
+            @NotNull @Parameter(name = "endDate", description = "End date of the analytic.", required = true)
+            @Valid @RequestParam(value = "endDate", required = true)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDate
+    ) {
+        return timePercentiles(adminId, TimeMetric.PREPARATION, startDate, endDate);
+    }
+
+    /**
+     * Get the percentiles of the delivery time of an order.
+     *
+     * @param adminId   The admin ID.
+     * @param startDate Start date of the analytic.
+     * @param endDate   End date of the analytic.
+     * @return a TimePercentiles response with the median, 90th and 99th percentile and maximum delivery time
+     */
+    @Override
+    public ResponseEntity<TimePercentiles> adminAnalyticsDeliveryTimePercentilesGet(
+            @NotNull @Parameter(name = "adminId", description = "The admin ID", required = true)
+            @Valid @RequestParam(value = "adminId", required = true) UUID adminId,
+            @NotNull @Parameter(name = "startDate", description = "Start date of the analytic.", required = true)
+            @Valid @RequestParam(value = "startDate", required = true)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDate,
+            @NotNull @Parameter(name = "endDate", description = "End date of the analytic.", required = true)
+            @Valid @RequestParam(value = "endDate", required = true)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDate
+    ) {
+        return timePercentiles(adminId, TimeMetric.DELIVERY, startDate, endDate);
+    }
+
+    /**
+     * Start computing an analytic in the background.
+     *
+     * @param adminId   The admin ID.
+     * @param type      The analytic to compute.
+     * @param startDate Start date of the analytic.
+     * @param endDate   End date of the analytic.
+     * @return the queued AnalyticsJob, to be polled for its result
+     */
+    @Override
+    public ResponseEntity<AnalyticsJob> adminAnalyticsJobsPost(
+            @NotNull @Parameter(name = "adminId", description = "The admin ID", required = true)
+            @Valid @RequestParam(value = "adminId", required = true) UUID adminId,
+            @NotNull @Parameter(name = "type", description = "The analytic to compute.", required = true)
+            @Valid @RequestParam(value = "type", required = true) AnalyticsJobType type,
+            @NotNull @Parameter(name = "startDate", description = "Start date of the analytic.", required = true)
+            @Valid @RequestParam(value = "startDate", required = true)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startDate,
+            @NotNull @Parameter(name = "endDate", description = "End date of the analytic.", required = true)
+            @Valid @RequestParam(value = "endDate", required = true)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endDate
+    ) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(analyticsJobService.submit(adminId, type, startDate, endDate));
+        } catch (BadArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Start date cannot be greater than end date.");
+        } catch (AccessForbiddenException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "User has no right to get analytics.");
+        } catch (ServiceUnavailableException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        } catch (RestClientException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Server could not respond.");
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Internal server error.");
+        }
+    }
+
+    /**
+     * Get a background analytics job, with its result once it succeeded.
+     *
+     * @param jobId   The job ID.
+     * @param adminId The ID of the admin that started the job.
+     * @return the AnalyticsJob
+     */
+    @Override
+    public ResponseEntity<AnalyticsJob> adminAnalyticsJobsJobIdGet(
+            @Parameter(name = "jobId", description = "The job ID", required = true)
+            @PathVariable("jobId") UUID jobId,
+            @NotNull @Parameter(name = "adminId", description = "The ID of the admin that started the job",
+                    required = true)
+            @Valid @RequestParam(value = "adminId", required = true) UUID adminId
+    ) {
+        return analyticsJobService.getJob(adminId, jobId)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Analytics job not found or expired."));
+    }
+
+    private ResponseEntity<TimePercentiles> timePercentiles(UUID adminId, TimeMetric metric,
+                                                            OffsetDateTime startDate, OffsetDateTime endDate) {
+        try {
+            return ResponseEntity.ok(adminService.getTimePercentiles(adminId, metric, startDate, endDate));
+        } catch (BadArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Start date cannot be greater than end date.");
+        } catch (AccessForbiddenException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "User has no right to get analytics.");
+        } catch (ServiceUnavailableException | RestClientException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Server could not respond.");
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Internal server error.");
+        }
+    }
 }
\ No newline at end of file
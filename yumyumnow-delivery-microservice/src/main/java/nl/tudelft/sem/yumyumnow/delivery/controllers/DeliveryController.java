@@ -11,6 +11,7 @@ import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.NoDeliveryFoundExcept
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.ServiceUnavailableException;
 import nl.tudelft.sem.yumyumnow.delivery.model.*;
 import nl.tudelft.sem.yumyumnow.delivery.model.Error;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -35,6 +36,7 @@ public class DeliveryController implements DeliveryApi {
 
     private final EmailService emailService;
     private final OrderService orderService;
+    private final IssueService issueService;
 
     /**
      * Constructor for delivery controller.
@@ -45,19 +47,22 @@ public class DeliveryController implements DeliveryApi {
      * @param adminService    admin service from User microservice
      * @param orderService    order service
      * @param emailService    email service
+     * @param issueService    service for the reported issues
      */
     public DeliveryController(DeliveryService deliveryService,
                               CustomerService userService,
                               VendorService vendorService,
                               AdminService adminService,
                               OrderService orderService,
-                              EmailService emailService) {
+                              EmailService emailService,
+                              IssueService issueService) {
         this.deliveryService = deliveryService;
         this.userService = userService;
         this.vendorService = vendorService;
         this.adminService = adminService;
         this.orderService = orderService;
         this.emailService = emailService;
+        this.issueService = issueService;
     }
 
     /**
@@ -98,7 +103,7 @@ public class DeliveryController implements DeliveryApi {
                     order.getVendorId());
         } catch (BadArgumentException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Vendor does not exist");
-        } catch (RestClientException e) {
+        } catch (ServiceUnavailableException | RestClientException e) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "Server could not respond.");
         } catch (Exception e) {
@@ -125,7 +130,7 @@ public class DeliveryController implements DeliveryApi {
             delivery = deliveryService.getDelivery(id);
         } catch (NoDeliveryFoundException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No delivery found by id.");
-        } catch (RestClientException e) {
+        } catch (ServiceUnavailableException | RestClientException e) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "Server could not respond.");
         } catch (Exception e) {
@@ -157,9 +162,12 @@ public class DeliveryController implements DeliveryApi {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Delivery couldn't be found by id.");
         } catch (BadArgumentException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Illegal request parameters");
-        } catch (RestClientException e) {
+        } catch (ServiceUnavailableException | RestClientException e) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "Server could not respond.");
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Delivery was modified concurrently.");
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Internal server error.");
@@ -184,9 +192,12 @@ public class DeliveryController implements DeliveryApi {
                     deliveryIdStatusPutRequest.getStatus());
         } catch (NoDeliveryFoundException | BadArgumentException | AccessForbiddenException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Incorrect parameters.");
-        } catch (RestClientException e) {
+        } catch (ServiceUnavailableException | RestClientException e) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "Server could not respond.");
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Delivery was modified concurrently.");
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Internal server error.");
@@ -196,7 +207,7 @@ public class DeliveryController implements DeliveryApi {
             deliveryService.sendEmail(deliveryIdStatusPutRequest.getStatus(), id);
         } catch (BadArgumentException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Incorrect parameters.");
-        } catch (RestClientException e) {
+        } catch (ServiceUnavailableException | RestClientException e) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "Server could not respond.");
         } catch (Exception e) {
@@ -228,9 +239,12 @@ public class DeliveryController implements DeliveryApi {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Delivery couldn't be found by id.");
         } catch (BadArgumentException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Illegal request parameters");
-        } catch (RestClientException e) {
+        } catch (ServiceUnavailableException | RestClientException e) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "Server could not respond.");
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Delivery was modified concurrently.");
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Internal server error.");
@@ -258,7 +272,7 @@ public class DeliveryController implements DeliveryApi {
             return ResponseEntity.ok(response);
         } catch (BadArgumentException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User isn't authorized for this request.");
-        } catch (RestClientException e) {
+        } catch (ServiceUnavailableException | RestClientException e) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "Server could not respond.");
         } catch (Exception e) {
@@ -286,9 +300,12 @@ public class DeliveryController implements DeliveryApi {
             delivery = deliveryService.addDeliveryTime(id, orderService, userService);
         } catch (NoDeliveryFoundException | BadArgumentException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Incorrect parameters.");
-        } catch (RestClientException e) {
+        } catch (ServiceUnavailableException | RestClientException e) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "Server could not respond.");
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Delivery was modified concurrently.");
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Internal server error.");
@@ -320,9 +337,12 @@ public class DeliveryController implements DeliveryApi {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Incorrect parameters.");
         } catch (AccessForbiddenException e) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access for that user type is forbidden.");
-        } catch (RestClientException e) {
+        } catch (ServiceUnavailableException | RestClientException e) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "Server could not respond.");
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Delivery was modified concurrently.");
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Internal server error.");
@@ -349,9 +369,12 @@ public class DeliveryController implements DeliveryApi {
             delivery = deliveryService.addDeliveryTime(id, orderService, userService);
         } catch (NoDeliveryFoundException | BadArgumentException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Incorrect parameters.");
-        } catch (RestClientException e) {
+        } catch (ServiceUnavailableException | RestClientException e) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "Server could not respond.");
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Delivery was modified concurrently.");
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Internal server error.");
@@ -414,9 +437,12 @@ public class DeliveryController implements DeliveryApi {
             delivery = deliveryService.updateLocation(id, location);
         } catch (NoDeliveryFoundException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No delivery found by id.");
-        } catch (RestClientException e) {
+        } catch (ServiceUnavailableException | RestClientException e) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "Server could not respond.");
+        } catch (OptimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Delivery was modified concurrently.");
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Internal server error.");
@@ -424,6 +450,33 @@ public class DeliveryController implements DeliveryApi {
         return ResponseEntity.ok(delivery);
     }
 
+    /**
+     * Report an issue encountered by the courier of a delivery.
+     *
+     * @param id UUID of the delivery (required)
+     * @param deliveryIdIssuesPostRequest the courier, type and description of the issue (optional)
+     * @return the reported issue
+     */
+    @Override
+    public ResponseEntity<Issue> deliveryIdIssuesPost(
+            @Parameter(name = "id", description = "UUID of the delivery", required = true) @PathVariable("id") UUID id,
+            @Parameter(name = "DeliveryIdIssuesPostRequest", description = "")
+            @Valid @RequestBody(required = false) DeliveryIdIssuesPostRequest deliveryIdIssuesPostRequest) {
+        UUID courierId = deliveryIdIssuesPostRequest.getCourierId();
+        IssueType type = deliveryIdIssuesPostRequest.getType();
+        try {
+            return ResponseEntity.ok(issueService.reportIssue(id, courierId, type,
+                    deliveryIdIssuesPostRequest.getDescription()).toIssue());
+        } catch (NoDeliveryFoundException | BadArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Incorrect parameters.");
+        } catch (AccessForbiddenException e) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Courier is not assigned to the delivery.");
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Internal server error.");
+        }
+    }
+
     /**
      * Update the allowsOnlyOwnCouriers field of a vendor.
      *
@@ -442,7 +495,7 @@ public class DeliveryController implements DeliveryApi {
                     id, deliveryVendorIdCustomCouriersPutRequest.getAllowsOnlyOwnCouriers()));
         } catch (BadArgumentException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No vendor found by id.");
-        } catch (RestClientException e) {
+        } catch (ServiceUnavailableException | RestClientException e) {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
                     "Server could not respond.");
         } catch (Exception e) {
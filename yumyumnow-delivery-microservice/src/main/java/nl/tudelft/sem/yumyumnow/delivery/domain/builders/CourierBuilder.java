@@ -3,6 +3,7 @@ package nl.tudelft.sem.yumyumnow.delivery.domain.builders;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Courier;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Vendor;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * Builder for Courier.
@@ -11,6 +12,7 @@ import java.util.UUID;
 public class CourierBuilder implements Builder<Courier> {
     UUID id;
     Vendor vendor;
+    Supplier<Vendor> vendorResolver;
 
     public CourierBuilder setId(UUID id) {
         this.id = id;
@@ -22,14 +24,20 @@ public class CourierBuilder implements Builder<Courier> {
         return this;
     }
 
+    public CourierBuilder setVendorResolver(Supplier<Vendor> vendorResolver) {
+        this.vendorResolver = vendorResolver;
+        return this;
+    }
+
     @Override
     public Courier create() {
-        return new Courier(id, vendor);
+        return new Courier(id, vendor, vendorResolver);
     }
 
     @Override
     public void reset() {
         id = null;
         vendor = null;
+        vendorResolver = null;
     }
 }
@@ -13,6 +13,7 @@ public class DeliveryBuilder implements Builder<Delivery> {
     private Delivery.StatusEnum status;
     private OffsetDateTime estimatedDeliveryTime;
     private OffsetDateTime estimatedPreparationFinishTime;
+    private OffsetDateTime orderPlacementTime;
     private DeliveryCurrentLocation currentLocation;
 
     /**
@@ -92,6 +93,17 @@ public class DeliveryBuilder implements Builder<Delivery> {
         return this;
     }
 
+    /**
+     * A setter method for the orderPlacementTime field of a DeliveryBuilder.
+     *
+     * @param orderPlacementTime the time to be set as the time the order was placed
+     * @return the DeliveryBuilder with the orderPlacementTime field changed
+     */
+    public DeliveryBuilder setOrderPlacementTime(OffsetDateTime orderPlacementTime) {
+        this.orderPlacementTime = orderPlacementTime;
+        return this;
+    }
+
     /**
      * A setter method for the currentLocation field of a DeliveryBuilder.
      *
@@ -117,6 +129,7 @@ public class DeliveryBuilder implements Builder<Delivery> {
         delivery.setStatus(status);
         delivery.setEstimatedDeliveryTime(estimatedDeliveryTime);
         delivery.setEstimatedPreparationFinishTime(estimatedPreparationFinishTime);
+        delivery.setOrderPlacementTime(orderPlacementTime);
         delivery.setCurrentLocation(currentLocation);
         return delivery;
     }
@@ -130,6 +143,7 @@ public class DeliveryBuilder implements Builder<Delivery> {
         status = null;
         estimatedDeliveryTime = null;
         estimatedPreparationFinishTime = null;
+        orderPlacementTime = null;
         currentLocation = null;
     }
 }
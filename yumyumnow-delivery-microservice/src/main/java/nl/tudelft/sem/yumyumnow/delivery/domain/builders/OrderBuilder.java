@@ -1,5 +1,6 @@
 package nl.tudelft.sem.yumyumnow.delivery.domain.builders;
 
+import java.time.OffsetDateTime;
 import java.util.UUID;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Order;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Vendor;
@@ -9,6 +10,7 @@ public class OrderBuilder implements Builder<Order> {
     private UUID id;
     private Vendor vendor;
     private Customer customer;
+    private OffsetDateTime placementTime;
 
     /**
      * A setter for the Order id of the OrderBuilder.
@@ -43,6 +45,17 @@ public class OrderBuilder implements Builder<Order> {
         return this;
     }
 
+    /**
+     * A setter for the Order placement time of the OrderBuilder.
+     *
+     * @param placementTime the time at which the order was placed
+     * @return the instance of the OrderBuilder that it was called on, with the placementTime field updated
+     */
+    public OrderBuilder setOrderPlacementTime(OffsetDateTime placementTime) {
+        this.placementTime = placementTime;
+        return this;
+    }
+
     /**
      * A method that creates a new Order object using the field of the OrderBuilder.
      *
@@ -50,7 +63,7 @@ public class OrderBuilder implements Builder<Order> {
      */
     @Override
     public Order create() {
-        return new Order(id, vendor, customer);
+        return new Order(id, vendor, customer, placementTime);
     }
 
     /**
@@ -61,5 +74,6 @@ public class OrderBuilder implements Builder<Order> {
         id = null;
         vendor = null;
         customer = null;
+        placementTime = null;
     }
 }
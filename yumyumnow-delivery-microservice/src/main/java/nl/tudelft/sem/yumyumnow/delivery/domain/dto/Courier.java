@@ -1,14 +1,18 @@
 package nl.tudelft.sem.yumyumnow.delivery.domain.dto;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * Courier DTO.
  * Used for easy data representation and transfer with other microservices.
+ * The vendor of a courier can be resolved lazily, so a courier whose vendor is never asked for
+ * costs no request for the vendor.
  */
 @Getter
 @Setter
@@ -17,6 +21,43 @@ public class Courier {
     private UUID id;
     private Vendor vendor;
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Supplier<Vendor> vendorResolver;
+
+    /**
+     * Create a courier with its vendor.
+     *
+     * @param id     the id of the courier
+     * @param vendor the vendor of the courier, or null if it has none
+     */
+    public Courier(UUID id, Vendor vendor) {
+        this(id, vendor, null);
+    }
+
+    /**
+     * Get the vendor of the courier, resolving it on the first call if it was not given.
+     *
+     * @return the vendor, or null if the courier has none
+     */
+    public Vendor getVendor() {
+        if (vendor == null && vendorResolver != null) {
+            vendor = vendorResolver.get();
+            vendorResolver = null;
+        }
+        return vendor;
+    }
+
+    /**
+     * Set the vendor of the courier, replacing the one that was still to be resolved.
+     *
+     * @param vendor the vendor
+     */
+    public void setVendor(Vendor vendor) {
+        this.vendor = vendor;
+        this.vendorResolver = null;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null || getClass() != obj.getClass()) {
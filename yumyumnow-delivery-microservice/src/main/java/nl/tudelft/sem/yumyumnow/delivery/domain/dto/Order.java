@@ -4,6 +4,7 @@ import java.util.Objects;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
+import java.time.OffsetDateTime;
 import java.util.*;
 
 /**
@@ -19,6 +20,18 @@ public class Order {
 
     private Vendor vendor;
     private Customer customer;
+    private OffsetDateTime placementTime;
+
+    /**
+     * Create an order of which the placement time is not known.
+     *
+     * @param id       the id of the order
+     * @param vendor   the vendor of the order
+     * @param customer the customer of the order
+     */
+    public Order(UUID id, Vendor vendor, Customer customer) {
+        this(id, vendor, customer, null);
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -2,9 +2,10 @@ package nl.tudelft.sem.yumyumnow.delivery.domain.exceptions;
 
 /**
  * Exception to be thrown when a service delivery microservice relies on does not respond in
- * expected manner.
+ * expected manner. It is unchecked, as it is also thrown from within the rest templates,
+ * when a request to another microservice is rejected or not answered in time.
  */
-public class ServiceUnavailableException extends Exception {
+public class ServiceUnavailableException extends RuntimeException {
     public ServiceUnavailableException(String errorMessage) {
         super(errorMessage);
     }
@@ -0,0 +1,79 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import nl.tudelft.sem.yumyumnow.delivery.domain.builders.DeliveryBuilder;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import nl.tudelft.sem.yumyumnow.delivery.model.DeliveryCurrentLocation;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A delivery that reached a terminal status and was moved out of the delivery table.
+ * Archived deliveries are never changed again; they are kept only for the analytics.
+ */
+@Entity
+@Table(name = "archived_delivery", indexes = {
+    @Index(name = "idx_archived_delivery_status_delivery_time", columnList = "status, estimatedDeliveryTime"),
+    @Index(name = "idx_archived_delivery_delivery_time", columnList = "estimatedDeliveryTime")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ArchivedDelivery {
+    private static final String UUID_COLUMN = "BINARY(16)";
+
+    @Id
+    @Column(columnDefinition = UUID_COLUMN)
+    private UUID id;
+    @Column(columnDefinition = UUID_COLUMN)
+    private UUID orderId;
+    @Column(columnDefinition = UUID_COLUMN)
+    private UUID courierId;
+    @Column(columnDefinition = UUID_COLUMN)
+    private UUID vendorId;
+    @Convert(converter = DeliveryStatusConverter.class)
+    @Column(columnDefinition = "SMALLINT")
+    private Delivery.StatusEnum status;
+    private OffsetDateTime estimatedDeliveryTime;
+    private OffsetDateTime estimatedPreparationFinishTime;
+    private OffsetDateTime orderPlacementTime;
+    @Convert(converter = CoordinateConverter.class)
+    @Column(columnDefinition = "DOUBLE")
+    private BigDecimal latitude;
+    @Convert(converter = CoordinateConverter.class)
+    @Column(columnDefinition = "DOUBLE")
+    private BigDecimal longitude;
+    private Long version;
+
+    /**
+     * Convert the archived delivery back to a (detached) delivery.
+     *
+     * @return the delivery as it was when it was archived, with the version it had then
+     */
+    public Delivery toDelivery() {
+        DeliveryCurrentLocation location = new DeliveryCurrentLocation()
+                .latitude(latitude)
+                .longitude(longitude);
+        return new DeliveryBuilder()
+                .setId(id)
+                .setOrderId(orderId)
+                .setCourierId(courierId)
+                .setVendorId(vendorId)
+                .setStatus(status)
+                .setEstimatedDeliveryTime(estimatedDeliveryTime)
+                .setEstimatedPreparationFinishTime(estimatedPreparationFinishTime)
+                .setOrderPlacementTime(orderPlacementTime)
+                .setCurrentLocation(location)
+                .create()
+                .version(version);
+    }
+}
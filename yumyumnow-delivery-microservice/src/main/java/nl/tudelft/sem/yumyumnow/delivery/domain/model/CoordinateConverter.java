@@ -0,0 +1,29 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+import java.math.BigDecimal;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores a latitude or longitude as a DOUBLE instead of a DECIMAL column.
+ * A double has more than enough precision for coordinates and takes a fixed 8 bytes.
+ */
+@Converter
+public class CoordinateConverter implements AttributeConverter<BigDecimal, Double> {
+
+    @Override
+    public Double convertToDatabaseColumn(BigDecimal coordinate) {
+        if (coordinate == null) {
+            return null;
+        }
+        return coordinate.doubleValue();
+    }
+
+    @Override
+    public BigDecimal convertToEntityAttribute(Double coordinate) {
+        if (coordinate == null) {
+            return null;
+        }
+        return BigDecimal.valueOf(coordinate);
+    }
+}
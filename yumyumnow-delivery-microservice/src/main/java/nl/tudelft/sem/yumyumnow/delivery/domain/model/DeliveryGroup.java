@@ -0,0 +1,15 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+/**
+ * The parties the analytics of the deliveries can be broken down by.
+ */
+public enum DeliveryGroup {
+    /**
+     * One group per vendor that prepared the deliveries.
+     */
+    VENDOR,
+    /**
+     * One group per courier that delivered the deliveries.
+     */
+    COURIER
+}
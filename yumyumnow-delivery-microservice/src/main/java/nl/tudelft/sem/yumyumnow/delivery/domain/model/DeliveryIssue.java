@@ -0,0 +1,61 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import nl.tudelft.sem.yumyumnow.delivery.model.Issue;
+import nl.tudelft.sem.yumyumnow.delivery.model.IssueType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * An issue that the courier of a delivery reported. Reported issues are only ever added, never changed;
+ * they are indexed on the time they were reported, so the issues of a period can be read without a scan.
+ */
+@Entity
+@Table(name = "delivery_issue", indexes = {
+    @Index(name = "idx_delivery_issue_reported_at", columnList = "reportedAt"),
+    @Index(name = "idx_delivery_issue_delivery", columnList = "deliveryId")
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryIssue {
+    private static final String UUID_COLUMN = "BINARY(16)";
+
+    @Id
+    @Column(columnDefinition = UUID_COLUMN)
+    private UUID id;
+    @Column(columnDefinition = UUID_COLUMN)
+    private UUID deliveryId;
+    @Column(columnDefinition = UUID_COLUMN)
+    private UUID courierId;
+    /**
+     * Ordinal of the {@link IssueType} of the issue.
+     */
+    @Column(columnDefinition = "SMALLINT")
+    private short type;
+    @Column(length = 500)
+    private String description;
+    private OffsetDateTime reportedAt;
+
+    /**
+     * Convert the reported issue to its API representation.
+     *
+     * @return the issue
+     */
+    public Issue toIssue() {
+        return new Issue()
+                .id(id)
+                .deliveryId(deliveryId)
+                .courierId(courierId)
+                .type(IssueType.values()[type])
+                .description(description)
+                .reportedAt(reportedAt);
+    }
+}
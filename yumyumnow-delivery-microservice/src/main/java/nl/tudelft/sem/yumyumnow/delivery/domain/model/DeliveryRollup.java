@@ -0,0 +1,105 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * Pre-aggregated totals of all deliveries with one status whose estimated delivery time falls in one hour.
+ * The buckets are kept up to date on every change of a delivery, so the analytics over long periods
+ * only have to add up buckets instead of scanning deliveries.
+ * The minute sums only cover delivered deliveries, like the analytics that read them.
+ */
+@Entity
+@Table(name = "delivery_rollup", indexes = {
+    @Index(name = "idx_delivery_rollup_status_hour", columnList = "status, epochHour")
+})
+@IdClass(DeliveryRollup.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryRollup {
+    /**
+     * Hours since the epoch (UTC) of the start of the bucket.
+     */
+    @Id
+    private long epochHour;
+    /**
+     * Ordinal of the status of the deliveries in the bucket.
+     */
+    @Id
+    private short status;
+    private long deliveries;
+    private long prepMinutes;
+    private long prepDeliveries;
+    private long deliveryMinutes;
+    private long deliveryDeliveries;
+
+    /**
+     * Check whether this bucket holds nothing, so adding it would not change anything.
+     *
+     * @return true if all totals are zero
+     */
+    public boolean isEmpty() {
+        return deliveries == 0 && prepMinutes == 0 && prepDeliveries == 0
+                && deliveryMinutes == 0 && deliveryDeliveries == 0;
+    }
+
+    /**
+     * Get the totals of this bucket with the totals of another bucket subtracted.
+     *
+     * @param other the bucket to subtract
+     * @return a new bucket with the same hour and status holding the difference
+     */
+    public DeliveryRollup minus(DeliveryRollup other) {
+        return new DeliveryRollup(epochHour, status,
+                deliveries - other.deliveries,
+                prepMinutes - other.prepMinutes,
+                prepDeliveries - other.prepDeliveries,
+                deliveryMinutes - other.deliveryMinutes,
+                deliveryDeliveries - other.deliveryDeliveries);
+    }
+
+    /**
+     * Get the totals of this bucket with the totals of another bucket added.
+     *
+     * @param other the bucket to add
+     * @return a new bucket with the same hour and status holding the sum
+     */
+    public DeliveryRollup plus(DeliveryRollup other) {
+        return minus(other.negate());
+    }
+
+    /**
+     * Get the negated totals of this bucket, used to take a delivery out of its bucket.
+     *
+     * @return a new bucket with the same hour and status holding the negated totals
+     */
+    public DeliveryRollup negate() {
+        return new DeliveryRollup(epochHour, status, 0, 0, 0, 0, 0).minus(this);
+    }
+
+    /**
+     * Primary key of a bucket.
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private long epochHour;
+        private short status;
+    }
+}
@@ -0,0 +1,34 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores the status of a delivery as a SMALLINT holding the ordinal of the status.
+ * The ordinal keeps the stored values the same as the default enum mapping, so the native
+ * analytics queries can keep comparing against {@code StatusEnum.ordinal()}.
+ */
+@Converter
+public class DeliveryStatusConverter implements AttributeConverter<Delivery.StatusEnum, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(Delivery.StatusEnum status) {
+        if (status == null) {
+            return null;
+        }
+        return (short) status.ordinal();
+    }
+
+    @Override
+    public Delivery.StatusEnum convertToEntityAttribute(Short code) {
+        if (code == null) {
+            return null;
+        }
+        Delivery.StatusEnum[] statuses = Delivery.StatusEnum.values();
+        if (code < 0 || code >= statuses.length) {
+            throw new IllegalArgumentException("Unknown delivery status code " + code + ".");
+        }
+        return statuses[code];
+    }
+}
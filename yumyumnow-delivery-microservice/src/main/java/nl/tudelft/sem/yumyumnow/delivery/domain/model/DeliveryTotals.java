@@ -0,0 +1,31 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * All analytics totals of the deliveries in a period, gathered together.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class DeliveryTotals {
+    public static final DeliveryTotals ZERO = new DeliveryTotals(0, 0, MinutesSum.ZERO, MinutesSum.ZERO);
+
+    private final long deliveries;
+    private final long delivered;
+    private final MinutesSum preparationMinutes;
+    private final MinutesSum deliveryMinutes;
+
+    /**
+     * Add two totals together.
+     *
+     * @param other the totals to add
+     * @return the combined totals
+     */
+    public DeliveryTotals plus(DeliveryTotals other) {
+        return new DeliveryTotals(deliveries + other.deliveries, delivered + other.delivered,
+                preparationMinutes.plus(other.preparationMinutes), deliveryMinutes.plus(other.deliveryMinutes));
+    }
+}
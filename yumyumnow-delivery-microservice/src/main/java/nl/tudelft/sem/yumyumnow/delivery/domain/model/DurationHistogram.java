@@ -0,0 +1,127 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size histogram of durations in minutes, used to estimate percentiles.
+ * Durations up to 15 minutes get a bin each. Longer durations are split into 8 bins per power of two,
+ * so a reported value is at most 1/8 below the real one. Histograms can be merged by adding up their bins,
+ * which lets the hourly histograms be combined into one for any period.
+ */
+public class DurationHistogram {
+    /**
+     * The number of bins of every histogram, no matter how many durations are added.
+     */
+    public static final int BINS = 152;
+
+    private static final int EXACT_BINS = 16;
+    private static final int SUB_BIN_BITS = 3;
+    private static final int SUB_BINS = 1 << SUB_BIN_BITS;
+    private static final int FIRST_POWER = 4;
+
+    private final long[] counts = new long[BINS];
+
+    /**
+     * Get the bin a duration falls into. Negative durations go into the first bin,
+     * durations that are too long into the last one.
+     *
+     * @param minutes the duration in minutes
+     * @return the bin of the duration
+     */
+    public static int binOf(long minutes) {
+        if (minutes < EXACT_BINS) {
+            return (int) Math.max(minutes, 0);
+        }
+        int power = 63 - Long.numberOfLeadingZeros(minutes);
+        int subBin = (int) (minutes >> (power - SUB_BIN_BITS)) & (SUB_BINS - 1);
+        return Math.min(EXACT_BINS + (power - FIRST_POWER) * SUB_BINS + subBin, BINS - 1);
+    }
+
+    /**
+     * Get the shortest duration that falls into a bin.
+     *
+     * @param bin the bin
+     * @return the lower bound of the bin in minutes
+     */
+    public static long lowerBoundOf(int bin) {
+        if (bin < EXACT_BINS) {
+            return bin;
+        }
+        int power = FIRST_POWER + (bin - EXACT_BINS) / SUB_BINS;
+        long subBin = (bin - EXACT_BINS) % SUB_BINS;
+        return (SUB_BINS + subBin) << (power - SUB_BIN_BITS);
+    }
+
+    /**
+     * Add a duration to the histogram.
+     *
+     * @param minutes the duration in minutes
+     */
+    public void add(long minutes) {
+        counts[binOf(minutes)]++;
+    }
+
+    /**
+     * Add a number of durations to a bin of the histogram.
+     *
+     * @param bin   the bin
+     * @param count the number of durations in the bin
+     */
+    public void addToBin(int bin, long count) {
+        counts[bin] += count;
+    }
+
+    /**
+     * Add all durations of another histogram to this one.
+     *
+     * @param other the histogram to merge into this one
+     * @return this histogram
+     */
+    public DurationHistogram merge(DurationHistogram other) {
+        for (int bin = 0; bin < BINS; bin++) {
+            counts[bin] += other.counts[bin];
+        }
+        return this;
+    }
+
+    /**
+     * Get the number of durations in the histogram.
+     *
+     * @return the number of durations
+     */
+    public long count() {
+        return Arrays.stream(counts).sum();
+    }
+
+    /**
+     * Estimate a percentile of the durations.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the lower bound of the bin holding the percentile, or 0 if the histogram is empty
+     */
+    public long percentile(double percentile) {
+        long rank = Math.max((long) Math.ceil(percentile / 100 * count()), 1);
+        long seen = 0;
+        for (int bin = 0; bin < BINS; bin++) {
+            seen += counts[bin];
+            if (seen >= rank) {
+                return lowerBoundOf(bin);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Estimate the longest duration.
+     *
+     * @return the lower bound of the highest bin that is not empty, or 0 if the histogram is empty
+     */
+    public long max() {
+        for (int bin = BINS - 1; bin >= 0; bin--) {
+            if (counts[bin] != 0) {
+                return lowerBoundOf(bin);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,54 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import nl.tudelft.sem.yumyumnow.delivery.model.IssueType;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * The number of issues of one type that were reported in one hour.
+ * The counters are kept up to date as issues are reported, so the counts of a period are
+ * read from at most one row per hour and type instead of from every reported issue.
+ */
+@Entity
+@Table(name = "issue_counter")
+@IdClass(IssueCounter.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IssueCounter {
+    /**
+     * Hours since the epoch (UTC) of the start of the counter.
+     */
+    @Id
+    private long epochHour;
+    /**
+     * Ordinal of the {@link IssueType} of the counted issues.
+     */
+    @Id
+    private short type;
+    private long issues;
+
+    /**
+     * Primary key of an issue counter.
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private long epochHour;
+        private short type;
+    }
+}
@@ -0,0 +1,40 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * A number of minutes summed over a number of deliveries.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class MinutesSum {
+    public static final MinutesSum ZERO = new MinutesSum(0, 0);
+
+    private final long minutes;
+    private final long deliveries;
+
+    /**
+     * Add two sums together.
+     *
+     * @param other the sum to add
+     * @return the combined sum
+     */
+    public MinutesSum plus(MinutesSum other) {
+        return new MinutesSum(minutes + other.minutes, deliveries + other.deliveries);
+    }
+
+    /**
+     * Get the average number of minutes per delivery, rounded down.
+     *
+     * @return the average, or 0 when the sum is over no deliveries
+     */
+    public long average() {
+        if (deliveries == 0) {
+            return 0;
+        }
+        return minutes / deliveries;
+    }
+}
@@ -0,0 +1,62 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * One bin of the duration histogram of the delivered deliveries whose estimated delivery time falls in one hour.
+ * Together, the bins of an hour form a {@link DurationHistogram}, so an hour never has more than
+ * {@link DurationHistogram#BINS} rows per metric however many deliveries it holds.
+ */
+@Entity
+@Table(name = "time_histogram", indexes = {
+    @Index(name = "idx_time_histogram_metric_hour", columnList = "metric, epochHour")
+})
+@IdClass(TimeHistogramBin.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeHistogramBin {
+    /**
+     * Hours since the epoch (UTC) of the start of the bucket.
+     */
+    @Id
+    private long epochHour;
+    /**
+     * Ordinal of the {@link TimeMetric} of the histogram.
+     */
+    @Id
+    private short metric;
+    /**
+     * The bin of the histogram, see {@link DurationHistogram#binOf(long)}.
+     */
+    @Id
+    private short bin;
+    private long durations;
+
+    /**
+     * Primary key of a histogram bin.
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private long epochHour;
+        private short metric;
+        private short bin;
+    }
+}
@@ -0,0 +1,15 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+/**
+ * The durations of a delivery that are tracked in histograms.
+ */
+public enum TimeMetric {
+    /**
+     * Minutes between placing the order and the end of its preparation.
+     */
+    PREPARATION,
+    /**
+     * Minutes between the end of preparation and the estimated delivery time.
+     */
+    DELIVERY
+}
@@ -0,0 +1,113 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.ArchivedDelivery;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for archived deliveries.
+ * Mirrors the analytics queries of {@link DeliveryRepository} so both tables can be combined.
+ */
+@Repository
+public interface ArchivedDeliveryRepository extends JpaRepository<ArchivedDelivery, UUID> {
+
+    /**
+     * Find all archived deliveries whose estimated delivery time lies strictly between two dates.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the archived deliveries in the period
+     */
+    @Query("SELECT d FROM ArchivedDelivery d "
+            + "WHERE d.estimatedDeliveryTime > :startDate AND d.estimatedDeliveryTime < :endDate")
+    List<ArchivedDelivery> findAllInPeriod(@Param("startDate") OffsetDateTime startDate,
+                                           @Param("endDate") OffsetDateTime endDate);
+
+    /**
+     * Find all archived deliveries with the given status whose estimated delivery time lies strictly
+     * between two dates.
+     *
+     * @param status    the status of the deliveries
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the archived deliveries with that status in the period
+     */
+    @Query("SELECT d FROM ArchivedDelivery d WHERE d.status = :status "
+            + "AND d.estimatedDeliveryTime > :startDate AND d.estimatedDeliveryTime < :endDate")
+    List<ArchivedDelivery> findAllByStatusInPeriod(@Param("status") Delivery.StatusEnum status,
+                                                   @Param("startDate") OffsetDateTime startDate,
+                                                   @Param("endDate") OffsetDateTime endDate);
+
+    /**
+     * Count the archived deliveries whose estimated delivery time lies strictly between two dates.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the number of archived deliveries in the period
+     */
+    @Query("SELECT COUNT(d) FROM ArchivedDelivery d "
+            + "WHERE d.estimatedDeliveryTime > :startDate AND d.estimatedDeliveryTime < :endDate")
+    long countInPeriod(@Param("startDate") OffsetDateTime startDate,
+                       @Param("endDate") OffsetDateTime endDate);
+
+    /**
+     * Count the archived deliveries with the given status whose estimated delivery time lies strictly
+     * between two dates.
+     *
+     * @param status    the status of the deliveries
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the number of archived deliveries with that status in the period
+     */
+    @Query("SELECT COUNT(d) FROM ArchivedDelivery d WHERE d.status = :status "
+            + "AND d.estimatedDeliveryTime > :startDate AND d.estimatedDeliveryTime < :endDate")
+    long countByStatusInPeriod(@Param("status") Delivery.StatusEnum status,
+                               @Param("startDate") OffsetDateTime startDate,
+                               @Param("endDate") OffsetDateTime endDate);
+
+    /**
+     * Sum the minutes between the end of preparation and the estimated delivery time of all archived
+     * deliveries with the given status in a period, like
+     * {@link DeliveryRepository#sumDeliveryMinutesByStatusInPeriod}.
+     *
+     * @param status    ordinal of the status of the deliveries
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the summed minutes and the number of deliveries that had both times set
+     */
+    @Query(value = "SELECT COALESCE(SUM(DATEDIFF('SECOND', d.estimated_preparation_finish_time, "
+            + "d.estimated_delivery_time) / 60), 0) AS totalMinutes, "
+            + "COUNT(d.estimated_preparation_finish_time) AS deliveries "
+            + "FROM archived_delivery d WHERE d.status = :status "
+            + "AND d.estimated_delivery_time > :startDate AND d.estimated_delivery_time < :endDate",
+            nativeQuery = true)
+    DurationAggregate sumDeliveryMinutesByStatusInPeriod(@Param("status") int status,
+                                                         @Param("startDate") OffsetDateTime startDate,
+                                                         @Param("endDate") OffsetDateTime endDate);
+
+    /**
+     * Sum the minutes between placing the order and the end of preparation of all archived
+     * deliveries with the given status in a period, like
+     * {@link DeliveryRepository#sumPreparationMinutesByStatusInPeriod}.
+     *
+     * @param status    ordinal of the status of the deliveries
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the summed minutes and the number of deliveries that had both times set
+     */
+    @Query(value = "SELECT COALESCE(SUM(DATEDIFF('SECOND', d.order_placement_time, "
+            + "d.estimated_preparation_finish_time) / 60), 0) AS totalMinutes, "
+            + "COUNT(DATEDIFF('SECOND', d.order_placement_time, d.estimated_preparation_finish_time)) AS deliveries "
+            + "FROM archived_delivery d WHERE d.status = :status "
+            + "AND d.estimated_delivery_time > :startDate AND d.estimated_delivery_time < :endDate",
+            nativeQuery = true)
+    DurationAggregate sumPreparationMinutesByStatusInPeriod(@Param("status") int status,
+                                                            @Param("startDate") OffsetDateTime startDate,
+                                                            @Param("endDate") OffsetDateTime endDate);
+}
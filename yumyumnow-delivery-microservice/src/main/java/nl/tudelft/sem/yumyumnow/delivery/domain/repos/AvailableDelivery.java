@@ -0,0 +1,39 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Projection of an unassigned delivery.
+ * Holds only the columns needed to decide whether a courier can see the delivery.
+ */
+public interface AvailableDelivery {
+
+    /**
+     * Get the id of the delivery.
+     *
+     * @return the delivery id
+     */
+    UUID getId();
+
+    /**
+     * Get the id of the vendor of the delivery.
+     *
+     * @return the vendor id
+     */
+    UUID getVendorId();
+
+    /**
+     * Get the latitude of the current location of the delivery.
+     *
+     * @return the latitude
+     */
+    BigDecimal getLatitude();
+
+    /**
+     * Get the longitude of the current location of the delivery.
+     *
+     * @return the longitude
+     */
+    BigDecimal getLongitude();
+}
@@ -0,0 +1,57 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.function.Supplier;
+
+/**
+ * Increments the counter rows that many requests change at once, such as the rollups, the histogram bins
+ * and the issue counters. A row is incremented by an UPDATE in the database, so concurrent increments of
+ * the same row do not overwrite each other. A missing row is first created with all its counts zero, in a
+ * transaction of its own: when a concurrent increment creates the same row first, only that transaction
+ * fails, and the increment itself still runs in (and rolls back with) the transaction of its caller.
+ */
+@Component
+public class CounterIncrementer {
+    private final EntityManager entityManager;
+    private final TransactionTemplate ownTransaction;
+
+    /**
+     * Create a new CounterIncrementer.
+     *
+     * @param entityManager      the entity manager to create the missing rows with
+     * @param transactionManager the transaction manager to start the transactions of the new rows with
+     */
+    public CounterIncrementer(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Increment a counter row, creating the row first if it does not exist yet.
+     *
+     * @param increment the UPDATE that adds to the counts of the row
+     * @param emptyRow  creates the row with all its counts zero
+     */
+    @Transactional
+    public void increment(Query increment, Supplier<?> emptyRow) {
+        if (increment.executeUpdate() > 0) {
+            return;
+        }
+        try {
+            ownTransaction.executeWithoutResult(status -> entityManager.persist(emptyRow.get()));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent increment created the row first, which is just as good
+        }
+        if (increment.executeUpdate() == 0) {
+            throw new IllegalStateException("The counter row could not be created.");
+        }
+    }
+}
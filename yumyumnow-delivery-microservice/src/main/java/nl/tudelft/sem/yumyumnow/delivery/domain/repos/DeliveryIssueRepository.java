@@ -0,0 +1,37 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryIssue;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Append-only store of the reported issues. Only saving and reading are exposed, so issues cannot be
+ * changed or removed once reported.
+ */
+@Repository
+public interface DeliveryIssueRepository extends org.springframework.data.repository.Repository<DeliveryIssue, UUID> {
+
+    /**
+     * Store a reported issue.
+     *
+     * @param issue the issue
+     * @return the stored issue
+     */
+    DeliveryIssue save(DeliveryIssue issue);
+
+    /**
+     * Count the issues of every type that were reported in a period.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the number of issues of every type that was reported in the period
+     */
+    @Query("SELECT i.type AS type, COUNT(i) AS issues FROM DeliveryIssue i "
+            + "WHERE i.reportedAt > :startDate AND i.reportedAt < :endDate GROUP BY i.type")
+    List<IssueTypeCount> countByTypeInPeriod(@Param("startDate") OffsetDateTime startDate,
+                                             @Param("endDate") OffsetDateTime endDate);
+}
@@ -2,12 +2,122 @@ package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
 
 import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
 /**
  * Repository for Delivery entities.
  */
 @Repository
-public interface DeliveryRepository extends JpaRepository<Delivery, UUID> {
+public interface DeliveryRepository extends JpaRepository<Delivery, UUID>, DeliveryRepositoryCustom {
+
+    /**
+     * Find all deliveries whose estimated delivery time lies strictly between two dates.
+     * Served by the index on the estimated delivery time.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the deliveries in the period
+     */
+    @Query("SELECT d FROM Delivery d "
+            + "WHERE d.estimatedDeliveryTime > :startDate AND d.estimatedDeliveryTime < :endDate")
+    List<Delivery> findAllInPeriod(@Param("startDate") OffsetDateTime startDate,
+                                   @Param("endDate") OffsetDateTime endDate);
+
+    /**
+     * Find all deliveries with the given status whose estimated delivery time lies strictly
+     * between two dates. Served by the composite (status, estimated delivery time) index.
+     *
+     * @param status    the status of the deliveries
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the deliveries with that status in the period
+     */
+    @Query("SELECT d FROM Delivery d WHERE d.status = :status "
+            + "AND d.estimatedDeliveryTime > :startDate AND d.estimatedDeliveryTime < :endDate")
+    List<Delivery> findAllByStatusInPeriod(@Param("status") Delivery.StatusEnum status,
+                                           @Param("startDate") OffsetDateTime startDate,
+                                           @Param("endDate") OffsetDateTime endDate);
+
+    /**
+     * Count the deliveries whose estimated delivery time lies strictly between two dates.
+     *
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the number of deliveries in the period
+     */
+    @Query("SELECT COUNT(d) FROM Delivery d "
+            + "WHERE d.estimatedDeliveryTime > :startDate AND d.estimatedDeliveryTime < :endDate")
+    long countInPeriod(@Param("startDate") OffsetDateTime startDate,
+                       @Param("endDate") OffsetDateTime endDate);
+
+    /**
+     * Count the deliveries with the given status whose estimated delivery time lies strictly between two dates.
+     *
+     * @param status    the status of the deliveries
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the number of deliveries with that status in the period
+     */
+    @Query("SELECT COUNT(d) FROM Delivery d WHERE d.status = :status "
+            + "AND d.estimatedDeliveryTime > :startDate AND d.estimatedDeliveryTime < :endDate")
+    long countByStatusInPeriod(@Param("status") Delivery.StatusEnum status,
+                               @Param("startDate") OffsetDateTime startDate,
+                               @Param("endDate") OffsetDateTime endDate);
+
+    /**
+     * Sum the minutes between the end of preparation and the estimated delivery time of all deliveries
+     * with the given status in a period. Each delivery contributes its whole minutes, so the result
+     * matches summing {@code Duration.toMinutes()} per delivery.
+     *
+     * @param status    ordinal of the status of the deliveries
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the summed minutes and the number of deliveries that had both times set
+     */
+    @Query(value = "SELECT COALESCE(SUM(DATEDIFF('SECOND', d.estimated_preparation_finish_time, "
+            + "d.estimated_delivery_time) / 60), 0) AS totalMinutes, "
+            + "COUNT(d.estimated_preparation_finish_time) AS deliveries "
+            + "FROM delivery d WHERE d.status = :status "
+            + "AND d.estimated_delivery_time > :startDate AND d.estimated_delivery_time < :endDate",
+            nativeQuery = true)
+    DurationAggregate sumDeliveryMinutesByStatusInPeriod(@Param("status") int status,
+                                                         @Param("startDate") OffsetDateTime startDate,
+                                                         @Param("endDate") OffsetDateTime endDate);
+
+    /**
+     * Sum the minutes between placing the order and the end of preparation of all deliveries
+     * with the given status in a period, in whole minutes per delivery like
+     * {@link #sumDeliveryMinutesByStatusInPeriod}.
+     *
+     * @param status    ordinal of the status of the deliveries
+     * @param startDate the (exclusive) start of the period
+     * @param endDate   the (exclusive) end of the period
+     * @return the summed minutes and the number of deliveries that had both times set
+     */
+    @Query(value = "SELECT COALESCE(SUM(DATEDIFF('SECOND', d.order_placement_time, "
+            + "d.estimated_preparation_finish_time) / 60), 0) AS totalMinutes, "
+            + "COUNT(DATEDIFF('SECOND', d.order_placement_time, d.estimated_preparation_finish_time)) AS deliveries "
+            + "FROM delivery d WHERE d.status = :status "
+            + "AND d.estimated_delivery_time > :startDate AND d.estimated_delivery_time < :endDate",
+            nativeQuery = true)
+    DurationAggregate sumPreparationMinutesByStatusInPeriod(@Param("status") int status,
+                                                            @Param("startDate") OffsetDateTime startDate,
+                                                            @Param("endDate") OffsetDateTime endDate);
+
+    /**
+     * Find the id, vendor and location of all deliveries that have no courier assigned yet and do have a location.
+     * Only those columns are read, so no full delivery entities are created for the scan.
+     *
+     * @return the unassigned deliveries
+     */
+    @Query("SELECT d.id AS id, d.vendorId AS vendorId, "
+            + "d.currentLocation.latitude AS latitude, d.currentLocation.longitude AS longitude "
+            + "FROM Delivery d WHERE d.courierId IS NULL "
+            + "AND d.currentLocation.latitude IS NOT NULL AND d.currentLocation.longitude IS NOT NULL")
+    List<AvailableDelivery> findAllUnassigned();
 }
@@ -0,0 +1,42 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Custom queries for Delivery entities that cannot be expressed as Spring Data query methods.
+ */
+public interface DeliveryRepositoryCustom {
+
+    /**
+     * Walk over all deliveries ordered by id, loading them page by page.
+     * Every page is fetched with a keyset query ({@code id > lastId}) and detached from the
+     * persistence context once read, so a full pass over the table runs in constant memory.
+     *
+     * @param pageSize the number of deliveries to load per page
+     * @return a lazy stream over all deliveries
+     */
+    Stream<Delivery> streamAll(int pageSize);
+
+    /**
+     * Insert new deliveries in JDBC batches.
+     * The deliveries are persisted directly instead of merged, so no select is issued per row,
+     * and the persistence context is flushed and detached after every batch.
+     *
+     * @param deliveries the new deliveries to insert
+     */
+    void persistAll(Collection<Delivery> deliveries);
+
+    /**
+     * Move one batch of terminal deliveries (delivered or rejected) whose estimated delivery time
+     * lies before the cutoff to the archive table. The copy and the delete run in one transaction,
+     * so a delivery is never in both tables or in neither.
+     *
+     * @param cutoff    deliveries estimated to be delivered before this time are archived
+     * @param batchSize the maximum number of deliveries to move
+     * @return the number of deliveries that were moved
+     */
+    int archiveTerminalBefore(OffsetDateTime cutoff, int batchSize);
+}
@@ -0,0 +1,176 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import javax.persistence.TypedQuery;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Implementation of the custom Delivery queries, picked up by Spring Data through its name.
+ */
+public class DeliveryRepositoryCustomImpl implements DeliveryRepositoryCustom {
+    private static final String FETCH_SIZE_HINT = "org.hibernate.fetchSize";
+    private static final List<Delivery.StatusEnum> TERMINAL_STATUSES =
+            List.of(Delivery.StatusEnum.DELIVERED, Delivery.StatusEnum.REJECTED);
+
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    /**
+     * Constructor for the custom delivery repository.
+     *
+     * @param entityManager the entity manager to run the queries with
+     * @param batchSize     the JDBC batch size Hibernate is configured with
+     */
+    public DeliveryRepositoryCustomImpl(EntityManager entityManager,
+                                        @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Stream<Delivery> streamAll(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size has to be positive.");
+        }
+        Iterator<Delivery> iterator = new KeysetIterator(pageSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    @Override
+    @Transactional
+    public void persistAll(Collection<Delivery> deliveries) {
+        List<Delivery> batch = new ArrayList<>(batchSize);
+        for (Delivery delivery : deliveries) {
+            entityManager.persist(delivery);
+            batch.add(delivery);
+            if (batch.size() == batchSize) {
+                flushBatch(batch);
+            }
+        }
+        flushBatch(batch);
+    }
+
+    @Override
+    @Transactional
+    public int archiveTerminalBefore(OffsetDateTime cutoff, int batchSize) {
+        List<UUID> ids = entityManager.createQuery("SELECT d.id FROM Delivery d "
+                        + "WHERE d.status IN :statuses AND d.estimatedDeliveryTime < :cutoff ORDER BY d.id", UUID.class)
+                .setParameter("statuses", TERMINAL_STATUSES)
+                .setParameter("cutoff", cutoff)
+                .setMaxResults(batchSize)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        entityManager.createQuery("INSERT INTO ArchivedDelivery (id, orderId, courierId, vendorId, status, "
+                        + "estimatedDeliveryTime, estimatedPreparationFinishTime, orderPlacementTime, latitude, longitude, "
+                        + "version) "
+                        + "SELECT d.id, d.orderId, d.courierId, d.vendorId, d.status, d.estimatedDeliveryTime, "
+                        + "d.estimatedPreparationFinishTime, d.orderPlacementTime, "
+                        + "d.currentLocation.latitude, d.currentLocation.longitude, d.version "
+                        + "FROM Delivery d WHERE d.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        entityManager.createQuery("DELETE FROM Delivery d WHERE d.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        return ids.size();
+    }
+
+    /**
+     * Send the pending inserts of a batch to the database and detach its deliveries.
+     *
+     * @param batch the deliveries persisted since the last flush
+     */
+    private void flushBatch(List<Delivery> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        batch.forEach(entityManager::detach);
+        batch.clear();
+    }
+
+    /**
+     * Load the page of deliveries that directly follows the given id.
+     *
+     * @param lastId   the id of the last delivery of the previous page, or null for the first page
+     * @param pageSize the maximum number of deliveries to load
+     * @return the deliveries of the page, detached from the persistence context
+     */
+    List<Delivery> nextPage(UUID lastId, int pageSize) {
+        TypedQuery<Delivery> query;
+        if (lastId == null) {
+            query = entityManager.createQuery("SELECT d FROM Delivery d ORDER BY d.id", Delivery.class);
+        } else {
+            query = entityManager.createQuery("SELECT d FROM Delivery d WHERE d.id > :lastId ORDER BY d.id",
+                    Delivery.class).setParameter("lastId", lastId);
+        }
+        List<Delivery> page = query
+                .setMaxResults(pageSize)
+                .setHint(FETCH_SIZE_HINT, pageSize)
+                .getResultList();
+
+        // Detach the page right away so the persistence context does not grow with every page read.
+        page.forEach(entityManager::detach);
+        return page;
+    }
+
+    /**
+     * Iterator that fetches the next page only when the current one is exhausted.
+     */
+    private class KeysetIterator implements Iterator<Delivery> {
+        private final int pageSize;
+        private Iterator<Delivery> current = Collections.emptyIterator();
+        private UUID lastId;
+        private boolean exhausted;
+
+        KeysetIterator(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (current.hasNext()) {
+                return true;
+            }
+            if (exhausted) {
+                return false;
+            }
+            List<Delivery> page = nextPage(lastId, pageSize);
+            if (page.size() < pageSize) {
+                exhausted = true;
+            }
+            if (page.isEmpty()) {
+                return false;
+            }
+            lastId = page.get(page.size() - 1).getId();
+            current = page.iterator();
+            return true;
+        }
+
+        @Override
+        public Delivery next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
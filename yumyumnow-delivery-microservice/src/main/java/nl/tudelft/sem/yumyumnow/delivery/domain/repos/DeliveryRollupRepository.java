@@ -0,0 +1,80 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for the hourly delivery rollups.
+ * All ranges are given in hours since the epoch, including the first and excluding the last hour.
+ */
+@Repository
+public interface DeliveryRollupRepository
+        extends JpaRepository<DeliveryRollup, DeliveryRollup.Key>, DeliveryRollupRepositoryCustom {
+
+    /**
+     * Count the deliveries of all statuses in a range of buckets.
+     *
+     * @param fromHour the first hour of the range
+     * @param toHour   the hour after the last hour of the range
+     * @return the number of deliveries
+     */
+    @Query("SELECT COALESCE(SUM(r.deliveries), 0) FROM DeliveryRollup r "
+            + "WHERE r.epochHour >= :fromHour AND r.epochHour < :toHour")
+    long sumDeliveries(@Param("fromHour") long fromHour, @Param("toHour") long toHour);
+
+    /**
+     * Count the deliveries with the given status in a range of buckets.
+     *
+     * @param status   ordinal of the status of the deliveries
+     * @param fromHour the first hour of the range
+     * @param toHour   the hour after the last hour of the range
+     * @return the number of deliveries with that status
+     */
+    @Query("SELECT COALESCE(SUM(r.deliveries), 0) FROM DeliveryRollup r "
+            + "WHERE r.status = :status AND r.epochHour >= :fromHour AND r.epochHour < :toHour")
+    long sumDeliveriesByStatus(@Param("status") short status,
+                               @Param("fromHour") long fromHour,
+                               @Param("toHour") long toHour);
+
+    /**
+     * Sum the preparation and delivery minutes of the deliveries with the given status in a range of buckets.
+     *
+     * @param status   ordinal of the status of the deliveries
+     * @param fromHour the first hour of the range
+     * @param toHour   the hour after the last hour of the range
+     * @return the summed minutes and the number of deliveries they were summed over
+     */
+    @Query("SELECT COALESCE(SUM(r.prepMinutes), 0) AS prepMinutes, "
+            + "COALESCE(SUM(r.prepDeliveries), 0) AS prepDeliveries, "
+            + "COALESCE(SUM(r.deliveryMinutes), 0) AS deliveryMinutes, "
+            + "COALESCE(SUM(r.deliveryDeliveries), 0) AS deliveryDeliveries FROM DeliveryRollup r "
+            + "WHERE r.status = :status AND r.epochHour >= :fromHour AND r.epochHour < :toHour")
+    RollupAggregate sumMinutesByStatus(@Param("status") short status,
+                                       @Param("fromHour") long fromHour,
+                                       @Param("toHour") long toHour);
+
+    /**
+     * Sum all totals of a range of buckets in one pass: the deliveries of all statuses, and the
+     * delivered deliveries with their preparation and delivery minutes.
+     *
+     * @param delivered ordinal of the delivered status
+     * @param fromHour  the first hour of the range
+     * @param toHour    the hour after the last hour of the range
+     * @return the summed totals
+     */
+    @Query("SELECT COALESCE(SUM(r.deliveries), 0) AS deliveries, "
+            + "COALESCE(SUM(CASE WHEN r.status = :delivered THEN r.deliveries ELSE 0L END), 0) AS delivered, "
+            + "COALESCE(SUM(CASE WHEN r.status = :delivered THEN r.prepMinutes ELSE 0L END), 0) AS prepMinutes, "
+            + "COALESCE(SUM(CASE WHEN r.status = :delivered THEN r.prepDeliveries ELSE 0L END), 0) AS prepDeliveries, "
+            + "COALESCE(SUM(CASE WHEN r.status = :delivered THEN r.deliveryMinutes ELSE 0L END), 0) "
+            + "AS deliveryMinutes, "
+            + "COALESCE(SUM(CASE WHEN r.status = :delivered THEN r.deliveryDeliveries ELSE 0L END), 0) "
+            + "AS deliveryDeliveries FROM DeliveryRollup r "
+            + "WHERE r.epochHour >= :fromHour AND r.epochHour < :toHour")
+    RollupSummary sumAll(@Param("delivered") short delivered,
+                         @Param("fromHour") long fromHour,
+                         @Param("toHour") long toHour);
+}
@@ -0,0 +1,17 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryRollup;
+
+/**
+ * Custom queries for DeliveryRollup entities that cannot be expressed as Spring Data query methods.
+ */
+public interface DeliveryRollupRepositoryCustom {
+
+    /**
+     * Add the totals of the given bucket to the stored bucket with the same hour and status,
+     * creating the stored bucket if it does not exist yet.
+     *
+     * @param delta the totals to add, which may be negative
+     */
+    void addToBucket(DeliveryRollup delta);
+}
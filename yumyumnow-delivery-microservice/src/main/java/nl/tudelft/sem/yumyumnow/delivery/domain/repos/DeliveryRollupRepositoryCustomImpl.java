@@ -0,0 +1,44 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryRollup;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+
+/**
+ * Implementation of the custom DeliveryRollup queries, picked up by Spring Data through its name.
+ */
+public class DeliveryRollupRepositoryCustomImpl implements DeliveryRollupRepositoryCustom {
+    private final EntityManager entityManager;
+    private final CounterIncrementer counterIncrementer;
+
+    /**
+     * Constructor for the custom rollup repository.
+     *
+     * @param entityManager      the entity manager to run the queries with
+     * @param counterIncrementer increments the buckets, creating them when they do not exist yet
+     */
+    public DeliveryRollupRepositoryCustomImpl(EntityManager entityManager, CounterIncrementer counterIncrementer) {
+        this.entityManager = entityManager;
+        this.counterIncrementer = counterIncrementer;
+    }
+
+    @Override
+    @Transactional
+    public void addToBucket(DeliveryRollup delta) {
+        counterIncrementer.increment(entityManager.createQuery("UPDATE DeliveryRollup r SET "
+                        + "r.deliveries = r.deliveries + :deliveries, "
+                        + "r.prepMinutes = r.prepMinutes + :prepMinutes, "
+                        + "r.prepDeliveries = r.prepDeliveries + :prepDeliveries, "
+                        + "r.deliveryMinutes = r.deliveryMinutes + :deliveryMinutes, "
+                        + "r.deliveryDeliveries = r.deliveryDeliveries + :deliveryDeliveries "
+                        + "WHERE r.epochHour = :epochHour AND r.status = :status")
+                .setParameter("deliveries", delta.getDeliveries())
+                .setParameter("prepMinutes", delta.getPrepMinutes())
+                .setParameter("prepDeliveries", delta.getPrepDeliveries())
+                .setParameter("deliveryMinutes", delta.getDeliveryMinutes())
+                .setParameter("deliveryDeliveries", delta.getDeliveryDeliveries())
+                .setParameter("epochHour", delta.getEpochHour())
+                .setParameter("status", delta.getStatus()),
+                () -> new DeliveryRollup(delta.getEpochHour(), delta.getStatus(), 0, 0, 0, 0, 0));
+    }
+}
@@ -0,0 +1,22 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+/**
+ * Projection of an aggregate query over delivery durations.
+ * Holds the summed duration in minutes and the number of deliveries it was summed over.
+ */
+public interface DurationAggregate {
+
+    /**
+     * Get the sum of the durations.
+     *
+     * @return the total number of minutes
+     */
+    Long getTotalMinutes();
+
+    /**
+     * Get the number of deliveries that contributed to the sum.
+     *
+     * @return the number of deliveries
+     */
+    Long getDeliveries();
+}
@@ -0,0 +1,21 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+/**
+ * Projection of the summed count of one histogram bin over a range of hours.
+ */
+public interface HistogramBinCount {
+
+    /**
+     * Get the bin.
+     *
+     * @return the bin of the histogram
+     */
+    Short getBin();
+
+    /**
+     * Get the number of durations in the bin.
+     *
+     * @return the summed count
+     */
+    Long getDurations();
+}
@@ -0,0 +1,28 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.IssueCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+/**
+ * Repository for the hourly issue counters.
+ * All ranges are given in hours since the epoch, including the first and excluding the last hour.
+ */
+@Repository
+public interface IssueCounterRepository
+        extends JpaRepository<IssueCounter, IssueCounter.Key>, IssueCounterRepositoryCustom {
+
+    /**
+     * Sum the counters of every issue type over a range of hours.
+     *
+     * @param fromHour the first hour of the range
+     * @param toHour   the hour after the last hour of the range
+     * @return the number of issues of every type that was reported in the range
+     */
+    @Query("SELECT c.type AS type, SUM(c.issues) AS issues FROM IssueCounter c "
+            + "WHERE c.epochHour >= :fromHour AND c.epochHour < :toHour GROUP BY c.type")
+    List<IssueTypeCount> sumByType(@Param("fromHour") long fromHour, @Param("toHour") long toHour);
+}
@@ -0,0 +1,17 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.IssueCounter;
+
+/**
+ * Custom queries for IssueCounter entities that cannot be expressed as Spring Data query methods.
+ */
+public interface IssueCounterRepositoryCustom {
+
+    /**
+     * Add the given number of issues to the stored counter with the same hour and type,
+     * creating the stored counter if it does not exist yet.
+     *
+     * @param delta the number of issues to add
+     */
+    void addToCounter(IssueCounter delta);
+}
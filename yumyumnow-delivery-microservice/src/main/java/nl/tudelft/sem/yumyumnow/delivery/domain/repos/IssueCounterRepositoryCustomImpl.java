@@ -0,0 +1,35 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.IssueCounter;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+
+/**
+ * Implementation of the custom IssueCounter queries, picked up by Spring Data through its name.
+ */
+public class IssueCounterRepositoryCustomImpl implements IssueCounterRepositoryCustom {
+    private final EntityManager entityManager;
+    private final CounterIncrementer counterIncrementer;
+
+    /**
+     * Constructor for the custom issue counter repository.
+     *
+     * @param entityManager      the entity manager to run the queries with
+     * @param counterIncrementer increments the counters, creating them when they do not exist yet
+     */
+    public IssueCounterRepositoryCustomImpl(EntityManager entityManager, CounterIncrementer counterIncrementer) {
+        this.entityManager = entityManager;
+        this.counterIncrementer = counterIncrementer;
+    }
+
+    @Override
+    @Transactional
+    public void addToCounter(IssueCounter delta) {
+        counterIncrementer.increment(entityManager.createQuery("UPDATE IssueCounter c SET c.issues = c.issues + :issues "
+                        + "WHERE c.epochHour = :epochHour AND c.type = :type")
+                .setParameter("issues", delta.getIssues())
+                .setParameter("epochHour", delta.getEpochHour())
+                .setParameter("type", delta.getType()),
+                () -> new IssueCounter(delta.getEpochHour(), delta.getType(), 0));
+    }
+}
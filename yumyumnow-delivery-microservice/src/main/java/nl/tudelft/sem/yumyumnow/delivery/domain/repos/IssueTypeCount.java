@@ -0,0 +1,21 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+/**
+ * Projection of the number of issues of one type.
+ */
+public interface IssueTypeCount {
+
+    /**
+     * Get the type of the issues.
+     *
+     * @return ordinal of the issue type
+     */
+    Short getType();
+
+    /**
+     * Get the number of issues of the type.
+     *
+     * @return the number of issues
+     */
+    Long getIssues();
+}
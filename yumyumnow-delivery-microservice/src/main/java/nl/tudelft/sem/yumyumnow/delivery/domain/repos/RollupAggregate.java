@@ -0,0 +1,35 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+/**
+ * Projection of the summed minute totals of a range of rollup buckets.
+ */
+public interface RollupAggregate {
+
+    /**
+     * Get the summed preparation minutes.
+     *
+     * @return the total number of preparation minutes
+     */
+    Long getPrepMinutes();
+
+    /**
+     * Get the number of deliveries that contributed to the preparation minutes.
+     *
+     * @return the number of deliveries
+     */
+    Long getPrepDeliveries();
+
+    /**
+     * Get the summed delivery minutes.
+     *
+     * @return the total number of delivery minutes
+     */
+    Long getDeliveryMinutes();
+
+    /**
+     * Get the number of deliveries that contributed to the delivery minutes.
+     *
+     * @return the number of deliveries
+     */
+    Long getDeliveryDeliveries();
+}
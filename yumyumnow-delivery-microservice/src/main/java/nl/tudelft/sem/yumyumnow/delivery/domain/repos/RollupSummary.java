@@ -0,0 +1,21 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+/**
+ * Projection of all totals of a range of rollup buckets, read in a single query.
+ */
+public interface RollupSummary extends RollupAggregate {
+
+    /**
+     * Get the number of deliveries of all statuses.
+     *
+     * @return the number of deliveries
+     */
+    Long getDeliveries();
+
+    /**
+     * Get the number of delivered deliveries.
+     *
+     * @return the number of delivered deliveries
+     */
+    Long getDelivered();
+}
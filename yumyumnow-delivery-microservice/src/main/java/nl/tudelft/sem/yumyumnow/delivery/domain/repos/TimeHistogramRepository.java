@@ -0,0 +1,32 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeHistogramBin;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+/**
+ * Repository for the hourly duration histograms.
+ * All ranges are given in hours since the epoch, including the first and excluding the last hour.
+ */
+@Repository
+public interface TimeHistogramRepository
+        extends JpaRepository<TimeHistogramBin, TimeHistogramBin.Key>, TimeHistogramRepositoryCustom {
+
+    /**
+     * Merge the histograms of a metric over a range of hours by summing the counts per bin.
+     *
+     * @param metric   ordinal of the metric of the histograms
+     * @param fromHour the first hour of the range
+     * @param toHour   the hour after the last hour of the range
+     * @return the summed count of every bin that is used in the range
+     */
+    @Query("SELECT h.bin AS bin, SUM(h.durations) AS durations FROM TimeHistogramBin h "
+            + "WHERE h.metric = :metric AND h.epochHour >= :fromHour AND h.epochHour < :toHour "
+            + "GROUP BY h.bin")
+    List<HistogramBinCount> sumBins(@Param("metric") short metric,
+                                    @Param("fromHour") long fromHour,
+                                    @Param("toHour") long toHour);
+}
@@ -0,0 +1,17 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeHistogramBin;
+
+/**
+ * Custom queries for TimeHistogramBin entities that cannot be expressed as Spring Data query methods.
+ */
+public interface TimeHistogramRepositoryCustom {
+
+    /**
+     * Add the count of the given bin to the stored bin with the same hour, metric and bin,
+     * creating the stored bin if it does not exist yet.
+     *
+     * @param delta the count to add, which may be negative
+     */
+    void addToBin(TimeHistogramBin delta);
+}
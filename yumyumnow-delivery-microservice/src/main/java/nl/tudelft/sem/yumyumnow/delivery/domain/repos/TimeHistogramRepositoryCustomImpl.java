@@ -0,0 +1,37 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeHistogramBin;
+import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+
+/**
+ * Implementation of the custom TimeHistogramBin queries, picked up by Spring Data through its name.
+ */
+public class TimeHistogramRepositoryCustomImpl implements TimeHistogramRepositoryCustom {
+    private final EntityManager entityManager;
+    private final CounterIncrementer counterIncrementer;
+
+    /**
+     * Constructor for the custom histogram repository.
+     *
+     * @param entityManager      the entity manager to run the queries with
+     * @param counterIncrementer increments the bins, creating them when they do not exist yet
+     */
+    public TimeHistogramRepositoryCustomImpl(EntityManager entityManager, CounterIncrementer counterIncrementer) {
+        this.entityManager = entityManager;
+        this.counterIncrementer = counterIncrementer;
+    }
+
+    @Override
+    @Transactional
+    public void addToBin(TimeHistogramBin delta) {
+        counterIncrementer.increment(entityManager.createQuery("UPDATE TimeHistogramBin h "
+                        + "SET h.durations = h.durations + :durations "
+                        + "WHERE h.epochHour = :epochHour AND h.metric = :metric AND h.bin = :bin")
+                .setParameter("durations", delta.getDurations())
+                .setParameter("epochHour", delta.getEpochHour())
+                .setParameter("metric", delta.getMetric())
+                .setParameter("bin", delta.getBin()),
+                () -> new TimeHistogramBin(delta.getEpochHour(), delta.getMetric(), delta.getBin(), 0));
+    }
+}
@@ -0,0 +1,6 @@
+-- Keeps the version a delivery had when it was archived, so an archived delivery that is read back
+-- carries the same version as the delivery it was moved from. Deliveries archived before keep it empty.
+-- Run once, with the service stopped, before starting it on a database that was not
+-- created by the current version.
+
+ALTER TABLE archived_delivery ADD COLUMN IF NOT EXISTS version BIGINT;
@@ -0,0 +1,22 @@
+-- Migrates an existing H2 database to the compact delivery storage layout.
+-- Hibernate created the UUID columns as BINARY(255), the status as INTEGER and the
+-- coordinates as DECIMAL(19, 2). The UUID columns already hold 16 bytes per value and the
+-- status is stored as its ordinal in both layouts, so only the column types change.
+-- Run once, with the service stopped, before starting it on a database that was not
+-- created by the current version.
+
+ALTER TABLE delivery ALTER COLUMN id BINARY(16);
+ALTER TABLE delivery ALTER COLUMN order_id BINARY(16);
+ALTER TABLE delivery ALTER COLUMN courier_id BINARY(16);
+ALTER TABLE delivery ALTER COLUMN vendor_id BINARY(16);
+ALTER TABLE delivery ALTER COLUMN status SMALLINT;
+ALTER TABLE delivery ALTER COLUMN latitude DOUBLE;
+ALTER TABLE delivery ALTER COLUMN longitude DOUBLE;
+
+ALTER TABLE archived_delivery ALTER COLUMN id BINARY(16);
+ALTER TABLE archived_delivery ALTER COLUMN order_id BINARY(16);
+ALTER TABLE archived_delivery ALTER COLUMN courier_id BINARY(16);
+ALTER TABLE archived_delivery ALTER COLUMN vendor_id BINARY(16);
+ALTER TABLE archived_delivery ALTER COLUMN status SMALLINT;
+ALTER TABLE archived_delivery ALTER COLUMN latitude DOUBLE;
+ALTER TABLE archived_delivery ALTER COLUMN longitude DOUBLE;
@@ -0,0 +1,8 @@
+-- Adds the time the order was placed to the stored deliveries.
+-- New deliveries get it when they are created; deliveries created before keep it empty and are
+-- left out of the preparation time analytics, as their placement time is not known locally.
+-- Run once, with the service stopped, before starting it on a database that was not
+-- created by the current version.
+
+ALTER TABLE delivery ADD COLUMN IF NOT EXISTS order_placement_time TIMESTAMP WITH TIME ZONE;
+ALTER TABLE archived_delivery ADD COLUMN IF NOT EXISTS order_placement_time TIMESTAMP WITH TIME ZONE;
@@ -4,8 +4,15 @@ import nl.tudelft.sem.yumyumnow.delivery.application.validators.UserIsAdminValid
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.AccessForbiddenException;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.BadArgumentException;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.ServiceUnavailableException;
-import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryGroup;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryTotals;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.MinutesSum;
 import nl.tudelft.sem.yumyumnow.delivery.model.AdminMaxZoneGet200Response;
+import nl.tudelft.sem.yumyumnow.delivery.model.CourierEfficiency;
+import nl.tudelft.sem.yumyumnow.delivery.model.CourierEfficiencyPage;
+import nl.tudelft.sem.yumyumnow.delivery.model.IssueType;
+import nl.tudelft.sem.yumyumnow.delivery.model.VendorPreparationTime;
+import nl.tudelft.sem.yumyumnow.delivery.model.VendorPreparationTimePage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.env.Environment;
@@ -25,21 +32,20 @@ import static org.mockito.Mockito.when;
 
 public class AdminServiceTest {
 
-    private DeliveryRepository deliveryRepository;
+    private DeliveryRollupService deliveryRollupService;
     private AdminService adminService;
-    private OrderService orderService;
     private VendorService vendorService;
+    private IssueService issueService;
     private RestTemplate restTemplate;
 
     @BeforeEach
     void setUp(){
-        this.deliveryRepository = mock(DeliveryRepository.class);
-        this.orderService = mock(OrderService.class);
+        this.deliveryRollupService = mock(DeliveryRollupService.class);
         this.vendorService = mock(VendorService.class);
+        this.issueService = mock(IssueService.class);
         this.restTemplate = mock(RestTemplate.class);
         this.adminService = new AdminService(
-                orderService, deliveryRepository,
-                vendorService, restTemplate,
+                deliveryRollupService, vendorService, issueService, restTemplate,
                 "https://testsite.com");
     }
 
@@ -113,20 +119,20 @@ public class AdminServiceTest {
     }
 
     @Test
-    public void getEncounteredIssuesSuccessTest() throws AccessForbiddenException, BadArgumentException {
+    public void getIssueCountsSuccessTest() throws AccessForbiddenException, BadArgumentException {
         UUID adminId = UUID.randomUUID();
         OffsetDateTime startDate = OffsetDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
         OffsetDateTime endDate = OffsetDateTime.of(2021, 1, 2, 0, 0, 0, 0, ZoneOffset.UTC);
+        Map<IssueType, Long> counts = new EnumMap<>(Map.of(IssueType.TRAFFIC_JAM, 3L, IssueType.OPEN_BRIDGE, 1L));
 
         when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Admin"));
+        when(issueService.countsInPeriod(startDate, endDate)).thenReturn(counts);
 
-        List<String> expected = generateIssues(startDate, endDate);
-
-        assertThat(adminService.getEncounteredIssues(adminId, startDate, endDate)).isEqualTo(expected);
+        assertThat(adminService.getIssueCounts(adminId, startDate, endDate)).isEqualTo(counts);
     }
 
     @Test
-    public void getEncounteredIssuesAccessForbiddenTest() throws AccessForbiddenException, BadArgumentException {
+    public void getIssueCountsAccessForbiddenTest() throws AccessForbiddenException, BadArgumentException {
         UUID adminId = UUID.randomUUID();
         OffsetDateTime startDate = OffsetDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
         OffsetDateTime endDate = OffsetDateTime.of(2021, 1, 2, 0, 0, 0, 0, ZoneOffset.UTC);
@@ -134,12 +140,13 @@ public class AdminServiceTest {
         when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Courier"));
 
         assertThrows(AccessForbiddenException.class, () -> {
-            adminService.getEncounteredIssues(adminId, startDate, endDate);
+            adminService.getIssueCounts(adminId, startDate, endDate);
         });
+        verifyNoInteractions(issueService);
     }
 
     @Test
-    public void getEncounteredIssuesBadArgumentTest() throws AccessForbiddenException, BadArgumentException {
+    public void getIssueCountsBadArgumentTest() throws AccessForbiddenException, BadArgumentException {
         UUID adminId = UUID.randomUUID();
         OffsetDateTime startDate = OffsetDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
         OffsetDateTime endDate = OffsetDateTime.of(2021, 1, 2, 0, 0, 0, 0, ZoneOffset.UTC);
@@ -147,36 +154,80 @@ public class AdminServiceTest {
         when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Admin"));
 
         assertThrows(BadArgumentException.class, () -> {
-            adminService.getEncounteredIssues(adminId, endDate, startDate);
+            adminService.getIssueCounts(adminId, endDate, startDate);
         });
     }
 
-    private static List<String> generateIssues(OffsetDateTime startDate, OffsetDateTime endDate) {
-        List<String> possibleIssues = List.of(
-                "Open bridge encountered",
-                "Traffic jam encountered",
-                "Road works encountered",
-                "Closed road encountered",
-                "Could not find address",
-                "Could not contact customer",
-                "Could not contact vendor",
-                "Vehicle broke down",
-                "Internet connection lost"
-        );
-
-        List<String> encounteredIssues = new ArrayList<>();
-
-        int daysBetweenDates = (int) Duration.between(startDate, endDate).toDays();
-
-        // Randomly generate a number of issues with random deliveries
-        Random random = new Random();
-        random.setSeed(0); // Set seed to 0 for reproducibility in tests
-        int numberOfIssues = random.nextInt(possibleIssues.size() * daysBetweenDates);
-        for (int i = 0; i < numberOfIssues; i++) {
-            int randomIndex = random.nextInt(possibleIssues.size());
-            encounteredIssues.add(possibleIssues.get(randomIndex));
-        }
-
-        return encounteredIssues;
+    @Test
+    public void checkAnalyticsAccessOfAdminTest() {
+        UUID adminId = UUID.randomUUID();
+        OffsetDateTime startDate = OffsetDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2021, 1, 2, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Admin"));
+
+        assertDoesNotThrow(() -> adminService.checkAnalyticsAccess(adminId, startDate, endDate));
+        verifyNoInteractions(deliveryRollupService, issueService);
+    }
+
+    @Test
+    public void getDriverEfficiencyPerCourierSortsAndPagesTest() throws AccessForbiddenException, BadArgumentException {
+        UUID adminId = UUID.randomUUID();
+        OffsetDateTime startDate = OffsetDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2021, 1, 2, 0, 0, 0, 0, ZoneOffset.UTC);
+        UUID best = UUID.randomUUID();
+        UUID middle = UUID.randomUUID();
+        UUID worst = UUID.randomUUID();
+
+        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Admin"));
+        when(deliveryRollupService.totalsPerGroupInPeriod(DeliveryGroup.COURIER, startDate, endDate)).thenReturn(Map.of(
+                worst, new DeliveryTotals(4, 1, MinutesSum.ZERO, MinutesSum.ZERO),
+                best, new DeliveryTotals(2, 2, MinutesSum.ZERO, MinutesSum.ZERO),
+                middle, new DeliveryTotals(4, 2, MinutesSum.ZERO, MinutesSum.ZERO)));
+
+        CourierEfficiencyPage first = adminService.getDriverEfficiencyPerCourier(adminId, startDate, endDate, 0, 2);
+        CourierEfficiencyPage second = adminService.getDriverEfficiencyPerCourier(adminId, startDate, endDate, 1, 2);
+
+        assertEquals(3, first.getTotalGroups());
+        assertThat(first.getCouriers()).extracting(CourierEfficiency::getCourierId).containsExactly(best, middle);
+        assertEquals(BigDecimal.valueOf(100), first.getCouriers().get(0).getDriverEfficiency());
+        assertThat(second.getCouriers()).extracting(CourierEfficiency::getCourierId).containsExactly(worst);
+        assertEquals(BigDecimal.valueOf(25), second.getCouriers().get(0).getDriverEfficiency());
+    }
+
+    @Test
+    public void getPreparationTimePerVendorSortsSlowestFirstTest() throws AccessForbiddenException, BadArgumentException {
+        UUID adminId = UUID.randomUUID();
+        OffsetDateTime startDate = OffsetDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2021, 1, 2, 0, 0, 0, 0, ZoneOffset.UTC);
+        UUID fast = UUID.randomUUID();
+        UUID slow = UUID.randomUUID();
+
+        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Admin"));
+        when(deliveryRollupService.totalsPerGroupInPeriod(DeliveryGroup.VENDOR, startDate, endDate)).thenReturn(Map.of(
+                fast, new DeliveryTotals(3, 3, new MinutesSum(30, 3), MinutesSum.ZERO),
+                slow, new DeliveryTotals(2, 2, new MinutesSum(50, 2), MinutesSum.ZERO)));
+
+        VendorPreparationTimePage page = adminService.getPreparationTimePerVendor(adminId, startDate, endDate, 0, 20);
+
+        assertThat(page.getVendors()).extracting(VendorPreparationTime::getVendorId).containsExactly(slow, fast);
+        assertEquals(BigDecimal.valueOf(25), page.getVendors().get(0).getPreparationTime());
+        assertEquals(BigDecimal.valueOf(2), page.getVendors().get(0).getDeliveries());
+        assertThat(adminService.getPreparationTimePerVendor(adminId, startDate, endDate, 5, 20).getVendors()).isEmpty();
+    }
+
+    @Test
+    public void getGroupsWithInvalidPageTest() {
+        UUID adminId = UUID.randomUUID();
+        OffsetDateTime startDate = OffsetDateTime.of(2021, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2021, 1, 2, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Admin"));
+
+        assertThrows(BadArgumentException.class,
+                () -> adminService.getDriverEfficiencyPerCourier(adminId, startDate, endDate, -1, 20));
+        assertThrows(BadArgumentException.class,
+                () -> adminService.getPreparationTimePerVendor(adminId, startDate, endDate, 0, 101));
+        verifyNoInteractions(deliveryRollupService);
     }
 }
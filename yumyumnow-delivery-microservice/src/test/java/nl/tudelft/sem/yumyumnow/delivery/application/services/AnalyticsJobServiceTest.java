@@ -0,0 +1,194 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.AccessForbiddenException;
+import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryTotals;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DurationHistogram;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.MinutesSum;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeMetric;
+import nl.tudelft.sem.yumyumnow.delivery.model.AnalyticsJob;
+import nl.tudelft.sem.yumyumnow.delivery.model.AnalyticsJobStatus;
+import nl.tudelft.sem.yumyumnow.delivery.model.AnalyticsJobType;
+import nl.tudelft.sem.yumyumnow.delivery.model.TimePercentiles;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class AnalyticsJobServiceTest {
+    private static final Instant NOW = Instant.parse("2023-12-01T12:00:00Z");
+    private static final OffsetDateTime START = OffsetDateTime.of(2023, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime END = OffsetDateTime.of(2023, 12, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private AdminService adminService;
+    private DeliveryRollupService deliveryRollupService;
+    private Clock clock;
+    private AnalyticsJobService analyticsJobService;
+    private UUID adminId;
+
+    @BeforeEach
+    void setUp() {
+        this.adminService = mock(AdminService.class);
+        this.deliveryRollupService = mock(DeliveryRollupService.class);
+        this.clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+        when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        this.analyticsJobService = new AnalyticsJobService(adminService, deliveryRollupService, clock, 1, 1, 1, 10,
+                new SimpleMeterRegistry());
+        this.adminId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        analyticsJobService.destroy();
+    }
+
+    private AnalyticsJob awaitFinished(UUID jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            AnalyticsJob job = analyticsJobService.getJob(adminId, jobId).orElseThrow();
+            if (job.getFinishedAt() != null) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job did not finish in time");
+    }
+
+    @Test
+    void submittedJobIsComputedInTheBackground() throws Exception {
+        DeliveryTotals totals = new DeliveryTotals(10, 5, MinutesSum.ZERO, MinutesSum.ZERO);
+        when(deliveryRollupService.totalsInPeriod(START, END)).thenReturn(totals);
+
+        AnalyticsJob submitted = analyticsJobService.submit(adminId, AnalyticsJobType.SUMMARY, START, END);
+        AnalyticsJob finished = awaitFinished(submitted.getId());
+
+        assertEquals(AnalyticsJobType.SUMMARY, submitted.getType());
+        assertEquals(NOW.atOffset(ZoneOffset.UTC), submitted.getSubmittedAt());
+        assertEquals(AnalyticsJobStatus.SUCCEEDED, finished.getStatus());
+        assertEquals(AdminService.summaryOf(totals, START, END), finished.getResult());
+        assertNull(finished.getError());
+    }
+
+    @Test
+    void accessIsOnlyCheckedOnSubmission() throws Exception {
+        when(deliveryRollupService.totalsInPeriod(START, END)).thenReturn(DeliveryTotals.ZERO);
+
+        AnalyticsJob submitted = analyticsJobService.submit(adminId, AnalyticsJobType.SUMMARY, START, END);
+        awaitFinished(submitted.getId());
+
+        verify(adminService).checkAnalyticsAccess(adminId, START, END);
+        verifyNoMoreInteractions(adminService);
+    }
+
+    @Test
+    void percentileJobsUseTheirMetric() throws Exception {
+        DurationHistogram histogram = new DurationHistogram();
+        histogram.add(20);
+        when(deliveryRollupService.histogramInPeriod(TimeMetric.DELIVERY, START, END)).thenReturn(histogram);
+
+        AnalyticsJob submitted =
+                analyticsJobService.submit(adminId, AnalyticsJobType.DELIVERY_TIME_PERCENTILES, START, END);
+
+        TimePercentiles percentiles = (TimePercentiles) awaitFinished(submitted.getId()).getResult();
+        assertEquals(BigDecimal.valueOf(1), percentiles.getCount());
+        assertEquals(BigDecimal.valueOf(20), percentiles.getP50());
+    }
+
+    @Test
+    void forbiddenJobIsNotQueued() throws Exception {
+        doThrow(AccessForbiddenException.class).when(adminService).checkAnalyticsAccess(adminId, START, END);
+
+        assertThrows(AccessForbiddenException.class,
+                () -> analyticsJobService.submit(adminId, AnalyticsJobType.SUMMARY, START, END));
+        verify(deliveryRollupService, never()).totalsInPeriod(any(), any());
+    }
+
+    @Test
+    void failedComputationIsReported() throws Exception {
+        when(deliveryRollupService.totalsInPeriod(START, END))
+                .thenThrow(new DataAccessResourceFailureException("Down"));
+
+        AnalyticsJob submitted = analyticsJobService.submit(adminId, AnalyticsJobType.SUMMARY, START, END);
+        AnalyticsJob finished = awaitFinished(submitted.getId());
+
+        assertEquals(AnalyticsJobStatus.FAILED, finished.getStatus());
+        assertNull(finished.getResult());
+        assertNotNull(finished.getError());
+    }
+
+    @Test
+    void fullQueueRefusesJobs() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(deliveryRollupService.totalsInPeriod(START, END)).thenAnswer(invocation -> {
+            release.await();
+            return DeliveryTotals.ZERO;
+        });
+
+        try {
+            // One job runs on the only thread, one waits in the queue
+            analyticsJobService.submit(adminId, AnalyticsJobType.SUMMARY, START, END);
+            analyticsJobService.submit(adminId, AnalyticsJobType.SUMMARY, START, END);
+
+            assertThrows(ServiceUnavailableException.class,
+                    () -> analyticsJobService.submit(adminId, AnalyticsJobType.SUMMARY, START, END));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void slowJobTimesOut() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(deliveryRollupService.totalsInPeriod(START, END)).thenAnswer(invocation -> {
+            release.await();
+            return DeliveryTotals.ZERO;
+        });
+
+        try {
+            AnalyticsJob submitted = analyticsJobService.submit(adminId, AnalyticsJobType.SUMMARY, START, END);
+            AnalyticsJob finished = awaitFinished(submitted.getId());
+
+            assertEquals(AnalyticsJobStatus.TIMED_OUT, finished.getStatus());
+            assertNull(finished.getResult());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void finishedJobExpires() throws Exception {
+        when(deliveryRollupService.totalsInPeriod(START, END)).thenReturn(DeliveryTotals.ZERO);
+        AnalyticsJob submitted = analyticsJobService.submit(adminId, AnalyticsJobType.SUMMARY, START, END);
+        awaitFinished(submitted.getId());
+
+        when(clock.instant()).thenReturn(NOW.plusSeconds(9 * 60));
+        assertTrue(analyticsJobService.getJob(adminId, submitted.getId()).isPresent());
+
+        when(clock.instant()).thenReturn(NOW.plusSeconds(10 * 60));
+        analyticsJobService.purgeExpired();
+        assertTrue(analyticsJobService.getJob(adminId, submitted.getId()).isEmpty());
+    }
+
+    @Test
+    void otherAdminCannotSeeTheJob() throws Exception {
+        AnalyticsJob submitted = analyticsJobService.submit(adminId, AnalyticsJobType.SUMMARY, START, END);
+
+        assertTrue(analyticsJobService.getJob(UUID.randomUUID(), submitted.getId()).isEmpty());
+        assertTrue(analyticsJobService.getJob(adminId, UUID.randomUUID()).isEmpty());
+    }
+}
@@ -0,0 +1,162 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalyticsResultCacheTest {
+    private static final OffsetDateTime START = OffsetDateTime.of(2023, 1, 2, 17, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime END = START.plusHours(3);
+
+    private MeterRegistry meterRegistry;
+    private AnalyticsResultCache cache;
+    private AtomicInteger computations;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.cache = new AnalyticsResultCache(2, meterRegistry);
+        this.computations = new AtomicInteger();
+    }
+
+    private long count(String metric, OffsetDateTime startDate, OffsetDateTime endDate) {
+        return cache.get(metric, startDate, endDate, () -> (long) computations.incrementAndGet());
+    }
+
+    private static long epochHour(OffsetDateTime time) {
+        return time.toEpochSecond() / 3600;
+    }
+
+    @Test
+    void repeatedPeriodIsComputedOnce() {
+        assertEquals(1, count("count", START, END));
+        assertEquals(1, count("count", START, END));
+
+        assertEquals(1, computations.get());
+        assertEquals(1, meterRegistry.counter("analytics.cache.hits").count());
+        assertEquals(1, meterRegistry.counter("analytics.cache.misses").count());
+        assertEquals(0.5, cache.hitRatio());
+    }
+
+    @Test
+    void sameInstantInOtherOffsetIsSameKey() {
+        count("count", START, END);
+        count("count", START.withOffsetSameInstant(ZoneOffset.ofHours(2)), END);
+
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void metricsAndPeriodsAreKeptApart() {
+        count("count", START, END);
+        count("delivered", START, END);
+        count("count", START, END.plusHours(1));
+
+        assertEquals(3, computations.get());
+    }
+
+    @Test
+    void leastRecentlyUsedIsEvicted() {
+        count("count", START, END);
+        count("delivered", START, END);
+        count("count", START, END);
+        count("totals", START, END);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, meterRegistry.counter("analytics.cache.evictions").count());
+        count("count", START, END);
+        assertEquals(3, computations.get());
+        count("delivered", START, END);
+        assertEquals(4, computations.get());
+    }
+
+    @Test
+    void changeInPeriodInvalidates() {
+        count("count", START, END);
+
+        cache.invalidateHour(epochHour(START) + 1);
+
+        assertEquals(0, cache.size());
+        assertEquals(1, meterRegistry.counter("analytics.cache.invalidations").count());
+        assertEquals(2, count("count", START, END));
+    }
+
+    @Test
+    void changeOutsidePeriodKeepsResult() {
+        count("count", START, END);
+
+        cache.invalidateHour(epochHour(START) - 1);
+        cache.invalidateHour(epochHour(END));
+
+        assertEquals(1, cache.size());
+        assertEquals(1, count("count", START, END));
+    }
+
+    @Test
+    void changeOnlyInvalidatesOverlappingPeriodsWithTheSameEnd() {
+        count("count", START, END);
+        count("count", END.minusHours(1), END);
+
+        cache.invalidateHour(epochHour(START));
+
+        assertEquals(1, cache.size());
+        assertEquals(2, count("count", END.minusHours(1), END));
+    }
+
+    @Test
+    void evictedResultIsNotInvalidated() {
+        count("count", START, END);
+        count("delivered", START.minusYears(1), END.minusYears(1));
+        count("totals", START.minusYears(1), END.minusYears(1));
+
+        cache.invalidateHour(epochHour(START));
+
+        assertEquals(2, cache.size());
+        assertEquals(0, meterRegistry.counter("analytics.cache.invalidations").count());
+    }
+
+    @Test
+    void rebuildInvalidatesEverything() {
+        count("count", START, END);
+        count("delivered", START.minusYears(1), END.minusYears(1));
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.size());
+        assertEquals(2, meterRegistry.counter("analytics.cache.invalidations").count());
+    }
+
+    @Test
+    void resultComputedDuringChangeIsNotCached() {
+        long result = cache.get("count", START, END, () -> {
+            cache.invalidateHour(epochHour(START));
+            return 7L;
+        });
+
+        assertEquals(7, result);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void disabledCacheAlwaysComputes() {
+        AnalyticsResultCache disabled = new AnalyticsResultCache(0, meterRegistry);
+
+        disabled.get("count", START, END, computations::incrementAndGet);
+        disabled.get("count", START, END, computations::incrementAndGet);
+
+        assertEquals(2, computations.get());
+        assertEquals(0, disabled.size());
+    }
+
+    @Test
+    void negativeSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new AnalyticsResultCache(-1, meterRegistry));
+    }
+}
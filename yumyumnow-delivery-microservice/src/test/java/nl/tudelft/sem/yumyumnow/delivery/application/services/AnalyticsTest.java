@@ -5,14 +5,20 @@ import nl.tudelft.sem.yumyumnow.delivery.domain.builders.DeliveryBuilder;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.AccessForbiddenException;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.BadArgumentException;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.ServiceUnavailableException;
-import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryTotals;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DurationHistogram;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.MinutesSum;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeMetric;
+import nl.tudelft.sem.yumyumnow.delivery.model.AdminAnalyticsSummaryGet200Response;
 import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import nl.tudelft.sem.yumyumnow.delivery.model.TimePercentiles;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.env.Environment;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
@@ -24,20 +30,17 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 public class AnalyticsTest {
-    private DeliveryRepository deliveryRepository;
+    private DeliveryRollupService deliveryRollupService;
     private AdminService adminService;
-    private OrderService orderService;
     private VendorService vendorService;
     private RestTemplate restTemplate;
     @BeforeEach
     void setUp(){
-        this.deliveryRepository = mock(DeliveryRepository.class);
-        this.orderService = mock(OrderService.class);
+        this.deliveryRollupService = mock(DeliveryRollupService.class);
         this.vendorService = mock(VendorService.class);
         this.restTemplate = mock(RestTemplate.class);
         this.adminService = new AdminService(
-                orderService, deliveryRepository,
-                vendorService, restTemplate,
+                deliveryRollupService, vendorService, mock(IssueService.class), restTemplate,
                 "https://testsite.com");
     }
 
@@ -66,7 +69,7 @@ public class AnalyticsTest {
 
         UUID adminId = UUID.randomUUID();
         when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Admin"));
-        when(deliveryRepository.findAll()).thenReturn(deliveries);
+        when(deliveryRollupService.countInPeriod(startDate, endDate)).thenReturn(1L);
 
         assertThat(adminService.getTotalDeliveriesAnalytic(adminId, startDate, endDate)).isEqualTo(1);
     }
@@ -129,7 +132,7 @@ public class AnalyticsTest {
 
         UUID adminId = UUID.randomUUID();
         when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Admin"));
-        when(deliveryRepository.findAll()).thenReturn(deliveries);
+        when(deliveryRollupService.countDeliveredInPeriod(startDate, endDate)).thenReturn(1L);
 
         assertThat(adminService.getSuccessfulDeliveriesAnalytic(adminId, startDate, endDate)).isEqualTo(1);
     }
@@ -165,56 +168,8 @@ public class AnalyticsTest {
         UUID adminId = UUID.randomUUID();
         when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Admin"));
 
-        // setting up the deliveries
-        UUID id1 = UUID.randomUUID();
-        UUID orderId1 = UUID.randomUUID();
-        Delivery delivery1 = new DeliveryBuilder()
-                .setId(id1)
-                .setStatus(Delivery.StatusEnum.DELIVERED)
-                .setEstimatedPreparationFinishTime(OffsetDateTime.of(2023, 12, 24, 16, 59, 07, 0, ZoneOffset.UTC))
-                .setEstimatedDeliveryTime(OffsetDateTime.of(2023, 12, 24, 16, 59, 07, 0, ZoneOffset.UTC))
-                .setOrderId(orderId1)
-                .create();
-
-        UUID id2 = UUID.randomUUID();
-        UUID orderId2 = UUID.randomUUID();
-        Delivery delivery2 = new DeliveryBuilder()
-                .setId(id2)
-                .setOrderId(orderId2)
-                .setEstimatedDeliveryTime(OffsetDateTime.of(2020,1,1,12,0,0,0,ZoneOffset.UTC))
-                .setStatus(Delivery.StatusEnum.DELIVERED)
-                .create();
-
-        UUID id3 = UUID.randomUUID();
-        UUID orderId3 = UUID.randomUUID();
-        Delivery delivery3 = new DeliveryBuilder()
-                .setId(id3)
-                .setOrderId(orderId3)
-                .setStatus(Delivery.StatusEnum.DELIVERED)
-                .setEstimatedPreparationFinishTime(OffsetDateTime.of(2024, 01, 10, 21, 59, 07, 0, ZoneOffset.UTC))
-                .setEstimatedDeliveryTime(OffsetDateTime.of(2024, 01, 10, 21, 59, 07, 0, ZoneOffset.UTC))
-                .create();
-
-        UUID id4 = UUID.randomUUID();
-        UUID orderId4 = UUID.randomUUID();
-        Delivery delivery4 = new DeliveryBuilder()
-                .setId(id4)
-                .setOrderId(orderId4)
-                .setStatus(Delivery.StatusEnum.DELIVERED)
-                .setEstimatedPreparationFinishTime(OffsetDateTime.of(2024, 01, 10, 21, 59, 07, 0, ZoneOffset.UTC))
-                .setEstimatedDeliveryTime(OffsetDateTime.of(2024, 01, 10, 21, 59, 07, 0, ZoneOffset.UTC))
-                .create();
-
-        List<Delivery> deliveries = new ArrayList<>();
-        deliveries.add(delivery1);
-        deliveries.add(delivery2);
-        deliveries.add(delivery3);
-        deliveries.add(delivery4);
-
-        when(deliveryRepository.findAll()).thenReturn(deliveries);
-        when(orderService.getTimeOfPlacement(orderId1)).thenReturn(new BigDecimal("1703087443059"));
-        when(orderService.getTimeOfPlacement(orderId3)).thenReturn(new BigDecimal("1703087443059"));
-        when(orderService.getTimeOfPlacement(orderId4)).thenReturn(null);
+        when(deliveryRollupService.preparationMinutesInPeriod(startDate, endDate))
+                .thenReturn(new MinutesSum(2 * 18218L, 2));
 
         long expected = 18218L;
         long actual = adminService.getPreparationTimeAnalytic(adminId, startDate, endDate);
@@ -308,10 +263,27 @@ public class AnalyticsTest {
         deliveries.add(delivery3);
         deliveries.add(delivery4);
 
-        when(deliveryRepository.findAll()).thenReturn(deliveries);
+        long totalMinutes = deliveries.stream()
+                .mapToLong(d -> Duration.between(d.getEstimatedPreparationFinishTime(),
+                        d.getEstimatedDeliveryTime()).toMinutes())
+                .sum();
+        when(deliveryRollupService.deliveryMinutesInPeriod(startDate, endDate))
+                .thenReturn(new MinutesSum(totalMinutes, deliveries.size()));
         assertThat(adminService.getDeliveryTimeAnalytic(id, startDate, endDate)).isEqualTo(45);
     }
 
+    @Test
+    void getDeliveryTimeNoDeliveriesTest() throws ServiceUnavailableException, BadArgumentException, AccessForbiddenException {
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 5, 12, 0, 0, 0, ZoneOffset.UTC);
+        UUID id = UUID.randomUUID();
+        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Admin"));
+
+        when(deliveryRollupService.deliveryMinutesInPeriod(startDate, endDate)).thenReturn(MinutesSum.ZERO);
+
+        assertThat(adminService.getDeliveryTimeAnalytic(id, startDate, endDate)).isEqualTo(0);
+    }
+
     @Test
     void getDriverEfficiencySuccessfulTest()
             throws ServiceUnavailableException, BadArgumentException, AccessForbiddenException {
@@ -354,7 +326,8 @@ public class AnalyticsTest {
         deliveries.add(delivery3);
         deliveries.add(delivery4);
 
-        when(deliveryRepository.findAll()).thenReturn(deliveries);
+        when(deliveryRollupService.countInPeriod(startDate, endDate)).thenReturn((long) deliveries.size());
+        when(deliveryRollupService.countDeliveredInPeriod(startDate, endDate)).thenReturn(2L);
         assertThat(adminService.getDriverEfficiencyAnalytic(id, startDate, endDate)).isEqualTo(50);
     }
 
@@ -366,9 +339,6 @@ public class AnalyticsTest {
         OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
         OffsetDateTime endDate = OffsetDateTime.of(2022, 1, 5, 12, 0, 0, 0, ZoneOffset.UTC);
 
-        List<Delivery> deliveries = new ArrayList<>();
-
-        when(deliveryRepository.findAll()).thenReturn(deliveries);
         assertThrows(BadArgumentException.class, () -> {
             adminService.getDriverEfficiencyAnalytic(id, startDate, endDate);
         });
@@ -381,11 +351,86 @@ public class AnalyticsTest {
         OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
         OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 5, 12, 0, 0, 0, ZoneOffset.UTC);
 
-        List<Delivery> deliveries = new ArrayList<>();
-
-        when(deliveryRepository.findAll()).thenReturn(deliveries);
         assertThrows(AccessForbiddenException.class, () -> {
             adminService.getDriverEfficiencyAnalytic(id, startDate, endDate);
         });
     }
+
+    @Test
+    void getAnalyticsSummaryTest()
+            throws ServiceUnavailableException, BadArgumentException, AccessForbiddenException {
+        UUID adminId = UUID.randomUUID();
+        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Admin"));
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 5, 12, 0, 0, 0, ZoneOffset.UTC);
+        when(deliveryRollupService.totalsInPeriod(startDate, endDate)).thenReturn(
+                new DeliveryTotals(4, 3, new MinutesSum(60, 3), new MinutesSum(90, 2)));
+
+        AdminAnalyticsSummaryGet200Response summary = adminService.getAnalyticsSummary(adminId, startDate, endDate);
+
+        assertThat(summary.getStartDate()).isEqualTo(startDate);
+        assertThat(summary.getEndDate()).isEqualTo(endDate);
+        assertThat(summary.getTotalDeliveries()).isEqualTo(BigDecimal.valueOf(4));
+        assertThat(summary.getSuccessfulDeliveries()).isEqualTo(BigDecimal.valueOf(3));
+        assertThat(summary.getPreparationTime()).isEqualTo(BigDecimal.valueOf(20));
+        assertThat(summary.getDeliveryTime()).isEqualTo(BigDecimal.valueOf(45));
+        assertThat(summary.getDriverEfficiency()).isEqualTo(BigDecimal.valueOf(75));
+        verify(restTemplate, times(1)).getForObject(anyString(), eq(Map.class));
+    }
+
+    @Test
+    void getAnalyticsSummaryAccessForbiddenTest() {
+        UUID adminId = UUID.randomUUID();
+        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Courier"));
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 5, 12, 0, 0, 0, ZoneOffset.UTC);
+
+        assertThrows(AccessForbiddenException.class, () ->
+                adminService.getAnalyticsSummary(adminId, startDate, endDate));
+        verifyNoInteractions(deliveryRollupService);
+    }
+
+    @Test
+    void getAnalyticsSummaryBadArgumentTest() {
+        UUID adminId = UUID.randomUUID();
+        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Admin"));
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 5, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+        assertThrows(BadArgumentException.class, () ->
+                adminService.getAnalyticsSummary(adminId, startDate, endDate));
+    }
+
+    @Test
+    void getTimePercentilesTest()
+            throws ServiceUnavailableException, BadArgumentException, AccessForbiddenException {
+        UUID adminId = UUID.randomUUID();
+        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Admin"));
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 5, 12, 0, 0, 0, ZoneOffset.UTC);
+        DurationHistogram histogram = new DurationHistogram();
+        for (long minutes = 1; minutes <= 10; minutes++) {
+            histogram.add(minutes);
+        }
+        when(deliveryRollupService.histogramInPeriod(TimeMetric.DELIVERY, startDate, endDate)).thenReturn(histogram);
+
+        TimePercentiles percentiles = adminService.getTimePercentiles(adminId, TimeMetric.DELIVERY, startDate, endDate);
+
+        assertThat(percentiles.getCount()).isEqualTo(BigDecimal.valueOf(10));
+        assertThat(percentiles.getP50()).isEqualTo(BigDecimal.valueOf(5));
+        assertThat(percentiles.getP90()).isEqualTo(BigDecimal.valueOf(9));
+        assertThat(percentiles.getP99()).isEqualTo(BigDecimal.valueOf(10));
+        assertThat(percentiles.getMax()).isEqualTo(BigDecimal.valueOf(10));
+    }
+
+    @Test
+    void getTimePercentilesAccessForbiddenTest() {
+        UUID adminId = UUID.randomUUID();
+        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenReturn(Map.of("userType", "Courier"));
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 5, 12, 0, 0, 0, ZoneOffset.UTC);
+
+        assertThrows(AccessForbiddenException.class, () ->
+                adminService.getTimePercentiles(adminId, TimeMetric.PREPARATION, startDate, endDate));
+    }
 }
@@ -0,0 +1,179 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.builders.DeliveryBuilder;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkedDeliveryScannerTest {
+    private static final OffsetDateTime START = OffsetDateTime.of(2023, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private ChunkedDeliveryScanner scanner;
+
+    @BeforeEach
+    void setUp() {
+        this.scanner = new ChunkedDeliveryScanner(2, 24, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scanner.destroy();
+    }
+
+    private static Delivery deliveryAt(OffsetDateTime time) {
+        return new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setEstimatedDeliveryTime(time)
+                .create();
+    }
+
+    /**
+     * Fetch the given deliveries like the repositories do, excluding both ends of the period.
+     */
+    private static BiFunction<OffsetDateTime, OffsetDateTime, List<Delivery>> fetchFrom(List<Delivery> deliveries) {
+        return (from, to) -> {
+            List<Delivery> result = new ArrayList<>();
+            for (Delivery delivery : deliveries) {
+                if (delivery.getEstimatedDeliveryTime().isAfter(from)
+                        && delivery.getEstimatedDeliveryTime().isBefore(to)) {
+                    result.add(delivery);
+                }
+            }
+            return result;
+        };
+    }
+
+    private long count(OffsetDateTime endDate, List<Delivery> deliveries) {
+        return scanner.scan(START, endDate, fetchFrom(deliveries), AtomicLong::new,
+                (counter, delivery) -> counter.incrementAndGet(),
+                (first, second) -> {
+                    first.addAndGet(second.get());
+                    return first;
+                }).get();
+    }
+
+    @Test
+    void longPeriodIsSplitInChunks() {
+        List<OffsetDateTime> starts = Collections.synchronizedList(new ArrayList<>());
+        List<Delivery> deliveries = new ArrayList<>();
+        for (int hour = 1; hour < 10 * 24; hour += 5) {
+            deliveries.add(deliveryAt(START.plusHours(hour).plusMinutes(17)));
+        }
+        BiFunction<OffsetDateTime, OffsetDateTime, List<Delivery>> fetch = fetchFrom(deliveries);
+
+        long counted = scanner.scan(START, START.plusDays(10), (from, to) -> {
+            starts.add(from);
+            return fetch.apply(from, to);
+        }, AtomicLong::new, (counter, delivery) -> counter.incrementAndGet(), (first, second) -> {
+            first.addAndGet(second.get());
+            return first;
+        }).get();
+
+        assertEquals(deliveries.size(), counted);
+        assertThat(starts.size()).isGreaterThan(1);
+    }
+
+    @Test
+    void deliveryOnTheSplitIsCountedOnce() {
+        // Four days are split in two, then in four, at every midnight
+        List<Delivery> deliveries = List.of(
+                deliveryAt(START.plusDays(1)),
+                deliveryAt(START.plusDays(2)),
+                deliveryAt(START.plusDays(3)));
+
+        assertEquals(3, count(START.plusDays(4), deliveries));
+    }
+
+    @Test
+    void endsOfThePeriodAreExcluded() {
+        List<Delivery> deliveries = List.of(deliveryAt(START), deliveryAt(START.plusDays(4)));
+
+        assertEquals(0, count(START.plusDays(4), deliveries));
+    }
+
+    @Test
+    void shortPeriodRunsInline() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        scanner.scan(START, START.plusHours(24), (from, to) -> {
+            threads.add(Thread.currentThread().getName());
+            return List.of();
+        }, AtomicLong::new, (counter, delivery) -> counter.incrementAndGet(), (first, second) -> first);
+
+        assertEquals(Set.of(Thread.currentThread().getName()), threads);
+    }
+
+    @Test
+    void longPeriodRunsOnOwnPool() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        scanner.scan(START, START.plusDays(8), (from, to) -> {
+            threads.add(Thread.currentThread().getName());
+            return List.of();
+        }, AtomicLong::new, (counter, delivery) -> counter.incrementAndGet(), (first, second) -> first);
+
+        assertThat(threads).allMatch(name -> name.startsWith("analytics-scan-"));
+        assertThat(threads.size()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void parallelismDefaultsToAvailableCoresWithinHalfOfTheConnections() {
+        ChunkedDeliveryScanner defaultScanner = new ChunkedDeliveryScanner(0, 24, 1024);
+        ChunkedDeliveryScanner smallPoolScanner = new ChunkedDeliveryScanner(0, 24, 2);
+
+        assertEquals(Runtime.getRuntime().availableProcessors(), defaultScanner.getParallelism());
+        assertEquals(1, smallPoolScanner.getParallelism());
+        assertEquals(1, smallPoolScanner.getMaxConcurrentFetches());
+        assertEquals(5, scanner.getMaxConcurrentFetches());
+        defaultScanner.destroy();
+        smallPoolScanner.destroy();
+    }
+
+    @Test
+    void fetchesUseAtMostHalfOfTheConnections() {
+        ChunkedDeliveryScanner manyThreads = new ChunkedDeliveryScanner(8, 1, 4);
+        AtomicInteger fetching = new AtomicInteger();
+        AtomicInteger mostFetching = new AtomicInteger();
+
+        try {
+            manyThreads.scan(START, START.plusDays(4), (from, to) -> {
+                mostFetching.accumulateAndGet(fetching.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                fetching.decrementAndGet();
+                return List.of();
+            }, AtomicLong::new, (counter, delivery) -> counter.incrementAndGet(), (first, second) -> first);
+        } finally {
+            manyThreads.destroy();
+        }
+
+        assertEquals(8, manyThreads.getParallelism());
+        assertThat(mostFetching.get()).isBetween(1, 2);
+    }
+
+    @Test
+    void invalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedDeliveryScanner(-1, 24, 10));
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedDeliveryScanner(2, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedDeliveryScanner(2, 24, 0));
+    }
+}
@@ -1,5 +1,6 @@
 package nl.tudelft.sem.yumyumnow.delivery.application.services;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import nl.tudelft.sem.yumyumnow.delivery.domain.builders.CourierBuilder;
 import nl.tudelft.sem.yumyumnow.delivery.domain.builders.VendorBuilder;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Courier;
@@ -9,8 +10,11 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.http.*;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -34,7 +38,10 @@ public class CourierServiceTest {
         courierService = new CourierService(
                 restTemplate,
                 testWebsite,
-                vendorService
+                vendorService,
+                new ExpiringCache<>("courier", 0, Duration.ZERO, Duration.ZERO, Duration.ZERO,
+                        Clock.systemUTC(), Runnable::run, new SimpleMeterRegistry()),
+                new SingleFlight(new SimpleMeterRegistry())
         );
     }
 
@@ -189,4 +196,80 @@ public class CourierServiceTest {
 
         assertFalse(courierService.putCourier(courier));
     }
+
+    private CourierService cachedCourierService() {
+        return new CourierService(restTemplate, testWebsite, vendorService, new ExpiringCache<>("courier", 10,
+                Duration.ofSeconds(60), Duration.ofSeconds(60), Duration.ofSeconds(10),
+                Clock.systemUTC(), Runnable::run, new SimpleMeterRegistry()), new SingleFlight(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    public void warmCourierLookupNeedsNoRequest() {
+        CourierService cached = cachedCourierService();
+        UUID courierId = UUID.randomUUID();
+        UUID vendorId = UUID.randomUUID();
+        Vendor vendor = new VendorBuilder()
+                .setId(vendorId)
+                .create();
+        when(restTemplate.getForObject(testWebsite + "/courier/" + courierId, Map.class)).thenReturn(Map.of(
+                "userID", courierId.toString(),
+                "vendor", vendorId.toString()
+        ));
+        when(vendorService.getVendor(vendorId.toString())).thenReturn(vendor);
+
+        cached.getCourier(courierId.toString());
+        Courier courier = cached.getCourier(courierId.toString());
+
+        verify(restTemplate, times(1)).getForObject(testWebsite + "/courier/" + courierId, Map.class);
+        // The vendor is only resolved when it is asked for, through the vendor service and its cache
+        verifyNoInteractions(vendorService);
+        assertEquals(vendor, courier.getVendor());
+        assertEquals(vendor, courier.getVendor());
+        verify(vendorService, times(1)).getVendor(vendorId.toString());
+    }
+
+    @Test
+    public void courierWithoutVendorDoesNotFetchOne() {
+        UUID courierId = UUID.randomUUID();
+        Map<String, Object> response = new HashMap<>();
+        response.put("userID", courierId.toString());
+        response.put("vendor", null);
+        when(restTemplate.getForObject(testWebsite + "/courier/" + courierId, Map.class)).thenReturn(response);
+
+        assertNull(courierService.getCourier(courierId.toString()).getVendor());
+        verifyNoInteractions(vendorService);
+    }
+
+    @Test
+    public void missingCourierIsRemembered() {
+        CourierService cached = cachedCourierService();
+        String courierId = UUID.randomUUID().toString();
+        when(restTemplate.getForObject(testWebsite + "/courier/" + courierId, Map.class))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        assertNull(cached.getCourier(courierId));
+        assertNull(cached.getCourier(courierId));
+        verify(restTemplate, times(1)).getForObject(testWebsite + "/courier/" + courierId, Map.class);
+    }
+
+    @Test
+    public void updatedCourierIsFetchedAgain() {
+        CourierService cached = cachedCourierService();
+        UUID courierId = UUID.randomUUID();
+        UUID vendorId = UUID.randomUUID();
+        when(restTemplate.getForObject(testWebsite + "/courier/" + courierId, Map.class))
+                .thenAnswer(invocation -> new HashMap<>(Map.of(
+                        "userID", courierId.toString(),
+                        "vendor", vendorId.toString())));
+        when(restTemplate.exchange(eq(testWebsite + "/courier/" + courierId), eq(HttpMethod.PUT),
+                any(HttpEntity.class), eq(String.class))).thenReturn(new ResponseEntity<>(HttpStatus.OK));
+
+        Courier courier = cached.getCourier(courierId.toString());
+        courier.setVendor(new VendorBuilder().setId(UUID.randomUUID()).create());
+        assertTrue(cached.putCourier(courier));
+        cached.getCourier(courierId.toString());
+
+        // Once for each lookup, and once for the update itself
+        verify(restTemplate, times(3)).getForObject(testWebsite + "/courier/" + courierId, Map.class);
+    }
 }
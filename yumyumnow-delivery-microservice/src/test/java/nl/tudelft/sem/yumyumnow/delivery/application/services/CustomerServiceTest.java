@@ -1,5 +1,6 @@
 package nl.tudelft.sem.yumyumnow.delivery.application.services;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import nl.tudelft.sem.yumyumnow.delivery.domain.builders.CustomerBuilder;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Customer;
 import nl.tudelft.sem.yumyumnow.delivery.model.Location;
@@ -29,7 +30,8 @@ public class CustomerServiceTest {
         restTemplate = mock(RestTemplate.class);
         customerService = new CustomerService(
                 restTemplate,
-                testWebsite
+                testWebsite,
+                new SingleFlight(new SimpleMeterRegistry())
         );
     }
 
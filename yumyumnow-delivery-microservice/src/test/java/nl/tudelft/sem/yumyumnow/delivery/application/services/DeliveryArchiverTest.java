@@ -0,0 +1,59 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class DeliveryArchiverTest {
+    private static final Instant NOW = Instant.parse("2023-12-01T12:00:00Z");
+
+    private DeliveryRepository deliveryRepository;
+    private MeterRegistry meterRegistry;
+    private DeliveryArchiver deliveryArchiver;
+
+    @BeforeEach
+    void setUp() {
+        this.deliveryRepository = mock(DeliveryRepository.class);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.deliveryArchiver = new DeliveryArchiver(deliveryRepository, meterRegistry,
+                Clock.fixed(NOW, ZoneOffset.UTC), 30, 2);
+    }
+
+    @Test
+    void archiveMovesBatchesUntilPartialBatch() {
+        when(deliveryRepository.archiveTerminalBefore(any(), eq(2))).thenReturn(2, 2, 1);
+
+        assertEquals(5, deliveryArchiver.archive());
+
+        verify(deliveryRepository, times(3)).archiveTerminalBefore(any(), eq(2));
+        assertEquals(5.0, meterRegistry.counter("delivery.archived").count());
+    }
+
+    @Test
+    void archiveUsesConfiguredAge() {
+        assertEquals(0, deliveryArchiver.archive());
+
+        ArgumentCaptor<OffsetDateTime> cutoff = ArgumentCaptor.forClass(OffsetDateTime.class);
+        verify(deliveryRepository).archiveTerminalBefore(cutoff.capture(), eq(2));
+        assertEquals(OffsetDateTime.of(2023, 11, 1, 12, 0, 0, 0, ZoneOffset.UTC), cutoff.getValue());
+    }
+
+    @Test
+    void invalidBatchSize() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new DeliveryArchiver(deliveryRepository, meterRegistry, Clock.systemUTC(), 30, 0));
+    }
+}
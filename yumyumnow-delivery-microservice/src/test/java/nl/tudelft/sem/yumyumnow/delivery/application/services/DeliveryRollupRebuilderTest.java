@@ -0,0 +1,154 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.builders.DeliveryBuilder;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.ArchivedDelivery;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryRollup;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeHistogramBin;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.ArchivedDeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRollupRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.TimeHistogramRepository;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class DeliveryRollupRebuilderTest {
+    private static final OffsetDateTime HOUR = OffsetDateTime.of(2023, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private DeliveryRepository deliveryRepository;
+    private ArchivedDeliveryRepository archivedDeliveryRepository;
+    private DeliveryRollupRepository deliveryRollupRepository;
+    private TimeHistogramRepository timeHistogramRepository;
+    private AnalyticsResultCache analyticsResultCache;
+    private DeliveryRollupService deliveryRollupService;
+
+    @BeforeEach
+    void setUp() {
+        this.deliveryRepository = mock(DeliveryRepository.class);
+        this.archivedDeliveryRepository = mock(ArchivedDeliveryRepository.class);
+        this.deliveryRollupRepository = mock(DeliveryRollupRepository.class);
+        this.timeHistogramRepository = mock(TimeHistogramRepository.class);
+        this.analyticsResultCache = mock(AnalyticsResultCache.class);
+        this.deliveryRollupService = new DeliveryRollupService(
+                deliveryRollupRepository, timeHistogramRepository, deliveryRepository, archivedDeliveryRepository,
+                new ChunkedDeliveryScanner(2, 24, 10), new AnalyticsResultCache(0, new SimpleMeterRegistry()),
+                new DeliverySnapshot(deliveryRepository, archivedDeliveryRepository, false, 100, false), true);
+    }
+
+    private DeliveryRollupRebuilder rebuilder(boolean rebuildOnStartup) {
+        return new DeliveryRollupRebuilder(deliveryRepository, archivedDeliveryRepository, deliveryRollupRepository,
+                timeHistogramRepository, deliveryRollupService, analyticsResultCache,
+                TransactionOperations.withoutTransaction(), rebuildOnStartup, 2);
+    }
+
+    private static Delivery delivered(int deliveryMinutes) {
+        return new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.DELIVERED)
+                .setEstimatedPreparationFinishTime(HOUR.plusMinutes(10))
+                .setEstimatedDeliveryTime(HOUR.plusMinutes(10 + deliveryMinutes))
+                .create();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> saved(Runnable verification, ArgumentCaptor<Iterable<T>> captor) {
+        verification.run();
+        List<T> saved = new ArrayList<>();
+        captor.getValue().forEach(saved::add);
+        return saved;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildReplacesRollupsWithThoseOfCurrentAndArchivedDeliveries() {
+        Delivery pending = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.PENDING)
+                .create();
+        when(deliveryRepository.streamAll(2)).thenReturn(Stream.of(delivered(20), delivered(20), pending));
+        ArchivedDelivery archived = new ArchivedDelivery();
+        archived.setId(UUID.randomUUID());
+        archived.setStatus(Delivery.StatusEnum.REJECTED);
+        archived.setEstimatedDeliveryTime(HOUR.plusMinutes(50));
+        when(archivedDeliveryRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(archived)));
+
+        assertEquals(4, rebuilder(false).rebuild());
+
+        verify(deliveryRollupRepository).deleteAllInBatch();
+        verify(timeHistogramRepository).deleteAllInBatch();
+        ArgumentCaptor<Iterable<DeliveryRollup>> buckets = ArgumentCaptor.forClass(Iterable.class);
+        List<DeliveryRollup> rollups = saved(() -> verify(deliveryRollupRepository).saveAll(buckets.capture()), buckets);
+        assertEquals(2, rollups.size());
+        DeliveryRollup delivered = rollups.stream()
+                .filter(bucket -> bucket.getStatus() == Delivery.StatusEnum.DELIVERED.ordinal())
+                .findFirst().orElseThrow();
+        assertEquals(2, delivered.getDeliveries());
+        assertEquals(40, delivered.getDeliveryMinutes());
+        assertEquals(2, delivered.getDeliveryDeliveries());
+
+        ArgumentCaptor<Iterable<TimeHistogramBin>> bins = ArgumentCaptor.forClass(Iterable.class);
+        List<TimeHistogramBin> histogram = saved(() -> verify(timeHistogramRepository).saveAll(bins.capture()), bins);
+        assertEquals(1, histogram.size());
+        assertEquals(2, histogram.get(0).getDurations());
+        verify(analyticsResultCache).invalidateAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deliveryArchivedDuringTheRebuildIsCountedOnce() {
+        Delivery delivery = delivered(20);
+        when(deliveryRepository.streamAll(2)).thenReturn(Stream.of(delivery));
+        // Archived after it was read from the current deliveries, before the archived ones are read
+        ArchivedDelivery archived = new ArchivedDelivery();
+        archived.setId(delivery.getId());
+        archived.setStatus(delivery.getStatus());
+        archived.setEstimatedPreparationFinishTime(delivery.getEstimatedPreparationFinishTime());
+        archived.setEstimatedDeliveryTime(delivery.getEstimatedDeliveryTime());
+        when(archivedDeliveryRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(archived)));
+
+        assertEquals(1, rebuilder(false).rebuild());
+
+        ArgumentCaptor<Iterable<DeliveryRollup>> buckets = ArgumentCaptor.forClass(Iterable.class);
+        List<DeliveryRollup> rollups = saved(() -> verify(deliveryRollupRepository).saveAll(buckets.capture()), buckets);
+        assertEquals(1, rollups.size());
+        assertEquals(1, rollups.get(0).getDeliveries());
+        assertEquals(20, rollups.get(0).getDeliveryMinutes());
+    }
+
+    @Test
+    void rebuildOnStartupOnlyWhenEnabled() {
+        when(deliveryRepository.streamAll(2)).thenReturn(Stream.empty());
+        when(archivedDeliveryRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
+
+        rebuilder(false).rebuildOnStartup();
+        verify(deliveryRollupRepository, never()).deleteAllInBatch();
+
+        rebuilder(true).rebuildOnStartup();
+        verify(deliveryRollupRepository).deleteAllInBatch();
+        verify(deliveryRollupRepository).saveAll(any(Collection.class));
+    }
+
+    @Test
+    void invalidPageSize() {
+        assertThrows(IllegalArgumentException.class, () -> new DeliveryRollupRebuilder(deliveryRepository,
+                archivedDeliveryRepository, deliveryRollupRepository, timeHistogramRepository, deliveryRollupService,
+                analyticsResultCache, TransactionOperations.withoutTransaction(), false, 0));
+    }
+}
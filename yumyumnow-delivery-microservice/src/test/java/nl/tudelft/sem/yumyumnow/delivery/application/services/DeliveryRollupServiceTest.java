@@ -0,0 +1,580 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.builders.DeliveryBuilder;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.ArchivedDelivery;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryGroup;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryRollup;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryTotals;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DurationHistogram;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.MinutesSum;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeHistogramBin;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeMetric;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.ArchivedDeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRollupRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DurationAggregate;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.HistogramBinCount;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.RollupSummary;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.TimeHistogramRepository;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyShort;
+import static org.mockito.Mockito.*;
+
+public class DeliveryRollupServiceTest {
+    private static final short DELIVERED = (short) Delivery.StatusEnum.DELIVERED.ordinal();
+
+    private DeliveryRollupRepository deliveryRollupRepository;
+    private TimeHistogramRepository timeHistogramRepository;
+    private DeliveryRepository deliveryRepository;
+    private ArchivedDeliveryRepository archivedDeliveryRepository;
+    private DeliveryRollupService deliveryRollupService;
+
+    @BeforeEach
+    void setUp() {
+        this.deliveryRollupRepository = mock(DeliveryRollupRepository.class);
+        this.timeHistogramRepository = mock(TimeHistogramRepository.class);
+        this.deliveryRepository = mock(DeliveryRepository.class);
+        this.archivedDeliveryRepository = mock(ArchivedDeliveryRepository.class);
+        this.deliveryRollupService = new DeliveryRollupService(
+                deliveryRollupRepository, timeHistogramRepository, deliveryRepository, archivedDeliveryRepository,
+                new ChunkedDeliveryScanner(2, 24, 10), new AnalyticsResultCache(0, new SimpleMeterRegistry()),
+                disabledSnapshot(), true);
+    }
+
+    private DeliverySnapshot disabledSnapshot() {
+        return new DeliverySnapshot(deliveryRepository, archivedDeliveryRepository, false, 100, false);
+    }
+
+    private static long epochHour(OffsetDateTime time) {
+        return time.toEpochSecond() / 3600;
+    }
+
+    @Test
+    void contributionOfDeliveryWithoutTime() {
+        Delivery delivery = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.PENDING)
+                .create();
+
+        assertNull(deliveryRollupService.contributionOf(delivery));
+    }
+
+    @Test
+    void contributionOfPendingDelivery() {
+        OffsetDateTime deliveryTime = OffsetDateTime.of(2023, 1, 2, 17, 59, 7, 0, ZoneOffset.UTC);
+        Delivery delivery = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.PENDING)
+                .setEstimatedPreparationFinishTime(deliveryTime.minusMinutes(30))
+                .setEstimatedDeliveryTime(deliveryTime)
+                .create();
+
+        DeliveryRollup contribution = deliveryRollupService.contributionOf(delivery);
+
+        assertEquals(epochHour(deliveryTime), contribution.getEpochHour());
+        assertEquals(Delivery.StatusEnum.PENDING.ordinal(), contribution.getStatus());
+        assertEquals(1, contribution.getDeliveries());
+        assertEquals(0, contribution.getDeliveryDeliveries());
+        assertEquals(0, contribution.getPrepDeliveries());
+    }
+
+    @Test
+    void contributionOfDeliveredDelivery() {
+        UUID orderId = UUID.randomUUID();
+        OffsetDateTime placed = OffsetDateTime.of(2023, 1, 2, 17, 0, 0, 0, ZoneOffset.UTC);
+        Delivery delivery = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setOrderId(orderId)
+                .setStatus(Delivery.StatusEnum.DELIVERED)
+                .setEstimatedPreparationFinishTime(placed.plusMinutes(20))
+                .setEstimatedDeliveryTime(placed.plusMinutes(65))
+                .setOrderPlacementTime(placed)
+                .create();
+
+        DeliveryRollup contribution = deliveryRollupService.contributionOf(delivery);
+
+        assertEquals(epochHour(placed) + 1, contribution.getEpochHour());
+        assertEquals(DELIVERED, contribution.getStatus());
+        assertEquals(20, contribution.getPrepMinutes());
+        assertEquals(1, contribution.getPrepDeliveries());
+        assertEquals(45, contribution.getDeliveryMinutes());
+        assertEquals(1, contribution.getDeliveryDeliveries());
+    }
+
+    @Test
+    void recordWithinBucketAddsDifference() {
+        DeliveryRollup before = new DeliveryRollup(10, DELIVERED, 1, 20, 1, 30, 1);
+        DeliveryRollup after = new DeliveryRollup(10, DELIVERED, 1, 20, 1, 45, 1);
+
+        deliveryRollupService.record(before, after);
+
+        ArgumentCaptor<DeliveryRollup> delta = ArgumentCaptor.forClass(DeliveryRollup.class);
+        verify(deliveryRollupRepository).addToBucket(delta.capture());
+        assertEquals(0, delta.getValue().getDeliveries());
+        assertEquals(15, delta.getValue().getDeliveryMinutes());
+    }
+
+    @Test
+    void recordUnchangedContributionSkipsBucket() {
+        DeliveryRollup before = new DeliveryRollup(10, DELIVERED, 1, 20, 1, 30, 1);
+        DeliveryRollup after = new DeliveryRollup(10, DELIVERED, 1, 20, 1, 30, 1);
+
+        deliveryRollupService.record(before, after);
+
+        verify(deliveryRollupRepository, never()).addToBucket(any());
+    }
+
+    @Test
+    void recordMovesBetweenBuckets() {
+        DeliveryRollup before = new DeliveryRollup(10, (short) 0, 1, 0, 0, 0, 0);
+        DeliveryRollup after = new DeliveryRollup(11, DELIVERED, 1, 20, 1, 30, 1);
+
+        deliveryRollupService.record(before, after);
+
+        ArgumentCaptor<DeliveryRollup> deltas = ArgumentCaptor.forClass(DeliveryRollup.class);
+        verify(deliveryRollupRepository, times(2)).addToBucket(deltas.capture());
+        assertEquals(10, deltas.getAllValues().get(0).getEpochHour());
+        assertEquals(-1, deltas.getAllValues().get(0).getDeliveries());
+        assertThat(deltas.getAllValues().get(1)).isSameAs(after);
+    }
+
+    @Test
+    void recordNewDelivery() {
+        DeliveryRollup after = new DeliveryRollup(11, (short) 0, 1, 0, 0, 0, 0);
+
+        deliveryRollupService.record(null, after);
+
+        verify(deliveryRollupRepository).addToBucket(after);
+    }
+
+    @Test
+    void recordInvalidatesCachedResultsOnlyAfterCommit() {
+        AnalyticsResultCache analyticsResultCache = mock(AnalyticsResultCache.class);
+        deliveryRollupService = new DeliveryRollupService(
+                deliveryRollupRepository, timeHistogramRepository, deliveryRepository, archivedDeliveryRepository,
+                new ChunkedDeliveryScanner(2, 24, 10), analyticsResultCache, disabledSnapshot(), true);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            deliveryRollupService.record(null, new DeliveryRollup(11, (short) 0, 1, 0, 0, 0, 0));
+
+            verify(analyticsResultCache, never()).invalidateHour(anyLong());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(analyticsResultCache).invalidateHour(11);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void recordOfUnchangedContributionInvalidatesItsHour() {
+        AnalyticsResultCache analyticsResultCache = mock(AnalyticsResultCache.class);
+        deliveryRollupService = new DeliveryRollupService(
+                deliveryRollupRepository, timeHistogramRepository, deliveryRepository, archivedDeliveryRepository,
+                new ChunkedDeliveryScanner(2, 24, 10), analyticsResultCache, disabledSnapshot(), true);
+        DeliveryRollup contribution = new DeliveryRollup(11, (short) 0, 1, 0, 0, 0, 0);
+
+        deliveryRollupService.record(contribution, contribution);
+
+        verify(deliveryRollupRepository, never()).addToBucket(any());
+        verify(analyticsResultCache).invalidateHour(11);
+    }
+
+    @Test
+    void countWithinOneHourOnlyQueriesDeliveries() {
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 12, 10, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 1, 12, 50, 0, 0, ZoneOffset.UTC);
+        when(deliveryRepository.countInPeriod(startDate, endDate)).thenReturn(2L);
+        when(archivedDeliveryRepository.countInPeriod(startDate, endDate)).thenReturn(5L);
+
+        assertEquals(7, deliveryRollupService.countInPeriod(startDate, endDate));
+        verify(deliveryRollupRepository, never()).sumDeliveries(anyLong(), anyLong());
+    }
+
+    @Test
+    void countUsesBucketsForWholeHoursAndDeliveriesForEdges() {
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 12, 30, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 1, 15, 30, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime firstWholeHour = OffsetDateTime.of(2023, 1, 1, 13, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime lastPartialHour = OffsetDateTime.of(2023, 1, 1, 15, 0, 0, 0, ZoneOffset.UTC);
+
+        when(deliveryRepository.countInPeriod(startDate, firstWholeHour)).thenReturn(1L);
+        when(archivedDeliveryRepository.countInPeriod(startDate, firstWholeHour)).thenReturn(0L);
+        when(deliveryRollupRepository.sumDeliveries(epochHour(firstWholeHour), epochHour(lastPartialHour)))
+                .thenReturn(10L);
+        when(deliveryRepository.countInPeriod(lastPartialHour.minusNanos(1), endDate)).thenReturn(2L);
+        when(archivedDeliveryRepository.countInPeriod(lastPartialHour.minusNanos(1), endDate)).thenReturn(3L);
+
+        assertEquals(16, deliveryRollupService.countInPeriod(startDate, endDate));
+    }
+
+    @Test
+    void countEndingOnTheHourHasNoTail() {
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 1, 15, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime firstWholeHour = OffsetDateTime.of(2023, 1, 1, 13, 0, 0, 0, ZoneOffset.UTC);
+
+        when(deliveryRepository.countByStatusInPeriod(Delivery.StatusEnum.DELIVERED, startDate, firstWholeHour))
+                .thenReturn(1L);
+        when(deliveryRollupRepository.sumDeliveriesByStatus(DELIVERED, epochHour(firstWholeHour), epochHour(endDate)))
+                .thenReturn(4L);
+
+        assertEquals(5, deliveryRollupService.countDeliveredInPeriod(startDate, endDate));
+        verify(deliveryRepository, times(1)).countByStatusInPeriod(any(), any(), any());
+    }
+
+    @Test
+    void preparationTimesUseStoredPlacementTime() {
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 12, 24, 16, 10, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 12, 24, 16, 50, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime placed = OffsetDateTime.of(2023, 12, 20, 15, 50, 43, 59_000_000, ZoneOffset.UTC);
+
+        Delivery delivery1 = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.DELIVERED)
+                .setEstimatedPreparationFinishTime(OffsetDateTime.of(2023, 12, 24, 16, 59, 07, 0, ZoneOffset.UTC))
+                .setOrderPlacementTime(placed)
+                .create();
+        Delivery delivery3 = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.DELIVERED)
+                .setEstimatedPreparationFinishTime(OffsetDateTime.of(2024, 01, 10, 21, 59, 07, 0, ZoneOffset.UTC))
+                .setOrderPlacementTime(placed)
+                .create();
+        Delivery withoutPlacementTime = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.DELIVERED)
+                .setEstimatedPreparationFinishTime(OffsetDateTime.of(2024, 01, 10, 21, 59, 07, 0, ZoneOffset.UTC))
+                .create();
+        when(deliveryRepository.findAllByStatusInPeriod(Delivery.StatusEnum.DELIVERED, startDate, endDate))
+                .thenReturn(List.of(delivery1, delivery3, withoutPlacementTime));
+
+        DurationHistogram histogram =
+                deliveryRollupService.histogramInPeriod(TimeMetric.PREPARATION, startDate, endDate);
+
+        assertEquals(2, histogram.count());
+        assertEquals(DurationHistogram.lowerBoundOf(DurationHistogram.binOf(5828)), histogram.percentile(50));
+        assertEquals(DurationHistogram.lowerBoundOf(DurationHistogram.binOf(30608)), histogram.max());
+    }
+
+    @Test
+    void preparationMinutesIncludeArchive() {
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 2, 12, 5, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 2, 12, 55, 0, 0, ZoneOffset.UTC);
+
+        DurationAggregate hotTimes = mock(DurationAggregate.class);
+        when(hotTimes.getTotalMinutes()).thenReturn(36436L);
+        when(hotTimes.getDeliveries()).thenReturn(2L);
+        DurationAggregate archivedTimes = mock(DurationAggregate.class);
+        when(archivedTimes.getTotalMinutes()).thenReturn(20L);
+        when(archivedTimes.getDeliveries()).thenReturn(1L);
+        when(deliveryRepository.sumPreparationMinutesByStatusInPeriod(DELIVERED, startDate, endDate))
+                .thenReturn(hotTimes);
+        when(archivedDeliveryRepository.sumPreparationMinutesByStatusInPeriod(DELIVERED, startDate, endDate))
+                .thenReturn(archivedTimes);
+
+        MinutesSum actual = deliveryRollupService.preparationMinutesInPeriod(startDate, endDate);
+
+        assertEquals(new MinutesSum(36456, 3), actual);
+        assertEquals(12152, actual.average());
+        verify(deliveryRepository, never()).findAllByStatusInPeriod(any(), any(), any());
+    }
+
+    @Test
+    void deliveryMinutesIncludeArchive() {
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 12, 5, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 1, 12, 55, 0, 0, ZoneOffset.UTC);
+
+        DurationAggregate hotTimes = mock(DurationAggregate.class);
+        when(hotTimes.getTotalMinutes()).thenReturn(30L);
+        when(hotTimes.getDeliveries()).thenReturn(1L);
+        DurationAggregate archivedTimes = mock(DurationAggregate.class);
+        when(archivedTimes.getTotalMinutes()).thenReturn(60L);
+        when(archivedTimes.getDeliveries()).thenReturn(2L);
+        when(deliveryRepository.sumDeliveryMinutesByStatusInPeriod(DELIVERED, startDate, endDate))
+                .thenReturn(hotTimes);
+        when(archivedDeliveryRepository.sumDeliveryMinutesByStatusInPeriod(DELIVERED, startDate, endDate))
+                .thenReturn(archivedTimes);
+
+        MinutesSum actual = deliveryRollupService.deliveryMinutesInPeriod(startDate, endDate);
+
+        assertEquals(new MinutesSum(90, 3), actual);
+        assertEquals(30, actual.average());
+    }
+
+    @Test
+    void totalsOfDeliveriesInOnePass() {
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 2, 17, 5, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 2, 17, 55, 0, 0, ZoneOffset.UTC);
+        UUID orderId = UUID.randomUUID();
+        OffsetDateTime placed = OffsetDateTime.of(2023, 1, 2, 16, 40, 0, 0, ZoneOffset.UTC);
+
+        Delivery delivered = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setOrderId(orderId)
+                .setStatus(Delivery.StatusEnum.DELIVERED)
+                .setEstimatedPreparationFinishTime(placed.plusMinutes(20))
+                .setEstimatedDeliveryTime(placed.plusMinutes(50))
+                .setOrderPlacementTime(placed)
+                .create();
+        Delivery pending = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.PENDING)
+                .setEstimatedDeliveryTime(placed.plusMinutes(60))
+                .create();
+        ArchivedDelivery archived = new ArchivedDelivery();
+        archived.setId(UUID.randomUUID());
+        archived.setStatus(Delivery.StatusEnum.REJECTED);
+        archived.setEstimatedDeliveryTime(placed.plusMinutes(45));
+
+        when(deliveryRepository.findAllInPeriod(startDate, endDate)).thenReturn(List.of(delivered, pending));
+        when(archivedDeliveryRepository.findAllInPeriod(startDate, endDate)).thenReturn(List.of(archived));
+
+        assertEquals(new DeliveryTotals(3, 1, new MinutesSum(20, 1), new MinutesSum(30, 1)),
+                deliveryRollupService.totalsInPeriod(startDate, endDate));
+        verify(deliveryRollupRepository, never()).sumAll(anyShort(), anyLong(), anyLong());
+    }
+
+    @Test
+    void totalsUseOneRollupQueryForWholeHours() {
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 1, 15, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime firstWholeHour = OffsetDateTime.of(2023, 1, 1, 13, 0, 0, 0, ZoneOffset.UTC);
+
+        RollupSummary summary = mock(RollupSummary.class);
+        when(summary.getDeliveries()).thenReturn(10L);
+        when(summary.getDelivered()).thenReturn(6L);
+        when(summary.getPrepMinutes()).thenReturn(120L);
+        when(summary.getPrepDeliveries()).thenReturn(6L);
+        when(summary.getDeliveryMinutes()).thenReturn(150L);
+        when(summary.getDeliveryDeliveries()).thenReturn(5L);
+        when(deliveryRollupRepository.sumAll(DELIVERED, epochHour(firstWholeHour), epochHour(endDate)))
+                .thenReturn(summary);
+        when(deliveryRepository.findAllInPeriod(startDate, firstWholeHour)).thenReturn(List.of());
+        when(archivedDeliveryRepository.findAllInPeriod(startDate, firstWholeHour)).thenReturn(List.of());
+
+        assertEquals(new DeliveryTotals(10, 6, new MinutesSum(120, 6), new MinutesSum(150, 5)),
+                deliveryRollupService.totalsInPeriod(startDate, endDate));
+        verify(deliveryRollupRepository, times(1)).sumAll(anyShort(), anyLong(), anyLong());
+    }
+
+    @Test
+    void totalsWithoutRollupsScanDeliveriesInChunks() {
+        DeliveryRollupService withoutRollups = new DeliveryRollupService(
+                deliveryRollupRepository, timeHistogramRepository, deliveryRepository, archivedDeliveryRepository,
+                new ChunkedDeliveryScanner(2, 24, 10),
+                new AnalyticsResultCache(0, new SimpleMeterRegistry()), disabledSnapshot(), false);
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 5, 0, 0, 0, 0, ZoneOffset.UTC);
+        Delivery pending = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.PENDING)
+                .setEstimatedDeliveryTime(startDate.plusDays(2))
+                .create();
+        when(deliveryRepository.findAllInPeriod(any(), any())).thenAnswer(invocation -> {
+            OffsetDateTime from = invocation.getArgument(0);
+            OffsetDateTime to = invocation.getArgument(1);
+            return from.isBefore(pending.getEstimatedDeliveryTime()) && to.isAfter(pending.getEstimatedDeliveryTime())
+                    ? List.of(pending) : List.of();
+        });
+
+        assertEquals(new DeliveryTotals(1, 0, MinutesSum.ZERO, MinutesSum.ZERO),
+                withoutRollups.totalsInPeriod(startDate, endDate));
+        verify(deliveryRollupRepository, never()).sumAll(anyShort(), anyLong(), anyLong());
+        verify(deliveryRepository, times(4)).findAllInPeriod(any(), any());
+    }
+
+    @Test
+    void cachedCountIsInvalidatedByChangeInItsPeriod() {
+        DeliveryRollupService cached = new DeliveryRollupService(
+                deliveryRollupRepository, timeHistogramRepository, deliveryRepository, archivedDeliveryRepository,
+                new ChunkedDeliveryScanner(2, 24, 10),
+                new AnalyticsResultCache(10, new SimpleMeterRegistry()), disabledSnapshot(), true);
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 2, 17, 5, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 2, 17, 55, 0, 0, ZoneOffset.UTC);
+        when(deliveryRepository.countInPeriod(startDate, endDate)).thenReturn(2L, 3L);
+
+        assertEquals(2, cached.countInPeriod(startDate, endDate));
+        assertEquals(2, cached.countInPeriod(startDate, endDate));
+        verify(deliveryRepository, times(1)).countInPeriod(startDate, endDate);
+
+        DeliveryRollup otherHour = new DeliveryRollup(epochHour(startDate) + 5, DELIVERED, 1, 0, 0, 0, 0);
+        cached.record(null, otherHour);
+        assertEquals(2, cached.countInPeriod(startDate, endDate));
+
+        DeliveryRollup sameHour = new DeliveryRollup(epochHour(startDate), DELIVERED, 1, 0, 0, 0, 0);
+        cached.record(null, sameHour);
+        assertEquals(3, cached.countInPeriod(startDate, endDate));
+        verify(deliveryRepository, times(2)).countInPeriod(startDate, endDate);
+    }
+
+    @Test
+    void recordMovesDurationsBetweenHistogramBins() {
+        DeliveryRollup before = new DeliveryRollup(10, DELIVERED, 1, 20, 1, 30, 1);
+        DeliveryRollup after = new DeliveryRollup(10, DELIVERED, 1, 20, 1, 45, 1);
+
+        deliveryRollupService.record(before, after);
+
+        ArgumentCaptor<TimeHistogramBin> bins = ArgumentCaptor.forClass(TimeHistogramBin.class);
+        verify(timeHistogramRepository, times(2)).addToBin(bins.capture());
+        TimeHistogramBin removed = bins.getAllValues().get(0);
+        TimeHistogramBin added = bins.getAllValues().get(1);
+        assertEquals(TimeMetric.DELIVERY.ordinal(), removed.getMetric());
+        assertEquals(DurationHistogram.binOf(30), removed.getBin());
+        assertEquals(-1, removed.getDurations());
+        assertEquals(DurationHistogram.binOf(45), added.getBin());
+        assertEquals(1, added.getDurations());
+    }
+
+    @Test
+    void recordNewDeliveredDeliveryAddsBothDurations() {
+        DeliveryRollup before = new DeliveryRollup(10, (short) 0, 1, 0, 0, 0, 0);
+        DeliveryRollup after = new DeliveryRollup(10, DELIVERED, 1, 20, 1, 45, 1);
+
+        deliveryRollupService.record(before, after);
+
+        ArgumentCaptor<TimeHistogramBin> bins = ArgumentCaptor.forClass(TimeHistogramBin.class);
+        verify(timeHistogramRepository, times(2)).addToBin(bins.capture());
+        assertEquals(TimeMetric.PREPARATION.ordinal(), bins.getAllValues().get(0).getMetric());
+        assertEquals(DurationHistogram.binOf(20), bins.getAllValues().get(0).getBin());
+        assertEquals(TimeMetric.DELIVERY.ordinal(), bins.getAllValues().get(1).getMetric());
+        assertEquals(DurationHistogram.binOf(45), bins.getAllValues().get(1).getBin());
+    }
+
+    @Test
+    void recordPendingDeliveryLeavesHistograms() {
+        deliveryRollupService.record(null, new DeliveryRollup(10, (short) 0, 1, 0, 0, 0, 0));
+
+        verifyNoInteractions(timeHistogramRepository);
+    }
+
+    @Test
+    void histogramMergesWholeHoursWithEdges() {
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 1, 15, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime firstWholeHour = OffsetDateTime.of(2023, 1, 1, 13, 0, 0, 0, ZoneOffset.UTC);
+
+        HistogramBinCount binCount = mock(HistogramBinCount.class);
+        when(binCount.getBin()).thenReturn((short) DurationHistogram.binOf(40));
+        when(binCount.getDurations()).thenReturn(3L);
+        when(timeHistogramRepository.sumBins((short) TimeMetric.DELIVERY.ordinal(),
+                epochHour(firstWholeHour), epochHour(endDate))).thenReturn(List.of(binCount));
+
+        Delivery edge = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.DELIVERED)
+                .setEstimatedPreparationFinishTime(OffsetDateTime.of(2023, 1, 1, 12, 20, 0, 0, ZoneOffset.UTC))
+                .setEstimatedDeliveryTime(OffsetDateTime.of(2023, 1, 1, 12, 30, 0, 0, ZoneOffset.UTC))
+                .create();
+        when(deliveryRepository.findAllByStatusInPeriod(Delivery.StatusEnum.DELIVERED, startDate, firstWholeHour))
+                .thenReturn(List.of(edge));
+
+        DurationHistogram histogram = deliveryRollupService.histogramInPeriod(TimeMetric.DELIVERY, startDate, endDate);
+
+        assertEquals(4, histogram.count());
+        assertEquals(10, histogram.percentile(25));
+        assertEquals(40, histogram.max());
+    }
+
+    @Test
+    void enabledSnapshotReplacesReadingDeliveries() {
+        DeliverySnapshot deliverySnapshot = mock(DeliverySnapshot.class);
+        when(deliverySnapshot.isEnabled()).thenReturn(true);
+        DeliveryRollupService withSnapshot = new DeliveryRollupService(
+                deliveryRollupRepository, timeHistogramRepository, deliveryRepository, archivedDeliveryRepository,
+                new ChunkedDeliveryScanner(2, 24, 10),
+                new AnalyticsResultCache(0, new SimpleMeterRegistry()), deliverySnapshot, false);
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 5, 0, 0, 0, 0, ZoneOffset.UTC);
+        DeliveryTotals totals = new DeliveryTotals(4, 2, new MinutesSum(30, 2), new MinutesSum(50, 2));
+        DurationHistogram histogram = new DurationHistogram();
+        histogram.add(25);
+        when(deliverySnapshot.totalsInPeriod(startDate, endDate)).thenReturn(totals);
+        when(deliverySnapshot.histogramInPeriod(TimeMetric.DELIVERY, startDate, endDate)).thenReturn(histogram);
+
+        assertEquals(totals, withSnapshot.totalsInPeriod(startDate, endDate));
+        assertEquals(1, withSnapshot.histogramInPeriod(TimeMetric.DELIVERY, startDate, endDate).count());
+        verify(deliveryRepository, never()).findAllInPeriod(any(), any());
+        verify(deliveryRepository, never()).findAllByStatusInPeriod(any(), any(), any());
+    }
+
+    @Test
+    void totalsPerCourierScanDeliveriesOnceForAllCouriers() {
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 2, 0, 0, 0, 0, ZoneOffset.UTC);
+        UUID courierId = UUID.randomUUID();
+        UUID otherCourierId = UUID.randomUUID();
+        Delivery delivered = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setCourierId(courierId)
+                .setStatus(Delivery.StatusEnum.DELIVERED)
+                .setEstimatedPreparationFinishTime(startDate.plusHours(2))
+                .setEstimatedDeliveryTime(startDate.plusHours(2).plusMinutes(25))
+                .create();
+        Delivery pending = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setCourierId(courierId)
+                .setStatus(Delivery.StatusEnum.PENDING)
+                .setEstimatedDeliveryTime(startDate.plusHours(3))
+                .create();
+        Delivery unassigned = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.PENDING)
+                .setEstimatedDeliveryTime(startDate.plusHours(4))
+                .create();
+        ArchivedDelivery archived = new ArchivedDelivery();
+        archived.setId(UUID.randomUUID());
+        archived.setCourierId(otherCourierId);
+        archived.setStatus(Delivery.StatusEnum.REJECTED);
+        archived.setEstimatedDeliveryTime(startDate.plusHours(5));
+
+        when(deliveryRepository.findAllInPeriod(startDate, endDate)).thenReturn(List.of(delivered, pending, unassigned));
+        when(archivedDeliveryRepository.findAllInPeriod(startDate, endDate)).thenReturn(List.of(archived));
+
+        Map<UUID, DeliveryTotals> totals =
+                deliveryRollupService.totalsPerGroupInPeriod(DeliveryGroup.COURIER, startDate, endDate);
+
+        assertEquals(Map.of(
+                courierId, new DeliveryTotals(2, 1, MinutesSum.ZERO, new MinutesSum(25, 1)),
+                otherCourierId, new DeliveryTotals(1, 0, MinutesSum.ZERO, MinutesSum.ZERO)), totals);
+        verify(deliveryRepository, times(1)).findAllInPeriod(any(), any());
+        verifyNoInteractions(deliveryRollupRepository);
+    }
+
+    @Test
+    void totalsPerVendorComeFromEnabledSnapshot() {
+        DeliverySnapshot deliverySnapshot = mock(DeliverySnapshot.class);
+        when(deliverySnapshot.isEnabled()).thenReturn(true);
+        DeliveryRollupService withSnapshot = new DeliveryRollupService(
+                deliveryRollupRepository, timeHistogramRepository, deliveryRepository, archivedDeliveryRepository,
+                new ChunkedDeliveryScanner(2, 24, 10),
+                new AnalyticsResultCache(10, new SimpleMeterRegistry()), deliverySnapshot, true);
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 1, 5, 0, 0, 0, 0, ZoneOffset.UTC);
+        Map<UUID, DeliveryTotals> perVendor = Map.of(UUID.randomUUID(), DeliveryTotals.ZERO);
+        when(deliverySnapshot.totalsPerGroupInPeriod(DeliveryGroup.VENDOR, startDate, endDate)).thenReturn(perVendor);
+
+        assertEquals(perVendor, withSnapshot.totalsPerGroupInPeriod(DeliveryGroup.VENDOR, startDate, endDate));
+        // Answered from the cache the second time
+        assertEquals(perVendor, withSnapshot.totalsPerGroupInPeriod(DeliveryGroup.VENDOR, startDate, endDate));
+        verify(deliverySnapshot, times(1)).totalsPerGroupInPeriod(any(), any(), any());
+        verify(deliveryRepository, never()).findAllInPeriod(any(), any());
+    }
+}
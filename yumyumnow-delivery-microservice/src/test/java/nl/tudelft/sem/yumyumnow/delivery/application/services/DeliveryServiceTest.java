@@ -4,7 +4,11 @@ import nl.tudelft.sem.yumyumnow.delivery.domain.builders.*;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Customer;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Order;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.ServiceUnavailableException;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryRollup;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.ArchivedDeliveryRepository;
 import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRollupRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.TimeHistogramRepository;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Courier;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Vendor;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.AccessForbiddenException;
@@ -13,6 +17,17 @@ import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.NoDeliveryFoundExcept
 import nl.tudelft.sem.yumyumnow.delivery.model.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -24,7 +39,9 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import static nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepositoryStubs.stubUnassignedDeliveries;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
@@ -38,6 +55,9 @@ public class DeliveryServiceTest {
     private CourierService courierService;
     private OrderService orderService;
     private EmailService emailService;
+    private DeliveryRollupService deliveryRollupService;
+    private DeliverySnapshot deliverySnapshot;
+    private MeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
@@ -46,9 +66,14 @@ public class DeliveryServiceTest {
         this.courierService = mock(CourierService.class);
         this.orderService = mock(OrderService.class);
         this.emailService = mock(EmailService.class);
+        this.deliveryRollupService = mock(DeliveryRollupService.class);
+        this.deliverySnapshot = mock(DeliverySnapshot.class);
+
+        this.meterRegistry = new SimpleMeterRegistry();
 
         deliveryService = new DeliveryService(
-                deliveryRepository, vendorService, courierService, orderService, emailService);
+                deliveryRepository, vendorService, courierService, orderService, emailService,
+                deliveryRollupService, deliverySnapshot, TransactionOperations.withoutTransaction(), meterRegistry, 3);
     }
 
     @Test
@@ -64,6 +89,36 @@ public class DeliveryServiceTest {
         assertEquals(vendorId, actual.getVendorId());
     }
 
+    @Test
+    public void createDeliveryStoresPlacementTime() throws BadArgumentException {
+        UUID orderId = UUID.randomUUID();
+        UUID vendorId = UUID.randomUUID();
+        OffsetDateTime placed = OffsetDateTime.of(2023, 12, 20, 15, 50, 43, 0, ZoneOffset.UTC);
+
+        when(vendorService.getVendor(vendorId.toString())).thenReturn(new VendorBuilder().create());
+        when(orderService.findOrderById(orderId))
+                .thenReturn(new OrderBuilder().setOrderId(orderId).setOrderPlacementTime(placed).create());
+
+        Delivery actual = deliveryService.createDelivery(orderId, vendorId);
+
+        assertEquals(placed, actual.getOrderPlacementTime());
+        verify(orderService, never()).getTimeOfPlacement(any());
+    }
+
+    @Test
+    public void createDeliveryUpdatesSnapshot() throws BadArgumentException {
+        UUID orderId = UUID.randomUUID();
+        UUID vendorId = UUID.randomUUID();
+
+        when(vendorService.getVendor(vendorId.toString())).thenReturn(new VendorBuilder().create());
+        when(orderService.findOrderById(orderId)).thenReturn(new OrderBuilder().create());
+        when(deliveryRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Delivery actual = deliveryService.createDelivery(orderId, vendorId);
+
+        verify(deliverySnapshot).update(actual);
+    }
+
     @Test
     public void createDeliveryFail() {
         UUID orderId = UUID.randomUUID();
@@ -75,6 +130,52 @@ public class DeliveryServiceTest {
                 deliveryService.createDelivery(orderId, vendorId));
     }
 
+    @Test
+    public void createDeliveriesSuccess() throws BadArgumentException {
+        UUID vendorId = UUID.randomUUID();
+        UUID orderId1 = UUID.randomUUID();
+        UUID orderId2 = UUID.randomUUID();
+
+        when(vendorService.getVendor(vendorId.toString())).thenReturn(new VendorBuilder().create());
+        when(orderService.findOrderById(any())).thenReturn(new OrderBuilder().create());
+
+        List<Delivery> actual = deliveryService.createDeliveries(List.of(
+                new DeliveryPostRequest().orderId(orderId1).vendorId(vendorId),
+                new DeliveryPostRequest().orderId(orderId2).vendorId(vendorId)));
+
+        assertEquals(2, actual.size());
+        assertEquals(orderId1, actual.get(0).getOrderId());
+        assertEquals(orderId2, actual.get(1).getOrderId());
+        assertEquals(Delivery.StatusEnum.PENDING, actual.get(1).getStatus());
+        verify(vendorService, times(1)).getVendor(vendorId.toString());
+        verify(deliveryRepository).persistAll(actual);
+        verify(deliverySnapshot).updateAll(actual);
+    }
+
+    @Test
+    public void createDeliveriesUnknownOrder() {
+        UUID vendorId = UUID.randomUUID();
+        UUID orderId = UUID.randomUUID();
+
+        when(vendorService.getVendor(vendorId.toString())).thenReturn(new VendorBuilder().create());
+        when(orderService.findOrderById(orderId)).thenReturn(null);
+
+        assertThrows(BadArgumentException.class, () -> deliveryService.createDeliveries(List.of(
+                new DeliveryPostRequest().orderId(orderId).vendorId(vendorId))));
+        verify(deliveryRepository, never()).persistAll(any());
+    }
+
+    @Test
+    public void createDeliveriesUnknownVendor() {
+        UUID vendorId = UUID.randomUUID();
+
+        when(vendorService.getVendor(vendorId.toString())).thenReturn(null);
+
+        assertThrows(BadArgumentException.class, () -> deliveryService.createDeliveries(List.of(
+                new DeliveryPostRequest().orderId(UUID.randomUUID()).vendorId(vendorId))));
+        verify(deliveryRepository, never()).persistAll(any());
+    }
+
     @Test
     public void testDistance(){
         Location location1 = new Location();
@@ -299,6 +400,121 @@ public class DeliveryServiceTest {
         assertEquals(actual.getStatus().getValue(), "ACCEPTED");
     }
 
+    @Test
+    public void updateStatusRecordsRollupChange()
+            throws BadArgumentException, NoDeliveryFoundException, AccessForbiddenException {
+        UUID id = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+
+        Vendor vendor = new VendorBuilder()
+                .setId(userId)
+                .create();
+
+        Delivery delivery = new DeliveryBuilder()
+                .setId(id)
+                .setOrderId(id)
+                .setVendorId(vendor.getId())
+                .setStatus(Delivery.StatusEnum.PENDING)
+                .create();
+
+        DeliveryRollup before = new DeliveryRollup();
+        DeliveryRollup after = new DeliveryRollup();
+        when(deliveryRepository.findById(id)).thenReturn(Optional.of(delivery));
+        when(vendorService.getVendor(vendor.getId().toString())).thenReturn(vendor);
+        when(orderService.isPaid(id)).thenReturn(true);
+        when(deliveryRollupService.contributionOf(delivery)).thenReturn(before, after);
+
+        deliveryService.updateStatus(id, userId, DeliveryIdStatusPutRequest.StatusEnum.ACCEPTED);
+
+        verify(deliveryRollupService).record(before, after);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void updateStatusSavesAndRecordsInOneTransaction()
+            throws BadArgumentException, NoDeliveryFoundException, AccessForbiddenException {
+        TransactionOperations transactionOperations = mock(TransactionOperations.class);
+        deliveryService = new DeliveryService(
+                deliveryRepository, vendorService, courierService, orderService, emailService,
+                deliveryRollupService, deliverySnapshot, transactionOperations, meterRegistry, 3);
+        UUID id = UUID.randomUUID();
+        Vendor vendor = new VendorBuilder()
+                .setId(UUID.randomUUID())
+                .create();
+        Delivery delivery = new DeliveryBuilder()
+                .setId(id)
+                .setOrderId(id)
+                .setVendorId(vendor.getId())
+                .setStatus(Delivery.StatusEnum.PENDING)
+                .create();
+        when(deliveryRepository.findById(id)).thenReturn(Optional.of(delivery));
+        when(vendorService.getVendor(vendor.getId().toString())).thenReturn(vendor);
+        when(orderService.isPaid(id)).thenReturn(true);
+        clearInvocations(deliveryRepository);
+
+        deliveryService.updateStatus(id, vendor.getId(), DeliveryIdStatusPutRequest.StatusEnum.ACCEPTED);
+
+        // Nothing is written until the transaction runs
+        ArgumentCaptor<Consumer<TransactionStatus>> transaction = ArgumentCaptor.forClass(Consumer.class);
+        verify(transactionOperations).executeWithoutResult(transaction.capture());
+        verify(deliveryRepository, never()).save(any());
+        verify(deliveryRollupService, never()).record(any(), any());
+
+        transaction.getValue().accept(null);
+        verify(deliveryRepository).save(delivery);
+        verify(deliveryRollupService).record(any(), any());
+    }
+
+    @Test
+    public void updateStatusUpdatesTheSnapshotBeforeInvalidatingCachedResults()
+            throws BadArgumentException, NoDeliveryFoundException, AccessForbiddenException {
+        AnalyticsResultCache analyticsResultCache = mock(AnalyticsResultCache.class);
+        DeliveryRollupService rollups = new DeliveryRollupService(mock(DeliveryRollupRepository.class),
+                mock(TimeHistogramRepository.class), deliveryRepository, mock(ArchivedDeliveryRepository.class),
+                mock(ChunkedDeliveryScanner.class), analyticsResultCache, deliverySnapshot, true);
+        // Runs the after commit actions of the transaction like a transaction manager does
+        TransactionOperations committing = new TransactionOperations() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                    T result = action.doInTransaction(null);
+                    verify(deliverySnapshot, never()).update(any());
+                    verify(analyticsResultCache, never()).invalidateHour(anyLong());
+                    TransactionSynchronizationUtils.triggerAfterCommit();
+                    return result;
+                } finally {
+                    TransactionSynchronizationManager.clearSynchronization();
+                }
+            }
+        };
+        deliveryService = new DeliveryService(deliveryRepository, vendorService, courierService, orderService,
+                emailService, rollups, deliverySnapshot, committing, meterRegistry, 3);
+        UUID id = UUID.randomUUID();
+        Vendor vendor = new VendorBuilder()
+                .setId(UUID.randomUUID())
+                .create();
+        Delivery delivery = new DeliveryBuilder()
+                .setId(id)
+                .setOrderId(id)
+                .setVendorId(vendor.getId())
+                .setStatus(Delivery.StatusEnum.PENDING)
+                .setEstimatedDeliveryTime(OffsetDateTime.of(2023, 12, 20, 15, 0, 0, 0, ZoneOffset.UTC))
+                .create();
+        when(deliveryRepository.findById(id)).thenReturn(Optional.of(delivery));
+        when(deliveryRepository.save(delivery)).thenReturn(delivery);
+        when(vendorService.getVendor(vendor.getId().toString())).thenReturn(vendor);
+        when(orderService.isPaid(id)).thenReturn(true);
+        clearInvocations(deliverySnapshot);
+
+        deliveryService.updateStatus(id, vendor.getId(), DeliveryIdStatusPutRequest.StatusEnum.ACCEPTED);
+
+        // A result computed in between from the old snapshot is cached under the version that is invalidated
+        InOrder inOrder = inOrder(deliverySnapshot, analyticsResultCache);
+        inOrder.verify(deliverySnapshot).update(delivery);
+        inOrder.verify(analyticsResultCache).invalidateHour(anyLong());
+    }
+
     @Test
     public void setStatusToInTransitAsNonCourier() {
         UUID id = UUID.randomUUID();
@@ -564,6 +780,30 @@ public class DeliveryServiceTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void assignCourierRecordsTheChangeOfItsCourier()
+            throws NoDeliveryFoundException, AccessForbiddenException, BadArgumentException {
+        UUID id = UUID.randomUUID();
+        UUID courierId = UUID.randomUUID();
+        UUID vendorId = UUID.randomUUID();
+        Delivery delivery = new DeliveryBuilder()
+                .setId(id)
+                .setVendorId(vendorId)
+                .create();
+        when(deliveryRepository.findById(id)).thenReturn(Optional.of(delivery));
+        Vendor vendor = new Vendor(vendorId, new Location(), "", true, new BigDecimal(1000));
+        when(vendorService.getVendor(vendorId.toString())).thenReturn(vendor);
+        when(courierService.getCourier(courierId.toString())).thenReturn(new Courier(courierId, vendor));
+        DeliveryRollup contribution = new DeliveryRollup(11, (short) 0, 1, 0, 0, 0, 0);
+        when(deliveryRollupService.contributionOf(delivery)).thenReturn(contribution);
+
+        deliveryService.assignCourier(id, courierId);
+
+        // Invalidates the cached totals per courier of the hour of the delivery
+        verify(deliveryRollupService).record(contribution, contribution);
+        verify(deliveryRepository).save(delivery);
+    }
+
     @Test
     public void assignCourierNoSuchCourier() {
         UUID id = UUID.randomUUID();
@@ -803,20 +1043,24 @@ public class DeliveryServiceTest {
         delivery1.setCourierId(UUID.randomUUID());
 
         Delivery delivery2 = new Delivery();
+        delivery2.setId(UUID.randomUUID());
         delivery2.setVendorId(delivery2vendorId);
         when(vendorService.getVendor(delivery2vendorId.toString())).thenReturn(delivery2vendor);
         delivery2.setCurrentLocation(delivery2location);
 
         Delivery delivery3 = new Delivery();
+        delivery3.setId(UUID.randomUUID());
         delivery3.setVendorId(delivery3vendorId);
         when(vendorService.getVendor(delivery3vendorId.toString())).thenReturn(delivery3vendor);
         delivery3.setCurrentLocation(delivery2location);
 
         Delivery delivery4 = new Delivery();
+        delivery4.setId(UUID.randomUUID());
         delivery4.setVendorId(delivery2vendorId);
         delivery4.setCurrentLocation(delivery4location);
 
         Delivery delivery5 = new Delivery();
+        delivery5.setId(UUID.randomUUID());
         delivery5.setVendorId(delivery2vendorId);
         delivery5.setCurrentLocation(delivery5location);
 
@@ -829,7 +1073,7 @@ public class DeliveryServiceTest {
 
         List<Delivery> expected = List.of(delivery4, delivery2);
 
-        when(deliveryRepository.findAll()).thenReturn(allDeliveries);
+        stubUnassignedDeliveries(deliveryRepository, allDeliveries);
 
         Location courierLocation = new Location();
         courierLocation.setLongitude(delivery4location.getLongitude());
@@ -887,21 +1131,25 @@ public class DeliveryServiceTest {
                 .create();
 
         Delivery delivery2 = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
                 .setVendorId(delivery2vendorId)
                 .setCurrentLocation(delivery2location)
                 .create();
 
         Delivery delivery3 = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
                 .setVendorId(delivery3vendorId)
                 .setCurrentLocation(delivery2location)
                 .create();
 
         Delivery delivery4 = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
                 .setVendorId(delivery2vendorId)
                 .setCurrentLocation(delivery4location)
                 .create();
 
         Delivery delivery5 = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
                 .setVendorId(delivery2vendorId)
                 .setCurrentLocation(delivery5location)
                 .create();
@@ -915,7 +1163,7 @@ public class DeliveryServiceTest {
 
         List<Delivery> expected = List.of(delivery2, delivery3, delivery4);
 
-        when(deliveryRepository.findAll()).thenReturn(allDeliveries);
+        stubUnassignedDeliveries(deliveryRepository, allDeliveries);
 
         Location courierLocation = new Location();
         courierLocation.setLongitude(delivery4location.getLongitude());
@@ -950,4 +1198,49 @@ public class DeliveryServiceTest {
         deliveryService.updateLocation(id, location);
         assertEquals(deliveryLocation, delivery.getCurrentLocation());
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateLocationRetriesOnConflictTest() throws NoDeliveryFoundException {
+        UUID id = UUID.randomUUID();
+        Delivery stale = new DeliveryBuilder()
+                .setId(id)
+                .create()
+                .version(1L);
+        Delivery fresh = new DeliveryBuilder()
+                .setId(id)
+                .create()
+                .version(2L);
+        when(deliveryRepository.findById(id)).thenReturn(Optional.of(stale), Optional.of(fresh));
+        when(deliveryRepository.save(stale)).thenThrow(new ObjectOptimisticLockingFailureException(Delivery.class, id));
+        Location location = new LocationBuilder()
+                .setLatitude(BigDecimal.ONE)
+                .setLongitude(BigDecimal.ONE)
+                .create();
+
+        Delivery actual = deliveryService.updateLocation(id, location);
+
+        assertSame(fresh, actual);
+        verify(deliveryRepository, times(2)).findById(id);
+        assertEquals(1.0, meterRegistry.counter("delivery.update.conflicts", "operation", "update-location").count());
+    }
+
+    @Test
+    void updateLocationGivesUpAfterMaxAttemptsTest() {
+        UUID id = UUID.randomUUID();
+        Delivery delivery = new DeliveryBuilder()
+                .setId(id)
+                .create();
+        when(deliveryRepository.findById(id)).thenReturn(Optional.of(delivery));
+        when(deliveryRepository.save(delivery))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Delivery.class, id));
+        Location location = new LocationBuilder()
+                .setLatitude(BigDecimal.ONE)
+                .setLongitude(BigDecimal.ONE)
+                .create();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> deliveryService.updateLocation(id, location));
+        verify(deliveryRepository, times(3)).findById(id);
+        assertEquals(1.0, meterRegistry.counter("delivery.update.conflicts.exhausted",
+                "operation", "update-location").count());
+    }
+}
@@ -0,0 +1,245 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.builders.DeliveryBuilder;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.ArchivedDelivery;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryGroup;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryTotals;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DurationHistogram;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.MinutesSum;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeMetric;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.ArchivedDeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class DeliverySnapshotTest {
+    private static final OffsetDateTime START = OffsetDateTime.of(2023, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime END = OffsetDateTime.of(2023, 1, 2, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    private DeliveryRepository deliveryRepository;
+    private ArchivedDeliveryRepository archivedDeliveryRepository;
+    private DeliverySnapshot deliverySnapshot;
+
+    @BeforeEach
+    void setUp() {
+        this.deliveryRepository = mock(DeliveryRepository.class);
+        this.archivedDeliveryRepository = mock(ArchivedDeliveryRepository.class);
+        when(deliveryRepository.streamAll(anyInt())).thenAnswer(invocation -> Stream.empty());
+        when(archivedDeliveryRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
+        this.deliverySnapshot = new DeliverySnapshot(deliveryRepository, archivedDeliveryRepository, true, 100, false);
+    }
+
+    private static Delivery delivered(OffsetDateTime placed, OffsetDateTime prepared, OffsetDateTime deliveryTime) {
+        return new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setVendorId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.DELIVERED)
+                .setOrderPlacementTime(placed)
+                .setEstimatedPreparationFinishTime(prepared)
+                .setEstimatedDeliveryTime(deliveryTime)
+                .create();
+    }
+
+    @Test
+    void loadsCurrentAndArchivedDeliveriesOnFirstUse() {
+        Delivery current = delivered(START.plusHours(1), START.plusHours(1).plusMinutes(20),
+                START.plusHours(1).plusMinutes(50));
+        Delivery pending = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.PENDING)
+                .setEstimatedDeliveryTime(START.plusHours(3))
+                .create();
+        ArchivedDelivery archived = new ArchivedDelivery();
+        archived.setId(UUID.randomUUID());
+        archived.setStatus(Delivery.StatusEnum.DELIVERED);
+        archived.setEstimatedPreparationFinishTime(START.plusHours(5));
+        archived.setEstimatedDeliveryTime(START.plusHours(5).plusMinutes(30));
+        when(deliveryRepository.streamAll(100)).thenAnswer(invocation -> Stream.of(current, pending));
+        when(archivedDeliveryRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(archived)));
+
+        DeliveryTotals totals = deliverySnapshot.totalsInPeriod(START, END);
+
+        assertEquals(new DeliveryTotals(3, 2, new MinutesSum(20, 1), new MinutesSum(60, 2)), totals);
+        assertEquals(3, deliverySnapshot.size());
+        verify(deliveryRepository, times(1)).streamAll(100);
+    }
+
+    @Test
+    void periodExcludesItsBounds() {
+        when(deliveryRepository.streamAll(100)).thenAnswer(invocation -> Stream.of(
+                delivered(null, null, START),
+                delivered(null, null, START.plusNanos(1)),
+                delivered(null, null, END.minusNanos(1)),
+                delivered(null, null, END)));
+
+        assertEquals(2, deliverySnapshot.totalsInPeriod(START, END).getDeliveries());
+    }
+
+    @Test
+    void histogramsOfBothDurations() {
+        when(deliveryRepository.streamAll(100)).thenAnswer(invocation -> Stream.of(
+                delivered(START.plusHours(1), START.plusHours(1).plusMinutes(12),
+                        START.plusHours(1).plusMinutes(42)),
+                delivered(null, START.plusHours(2), START.plusHours(2).plusMinutes(8))));
+
+        DurationHistogram preparation = deliverySnapshot.histogramInPeriod(TimeMetric.PREPARATION, START, END);
+        DurationHistogram delivery = deliverySnapshot.histogramInPeriod(TimeMetric.DELIVERY, START, END);
+
+        assertEquals(1, preparation.count());
+        assertEquals(12, preparation.max());
+        assertEquals(2, delivery.count());
+        assertEquals(8, delivery.percentile(50));
+    }
+
+    @Test
+    void savedDeliveryReplacesItsRow() {
+        Delivery delivery = new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.PENDING)
+                .setEstimatedDeliveryTime(START.plusHours(1))
+                .create();
+        delivery.setVersion(1L);
+        // Not filled yet, so the save is left to the filling
+        deliverySnapshot.update(delivery);
+        assertEquals(0, deliverySnapshot.totalsInPeriod(START, END).getDeliveries());
+
+        // Filled now, so saves are applied
+        deliverySnapshot.update(delivery);
+        assertEquals(new DeliveryTotals(1, 0, MinutesSum.ZERO, MinutesSum.ZERO),
+                deliverySnapshot.totalsInPeriod(START, END));
+
+        Delivery newer = new DeliveryBuilder()
+                .setId(delivery.getId())
+                .setStatus(Delivery.StatusEnum.DELIVERED)
+                .setEstimatedDeliveryTime(START.plusHours(1))
+                .create();
+        newer.setVersion(2L);
+        deliverySnapshot.update(newer);
+        assertEquals(1, deliverySnapshot.totalsInPeriod(START, END).getDelivered());
+
+        // A save that finished later but holds an older version does not overwrite the row
+        deliverySnapshot.update(delivery);
+        assertEquals(1, deliverySnapshot.totalsInPeriod(START, END).getDelivered());
+        assertEquals(1, deliverySnapshot.size());
+    }
+
+    @Test
+    void savesDuringTheFillingAreNotBlockedAndAppliedAfterIt() throws Exception {
+        Delivery stored = delivered(null, null, START.plusHours(1));
+        stored.setStatus(Delivery.StatusEnum.PENDING);
+        stored.setVersion(1L);
+        Delivery saved = delivered(null, null, START.plusHours(1));
+        saved.setId(stored.getId());
+        saved.setVersion(2L);
+        Delivery added = delivered(null, null, START.plusHours(2));
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        when(deliveryRepository.streamAll(100)).thenAnswer(invocation -> {
+            // Saved by another request while the deliveries are read, which has to finish before they are
+            writer.submit(() -> deliverySnapshot.updateAll(List.of(saved, added))).get(5, TimeUnit.SECONDS);
+            return Stream.of(stored);
+        });
+
+        try {
+            assertEquals(new DeliveryTotals(2, 2, MinutesSum.ZERO, MinutesSum.ZERO),
+                    deliverySnapshot.totalsInPeriod(START, END));
+        } finally {
+            writer.shutdownNow();
+        }
+        assertEquals(2, deliverySnapshot.size());
+    }
+
+    @Test
+    void failedFillingIsRetriedOnNextUse() {
+        when(deliveryRepository.streamAll(100))
+                .thenAnswer(invocation -> Stream.of(delivered(null, null, START.plusHours(1))))
+                .thenAnswer(invocation -> Stream.of(delivered(null, null, START.plusHours(2))));
+        when(archivedDeliveryRepository.findAll(any(Pageable.class)))
+                .thenThrow(new IllegalStateException("Database down"))
+                .thenReturn(new PageImpl<>(List.of()));
+
+        assertThrows(IllegalStateException.class, () -> deliverySnapshot.size());
+
+        assertEquals(1, deliverySnapshot.size());
+        assertEquals(1, deliverySnapshot.totalsInPeriod(START, END).getDeliveries());
+    }
+
+    @Test
+    void fillsOnStartupOnlyWhenEnabled() {
+        new DeliverySnapshot(deliveryRepository, archivedDeliveryRepository, true, 100, false).loadOnStartup();
+        new DeliverySnapshot(deliveryRepository, archivedDeliveryRepository, false, 100, false).loadOnStartup();
+        verify(deliveryRepository, never()).streamAll(anyInt());
+
+        new DeliverySnapshot(deliveryRepository, archivedDeliveryRepository, true, 100, true).loadOnStartup();
+        verify(deliveryRepository, times(1)).streamAll(100);
+    }
+
+    @Test
+    void growsBeyondItsInitialCapacity() {
+        deliverySnapshot.size();
+        List<Delivery> deliveries = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            deliveries.add(delivered(null, null, START.plusSeconds(i + 1)));
+        }
+
+        deliverySnapshot.updateAll(deliveries);
+
+        assertEquals(3000, deliverySnapshot.size());
+        assertEquals(3000, deliverySnapshot.totalsInPeriod(START, END).getDelivered());
+    }
+
+    @Test
+    void disabledSnapshotKeepsNothing() {
+        DeliverySnapshot disabled = new DeliverySnapshot(deliveryRepository, archivedDeliveryRepository, false, 100, false);
+        disabled.update(delivered(null, null, START.plusHours(1)));
+
+        assertFalse(disabled.isEnabled());
+        assertThrows(IllegalStateException.class, () -> disabled.totalsInPeriod(START, END));
+    }
+
+    @Test
+    void totalsPerVendorAndCourierInOnePass() {
+        UUID vendor = UUID.randomUUID();
+        UUID courier = UUID.randomUUID();
+        Delivery first = delivered(START.plusHours(1), START.plusHours(1).plusMinutes(10),
+                START.plusHours(1).plusMinutes(30));
+        first.setVendorId(vendor);
+        first.setCourierId(courier);
+        Delivery second = delivered(START.plusHours(2), START.plusHours(2).plusMinutes(30),
+                START.plusHours(2).plusMinutes(40));
+        second.setVendorId(vendor);
+        Delivery outside = delivered(null, null, END.plusHours(1));
+        outside.setVendorId(vendor);
+        Delivery other = delivered(null, null, START.plusHours(3));
+        when(deliveryRepository.streamAll(100)).thenAnswer(invocation -> Stream.of(first, second, outside, other));
+
+        Map<UUID, DeliveryTotals> perVendor = deliverySnapshot.totalsPerGroupInPeriod(DeliveryGroup.VENDOR, START, END);
+        Map<UUID, DeliveryTotals> perCourier =
+                deliverySnapshot.totalsPerGroupInPeriod(DeliveryGroup.COURIER, START, END);
+
+        assertEquals(2, perVendor.size());
+        assertEquals(new DeliveryTotals(2, 2, new MinutesSum(40, 2), new MinutesSum(30, 2)), perVendor.get(vendor));
+        assertEquals(1, perVendor.get(other.getVendorId()).getDeliveries());
+        // The deliveries without a courier are left out
+        assertEquals(Map.of(courier, new DeliveryTotals(1, 1, new MinutesSum(10, 1), new MinutesSum(20, 1))),
+                perCourier);
+    }
+}
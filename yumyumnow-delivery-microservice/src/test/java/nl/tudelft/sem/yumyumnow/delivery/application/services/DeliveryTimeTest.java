@@ -11,8 +11,10 @@ import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
 import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
 import nl.tudelft.sem.yumyumnow.delivery.model.DeliveryCurrentLocation;
 import nl.tudelft.sem.yumyumnow.delivery.model.Location;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
 import java.math.BigDecimal;
 import java.time.*;
 import java.util.Optional;
@@ -37,7 +39,9 @@ public class DeliveryTimeTest {
         CourierService courierService = mock(CourierService.class);
         orderService = mock(OrderService.class);
         emailService = mock(EmailService.class);
-        deliveryService = new DeliveryService(deliveryRepository, vendorService, courierService, orderService, emailService);
+        deliveryService = new DeliveryService(deliveryRepository, vendorService, courierService, orderService, emailService,
+                mock(DeliveryRollupService.class), mock(DeliverySnapshot.class), TransactionOperations.withoutTransaction(),
+                new SimpleMeterRegistry(), 3);
         userService = mock(CustomerService.class);
     }
 
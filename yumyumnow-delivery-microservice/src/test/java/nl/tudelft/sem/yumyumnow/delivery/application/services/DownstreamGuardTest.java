@@ -0,0 +1,192 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class DownstreamGuardTest {
+    private static final byte[] BODY = new byte[0];
+
+    private Clock clock;
+    private MeterRegistry meterRegistry;
+    private HttpRequest request;
+    private ClientHttpRequestExecution execution;
+    private DownstreamGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        this.clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(0L);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.request = mock(HttpRequest.class);
+        this.execution = mock(ClientHttpRequestExecution.class);
+        // Opens when half of the last 4 requests failed, and lets 1 trial request through after 30 seconds
+        this.guard = new DownstreamGuard("user", 1, Duration.ZERO, Duration.ofSeconds(5),
+                4, 4, 50, Duration.ofSeconds(30), 1, clock, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        guard.close();
+    }
+
+    private static ClientHttpResponse response(int status) throws IOException {
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        when(response.getRawStatusCode()).thenReturn(status);
+        return response;
+    }
+
+    private double rejections(String reason) {
+        return meterRegistry.counter("downstream.rejections", "dependency", "user", "reason", reason).count();
+    }
+
+    @Test
+    void serverErrorsOpenTheCircuit() throws IOException {
+        ClientHttpResponse ok = response(200);
+        ClientHttpResponse error = response(503);
+        when(execution.execute(request, BODY)).thenReturn(ok, error, ok, error);
+
+        for (int i = 0; i < 4; i++) {
+            guard.intercept(request, BODY, execution);
+        }
+
+        assertEquals(DownstreamGuard.State.OPEN, guard.getState());
+        assertThrows(ServiceUnavailableException.class, () -> guard.intercept(request, BODY, execution));
+        verify(execution, times(4)).execute(request, BODY);
+        assertEquals(1, rejections("circuit-open"));
+        assertEquals(2, meterRegistry.counter("downstream.failures", "dependency", "user").count());
+    }
+
+    @Test
+    void clientErrorsKeepTheCircuitClosed() throws IOException {
+        ClientHttpResponse notFound = response(404);
+        when(execution.execute(request, BODY)).thenReturn(notFound);
+
+        for (int i = 0; i < 8; i++) {
+            assertSame(notFound, guard.intercept(request, BODY, execution));
+        }
+
+        assertEquals(DownstreamGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void connectionFailuresAreThrownAndCounted() throws IOException {
+        when(execution.execute(request, BODY)).thenThrow(new ConnectException("Refused"));
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(ConnectException.class, () -> guard.intercept(request, BODY, execution));
+        }
+
+        assertEquals(DownstreamGuard.State.OPEN, guard.getState());
+    }
+
+    @Test
+    void successfulTrialClosesTheCircuit() throws IOException {
+        ClientHttpResponse error = response(500);
+        ClientHttpResponse ok = response(200);
+        when(execution.execute(request, BODY)).thenReturn(error, error, error, error, ok);
+        for (int i = 0; i < 4; i++) {
+            guard.intercept(request, BODY, execution);
+        }
+
+        when(clock.millis()).thenReturn(29_999L);
+        assertThrows(ServiceUnavailableException.class, () -> guard.intercept(request, BODY, execution));
+
+        when(clock.millis()).thenReturn(30_000L);
+        assertEquals(DownstreamGuard.State.HALF_OPEN, guard.getState());
+        assertSame(ok, guard.intercept(request, BODY, execution));
+        assertEquals(DownstreamGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void failedTrialOpensTheCircuitAgain() throws IOException {
+        ClientHttpResponse error = response(500);
+        when(execution.execute(request, BODY)).thenReturn(error);
+        for (int i = 0; i < 4; i++) {
+            guard.intercept(request, BODY, execution);
+        }
+
+        when(clock.millis()).thenReturn(30_000L);
+        guard.intercept(request, BODY, execution);
+
+        assertEquals(DownstreamGuard.State.OPEN, guard.getState());
+        when(clock.millis()).thenReturn(59_999L);
+        assertThrows(ServiceUnavailableException.class, () -> guard.intercept(request, BODY, execution));
+    }
+
+    @Test
+    void slowResponseTimesOutAndIsClosedWhenItArrives() throws Exception {
+        DownstreamGuard impatient = new DownstreamGuard("order", 1, Duration.ZERO, Duration.ofMillis(50),
+                4, 4, 50, Duration.ofSeconds(30), 1, clock, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        ClientHttpResponse late = response(200);
+        when(execution.execute(request, BODY)).thenAnswer(invocation -> {
+            // Like a blocking socket read, which does not stop when the thread is interrupted
+            while (release.getCount() > 0) {
+                Thread.onSpinWait();
+            }
+            return late;
+        });
+
+        try {
+            assertThrows(ServiceUnavailableException.class, () -> impatient.intercept(request, BODY, execution));
+            assertEquals(1, meterRegistry.counter("downstream.timeouts", "dependency", "order").count());
+        } finally {
+            release.countDown();
+        }
+
+        verify(late, timeout(5000)).close();
+        impatient.close();
+    }
+
+    @Test
+    void fullBulkheadRejectsRequests() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ClientHttpResponse ok = response(200);
+        when(execution.execute(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return ok;
+        });
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<ClientHttpResponse> first = caller.submit(() -> guard.intercept(request, BODY, execution));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertEquals(1, guard.activeCalls());
+
+            assertThrows(ServiceUnavailableException.class, () -> guard.intercept(request, BODY, execution));
+            assertEquals(1, rejections("bulkhead-full"));
+
+            release.countDown();
+            assertSame(ok, first.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            caller.shutdownNow();
+        }
+        // A rejected request is not a failure of the microservice
+        assertEquals(DownstreamGuard.State.CLOSED, guard.getState());
+        verify(execution, times(1)).execute(any(), any());
+    }
+}
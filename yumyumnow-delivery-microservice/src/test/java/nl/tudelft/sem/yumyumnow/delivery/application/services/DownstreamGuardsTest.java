@@ -0,0 +1,67 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DownstreamGuardsTest {
+    private static final byte[] BODY = new byte[0];
+
+    private DownstreamGuard userGuard;
+    private DownstreamGuard orderGuard;
+    private DownstreamGuards downstreamGuards;
+    private ClientHttpRequestExecution execution;
+
+    @BeforeEach
+    void setUp() {
+        this.userGuard = mock(DownstreamGuard.class);
+        this.orderGuard = mock(DownstreamGuard.class);
+        this.downstreamGuards = new DownstreamGuards(Map.of(
+                "test://user", userGuard,
+                "test://order", orderGuard));
+        this.execution = mock(ClientHttpRequestExecution.class);
+    }
+
+    private static HttpRequest request(String url) {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getURI()).thenReturn(URI.create(url));
+        return request;
+    }
+
+    @Test
+    void requestGoesThroughTheGuardOfItsMicroservice() throws IOException {
+        HttpRequest request = request("test://order/order/1");
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        when(orderGuard.intercept(request, BODY, execution)).thenReturn(response);
+
+        assertSame(response, downstreamGuards.intercept(request, BODY, execution));
+        verifyNoInteractions(userGuard);
+    }
+
+    @Test
+    void requestToAnotherServiceIsSentAsItIs() throws IOException {
+        HttpRequest request = request("test://elsewhere/vendor/1");
+        ClientHttpResponse response = mock(ClientHttpResponse.class);
+        when(execution.execute(request, BODY)).thenReturn(response);
+
+        assertSame(response, downstreamGuards.intercept(request, BODY, execution));
+        verifyNoInteractions(userGuard, orderGuard);
+    }
+
+    @Test
+    void guardsAreClosedWithTheService() {
+        downstreamGuards.destroy();
+
+        verify(userGuard).close();
+        verify(orderGuard).close();
+    }
+}
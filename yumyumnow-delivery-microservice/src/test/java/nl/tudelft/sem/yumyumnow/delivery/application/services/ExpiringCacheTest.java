@@ -0,0 +1,163 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExpiringCacheTest {
+    private Clock clock;
+    private MeterRegistry meterRegistry;
+    private List<Runnable> refreshes;
+    private ExpiringCache<String, String> cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        this.clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(0L);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.refreshes = new ArrayList<>();
+        this.cache = new ExpiringCache<>("test", 2, Duration.ofSeconds(10), Duration.ofSeconds(5),
+                Duration.ofSeconds(2), clock, refreshes::add, meterRegistry);
+        this.loads = new AtomicInteger();
+    }
+
+    private String get(String key) {
+        return cache.get(key, k -> k + loads.incrementAndGet());
+    }
+
+    private double gets(String result) {
+        return meterRegistry.counter("cache.gets", "cache", "test", "result", result).count();
+    }
+
+    @Test
+    void valueIsLoadedOnceWithinItsTimeToLive() {
+        assertEquals("a1", get("a"));
+        when(clock.millis()).thenReturn(9_999L);
+        assertEquals("a1", get("a"));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, gets("hit"));
+        assertEquals(1, gets("miss"));
+        assertEquals(1, meterRegistry.timer("cache.loads", "cache", "test").count());
+    }
+
+    @Test
+    void staleValueIsReturnedWhileItIsLoadedAgain() {
+        get("a");
+        when(clock.millis()).thenReturn(12_000L);
+
+        assertEquals("a1", get("a"));
+        assertEquals("a1", get("a"));
+        // Only one refresh is started for both stale lookups
+        assertEquals(1, refreshes.size());
+        assertEquals(2, gets("stale"));
+
+        refreshes.get(0).run();
+        assertEquals("a2", get("a"));
+        assertEquals(1, gets("hit"));
+    }
+
+    @Test
+    void valueIsLoadedAgainAfterItsGracePeriod() {
+        get("a");
+        when(clock.millis()).thenReturn(15_000L);
+
+        assertEquals("a2", get("a"));
+        assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    void failedRefreshKeepsTheStaleValue() {
+        cache.get("a", k -> "a");
+        when(clock.millis()).thenReturn(12_000L);
+        cache.get("a", k -> {
+            throw new IllegalStateException("Down");
+        });
+
+        refreshes.get(0).run();
+
+        assertEquals("a", get("a"));
+        assertEquals(1, meterRegistry.counter("cache.refresh.failures", "cache", "test").count());
+        // The next stale lookup tries again
+        assertEquals(2, refreshes.size());
+    }
+
+    @Test
+    void missingValueIsRememberedForShorterTime() {
+        AtomicInteger misses = new AtomicInteger();
+        assertNull(cache.get("a", k -> {
+            misses.incrementAndGet();
+            return null;
+        }));
+        when(clock.millis()).thenReturn(1_999L);
+        assertNull(cache.get("a", k -> "found"));
+        assertEquals(1, misses.get());
+
+        when(clock.millis()).thenReturn(2_000L);
+        assertEquals("found", cache.get("a", k -> "found"));
+    }
+
+    @Test
+    void failedLoadIsNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get("a", k -> {
+            throw new IllegalStateException("Down");
+        }));
+
+        assertEquals("a1", get("a"));
+    }
+
+    @Test
+    void invalidatedValueIsLoadedAgain() {
+        get("a");
+        cache.invalidate("a");
+
+        assertEquals("a2", get("a"));
+    }
+
+    @Test
+    void valueLoadedDuringInvalidationIsNotStored() {
+        assertEquals("old", cache.get("a", k -> {
+            cache.invalidate("a");
+            return "old";
+        }));
+
+        assertEquals("a1", get("a"));
+    }
+
+    @Test
+    void leastRecentlyUsedValueIsEvicted() {
+        get("a");
+        get("b");
+        get("a");
+        get("c");
+
+        assertEquals(2, cache.size());
+        assertEquals("a1", get("a"));
+        assertEquals("b4", get("b"));
+        assertEquals(2, meterRegistry.counter("cache.evictions", "cache", "test").count());
+    }
+
+    @Test
+    void disabledCacheLoadsEveryTime() {
+        ExpiringCache<String, String> disabled = new ExpiringCache<>("disabled", 0, Duration.ZERO, Duration.ZERO,
+                Duration.ZERO, clock, Runnable::run, meterRegistry);
+
+        disabled.get("a", k -> k + loads.incrementAndGet());
+        disabled.get("a", k -> k + loads.incrementAndGet());
+
+        assertEquals(2, loads.get());
+        assertEquals(0, disabled.size());
+    }
+}
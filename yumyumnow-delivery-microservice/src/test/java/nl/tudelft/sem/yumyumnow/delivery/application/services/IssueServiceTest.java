@@ -0,0 +1,175 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.builders.DeliveryBuilder;
+import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.AccessForbiddenException;
+import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.BadArgumentException;
+import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.NoDeliveryFoundException;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryIssue;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.IssueCounter;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryIssueRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.IssueCounterRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.IssueTypeCount;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import nl.tudelft.sem.yumyumnow.delivery.model.IssueType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class IssueServiceTest {
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2023, 12, 1, 12, 30, 0, 0, ZoneOffset.UTC);
+
+    private DeliveryIssueRepository deliveryIssueRepository;
+    private IssueCounterRepository issueCounterRepository;
+    private DeliveryRepository deliveryRepository;
+    private IssueService issueService;
+
+    private UUID deliveryId;
+    private UUID courierId;
+
+    @BeforeEach
+    void setUp() {
+        this.deliveryIssueRepository = mock(DeliveryIssueRepository.class);
+        this.issueCounterRepository = mock(IssueCounterRepository.class);
+        this.deliveryRepository = mock(DeliveryRepository.class);
+        this.issueService = new IssueService(deliveryIssueRepository, issueCounterRepository, deliveryRepository,
+                Clock.fixed(NOW.toInstant(), ZoneOffset.UTC));
+
+        this.deliveryId = UUID.randomUUID();
+        this.courierId = UUID.randomUUID();
+        Delivery delivery = new DeliveryBuilder()
+                .setId(deliveryId)
+                .setCourierId(courierId)
+                .create();
+        when(deliveryRepository.findById(deliveryId)).thenReturn(Optional.of(delivery));
+    }
+
+    private static long epochHour(OffsetDateTime time) {
+        return time.toEpochSecond() / 3600;
+    }
+
+    private static IssueTypeCount typeCount(IssueType type, long issues) {
+        // A plain implementation, as stubbing a mock inside the thenReturn of another one is not allowed
+        return new IssueTypeCount() {
+            @Override
+            public Short getType() {
+                return (short) type.ordinal();
+            }
+
+            @Override
+            public Long getIssues() {
+                return issues;
+            }
+        };
+    }
+
+    @Test
+    void reportIssueStoresAndCountsIt() throws Exception {
+        DeliveryIssue issue = issueService.reportIssue(deliveryId, courierId, IssueType.OPEN_BRIDGE, "Bridge is up");
+
+        assertEquals(deliveryId, issue.getDeliveryId());
+        assertEquals(courierId, issue.getCourierId());
+        assertEquals(NOW, issue.getReportedAt());
+        assertEquals(IssueType.OPEN_BRIDGE, issue.toIssue().getType());
+        verify(deliveryIssueRepository).save(issue);
+
+        ArgumentCaptor<IssueCounter> captor = ArgumentCaptor.forClass(IssueCounter.class);
+        verify(issueCounterRepository).addToCounter(captor.capture());
+        assertEquals(epochHour(NOW), captor.getValue().getEpochHour());
+        assertEquals((short) IssueType.OPEN_BRIDGE.ordinal(), captor.getValue().getType());
+        assertEquals(1, captor.getValue().getIssues());
+    }
+
+    @Test
+    void reportIssueByOtherCourierIsForbidden() {
+        assertThrows(AccessForbiddenException.class,
+                () -> issueService.reportIssue(deliveryId, UUID.randomUUID(), IssueType.ROAD_WORKS, null));
+        verify(deliveryIssueRepository, never()).save(any());
+    }
+
+    @Test
+    void reportIssueOfMissingDelivery() {
+        UUID otherId = UUID.randomUUID();
+        when(deliveryRepository.findById(otherId)).thenReturn(Optional.empty());
+
+        assertThrows(NoDeliveryFoundException.class,
+                () -> issueService.reportIssue(otherId, courierId, IssueType.ROAD_WORKS, null));
+    }
+
+    @Test
+    void reportIssueWithoutType() {
+        assertThrows(BadArgumentException.class,
+                () -> issueService.reportIssue(deliveryId, courierId, null, null));
+        verify(deliveryIssueRepository, never()).save(any());
+    }
+
+    @Test
+    void reportIssueWithTooLongDescription() {
+        String description = "a".repeat(501);
+
+        assertThrows(BadArgumentException.class,
+                () -> issueService.reportIssue(deliveryId, courierId, IssueType.TRAFFIC_JAM, description));
+    }
+
+    @Test
+    void countsWithinOneHourUseOnlyTheIssues() {
+        OffsetDateTime start = NOW.minusMinutes(20);
+        OffsetDateTime end = NOW.plusMinutes(20);
+        when(deliveryIssueRepository.countByTypeInPeriod(start, end))
+                .thenReturn(List.of(typeCount(IssueType.TRAFFIC_JAM, 3)));
+
+        Map<IssueType, Long> counts = issueService.countsInPeriod(start, end);
+
+        assertEquals(IssueType.values().length, counts.size());
+        assertEquals(3L, counts.get(IssueType.TRAFFIC_JAM));
+        assertEquals(0L, counts.get(IssueType.OPEN_BRIDGE));
+        verifyNoInteractions(issueCounterRepository);
+    }
+
+    @Test
+    void countsOfWholeHoursUseTheCounters() {
+        OffsetDateTime start = NOW.minusHours(3);
+        OffsetDateTime end = NOW.plusHours(2);
+        OffsetDateTime fromHourStart = OffsetDateTime.of(2023, 12, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime toHourStart = OffsetDateTime.of(2023, 12, 1, 14, 0, 0, 0, ZoneOffset.UTC);
+
+        when(deliveryIssueRepository.countByTypeInPeriod(start, fromHourStart))
+                .thenReturn(List.of(typeCount(IssueType.TRAFFIC_JAM, 1)));
+        when(issueCounterRepository.sumByType(epochHour(fromHourStart), epochHour(toHourStart)))
+                .thenReturn(List.of(typeCount(IssueType.TRAFFIC_JAM, 4), typeCount(IssueType.CLOSED_ROAD, 2)));
+        when(deliveryIssueRepository.countByTypeInPeriod(toHourStart.minusNanos(1), end))
+                .thenReturn(List.of(typeCount(IssueType.CLOSED_ROAD, 1)));
+
+        Map<IssueType, Long> counts = issueService.countsInPeriod(start, end);
+
+        assertEquals(5L, counts.get(IssueType.TRAFFIC_JAM));
+        assertEquals(3L, counts.get(IssueType.CLOSED_ROAD));
+        assertEquals(0L, counts.get(IssueType.ROAD_WORKS));
+    }
+
+    @Test
+    void countsEndingOnTheHourSkipTheRightEdge() {
+        OffsetDateTime start = OffsetDateTime.of(2023, 12, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime end = OffsetDateTime.of(2023, 12, 1, 13, 0, 0, 0, ZoneOffset.UTC);
+        when(deliveryIssueRepository.countByTypeInPeriod(any(), any())).thenReturn(List.of());
+        when(issueCounterRepository.sumByType(epochHour(start) + 1, epochHour(end)))
+                .thenReturn(List.of(typeCount(IssueType.VEHICLE_BREAKDOWN, 2)));
+
+        Map<IssueType, Long> counts = issueService.countsInPeriod(start, end);
+
+        assertEquals(2L, counts.get(IssueType.VEHICLE_BREAKDOWN));
+        verify(deliveryIssueRepository, times(1)).countByTypeInPeriod(any(), any());
+    }
+}
@@ -0,0 +1,107 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import nl.tudelft.sem.yumyumnow.delivery.config.ClockConfig;
+import nl.tudelft.sem.yumyumnow.delivery.domain.builders.DeliveryBuilder;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryIssue;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.CounterIncrementer;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryIssueRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.IssueCounterRepository;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.IssueTypeCount;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import nl.tudelft.sem.yumyumnow.delivery.model.IssueType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reports issues against the database, outside a test transaction, so a report commits (or rolls back)
+ * like it does in the service.
+ */
+@DataJpaTest
+@ContextConfiguration(classes = IssueServiceTransactionTest.Repositories.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class IssueServiceTransactionTest {
+    private static final OffsetDateTime EVER_START = OffsetDateTime.parse("2000-01-01T00:00:00Z");
+    private static final OffsetDateTime EVER_END = OffsetDateTime.parse("2100-01-01T00:00:00Z");
+
+    @Autowired
+    private IssueService issueService;
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private DeliveryIssueRepository deliveryIssueRepository;
+
+    @MockBean
+    private IssueCounterRepository issueCounterRepository;
+
+    /**
+     * Only the repositories, entities and the issue service, without the services the application scans for.
+     * Not a @Configuration, so the component scan of the application does not pick it up.
+     */
+    @EntityScan(basePackageClasses = {DeliveryIssue.class, Delivery.class})
+    @EnableJpaRepositories(basePackageClasses = DeliveryRepository.class)
+    @Import({IssueService.class, CounterIncrementer.class, ClockConfig.class})
+    static class Repositories {
+    }
+
+    /**
+     * The store is append-only, so the tests compare the number of issues before and after their report.
+     */
+    private long storedIssues() {
+        return deliveryIssueRepository.countByTypeInPeriod(EVER_START, EVER_END).stream()
+                .mapToLong(IssueTypeCount::getIssues)
+                .sum();
+    }
+
+    private Delivery deliveryOf(UUID courierId) {
+        return deliveryRepository.save(new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setCourierId(courierId)
+                .setStatus(Delivery.StatusEnum.IN_TRANSIT)
+                .create());
+    }
+
+    @Test
+    void issueIsStoredWithItsCount() throws Exception {
+        UUID courierId = UUID.randomUUID();
+        Delivery delivery = deliveryOf(courierId);
+        long before = storedIssues();
+
+        issueService.reportIssue(delivery.getId(), courierId, IssueType.TRAFFIC_JAM, null);
+
+        assertEquals(before + 1, storedIssues());
+        verify(issueCounterRepository).addToCounter(any());
+    }
+
+    @Test
+    void issueIsNotStoredWhenItsCountFails() {
+        UUID courierId = UUID.randomUUID();
+        Delivery delivery = deliveryOf(courierId);
+        doThrow(new DataAccessResourceFailureException("Counter unavailable"))
+                .when(issueCounterRepository).addToCounter(any());
+        long before = storedIssues();
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> issueService.reportIssue(delivery.getId(), courierId, IssueType.TRAFFIC_JAM, null));
+
+        assertEquals(before, storedIssues());
+    }
+}
@@ -1,5 +1,6 @@
 package nl.tudelft.sem.yumyumnow.delivery.application.services;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import nl.tudelft.sem.yumyumnow.delivery.domain.builders.CustomerBuilder;
 import nl.tudelft.sem.yumyumnow.delivery.domain.builders.OrderBuilder;
 import nl.tudelft.sem.yumyumnow.delivery.domain.builders.VendorBuilder;
@@ -14,6 +15,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -39,7 +42,8 @@ public class OrderServiceTest {
                 restTemplate,
                 testWebsite,
                 customerService,
-                vendorService
+                vendorService,
+                new SingleFlight(new SimpleMeterRegistry())
         );
     }
 
@@ -86,6 +90,26 @@ public class OrderServiceTest {
         assertEquals(expectedOrder.getVendor(), vendor);
     }
 
+    @Test
+    public void testFindOrderByIdPlacementTime() {
+        UUID orderId = UUID.randomUUID();
+
+        when(restTemplate.getForObject(
+                testWebsite + "/order/" + orderId.toString(),
+                Map.class
+        )).thenReturn(Map.of(
+                "orderID", orderId.toString(),
+                "customerID", UUID.randomUUID().toString(),
+                "vendorID", UUID.randomUUID().toString(),
+                "date", 1703087443059L
+        ));
+
+        Order gotOrder = orderService.findOrderById(orderId);
+
+        assertEquals(OffsetDateTime.of(2023, 12, 20, 15, 50, 43, 59_000_000, ZoneOffset.UTC),
+                gotOrder.getPlacementTime());
+    }
+
     @Test
     public void testFindOrderByIdEmptyResponse() {
         UUID orderId = UUID.randomUUID();
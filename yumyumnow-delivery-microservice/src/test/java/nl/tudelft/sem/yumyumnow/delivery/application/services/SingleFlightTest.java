@@ -0,0 +1,130 @@
+package nl.tudelft.sem.yumyumnow.delivery.application.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+    private MeterRegistry meterRegistry;
+    private SingleFlight singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.singleFlight = new SingleFlight(meterRegistry);
+    }
+
+    private void awaitCoalesced(String name, double count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("downstream.calls.coalesced", "call", name).count() < count) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Callers did not join the call in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void concurrentCallersShareOneCall() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.call("vendor", "a", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                awaitQuietly(release);
+                return "result";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> first = executor.submit(() -> singleFlight.call("vendor", "a", () -> {
+                calls.incrementAndGet();
+                return "other";
+            }));
+            Future<String> second = executor.submit(() -> singleFlight.call("vendor", "a", () -> {
+                calls.incrementAndGet();
+                return "other";
+            }));
+            awaitCoalesced("vendor", 2);
+            release.countDown();
+
+            assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+            assertEquals("result", first.get(5, TimeUnit.SECONDS));
+            assertEquals("result", second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get());
+            assertEquals(1, meterRegistry.counter("downstream.calls", "call", "vendor").count());
+            assertEquals(0, singleFlight.inFlight());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failureIsSharedWithTheWaitingCallers() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> leader = executor.submit(() -> singleFlight.call("order", 1, () -> {
+                started.countDown();
+                awaitQuietly(release);
+                throw new IllegalArgumentException("Down");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Object> follower = executor.submit(() -> singleFlight.call("order", 1, () -> "other"));
+            awaitCoalesced("order", 1);
+            release.countDown();
+
+            Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertTrue(leaderError.getCause() instanceof IllegalArgumentException);
+            assertSame(leaderError.getCause(), followerError.getCause());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void laterCallIsMadeAgain() {
+        AtomicInteger calls = new AtomicInteger();
+
+        singleFlight.call("customer", "a", calls::incrementAndGet);
+        singleFlight.call("customer", "a", calls::incrementAndGet);
+        assertThrows(IllegalStateException.class, () -> singleFlight.call("customer", "a", () -> {
+            throw new IllegalStateException("Down");
+        }));
+
+        assertEquals(2, calls.get());
+        assertEquals(3, meterRegistry.counter("downstream.calls", "call", "customer").count());
+        assertEquals(0, meterRegistry.counter("downstream.calls.coalesced", "call", "customer").count());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void differentKeysAreNotShared() {
+        assertEquals("a", singleFlight.call("vendor", "a", () -> "a"));
+        assertEquals("b", singleFlight.call("vendor", "b", () -> "b"));
+        assertEquals("c", singleFlight.call("courier", "a", () -> "c"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package nl.tudelft.sem.yumyumnow.delivery.application.services;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import nl.tudelft.sem.yumyumnow.delivery.domain.builders.VendorBuilder;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Vendor;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.BadArgumentException;
@@ -8,9 +9,12 @@ import nl.tudelft.sem.yumyumnow.delivery.model.Location;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.*;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
@@ -33,7 +37,10 @@ public class VendorServiceTest {
         restTemplate = mock(RestTemplate.class);
         vendorService = new VendorService(
                 restTemplate,
-                testWebsite
+                testWebsite,
+                new ExpiringCache<>("vendor", 0, Duration.ZERO, Duration.ZERO, Duration.ZERO,
+                        Clock.systemUTC(), Runnable::run, new SimpleMeterRegistry()),
+                new SingleFlight(new SimpleMeterRegistry())
         );
     }
 
@@ -314,4 +321,70 @@ public class VendorServiceTest {
         assertEquals(expected, vendorService.setOwnCouriers(vendorId,true));
     }
 
+
+    private VendorService cachedVendorService() {
+        return new VendorService(restTemplate, testWebsite, new ExpiringCache<>("vendor", 10,
+                Duration.ofSeconds(60), Duration.ofSeconds(60), Duration.ofSeconds(10),
+                Clock.systemUTC(), Runnable::run, new SimpleMeterRegistry()), new SingleFlight(new SimpleMeterRegistry()));
+    }
+
+    private static Map<String, Object> vendorMap(UUID vendorId) {
+        return new HashMap<>(Map.of(
+                "userID", vendorId.toString(),
+                "location", Map.of(
+                        "latitude", 0.0,
+                        "longitude", 0.0
+                ),
+                "contactInfo", Map.of(
+                        "phoneNumber", "123456789"
+                ),
+                "allowOnlyOwnCouriers", false,
+                "maxDeliveryZone", 0.0
+        ));
+    }
+
+    @Test
+    public void cachedVendorIsFetchedOnce() {
+        VendorService cached = cachedVendorService();
+        UUID vendorId = UUID.randomUUID();
+        when(restTemplate.getForObject(testWebsite + "/vendor/" + vendorId, Map.class))
+                .thenReturn(vendorMap(vendorId));
+
+        Vendor first = cached.getVendor(vendorId.toString());
+        Vendor second = cached.getVendor(vendorId.toString());
+
+        assertEquals(first, second);
+        // Every lookup gets its own vendor, so changing one does not change the cached vendor
+        assertNotSame(first, second);
+        verify(restTemplate, times(1)).getForObject(testWebsite + "/vendor/" + vendorId, Map.class);
+    }
+
+    @Test
+    public void missingVendorIsRemembered() {
+        VendorService cached = cachedVendorService();
+        UUID vendorId = UUID.randomUUID();
+        when(restTemplate.getForObject(testWebsite + "/vendor/" + vendorId, Map.class))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        assertNull(cached.getVendor(vendorId.toString()));
+        assertNull(cached.getVendor(vendorId.toString()));
+        verify(restTemplate, times(1)).getForObject(testWebsite + "/vendor/" + vendorId, Map.class);
+    }
+
+    @Test
+    public void updatedVendorIsFetchedAgain() {
+        VendorService cached = cachedVendorService();
+        UUID vendorId = UUID.randomUUID();
+        when(restTemplate.getForObject(testWebsite + "/vendor/" + vendorId, Map.class))
+                .thenAnswer(invocation -> vendorMap(vendorId));
+        when(restTemplate.exchange(eq(testWebsite + "/vendor/" + vendorId), eq(HttpMethod.PUT),
+                any(HttpEntity.class), eq(String.class))).thenReturn(new ResponseEntity<>(HttpStatus.OK));
+
+        Vendor vendor = cached.getVendor(vendorId.toString());
+        assertTrue(cached.putVendor(vendor));
+        cached.getVendor(vendorId.toString());
+
+        // Once for each lookup, and once for the update itself
+        verify(restTemplate, times(3)).getForObject(testWebsite + "/vendor/" + vendorId, Map.class);
+    }
 }
@@ -0,0 +1,93 @@
+package nl.tudelft.sem.yumyumnow.delivery.config;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.builders.DeliveryBuilder;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.ArchivedDelivery;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.CounterIncrementer;
+import nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepository;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads deliveries through the second-level cache configured in application.properties,
+ * outside a test transaction, so every call commits and goes through the cache like it does in the service.
+ */
+@DataJpaTest
+@ContextConfiguration(classes = CacheConfigTest.Repositories.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CacheConfigTest {
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    /**
+     * Only the repositories, entities and the cache config, without the services the application scans for.
+     * Not a @Configuration, so the component scan of the application does not pick it up.
+     */
+    @EntityScan(basePackageClasses = {ArchivedDelivery.class, Delivery.class})
+    @EnableJpaRepositories(basePackageClasses = DeliveryRepository.class)
+    @Import({CacheConfig.class, CounterIncrementer.class})
+    static class Repositories {
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private Delivery deliveryOf(Delivery.StatusEnum status, OffsetDateTime estimatedDeliveryTime) {
+        return deliveryRepository.save(new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setStatus(status)
+                .setEstimatedDeliveryTime(estimatedDeliveryTime)
+                .create());
+    }
+
+    @Test
+    void findByIdIsServedFromTheRegion() {
+        Delivery delivery = deliveryOf(Delivery.StatusEnum.PENDING, OffsetDateTime.now());
+
+        assertTrue(deliveryRepository.findById(delivery.getId()).isPresent());
+        assertTrue(deliveryRepository.findById(delivery.getId()).isPresent());
+
+        assertTrue(entityManagerFactory.getCache().contains(Delivery.class, delivery.getId()));
+        assertEquals(2, statistics.getDomainDataRegionStatistics(CacheConfig.DELIVERY_REGION).getHitCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void archivalEvictsTheRegion() {
+        OffsetDateTime cutoff = OffsetDateTime.now();
+        Delivery archived = deliveryOf(Delivery.StatusEnum.DELIVERED, cutoff.minusDays(1));
+        Delivery kept = deliveryOf(Delivery.StatusEnum.PENDING, cutoff.minusDays(1));
+        assertTrue(entityManagerFactory.getCache().contains(Delivery.class, archived.getId()));
+
+        assertTrue(deliveryRepository.archiveTerminalBefore(cutoff, 10) >= 1);
+
+        assertFalse(entityManagerFactory.getCache().contains(Delivery.class, archived.getId()));
+        assertFalse(entityManagerFactory.getCache().contains(Delivery.class, kept.getId()));
+        assertTrue(deliveryRepository.findById(archived.getId()).isEmpty());
+        assertTrue(deliveryRepository.findById(kept.getId()).isPresent());
+    }
+}
@@ -0,0 +1,55 @@
+package nl.tudelft.sem.yumyumnow.delivery.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.tudelft.sem.yumyumnow.delivery.application.services.DownstreamGuards;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = {HttpClientConfig.class, ClockConfig.class, DownstreamGuards.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = {"http.client.pool.maxTotal=42", "http.client.pool.maxPerRoute=7",
+    "user.microservice.url=test://user", "order.microservice.url=test://order"})
+public class HttpClientConfigTest {
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * The factory a rest template sends its requests with, below the one that applies its interceptors.
+     */
+    static ClientHttpRequestFactory requestFactoryOf(RestTemplate restTemplate) {
+        return (ClientHttpRequestFactory) ReflectionTestUtils.getField(restTemplate, "requestFactory");
+    }
+
+    @Test
+    void restTemplatesUseThePooledHttpClient() {
+        RestTemplate restTemplate = restTemplateBuilder.build();
+
+        assertTrue(requestFactoryOf(restTemplate) instanceof HttpComponentsClientHttpRequestFactory);
+    }
+
+    @Test
+    void restTemplatesGoThroughTheGuards() {
+        RestTemplate restTemplate = restTemplateBuilder.build();
+
+        assertEquals(1, restTemplate.getInterceptors().size());
+        assertTrue(restTemplate.getInterceptors().get(0) instanceof DownstreamGuards);
+    }
+
+    @Test
+    void poolLimitsAreExportedAsMetrics() {
+        assertEquals(42, meterRegistry.get("httpcomponents.httpclient.pool.total.max").gauge().value());
+        assertEquals(7, meterRegistry.get("httpcomponents.httpclient.pool.route.max.default").gauge().value());
+    }
+}
@@ -4,6 +4,7 @@ import nl.tudelft.sem.yumyumnow.delivery.application.services.*;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.AccessForbiddenException;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.BadArgumentException;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.ServiceUnavailableException;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeMetric;
 import nl.tudelft.sem.yumyumnow.delivery.model.*;
 import nl.tudelft.sem.yumyumnow.delivery.model.Error;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,7 +20,10 @@ import javax.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -32,12 +36,14 @@ public class AdminControllerTest {
     private DeliveryService deliveryService;
     private AdminController adminController;
     private AdminService adminService;
+    private AnalyticsJobService analyticsJobService;
 
     @BeforeEach
     void setUp(){
         this.deliveryService = mock(DeliveryService.class);
         this.adminService = mock(AdminService.class);
-        this.adminController = new AdminController(deliveryService, adminService);
+        this.analyticsJobService = mock(AnalyticsJobService.class);
+        this.adminController = new AdminController(deliveryService, adminService, analyticsJobService);
     }
 
     @Test
@@ -537,20 +543,53 @@ public class AdminControllerTest {
         assertThrows(Exception.class,
                 () -> adminController.adminAnalyticsDriverEfficiencyGet(adminId, startDate, endDate));
     }
+
+    @Test
+    void getDriverEfficiencyServiceUnavailableTest() throws BadArgumentException, AccessForbiddenException {
+        OffsetDateTime startDate = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2024, 2, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        UUID adminId = UUID.randomUUID();
+
+        when(adminService.getDriverEfficiencyAnalytic(adminId, startDate, endDate))
+                .thenThrow(ServiceUnavailableException.class);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> adminController.adminAnalyticsDriverEfficiencyGet(adminId, startDate, endDate));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+    }
+
+    @Test
+    void getDriverEfficiencyUserServiceDownTest() throws BadArgumentException, AccessForbiddenException {
+        OffsetDateTime startDate = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2024, 2, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        UUID adminId = UUID.randomUUID();
+
+        when(adminService.getDriverEfficiencyAnalytic(adminId, startDate, endDate))
+                .thenThrow(RestClientException.class);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> adminController.adminAnalyticsDriverEfficiencyGet(adminId, startDate, endDate));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+    }
     @Test
     void encounteredIssuesGetSuccessTest() throws AccessForbiddenException, BadArgumentException {
         OffsetDateTime startDate = OffsetDateTime.of(2021, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
         OffsetDateTime endDate = OffsetDateTime.of(2021, 1, 2, 12, 0, 0, 0, ZoneOffset.UTC);
         UUID adminId = UUID.randomUUID();
 
-        List<String> encounteredIssues = List.of("Issue 1", "Issue 2");
+        Map<IssueType, Long> issueCounts = new EnumMap<>(IssueType.class);
+        issueCounts.put(IssueType.OPEN_BRIDGE, 1L);
+        issueCounts.put(IssueType.TRAFFIC_JAM, 4L);
 
-        when(adminService.getEncounteredIssues(adminId, startDate, endDate)).thenReturn(encounteredIssues);
+        when(adminService.getIssueCounts(adminId, startDate, endDate)).thenReturn(issueCounts);
 
         AdminAnalyticsIssuesGet200Response response = new AdminAnalyticsIssuesGet200Response();
         response.setStartDate(startDate);
         response.setEndDate(endDate);
-        response.setEncounteredIssues(encounteredIssues);
+        response.setTotalIssues(BigDecimal.valueOf(5));
+        response.setIssueCounts(List.of(
+                new IssueCount().type(IssueType.OPEN_BRIDGE).count(BigDecimal.valueOf(1)),
+                new IssueCount().type(IssueType.TRAFFIC_JAM).count(BigDecimal.valueOf(4))));
 
         ResponseEntity<AdminAnalyticsIssuesGet200Response> expected = ResponseEntity.ok(response);
 
@@ -565,7 +604,7 @@ public class AdminControllerTest {
         OffsetDateTime endDate = OffsetDateTime.of(2021, 1, 2, 12, 0, 0, 0, ZoneOffset.UTC);
         UUID adminId = UUID.randomUUID();
 
-        when(adminService.getEncounteredIssues(adminId, startDate, endDate)).thenThrow(BadArgumentException.class);
+        when(adminService.getIssueCounts(adminId, startDate, endDate)).thenThrow(BadArgumentException.class);
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
                 () -> adminController.adminAnalyticsIssuesGet(adminId, startDate, endDate));
@@ -578,7 +617,7 @@ public class AdminControllerTest {
         OffsetDateTime endDate = OffsetDateTime.of(2021, 1, 2, 12, 0, 0, 0, ZoneOffset.UTC);
         UUID adminId = UUID.randomUUID();
 
-        when(adminService.getEncounteredIssues(adminId, startDate, endDate)).thenThrow(AccessForbiddenException.class);
+        when(adminService.getIssueCounts(adminId, startDate, endDate)).thenThrow(AccessForbiddenException.class);
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
                 () -> adminController.adminAnalyticsIssuesGet(adminId, startDate, endDate));
@@ -590,10 +629,237 @@ public class AdminControllerTest {
         OffsetDateTime startDate = OffsetDateTime.of(2021, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
         UUID adminId = UUID.randomUUID();
 
-        when(adminService.getEncounteredIssues(adminId, startDate, null)).thenAnswer(t -> {throw new Exception();});
+        when(adminService.getIssueCounts(adminId, startDate, null)).thenAnswer(t -> {throw new Exception();});
 
         assertThrows(Exception.class,
                 () -> adminController.adminAnalyticsIssuesGet(adminId, startDate, null));
     }
 
+    @Test
+    void getAnalyticsSummarySuccessfulTest()
+            throws BadArgumentException, ServiceUnavailableException, AccessForbiddenException {
+        OffsetDateTime startDate = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2024, 2, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        UUID adminId = UUID.randomUUID();
+
+        AdminAnalyticsSummaryGet200Response response = new AdminAnalyticsSummaryGet200Response();
+        response.setStartDate(startDate);
+        response.setEndDate(endDate);
+        response.setTotalDeliveries(BigDecimal.valueOf(4));
+        when(adminService.getAnalyticsSummary(adminId, startDate, endDate)).thenReturn(response);
+
+        assertThat(adminController.adminAnalyticsSummaryGet(adminId, startDate, endDate))
+                .isEqualTo(ResponseEntity.ok(response));
+    }
+
+    @Test
+    void getAnalyticsSummaryBadArgumentExceptionTest()
+            throws BadArgumentException, ServiceUnavailableException, AccessForbiddenException {
+        OffsetDateTime startDate = OffsetDateTime.of(2024, 2, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        UUID adminId = UUID.randomUUID();
+
+        when(adminService.getAnalyticsSummary(adminId, startDate, endDate))
+                .thenThrow(BadArgumentException.class);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> adminController.adminAnalyticsSummaryGet(adminId, startDate, endDate));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void getAnalyticsSummaryAccessForbiddenExceptionTest()
+            throws BadArgumentException, ServiceUnavailableException, AccessForbiddenException {
+        OffsetDateTime startDate = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2024, 2, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        UUID adminId = UUID.randomUUID();
+
+        when(adminService.getAnalyticsSummary(adminId, startDate, endDate))
+                .thenThrow(AccessForbiddenException.class);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> adminController.adminAnalyticsSummaryGet(adminId, startDate, endDate));
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatus());
+    }
+
+    @Test
+    void getAnalyticsSummaryServiceUnavailableTest()
+            throws BadArgumentException, ServiceUnavailableException, AccessForbiddenException {
+        OffsetDateTime startDate = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2024, 2, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        UUID adminId = UUID.randomUUID();
+
+        when(adminService.getAnalyticsSummary(adminId, startDate, endDate))
+                .thenThrow(RestClientException.class);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> adminController.adminAnalyticsSummaryGet(adminId, startDate, endDate));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+    }
+
+    @Test
+    void getPreparationTimePercentilesSuccessfulTest()
+            throws BadArgumentException, ServiceUnavailableException, AccessForbiddenException {
+        OffsetDateTime startDate = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2024, 2, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        UUID adminId = UUID.randomUUID();
+
+        TimePercentiles response = new TimePercentiles();
+        response.setP50(BigDecimal.valueOf(20));
+        when(adminService.getTimePercentiles(adminId, TimeMetric.PREPARATION, startDate, endDate))
+                .thenReturn(response);
+
+        assertThat(adminController.adminAnalyticsPreparationTimePercentilesGet(adminId, startDate, endDate))
+                .isEqualTo(ResponseEntity.ok(response));
+    }
+
+    @Test
+    void getDeliveryTimePercentilesAccessForbiddenTest()
+            throws BadArgumentException, ServiceUnavailableException, AccessForbiddenException {
+        OffsetDateTime startDate = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2024, 2, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        UUID adminId = UUID.randomUUID();
+
+        when(adminService.getTimePercentiles(adminId, TimeMetric.DELIVERY, startDate, endDate))
+                .thenThrow(AccessForbiddenException.class);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> adminController.adminAnalyticsDeliveryTimePercentilesGet(adminId, startDate, endDate));
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatus());
+    }
+
+
+    @Test
+    void analyticsJobsPostAcceptedTest() throws Exception {
+        UUID adminId = UUID.randomUUID();
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 12, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        AnalyticsJob job = new AnalyticsJob()
+                .id(UUID.randomUUID())
+                .type(AnalyticsJobType.SUMMARY)
+                .status(AnalyticsJobStatus.QUEUED);
+
+        when(analyticsJobService.submit(adminId, AnalyticsJobType.SUMMARY, startDate, endDate)).thenReturn(job);
+
+        ResponseEntity<AnalyticsJob> response =
+                adminController.adminAnalyticsJobsPost(adminId, AnalyticsJobType.SUMMARY, startDate, endDate);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(job, response.getBody());
+    }
+
+    @Test
+    void analyticsJobsPostQueueFullTest() throws Exception {
+        UUID adminId = UUID.randomUUID();
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 12, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        when(analyticsJobService.submit(adminId, AnalyticsJobType.SUMMARY, startDate, endDate))
+                .thenThrow(new ServiceUnavailableException("Too many analytics jobs are queued."));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> adminController.adminAnalyticsJobsPost(adminId, AnalyticsJobType.SUMMARY, startDate, endDate));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+    }
+
+    @Test
+    void analyticsJobsPostAccessForbiddenTest() throws Exception {
+        UUID adminId = UUID.randomUUID();
+        OffsetDateTime startDate = OffsetDateTime.of(2023, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2023, 12, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        when(analyticsJobService.submit(adminId, AnalyticsJobType.SUMMARY, startDate, endDate))
+                .thenThrow(AccessForbiddenException.class);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> adminController.adminAnalyticsJobsPost(adminId, AnalyticsJobType.SUMMARY, startDate, endDate));
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatus());
+    }
+
+    @Test
+    void analyticsJobGetTest() {
+        UUID adminId = UUID.randomUUID();
+        UUID jobId = UUID.randomUUID();
+        AnalyticsJob job = new AnalyticsJob().id(jobId).status(AnalyticsJobStatus.SUCCEEDED);
+
+        when(analyticsJobService.getJob(adminId, jobId)).thenReturn(Optional.of(job));
+
+        assertEquals(ResponseEntity.ok(job), adminController.adminAnalyticsJobsJobIdGet(jobId, adminId));
+    }
+
+    @Test
+    void analyticsJobGetNotFoundTest() {
+        UUID adminId = UUID.randomUUID();
+        UUID jobId = UUID.randomUUID();
+
+        when(analyticsJobService.getJob(adminId, jobId)).thenReturn(Optional.empty());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> adminController.adminAnalyticsJobsJobIdGet(jobId, adminId));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
+
+    @Test
+    void driverEfficiencyPerCourierSuccessTest() throws BadArgumentException, AccessForbiddenException {
+        OffsetDateTime startDate = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2024, 2, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        UUID adminId = UUID.randomUUID();
+        CourierEfficiencyPage page = new CourierEfficiencyPage()
+                .page(0)
+                .size(20)
+                .totalGroups(1)
+                .couriers(List.of(new CourierEfficiency().courierId(UUID.randomUUID())
+                        .driverEfficiency(BigDecimal.valueOf(80))));
+
+        when(adminService.getDriverEfficiencyPerCourier(adminId, startDate, endDate, 0, 20)).thenReturn(page);
+
+        assertThat(adminController.adminAnalyticsDriverEfficiencyCouriersGet(adminId, startDate, endDate, 0, 20))
+                .isEqualTo(ResponseEntity.ok(page));
+    }
+
+    @Test
+    void driverEfficiencyPerCourierBadPageTest() throws BadArgumentException, AccessForbiddenException {
+        OffsetDateTime startDate = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2024, 2, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        UUID adminId = UUID.randomUUID();
+
+        when(adminService.getDriverEfficiencyPerCourier(adminId, startDate, endDate, -1, 20))
+                .thenThrow(new BadArgumentException("Page cannot be negative."));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> adminController.adminAnalyticsDriverEfficiencyCouriersGet(adminId, startDate, endDate, -1, 20));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void preparationTimePerVendorSuccessTest() throws BadArgumentException, AccessForbiddenException {
+        OffsetDateTime startDate = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2024, 2, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        UUID adminId = UUID.randomUUID();
+        VendorPreparationTimePage page = new VendorPreparationTimePage()
+                .page(1)
+                .size(10)
+                .totalGroups(12)
+                .vendors(List.of(new VendorPreparationTime().vendorId(UUID.randomUUID())
+                        .preparationTime(BigDecimal.valueOf(15))));
+
+        when(adminService.getPreparationTimePerVendor(adminId, startDate, endDate, 1, 10)).thenReturn(page);
+
+        assertThat(adminController.adminAnalyticsPreparationTimeVendorsGet(adminId, startDate, endDate, 1, 10))
+                .isEqualTo(ResponseEntity.ok(page));
+    }
+
+    @Test
+    void preparationTimePerVendorForbiddenTest() throws BadArgumentException, AccessForbiddenException {
+        OffsetDateTime startDate = OffsetDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        OffsetDateTime endDate = OffsetDateTime.of(2024, 2, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        UUID adminId = UUID.randomUUID();
+
+        when(adminService.getPreparationTimePerVendor(adminId, startDate, endDate, 0, 20))
+                .thenThrow(AccessForbiddenException.class);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> adminController.adminAnalyticsPreparationTimeVendorsGet(adminId, startDate, endDate, 0, 20));
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatus());
+    }
 }
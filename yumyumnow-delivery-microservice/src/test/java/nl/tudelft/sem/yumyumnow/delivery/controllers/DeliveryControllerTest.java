@@ -7,6 +7,7 @@ import nl.tudelft.sem.yumyumnow.delivery.domain.builders.OrderBuilder;
 import nl.tudelft.sem.yumyumnow.delivery.domain.builders.VendorBuilder;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Order;
 import nl.tudelft.sem.yumyumnow.delivery.domain.dto.Vendor;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryIssue;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.AccessForbiddenException;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.BadArgumentException;
 import nl.tudelft.sem.yumyumnow.delivery.domain.exceptions.NoDeliveryFoundException;
@@ -16,6 +17,7 @@ import nl.tudelft.sem.yumyumnow.delivery.model.Error;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.server.ResponseStatusException;
@@ -43,6 +45,7 @@ class DeliveryControllerTest {
     private OrderService orderService;
 
     private EmailService emailService;
+    private IssueService issueService;
 
     @BeforeEach
     void setUp(){
@@ -52,7 +55,9 @@ class DeliveryControllerTest {
         this.adminService = mock(AdminService.class);
         this.orderService = mock(OrderService.class);
         this.emailService = mock(EmailService.class);
-        this.deliveryController = new DeliveryController(deliveryService, userService, vendorService, adminService, orderService, emailService);
+        this.issueService = mock(IssueService.class);
+        this.deliveryController = new DeliveryController(deliveryService, userService, vendorService, adminService,
+                orderService, emailService, issueService);
     }
 
     @Test
@@ -202,6 +207,18 @@ class DeliveryControllerTest {
         assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
     }
 
+    @Test
+    void getDeliveryCircuitOpenTest() throws NoDeliveryFoundException {
+        UUID id = UUID.randomUUID();
+
+        when(deliveryService.getDelivery(id))
+                .thenThrow(new ServiceUnavailableException("The order microservice is unavailable."));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> deliveryController.deliveryIdGet(id));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+    }
+
     @Test
     void getDeliveryGenericExceptionTest() throws NoDeliveryFoundException {
         UUID id = UUID.randomUUID();
@@ -1092,6 +1109,26 @@ class DeliveryControllerTest {
         assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
     }
 
+    @Test
+    void deliveryLocationPutConflictTest() throws NoDeliveryFoundException {
+        DeliveryIdLocationPutRequest deliveryIdLocationPutRequest = new DeliveryIdLocationPutRequest();
+        Location location = new LocationBuilder()
+                .setTimestamp(OffsetDateTime.MIN)
+                .setLatitude(new BigDecimal(19))
+                .setLongitude(new BigDecimal(25))
+                .create();
+
+        deliveryIdLocationPutRequest.setLocation(location);
+        UUID id = UUID.randomUUID();
+
+        when(deliveryService.updateLocation(id, location))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Delivery.class, id));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> deliveryController.deliveryIdLocationPut(id, deliveryIdLocationPutRequest));
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+    }
+
     @Test
     void deliveryLocationPutGenericExceptionTest() throws NoDeliveryFoundException {
         DeliveryIdLocationPutRequest deliveryIdLocationPutRequest = new DeliveryIdLocationPutRequest();
@@ -1124,4 +1161,55 @@ class DeliveryControllerTest {
 
         assertEquals(ResponseEntity.ok(request), expected);
     }
-}
\ No newline at end of file
+
+    @Test
+    void deliveryIssuesPostSuccess() throws Exception {
+        UUID id = UUID.randomUUID();
+        UUID courierId = UUID.randomUUID();
+        OffsetDateTime reportedAt = OffsetDateTime.of(2023, 12, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        DeliveryIssue issue = new DeliveryIssue(UUID.randomUUID(), id, courierId,
+                (short) IssueType.TRAFFIC_JAM.ordinal(), "Stuck on the highway", reportedAt);
+        DeliveryIdIssuesPostRequest request = new DeliveryIdIssuesPostRequest()
+                .courierId(courierId)
+                .type(IssueType.TRAFFIC_JAM)
+                .description("Stuck on the highway");
+
+        when(issueService.reportIssue(id, courierId, IssueType.TRAFFIC_JAM, "Stuck on the highway"))
+                .thenReturn(issue);
+
+        ResponseEntity<Issue> response = deliveryController.deliveryIdIssuesPost(id, request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(issue.toIssue(), response.getBody());
+        assertEquals(IssueType.TRAFFIC_JAM, response.getBody().getType());
+    }
+
+    @Test
+    void deliveryIssuesPostBadRequest() throws Exception {
+        UUID id = UUID.randomUUID();
+        UUID courierId = UUID.randomUUID();
+        DeliveryIdIssuesPostRequest request = new DeliveryIdIssuesPostRequest().courierId(courierId);
+
+        when(issueService.reportIssue(id, courierId, null, null)).thenThrow(BadArgumentException.class);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> deliveryController.deliveryIdIssuesPost(id, request));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void deliveryIssuesPostForbidden() throws Exception {
+        UUID id = UUID.randomUUID();
+        UUID courierId = UUID.randomUUID();
+        DeliveryIdIssuesPostRequest request = new DeliveryIdIssuesPostRequest()
+                .courierId(courierId)
+                .type(IssueType.CLOSED_ROAD);
+
+        when(issueService.reportIssue(id, courierId, IssueType.CLOSED_ROAD, null))
+                .thenThrow(AccessForbiddenException.class);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> deliveryController.deliveryIdIssuesPost(id, request));
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatus());
+    }
+}
@@ -0,0 +1,44 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchivedDeliveryTest {
+
+    @Test
+    void toDeliveryKeepsAllFields() {
+        OffsetDateTime time = OffsetDateTime.of(2023, 11, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        ArchivedDelivery archived = new ArchivedDelivery();
+        archived.setId(new UUID(0, 1));
+        archived.setOrderId(new UUID(0, 2));
+        archived.setCourierId(new UUID(0, 3));
+        archived.setVendorId(new UUID(0, 4));
+        archived.setStatus(Delivery.StatusEnum.DELIVERED);
+        archived.setEstimatedDeliveryTime(time.plusMinutes(30));
+        archived.setEstimatedPreparationFinishTime(time.plusMinutes(10));
+        archived.setOrderPlacementTime(time);
+        archived.setLatitude(BigDecimal.valueOf(52.0));
+        archived.setLongitude(BigDecimal.valueOf(4.3));
+        archived.setVersion(7L);
+
+        Delivery delivery = archived.toDelivery();
+
+        assertEquals(new UUID(0, 1), delivery.getId());
+        assertEquals(new UUID(0, 2), delivery.getOrderId());
+        assertEquals(new UUID(0, 3), delivery.getCourierId());
+        assertEquals(new UUID(0, 4), delivery.getVendorId());
+        assertEquals(Delivery.StatusEnum.DELIVERED, delivery.getStatus());
+        assertEquals(time.plusMinutes(30), delivery.getEstimatedDeliveryTime());
+        assertEquals(time.plusMinutes(10), delivery.getEstimatedPreparationFinishTime());
+        assertEquals(time, delivery.getOrderPlacementTime());
+        assertEquals(BigDecimal.valueOf(52.0), delivery.getCurrentLocation().getLatitude());
+        assertEquals(BigDecimal.valueOf(4.3), delivery.getCurrentLocation().getLongitude());
+        assertEquals(7L, delivery.getVersion());
+    }
+}
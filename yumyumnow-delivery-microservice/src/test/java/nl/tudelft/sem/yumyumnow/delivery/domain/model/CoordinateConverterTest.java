@@ -0,0 +1,26 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoordinateConverterTest {
+    private final CoordinateConverter converter = new CoordinateConverter();
+
+    @Test
+    void storesDouble() {
+        assertEquals(52.011578, converter.convertToDatabaseColumn(new BigDecimal("52.011578")));
+    }
+
+    @Test
+    void readsDouble() {
+        assertEquals(0, new BigDecimal("4.357068").compareTo(converter.convertToEntityAttribute(4.357068)));
+    }
+
+    @Test
+    void keepsNull() {
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
@@ -0,0 +1,35 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeliveryStatusConverterTest {
+    private final DeliveryStatusConverter converter = new DeliveryStatusConverter();
+
+    @Test
+    void storesOrdinal() {
+        assertEquals((short) Delivery.StatusEnum.DELIVERED.ordinal(),
+                converter.convertToDatabaseColumn(Delivery.StatusEnum.DELIVERED));
+    }
+
+    @Test
+    void roundTripsEveryStatus() {
+        for (Delivery.StatusEnum status : Delivery.StatusEnum.values()) {
+            assertEquals(status, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(status)));
+        }
+    }
+
+    @Test
+    void keepsNull() {
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+
+    @Test
+    void rejectsUnknownCode() {
+        assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute((short) 100));
+        assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute((short) -1));
+    }
+}
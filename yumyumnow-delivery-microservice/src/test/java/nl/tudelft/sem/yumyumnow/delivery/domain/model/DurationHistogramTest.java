@@ -0,0 +1,71 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DurationHistogramTest {
+
+    @Test
+    void shortDurationsAreExact() {
+        for (long minutes = 0; minutes < 16; minutes++) {
+            assertEquals(minutes, DurationHistogram.lowerBoundOf(DurationHistogram.binOf(minutes)));
+        }
+    }
+
+    @Test
+    void longDurationsAreWithinAnEighth() {
+        for (long minutes = 16; minutes < 100_000; minutes += 7) {
+            long lowerBound = DurationHistogram.lowerBoundOf(DurationHistogram.binOf(minutes));
+            assertThat(lowerBound).isLessThanOrEqualTo(minutes);
+            assertThat(minutes - lowerBound).isLessThanOrEqualTo(minutes / 8);
+        }
+    }
+
+    @Test
+    void binsAreBounded() {
+        assertEquals(0, DurationHistogram.binOf(-30));
+        assertEquals(DurationHistogram.BINS - 1, DurationHistogram.binOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    void percentiles() {
+        DurationHistogram histogram = new DurationHistogram();
+        for (long minutes = 1; minutes <= 100; minutes++) {
+            histogram.add(minutes);
+        }
+
+        assertEquals(100, histogram.count());
+        assertEquals(48, histogram.percentile(50));
+        assertEquals(88, histogram.percentile(90));
+        assertEquals(96, histogram.percentile(99));
+        assertEquals(96, histogram.max());
+    }
+
+    @Test
+    void emptyHistogram() {
+        DurationHistogram histogram = new DurationHistogram();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(50));
+        assertEquals(0, histogram.max());
+    }
+
+    @Test
+    void mergeAddsBins() {
+        DurationHistogram first = new DurationHistogram();
+        first.add(5);
+        first.add(5);
+        DurationHistogram second = new DurationHistogram();
+        second.add(12);
+        second.addToBin(DurationHistogram.binOf(5), 1);
+
+        DurationHistogram merged = first.merge(second);
+
+        assertSame(first, merged);
+        assertEquals(4, merged.count());
+        assertEquals(5, merged.percentile(75));
+        assertEquals(12, merged.max());
+    }
+}
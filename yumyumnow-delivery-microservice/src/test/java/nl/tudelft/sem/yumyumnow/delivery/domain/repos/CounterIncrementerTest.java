@@ -0,0 +1,165 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.DeliveryRollup;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.IssueCounter;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.TimeHistogramBin;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the increments against the database, outside a test transaction, so every increment
+ * commits (or rolls back) like it does in the service.
+ */
+@DataJpaTest
+@ContextConfiguration(classes = CounterIncrementerTest.Repositories.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CounterIncrementerTest {
+    private static final short TYPE = 2;
+
+    @Autowired
+    private CounterIncrementer counterIncrementer;
+
+    @Autowired
+    private IssueCounterRepository issueCounterRepository;
+
+    @Autowired
+    private DeliveryRollupRepository deliveryRollupRepository;
+
+    @Autowired
+    private TimeHistogramRepository timeHistogramRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private TransactionTemplate otherTransaction;
+
+    /**
+     * Only the repositories and entities, without the services the application scans for.
+     * Not a @Configuration, so the component scan of the application does not pick it up.
+     */
+    @EntityScan(basePackageClasses = {IssueCounter.class, Delivery.class})
+    @EnableJpaRepositories(basePackageClasses = CounterIncrementer.class)
+    @Import(CounterIncrementer.class)
+    static class Repositories {
+    }
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        otherTransaction = new TransactionTemplate(transactionManager);
+        otherTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @AfterEach
+    void tearDown() {
+        issueCounterRepository.deleteAll();
+        deliveryRollupRepository.deleteAll();
+        timeHistogramRepository.deleteAll();
+    }
+
+    private long issues() {
+        return issueCounterRepository.findById(new IssueCounter.Key(10, TYPE)).orElseThrow().getIssues();
+    }
+
+    @Test
+    void missingRowIsCreatedAndExistingRowIncremented() {
+        issueCounterRepository.addToCounter(new IssueCounter(10, TYPE, 2));
+        issueCounterRepository.addToCounter(new IssueCounter(10, TYPE, 3));
+
+        assertEquals(5, issues());
+        assertEquals(1, issueCounterRepository.count());
+    }
+
+    @Test
+    void rowCreatedConcurrentlyIsIncrementedOnce() {
+        transaction.executeWithoutResult(status -> counterIncrementer.increment(
+                entityManager.createQuery("UPDATE IssueCounter c SET c.issues = c.issues + 1 "
+                                + "WHERE c.epochHour = 10 AND c.type = " + TYPE),
+                () -> {
+                    // Another increment creates the row just before this one does
+                    otherTransaction.executeWithoutResult(other -> entityManager.persist(
+                            new IssueCounter(10, TYPE, 4)));
+                    return new IssueCounter(10, TYPE, 0);
+                }));
+
+        assertEquals(5, issues());
+    }
+
+    @Test
+    void incrementRollsBackWithItsCaller() {
+        transaction.executeWithoutResult(status -> {
+            issueCounterRepository.addToCounter(new IssueCounter(10, TYPE, 1));
+            status.setRollbackOnly();
+        });
+
+        // Only the empty row outlives the rolled back transaction
+        assertEquals(0, issues());
+    }
+
+    @Test
+    void concurrentIncrementsOfAMissingRowAreAllCounted() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> increments = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                increments.add(executor.submit(() -> {
+                    start.await();
+                    issueCounterRepository.addToCounter(new IssueCounter(10, TYPE, 1));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> increment : increments) {
+                increment.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads, issues());
+    }
+
+    @Test
+    void rollupsAndHistogramsAreIncremented() {
+        deliveryRollupRepository.addToBucket(new DeliveryRollup(10, (short) 1, 1, 20, 1, 0, 0));
+        deliveryRollupRepository.addToBucket(new DeliveryRollup(10, (short) 1, 1, 30, 1, 0, 0));
+        timeHistogramRepository.addToBin(new TimeHistogramBin(10, (short) 0, (short) 3, 1));
+        timeHistogramRepository.addToBin(new TimeHistogramBin(10, (short) 0, (short) 3, -1));
+
+        DeliveryRollup rollup = deliveryRollupRepository.findAll().get(0);
+        assertEquals(2, rollup.getDeliveries());
+        assertEquals(50, rollup.getPrepMinutes());
+        assertEquals(2, rollup.getPrepDeliveries());
+        assertEquals(0, timeHistogramRepository.findAll().get(0).getDurations());
+    }
+}
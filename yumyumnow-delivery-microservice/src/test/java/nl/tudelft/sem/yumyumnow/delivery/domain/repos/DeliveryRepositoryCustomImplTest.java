@@ -0,0 +1,167 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.builders.DeliveryBuilder;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class DeliveryRepositoryCustomImplTest {
+    private EntityManager entityManager;
+    private TypedQuery<Delivery> firstPageQuery;
+    private TypedQuery<Delivery> nextPageQuery;
+    private DeliveryRepositoryCustomImpl repository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        firstPageQuery = mock(TypedQuery.class);
+        nextPageQuery = mock(TypedQuery.class);
+
+        when(entityManager.createQuery("SELECT d FROM Delivery d ORDER BY d.id", Delivery.class))
+                .thenReturn(firstPageQuery);
+        when(entityManager.createQuery("SELECT d FROM Delivery d WHERE d.id > :lastId ORDER BY d.id",
+                Delivery.class)).thenReturn(nextPageQuery);
+        for (TypedQuery<Delivery> query : List.of(firstPageQuery, nextPageQuery)) {
+            when(query.setParameter(anyString(), any())).thenReturn(query);
+            when(query.setMaxResults(anyInt())).thenReturn(query);
+            when(query.setHint(anyString(), any())).thenReturn(query);
+        }
+
+        repository = new DeliveryRepositoryCustomImpl(entityManager, 2);
+    }
+
+    private Delivery delivery(long id) {
+        return new DeliveryBuilder().setId(new UUID(0, id)).create();
+    }
+
+    @Test
+    void streamAllWalksAllPages() {
+        Delivery d1 = delivery(1);
+        Delivery d2 = delivery(2);
+        Delivery d3 = delivery(3);
+        when(firstPageQuery.getResultList()).thenReturn(List.of(d1, d2));
+        when(nextPageQuery.getResultList()).thenReturn(List.of(d3));
+
+        List<Delivery> all = repository.streamAll(2).collect(Collectors.toList());
+
+        assertThat(all).containsExactly(d1, d2, d3);
+        verify(nextPageQuery).setParameter("lastId", d2.getId());
+        verify(firstPageQuery).setHint("org.hibernate.fetchSize", 2);
+        verify(entityManager).detach(d1);
+        verify(entityManager).detach(d2);
+        verify(entityManager).detach(d3);
+    }
+
+    @Test
+    void streamAllStopsOnEmptyPage() {
+        Delivery d1 = delivery(1);
+        Delivery d2 = delivery(2);
+        when(firstPageQuery.getResultList()).thenReturn(List.of(d1, d2));
+        when(nextPageQuery.getResultList()).thenReturn(List.of());
+
+        assertThat(repository.streamAll(2).count()).isEqualTo(2);
+        verify(nextPageQuery, times(1)).getResultList();
+    }
+
+    @Test
+    void streamAllIsLazy() {
+        repository.streamAll(10);
+
+        verify(entityManager, never()).createQuery(anyString(), eq(Delivery.class));
+    }
+
+    @Test
+    void streamAllEmptyTable() {
+        when(firstPageQuery.getResultList()).thenReturn(List.of());
+
+        assertThat(repository.streamAll(5).count()).isZero();
+    }
+
+    @Test
+    void streamAllInvalidPageSize() {
+        assertThrows(IllegalArgumentException.class, () -> repository.streamAll(0));
+    }
+
+    @Test
+    void persistAllFlushesEveryBatch() {
+        Delivery d1 = delivery(1);
+        Delivery d2 = delivery(2);
+        Delivery d3 = delivery(3);
+
+        repository.persistAll(List.of(d1, d2, d3));
+
+        InOrder inOrder = inOrder(entityManager);
+        inOrder.verify(entityManager).persist(d1);
+        inOrder.verify(entityManager).persist(d2);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(entityManager).detach(d1);
+        inOrder.verify(entityManager).detach(d2);
+        inOrder.verify(entityManager).persist(d3);
+        inOrder.verify(entityManager).flush();
+        inOrder.verify(entityManager).detach(d3);
+        verify(entityManager, never()).merge(any());
+    }
+
+    @Test
+    void persistAllNothingToPersist() {
+        repository.persistAll(List.of());
+
+        verify(entityManager, never()).flush();
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypedQuery<UUID> stubArchiveCandidates(List<UUID> ids) {
+        TypedQuery<UUID> idQuery = mock(TypedQuery.class);
+        when(entityManager.createQuery(startsWith("SELECT d.id FROM Delivery d"), eq(UUID.class)))
+                .thenReturn(idQuery);
+        when(idQuery.setParameter(anyString(), any())).thenReturn(idQuery);
+        when(idQuery.setMaxResults(anyInt())).thenReturn(idQuery);
+        when(idQuery.getResultList()).thenReturn(ids);
+        return idQuery;
+    }
+
+    @Test
+    void archiveTerminalBeforeCopiesThenDeletes() {
+        List<UUID> ids = List.of(new UUID(0, 1), new UUID(0, 2));
+        OffsetDateTime cutoff = OffsetDateTime.now();
+        TypedQuery<UUID> idQuery = stubArchiveCandidates(ids);
+        Query insert = mock(Query.class);
+        Query delete = mock(Query.class);
+        when(entityManager.createQuery(startsWith("INSERT INTO ArchivedDelivery"))).thenReturn(insert);
+        when(entityManager.createQuery(startsWith("DELETE FROM Delivery"))).thenReturn(delete);
+        when(insert.setParameter("ids", ids)).thenReturn(insert);
+        when(delete.setParameter("ids", ids)).thenReturn(delete);
+
+        assertThat(repository.archiveTerminalBefore(cutoff, 10)).isEqualTo(2);
+
+        verify(idQuery).setParameter("cutoff", cutoff);
+        verify(idQuery).setMaxResults(10);
+        InOrder inOrder = inOrder(insert, delete);
+        inOrder.verify(insert).executeUpdate();
+        inOrder.verify(delete).executeUpdate();
+    }
+
+    @Test
+    void archiveTerminalBeforeNothingToArchive() {
+        stubArchiveCandidates(List.of());
+
+        assertThat(repository.archiveTerminalBefore(OffsetDateTime.now(), 10)).isZero();
+
+        verify(entityManager, never()).createQuery(startsWith("INSERT"));
+        verify(entityManager, never()).createQuery(startsWith("DELETE"));
+    }
+}
@@ -0,0 +1,57 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stubs of a mocked {@link DeliveryRepository} shared by the tests of the services and the application.
+ */
+public final class DeliveryRepositoryStubs {
+
+    private DeliveryRepositoryStubs() {
+    }
+
+    /**
+     * Let the mocked repository hold the given deliveries for the scan of the available deliveries.
+     * Like {@link DeliveryRepository#findAllUnassigned()}, only deliveries without a courier and with a location
+     * are scanned, and {@link DeliveryRepository#findAllById} loads any of the given deliveries.
+     *
+     * @param deliveryRepository the mocked repository
+     * @param deliveries         the deliveries in the repository
+     */
+    public static void stubUnassignedDeliveries(DeliveryRepository deliveryRepository, List<Delivery> deliveries) {
+        List<AvailableDelivery> unassigned = new ArrayList<>();
+        for (Delivery delivery : deliveries) {
+            if (delivery.getCourierId() == null && delivery.getCurrentLocation() != null
+                    && delivery.getCurrentLocation().getLatitude() != null
+                    && delivery.getCurrentLocation().getLongitude() != null) {
+                AvailableDelivery view = mock(AvailableDelivery.class);
+                when(view.getId()).thenReturn(delivery.getId());
+                when(view.getVendorId()).thenReturn(delivery.getVendorId());
+                when(view.getLatitude()).thenReturn(delivery.getCurrentLocation().getLatitude());
+                when(view.getLongitude()).thenReturn(delivery.getCurrentLocation().getLongitude());
+                unassigned.add(view);
+            }
+        }
+        when(deliveryRepository.findAllUnassigned()).thenReturn(unassigned);
+        when(deliveryRepository.findAllById(any())).thenAnswer(invocation -> {
+            Set<UUID> ids = new HashSet<>();
+            invocation.<Iterable<UUID>>getArgument(0).forEach(ids::add);
+            List<Delivery> found = new ArrayList<>();
+            for (Delivery delivery : deliveries) {
+                if (ids.contains(delivery.getId())) {
+                    found.add(delivery);
+                }
+            }
+            return found;
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.builders.DeliveryBuilder;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.ArchivedDelivery;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import nl.tudelft.sem.yumyumnow.delivery.model.DeliveryCurrentLocation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ContextConfiguration(classes = DeliveryRepositoryTest.Repositories.class)
+public class DeliveryRepositoryTest {
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    /**
+     * Only the repositories and entities, without the services the application scans for.
+     * Not a @Configuration, so the component scan of the application does not pick it up.
+     */
+    @EntityScan(basePackageClasses = {ArchivedDelivery.class, Delivery.class})
+    @EnableJpaRepositories(basePackageClasses = DeliveryRepository.class)
+    @Import(CounterIncrementer.class)
+    static class Repositories {
+    }
+
+    private UUID deliveryOf(UUID courierId, DeliveryCurrentLocation location) {
+        return deliveryRepository.save(new DeliveryBuilder()
+                .setId(UUID.randomUUID())
+                .setCourierId(courierId)
+                .setVendorId(UUID.randomUUID())
+                .setStatus(Delivery.StatusEnum.PENDING)
+                .setCurrentLocation(location)
+                .create()).getId();
+    }
+
+    @Test
+    void findAllUnassignedSkipsAssignedDeliveriesAndDeliveriesWithoutLocation() {
+        UUID available = deliveryOf(null, new DeliveryCurrentLocation()
+                .latitude(BigDecimal.ONE)
+                .longitude(BigDecimal.TEN));
+        UUID assigned = deliveryOf(UUID.randomUUID(), new DeliveryCurrentLocation()
+                .latitude(BigDecimal.ONE)
+                .longitude(BigDecimal.ONE));
+        UUID withoutLocation = deliveryOf(null, null);
+        UUID withoutLatitude = deliveryOf(null, new DeliveryCurrentLocation().longitude(BigDecimal.ONE));
+        Set<UUID> saved = Set.of(available, assigned, withoutLocation, withoutLatitude);
+
+        List<AvailableDelivery> unassigned = deliveryRepository.findAllUnassigned().stream()
+                .filter(delivery -> saved.contains(delivery.getId()))
+                .collect(Collectors.toList());
+
+        assertEquals(1, unassigned.size());
+        assertEquals(available, unassigned.get(0).getId());
+        assertEquals(0, BigDecimal.ONE.compareTo(unassigned.get(0).getLatitude()));
+        assertEquals(0, BigDecimal.TEN.compareTo(unassigned.get(0).getLongitude()));
+    }
+}
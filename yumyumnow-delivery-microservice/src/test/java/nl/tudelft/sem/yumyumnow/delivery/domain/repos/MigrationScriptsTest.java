@@ -0,0 +1,197 @@
+package nl.tudelft.sem.yumyumnow.delivery.domain.repos;
+
+import nl.tudelft.sem.yumyumnow.delivery.domain.builders.DeliveryBuilder;
+import nl.tudelft.sem.yumyumnow.delivery.domain.model.ArchivedDelivery;
+import nl.tudelft.sem.yumyumnow.delivery.model.Delivery;
+import nl.tudelft.sem.yumyumnow.delivery.model.DeliveryCurrentLocation;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Applies the scripts in db/migration, in the order they were added, to a database with the layout
+ * Hibernate created before the compact delivery storage, and reads the old rows back through the repositories.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = MigrationScriptsTest.Repositories.class)
+@TestPropertySource(properties = {"spring.datasource.url=" + MigrationScriptsTest.URL,
+    "spring.jpa.hibernate.ddl-auto=none"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class MigrationScriptsTest {
+    static final String URL = "jdbc:h2:mem:migration;DB_CLOSE_DELAY=-1";
+    private static final String[] SCRIPTS = {"compact-delivery-storage.sql", "order-placement-time.sql",
+        "archived-delivery-version.sql"};
+
+    private static final UUID DELIVERY_ID = new UUID(1, 1);
+    private static final UUID ARCHIVED_ID = new UUID(1, 2);
+    private static final UUID ORDER_ID = new UUID(2, 1);
+    private static final UUID COURIER_ID = new UUID(3, 1);
+    private static final UUID VENDOR_ID = new UUID(4, 1);
+    private static final OffsetDateTime PREPARED = OffsetDateTime.parse("2023-11-01T12:00:00Z");
+
+    @Autowired
+    private DeliveryRepository deliveryRepository;
+
+    @Autowired
+    private ArchivedDeliveryRepository archivedDeliveryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Only the repositories and entities; the schema comes from the scripts instead of from Hibernate.
+     * Not a @Configuration, so the component scan of the application does not pick it up.
+     */
+    @EntityScan(basePackageClasses = {ArchivedDelivery.class, Delivery.class})
+    @EnableJpaRepositories(basePackageClasses = DeliveryRepository.class)
+    @Import(CounterIncrementer.class)
+    static class Repositories {
+    }
+
+    /**
+     * Create the old layout with a row in each table and migrate it, before the context connects to it.
+     */
+    @BeforeAll
+    static void migrateOldDatabase() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE delivery (id BINARY(255) NOT NULL PRIMARY KEY, courier_id BINARY(255), "
+                    + "estimated_delivery_time TIMESTAMP, estimated_preparation_finish_time TIMESTAMP, "
+                    + "order_id BINARY(255), status INTEGER, vendor_id BINARY(255), version BIGINT, "
+                    + "latitude DECIMAL(19, 2), longitude DECIMAL(19, 2), timestamp TIMESTAMP)");
+            statement.execute("CREATE TABLE archived_delivery (id BINARY(255) NOT NULL PRIMARY KEY, "
+                    + "courier_id BINARY(255), estimated_delivery_time TIMESTAMP, "
+                    + "estimated_preparation_finish_time TIMESTAMP, latitude DECIMAL(19, 2), "
+                    + "longitude DECIMAL(19, 2), order_id BINARY(255), status INTEGER, vendor_id BINARY(255))");
+            insertOld(connection, "INSERT INTO delivery (id, order_id, courier_id, vendor_id, status, "
+                    + "estimated_preparation_finish_time, estimated_delivery_time, latitude, longitude, version) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 3)", DELIVERY_ID, Delivery.StatusEnum.IN_TRANSIT);
+            insertOld(connection, "INSERT INTO archived_delivery (id, order_id, courier_id, vendor_id, status, "
+                    + "estimated_preparation_finish_time, estimated_delivery_time, latitude, longitude) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", ARCHIVED_ID, Delivery.StatusEnum.DELIVERED);
+
+            for (String script : SCRIPTS) {
+                ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/migration/" + script));
+            }
+        }
+    }
+
+    private static void insertOld(Connection connection, String sql, UUID id, Delivery.StatusEnum status)
+            throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            insert.setBytes(1, bytesOf(id));
+            insert.setBytes(2, bytesOf(ORDER_ID));
+            insert.setBytes(3, bytesOf(COURIER_ID));
+            insert.setBytes(4, bytesOf(VENDOR_ID));
+            insert.setInt(5, status.ordinal());
+            insert.setObject(6, PREPARED.toLocalDateTime());
+            insert.setObject(7, PREPARED.plusMinutes(30).toLocalDateTime());
+            insert.setBigDecimal(8, new BigDecimal("52.01"));
+            insert.setBigDecimal(9, new BigDecimal("4.36"));
+            insert.executeUpdate();
+        }
+    }
+
+    /**
+     * The 16 bytes Hibernate stores a UUID as in a binary column.
+     */
+    private static byte[] bytesOf(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    private static void assertMigrated(Delivery delivery, Delivery.StatusEnum status) {
+        assertEquals(ORDER_ID, delivery.getOrderId());
+        assertEquals(COURIER_ID, delivery.getCourierId());
+        assertEquals(VENDOR_ID, delivery.getVendorId());
+        assertEquals(status, delivery.getStatus());
+        assertEquals(PREPARED.toInstant(), delivery.getEstimatedPreparationFinishTime().toInstant());
+        assertEquals(PREPARED.plusMinutes(30).toInstant(), delivery.getEstimatedDeliveryTime().toInstant());
+        assertNull(delivery.getOrderPlacementTime());
+        assertEquals(0, new BigDecimal("52.01").compareTo(delivery.getCurrentLocation().getLatitude()));
+        assertEquals(0, new BigDecimal("4.36").compareTo(delivery.getCurrentLocation().getLongitude()));
+    }
+
+    private String typeOf(String table, String column) {
+        return jdbcTemplate.queryForObject("SELECT TYPE_NAME || COALESCE('(' || CHARACTER_MAXIMUM_LENGTH || ')', '') "
+                + "FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = ? AND COLUMN_NAME = ?",
+                String.class, table.toUpperCase(), column.toUpperCase());
+    }
+
+    @Test
+    void columnsHaveTheCompactTypes() {
+        for (String table : new String[] {"delivery", "archived_delivery"}) {
+            for (String column : new String[] {"id", "order_id", "courier_id", "vendor_id"}) {
+                assertEquals("VARBINARY(16)", typeOf(table, column), table + "." + column);
+            }
+            assertEquals("SMALLINT(5)", typeOf(table, "status"));
+            assertEquals("DOUBLE(17)", typeOf(table, "latitude"));
+            assertEquals("DOUBLE(17)", typeOf(table, "longitude"));
+        }
+    }
+
+    @Test
+    void deliveryIsReadBack() {
+        Delivery delivery = deliveryRepository.findById(DELIVERY_ID).orElseThrow();
+
+        assertMigrated(delivery, Delivery.StatusEnum.IN_TRANSIT);
+        assertEquals(3L, delivery.getVersion());
+    }
+
+    @Test
+    void archivedDeliveryIsReadBack() {
+        Delivery delivery = archivedDeliveryRepository.findById(ARCHIVED_ID).orElseThrow().toDelivery();
+
+        assertMigrated(delivery, Delivery.StatusEnum.DELIVERED);
+        assertNull(delivery.getVersion());
+        assertEquals(1, archivedDeliveryRepository.sumDeliveryMinutesByStatusInPeriod(
+                Delivery.StatusEnum.DELIVERED.ordinal(), PREPARED.minusDays(1), PREPARED.plusDays(1))
+                .getDeliveries());
+    }
+
+    @Test
+    void newDeliveriesAreStoredInTheMigratedLayout() {
+        UUID id = UUID.randomUUID();
+        deliveryRepository.save(new DeliveryBuilder()
+                .setId(id)
+                .setStatus(Delivery.StatusEnum.PENDING)
+                .setOrderPlacementTime(PREPARED)
+                .setCurrentLocation(new DeliveryCurrentLocation()
+                        .latitude(new BigDecimal("52.0116"))
+                        .longitude(new BigDecimal("4.3571")))
+                .create());
+
+        Delivery delivery = deliveryRepository.findById(id).orElseThrow();
+
+        assertEquals(Delivery.StatusEnum.PENDING, delivery.getStatus());
+        assertEquals(PREPARED.toInstant(), delivery.getOrderPlacementTime().toInstant());
+        assertEquals(0, new BigDecimal("52.0116").compareTo(delivery.getCurrentLocation().getLatitude()));
+    }
+}
@@ -0,0 +1,86 @@
+package nl.tudelft.sem.yumyumnow.delivery.integration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import nl.tudelft.sem.yumyumnow.delivery.application.services.DownstreamGuards;
+import nl.tudelft.sem.yumyumnow.delivery.application.services.OrderService;
+import nl.tudelft.sem.yumyumnow.delivery.application.services.VendorService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+
+/**
+ * Checks the rest templates of the services, as built in the application context, are guarded.
+ */
+@SpringBootTest
+@DirtiesContext
+public class DownstreamWiringTest {
+    @Autowired
+    private VendorService vendorService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private DownstreamGuards downstreamGuards;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${user.microservice.url}")
+    private String userServiceUrl;
+
+    @Value("${order.microservice.url}")
+    private String orderServiceUrl;
+
+    private static RestTemplate restTemplateOf(Object service) {
+        return (RestTemplate) ReflectionTestUtils.getField(service, "restTemplate");
+    }
+
+    private double failures(String dependency) {
+        return meterRegistry.get("downstream.failures").tag("dependency", dependency).counter().count();
+    }
+
+    @Test
+    void servicesSendTheirRequestsThroughTheGuardsAndThePool() {
+        for (Object service : new Object[] {vendorService, orderService}) {
+            RestTemplate restTemplate = restTemplateOf(service);
+
+            assertTrue(restTemplate.getInterceptors().contains(downstreamGuards));
+            assertTrue(ReflectionTestUtils.getField(restTemplate, "requestFactory")
+                    instanceof HttpComponentsClientHttpRequestFactory);
+        }
+    }
+
+    @Test
+    void failedRequestsAreCountedByTheGuardOfTheirMicroservice() {
+        // The mock server replaces the request factory only, so the interceptors still apply
+        MockRestServiceServer userServer = MockRestServiceServer.bindTo(restTemplateOf(vendorService)).build();
+        userServer.expect(requestTo(startsWith(userServiceUrl))).andRespond(withServerError());
+        MockRestServiceServer orderServer = MockRestServiceServer.bindTo(restTemplateOf(orderService)).build();
+        orderServer.expect(requestTo(startsWith(orderServiceUrl))).andRespond(withServerError());
+        double userFailures = failures("user");
+        double orderFailures = failures("order");
+
+        assertThrows(HttpServerErrorException.class, () -> vendorService.getVendor(UUID.randomUUID().toString()));
+        assertThrows(HttpServerErrorException.class, () -> orderService.getStatus(UUID.randomUUID()));
+
+        userServer.verify();
+        orderServer.verify();
+        assertEquals(userFailures + 1, failures("user"));
+        assertEquals(orderFailures + 1, failures("order"));
+    }
+}
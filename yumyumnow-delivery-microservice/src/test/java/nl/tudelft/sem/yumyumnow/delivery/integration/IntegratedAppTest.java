@@ -38,6 +38,7 @@ import java.time.ZoneOffset;
 import java.util.*;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static nl.tudelft.sem.yumyumnow.delivery.domain.repos.DeliveryRepositoryStubs.stubUnassignedDeliveries;
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.doNothing;
@@ -51,7 +52,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
-@SpringBootTest(webEnvironment = WebEnvironment.DEFINED_PORT)
+// The delivery repository is mocked, so there is nothing to fill the snapshot with
+@SpringBootTest(webEnvironment = WebEnvironment.DEFINED_PORT, properties = "analytics.snapshot.loadOnStartup=false")
 @AutoConfigureMockMvc
 public class IntegratedAppTest {
     @Autowired
@@ -133,7 +135,7 @@ public class IntegratedAppTest {
         this.mockMvc.perform(post("/delivery").contentType(MediaType.APPLICATION_JSON_VALUE)
                         .content(requestJson))
                 .andDo(print()).andExpect(status().isOk())
-                .andExpect(content().string(containsString("\"orderId\":\"7ddf1a10-8dfa-11ee-b9d1-0242ac120002\",\"courierId\":null,\"vendorId\":\"7ddf1a10-8dfa-11ee-b9d1-0242ac120002\",\"status\":\"PENDING\",\"estimatedDeliveryTime\":null,\"estimatedPreparationFinishTime\":null,\"currentLocation\":null}")));
+                .andExpect(content().string(containsString("\"orderId\":\"7ddf1a10-8dfa-11ee-b9d1-0242ac120002\",\"courierId\":null,\"vendorId\":\"7ddf1a10-8dfa-11ee-b9d1-0242ac120002\",\"status\":\"PENDING\",\"estimatedDeliveryTime\":null,\"estimatedPreparationFinishTime\":null,\"orderPlacementTime\":null,\"version\":null,\"currentLocation\":null}")));
     }
 
     @Test
@@ -143,7 +145,7 @@ public class IntegratedAppTest {
 
         this.mockMvc.perform(get("/delivery/" + deliveryUUID))
                 .andDo(print()).andExpect(status().isOk())
-                .andExpect(content().string(containsString("{\"id\":null,\"orderId\":null,\"courierId\":null,\"vendorId\":null,\"status\":null,\"estimatedDeliveryTime\":null,\"estimatedPreparationFinishTime\":null,\"currentLocation\":null}")));
+                .andExpect(content().string(containsString("{\"id\":null,\"orderId\":null,\"courierId\":null,\"vendorId\":null,\"status\":null,\"estimatedDeliveryTime\":null,\"estimatedPreparationFinishTime\":null,\"orderPlacementTime\":null,\"version\":null,\"currentLocation\":null}")));
 
     }
 
@@ -273,20 +275,24 @@ public class IntegratedAppTest {
         delivery1.setCourierId(UUID.randomUUID());
 
         Delivery delivery2 = new Delivery();
+        delivery2.setId(UUID.randomUUID());
         delivery2.setVendorId(delivery2vendorId);
         when(vendorService.getVendor(delivery2vendorId.toString())).thenReturn(delivery2vendor);
         delivery2.setCurrentLocation(delivery2location);
 
         Delivery delivery3 = new Delivery();
+        delivery3.setId(UUID.randomUUID());
         delivery3.setVendorId(delivery3vendorId);
         when(vendorService.getVendor(delivery3vendorId.toString())).thenReturn(delivery3vendor);
         delivery3.setCurrentLocation(delivery2location);
 
         Delivery delivery4 = new Delivery();
+        delivery4.setId(UUID.randomUUID());
         delivery4.setVendorId(delivery2vendorId);
         delivery4.setCurrentLocation(delivery4location);
 
         Delivery delivery5 = new Delivery();
+        delivery5.setId(UUID.randomUUID());
         delivery5.setVendorId(delivery2vendorId);
         delivery5.setCurrentLocation(delivery5location);
 
@@ -298,7 +304,7 @@ public class IntegratedAppTest {
         allDeliveries.add(delivery5);
 
 
-        when(deliveryRepository.findAll()).thenReturn(allDeliveries);
+        stubUnassignedDeliveries(deliveryRepository, allDeliveries);
 
         Location courierLocation = new Location();
         courierLocation.setLongitude(delivery4location.getLongitude());
@@ -310,7 +316,7 @@ public class IntegratedAppTest {
                         .param("location", ow.writeValueAsString(courierLocation))
                         .param("courierId", String.valueOf(courierId)))
                 .andDo(print()).andExpect(status().isOk())
-                .andExpect(content().string(containsString("{\"id\":null,\"")));
+                .andExpect(content().string(containsString("{\"id\":\"" + delivery4.getId() + "\"")));
     }
 
     @Test